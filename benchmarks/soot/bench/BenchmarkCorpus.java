@@ -0,0 +1,104 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 1997-2014 Raja Vallee-Rai and others
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+package soot.bench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import soot.Body;
+import soot.G;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.jimple.JimpleBody;
+import soot.options.Options;
+
+/**
+ * The fixed corpus the benchmarks run on. By default it consists of jars
+ * already bundled in libs/, so that results stay comparable across commits;
+ * the system properties soot.bench.library and soot.bench.program point the
+ * benchmarks at other jars.
+ */
+final class BenchmarkCorpus {
+    /** Jar whose classes are used by the per-body benchmarks. */
+    static final String LIBRARY =
+        System.getProperty( "soot.bench.library", "libs/polyglot.jar" );
+
+    /** Jar holding the whole program analysed by the Spark benchmark. */
+    static final String PROGRAM =
+        System.getProperty( "soot.bench.program", "libs/java_cup.jar" );
+
+    /** Main class of PROGRAM. */
+    static final String PROGRAM_MAIN =
+        System.getProperty( "soot.bench.main", "java_cup.Main" );
+
+    private BenchmarkCorpus() {}
+
+    /** Resets Soot, and loads all the classes of jar as application classes,
+     * with the given additional command-line options. Soot's own output is
+     * discarded. */
+    static List<SootClass> load( String jar, String... options ) {
+        G.reset();
+        G.v().out = new PrintStream( new OutputStream() {
+            public void write( int b ) {}
+        } );
+        List<String> args = new ArrayList<String>( Arrays.asList(
+                "-pp", "-cp", jar, "-process-dir", jar,
+                "-allow-phantom-refs", "-f", "none" ) );
+        args.addAll( Arrays.asList( options ) );
+        if( !Options.v().parse( args.toArray( new String[args.size()] ) ) ) {
+            throw new IllegalArgumentException( "Bad options "+args );
+        }
+        Scene.v().loadNecessaryClasses();
+        return new ArrayList<SootClass>( Scene.v().getApplicationClasses() );
+    }
+
+    /** Returns the concrete methods of the given classes. */
+    static List<SootMethod> concreteMethods( List<SootClass> classes ) {
+        List<SootMethod> ret = new ArrayList<SootMethod>();
+        for( SootClass c : classes ) {
+            for( SootMethod m : c.getMethods() ) {
+                if( m.isConcrete() ) ret.add( m );
+            }
+        }
+        return ret;
+    }
+
+    /** Retrieves the active bodies of the given methods. */
+    static List<JimpleBody> bodies( List<SootMethod> methods ) {
+        List<JimpleBody> ret = new ArrayList<JimpleBody>( methods.size() );
+        for( SootMethod m : methods ) {
+            ret.add( (JimpleBody) m.retrieveActiveBody() );
+        }
+        return ret;
+    }
+
+    /** Returns fresh copies of the given bodies, for benchmarks that modify
+     * them. */
+    static List<JimpleBody> copies( List<JimpleBody> bodies ) {
+        List<JimpleBody> ret = new ArrayList<JimpleBody>( bodies.size() );
+        for( Body b : bodies ) {
+            ret.add( (JimpleBody) b.clone() );
+        }
+        return ret;
+    }
+}
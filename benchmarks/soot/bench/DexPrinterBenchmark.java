@@ -0,0 +1,122 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 1997-2014 Raja Vallee-Rai and others
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+package soot.bench;
+
+import static soot.bench.BenchmarkCorpus.LIBRARY;
+import static soot.bench.BenchmarkCorpus.bodies;
+import static soot.bench.BenchmarkCorpus.concreteMethods;
+import static soot.bench.BenchmarkCorpus.copies;
+import static soot.bench.BenchmarkCorpus.load;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import soot.SootClass;
+import soot.SootMethod;
+import soot.jimple.JimpleBody;
+import soot.options.Options;
+import soot.toDex.DexPrinter;
+
+/** Measures translating all the classes of the corpus to Dalvik and writing
+ * them to a classes.dex file in a temporary directory. Classes the dex
+ * back end cannot translate are left out of the measurement. */
+@BenchmarkMode( Mode.SingleShotTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 10 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class DexPrinterBenchmark {
+    private final List<SootClass> classes = new ArrayList<SootClass>();
+    private final Map<SootMethod, JimpleBody> pristine = new HashMap<SootMethod, JimpleBody>();
+    private File outputDir;
+
+    @Setup( Level.Trial )
+    public void loadCorpus() throws IOException {
+        outputDir = File.createTempFile( "soot-bench", "" );
+        if( !outputDir.delete() || !outputDir.mkdir() ) {
+            throw new IOException( "Cannot create "+outputDir );
+        }
+        List<SootClass> all = load( LIBRARY, "-d", outputDir.getPath() );
+        Options.v().set_output_format( Options.output_format_dex );
+        List<SootMethod> methods = concreteMethods( all );
+        List<JimpleBody> bodies = copies( bodies( methods ) );
+        for( int i = 0; i < methods.size(); i++ ) {
+            pristine.put( methods.get( i ), bodies.get( i ) );
+        }
+        resetBodies( all );
+        for( SootClass c : all ) {
+            try {
+                new DexPrinter().add( c );
+                classes.add( c );
+            } catch( RuntimeException e ) {
+                // not translatable to dex; leave it out
+            }
+        }
+    }
+
+    @Setup( Level.Invocation )
+    public void copyBodies() {
+        resetBodies( classes );
+    }
+
+    /** Gives the methods of the given classes fresh copies of their
+     * original bodies, since DexPrinter modifies the bodies it prints. */
+    private void resetBodies( List<SootClass> cs ) {
+        for( SootClass c : cs ) {
+            for( SootMethod m : c.getMethods() ) {
+                JimpleBody b = pristine.get( m );
+                if( b != null ) m.setActiveBody( (JimpleBody) b.clone() );
+            }
+        }
+    }
+
+    @TearDown( Level.Trial )
+    public void deleteOutput() {
+        new File( outputDir, "classes.dex" ).delete();
+        outputDir.delete();
+    }
+
+    @Benchmark
+    public void print() {
+        DexPrinter printer = new DexPrinter();
+        for( SootClass c : classes ) {
+            printer.add( c );
+        }
+        printer.print();
+    }
+}
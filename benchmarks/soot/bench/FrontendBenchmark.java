@@ -0,0 +1,65 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 1997-2014 Raja Vallee-Rai and others
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+package soot.bench;
+
+import static soot.bench.BenchmarkCorpus.LIBRARY;
+import static soot.bench.BenchmarkCorpus.concreteMethods;
+import static soot.bench.BenchmarkCorpus.load;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import soot.SootClass;
+import soot.SootMethod;
+
+/** Measures reading the class files of the corpus and converting all their
+ * methods to Jimple with the ASM or the coffi front end, without running
+ * the jb pack on the resulting bodies. */
+@BenchmarkMode( Mode.SingleShotTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 10 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class FrontendBenchmark {
+    @Param( { "asm", "coffi" } )
+    public String frontend;
+
+    @Benchmark
+    public void toJimple( Blackhole bh ) {
+        List<SootClass> classes = frontend.equals( "coffi" )
+            ? load( LIBRARY, "-coffi", "-p", "jb", "enabled:false" )
+            : load( LIBRARY, "-p", "jb", "enabled:false" );
+        for( SootMethod m : concreteMethods( classes ) ) {
+            bh.consume( m.retrieveActiveBody() );
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 1997-2014 Raja Vallee-Rai and others
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+package soot.bench;
+
+import static soot.bench.BenchmarkCorpus.LIBRARY;
+import static soot.bench.BenchmarkCorpus.bodies;
+import static soot.bench.BenchmarkCorpus.concreteMethods;
+import static soot.bench.BenchmarkCorpus.copies;
+import static soot.bench.BenchmarkCorpus.load;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import soot.Pack;
+import soot.PackManager;
+import soot.PhaseOptions;
+import soot.jimple.JimpleBody;
+
+/** Measures the jb pack on the naive Jimple produced by the front end for
+ * all the methods of the corpus. */
+@BenchmarkMode( Mode.SingleShotTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 10 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class JbPackBenchmark {
+    private List<JimpleBody> naive;
+    private List<JimpleBody> bodies;
+
+    @Setup( Level.Trial )
+    public void loadCorpus() {
+        naive = bodies( concreteMethods( load( LIBRARY, "-p", "jb", "enabled:false" ) ) );
+        PhaseOptions.v().setPhaseOption( "jb", "enabled:true" );
+    }
+
+    @Setup( Level.Invocation )
+    public void copyBodies() {
+        bodies = copies( naive );
+    }
+
+    @Benchmark
+    public List<JimpleBody> jb() {
+        Pack jb = PackManager.v().getPack( "jb" );
+        for( JimpleBody b : bodies ) {
+            jb.apply( b );
+        }
+        return bodies;
+    }
+}
@@ -0,0 +1,80 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 1997-2014 Raja Vallee-Rai and others
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+package soot.bench;
+
+import static soot.bench.BenchmarkCorpus.PROGRAM;
+import static soot.bench.BenchmarkCorpus.PROGRAM_MAIN;
+import static soot.bench.BenchmarkCorpus.load;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import soot.G;
+import soot.PackManager;
+import soot.PhaseOptions;
+import soot.PointsToAnalysis;
+import soot.Scene;
+import soot.Transform;
+
+/** Measures a Spark run, building the pointer assignment graph and the call
+ * graph on the fly, on the whole program in the corpus. The Jimple bodies
+ * are built once, before the measurements. */
+@BenchmarkMode( Mode.SingleShotTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 10 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class SparkBenchmark {
+    @Param( { "worklist" } )
+    public String propagator;
+
+    @Setup( Level.Trial )
+    public void loadCorpus() {
+        load( PROGRAM, "-w", "-main-class", PROGRAM_MAIN,
+                "-no-bodies-for-excluded", "-p", "cg.spark", "on" );
+        PhaseOptions.v().setPhaseOption( "cg.spark", "propagator:"+propagator );
+        PackManager.v().getPack( "cg" ).apply();
+    }
+
+    @Setup( Level.Invocation )
+    public void releaseResults() {
+        Scene.v().releaseCallGraph();
+        Scene.v().releasePointsToAnalysis();
+        G.v().MethodPAG_methodToPag.clear();
+    }
+
+    @Benchmark
+    public PointsToAnalysis spark() {
+        ((Transform) PackManager.v().getPhase( "cg.spark" )).apply();
+        return Scene.v().getPointsToAnalysis();
+    }
+}
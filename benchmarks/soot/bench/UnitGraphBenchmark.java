@@ -0,0 +1,96 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 1997-2014 Raja Vallee-Rai and others
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+package soot.bench;
+
+import static soot.bench.BenchmarkCorpus.LIBRARY;
+import static soot.bench.BenchmarkCorpus.bodies;
+import static soot.bench.BenchmarkCorpus.concreteMethods;
+import static soot.bench.BenchmarkCorpus.load;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import soot.jimple.JimpleBody;
+import soot.toolkits.graph.ExceptionalUnitGraph;
+import soot.toolkits.scalar.LocalDefs;
+import soot.toolkits.scalar.SimpleLocalDefs;
+import soot.toolkits.scalar.SimpleLocalUses;
+
+/** Measures building ExceptionalUnitGraphs, SimpleLocalDefs and
+ * SimpleLocalUses for all the methods of the corpus. Each analysis gets
+ * the inputs it depends on prebuilt, so that only its own cost is
+ * measured. */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 5 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class UnitGraphBenchmark {
+    private List<JimpleBody> bodies;
+    private List<ExceptionalUnitGraph> graphs;
+    private List<LocalDefs> defs;
+
+    @Setup( Level.Trial )
+    public void loadCorpus() {
+        bodies = bodies( concreteMethods( load( LIBRARY ) ) );
+        graphs = new ArrayList<ExceptionalUnitGraph>( bodies.size() );
+        defs = new ArrayList<LocalDefs>( bodies.size() );
+        for( JimpleBody b : bodies ) {
+            ExceptionalUnitGraph g = new ExceptionalUnitGraph( b );
+            graphs.add( g );
+            defs.add( new SimpleLocalDefs( g ) );
+        }
+    }
+
+    @Benchmark
+    public void exceptionalUnitGraph( Blackhole bh ) {
+        for( JimpleBody b : bodies ) {
+            bh.consume( new ExceptionalUnitGraph( b ) );
+        }
+    }
+
+    @Benchmark
+    public void simpleLocalDefs( Blackhole bh ) {
+        for( ExceptionalUnitGraph g : graphs ) {
+            bh.consume( new SimpleLocalDefs( g ) );
+        }
+    }
+
+    @Benchmark
+    public void simpleLocalUses( Blackhole bh ) {
+        for( int i = 0; i < graphs.size(); i++ ) {
+            bh.consume( new SimpleLocalUses( graphs.get( i ), defs.get( i ) ) );
+        }
+    }
+}
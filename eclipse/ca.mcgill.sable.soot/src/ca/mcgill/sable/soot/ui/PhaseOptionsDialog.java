@@ -713,6 +713,9 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 		addToEnableGroup("cg", getcgtrim_clinit_widget(), "trim-clinit");
 		
 		
+		addToEnableGroup("cg", getcgcompact_widget(), "compact");
+		
+		
 		getcgenabled_widget().getButton().addSelectionListener(this);
 		
 		getcgsafe_forname_widget().getButton().addSelectionListener(this);
@@ -727,6 +730,8 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 		
 		getcgtrim_clinit_widget().getButton().addSelectionListener(this);
 		
+		getcgcompact_widget().getButton().addSelectionListener(this);
+		
 		
 		makeNewEnableGroup("cg", "cg.cha");
 		
@@ -837,6 +842,9 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 		addToEnableGroup("cg", "cg.spark", getcgcg_sparkset_mass_widget(), "set-mass");
 
 		
+		addToEnableGroup("cg", "cg.spark", getcgcg_sparkfreeze_sets_widget(), "freeze-sets");
+
+		
 		addToEnableGroup("cg", "cg.spark", getcgcg_sparkcs_demand_widget(), "cs-demand");
 
 		
@@ -2028,6 +2036,15 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 			getConfig().put(getGeneral_Optionsphase_help_widget().getAlias(), stringRes);
 		}
 		
+		stringRes = getGeneral_Optionsnum_threads_widget().getText().getText();
+		
+		defStringRes = "1";
+		
+
+	        if ( (!(stringRes.equals(defStringRes))) && (stringRes != null) && (stringRes.length() != 0)) {
+			getConfig().put(getGeneral_Optionsnum_threads_widget().getAlias(), stringRes);
+		}
+		
 		boolRes = getInput_Optionsprepend_classpath_widget().getButton().getSelection();
 		
 		
@@ -2048,6 +2065,16 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 			getConfig().put(getInput_Optionsoaat_widget().getAlias(), new Boolean(boolRes));
 		}
 		
+		boolRes = getInput_Optionslazy_dex_resolution_widget().getButton().getSelection();
+		
+		
+		defBoolRes = false;
+		
+
+		if (boolRes != defBoolRes) {
+			getConfig().put(getInput_Optionslazy_dex_resolution_widget().getAlias(), new Boolean(boolRes));
+		}
+		
 		boolRes = getInput_Optionsast_metrics_widget().getButton().getSelection();
 		
 		
@@ -2152,6 +2179,15 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 	        if ( (!(stringRes.equals(defStringRes))) && (stringRes != null) && (stringRes.length() != 0)) {
 			getConfig().put(getInput_Optionsmain_class_widget().getAlias(), stringRes);
 		}
+		
+		stringRes = getInput_Optionsbody_cache_dir_widget().getText().getText();
+		
+		defStringRes = "";
+		
+
+	        if ( (!(stringRes.equals(defStringRes))) && (stringRes != null) && (stringRes.length() != 0)) {
+			getConfig().put(getInput_Optionsbody_cache_dir_widget().getAlias(), stringRes);
+		}
 		 
 		stringRes = getInput_Optionssrc_prec_widget().getSelectedAlias();
 
@@ -2939,6 +2975,16 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 			getConfig().put(getcgtrim_clinit_widget().getAlias(), new Boolean(boolRes));
 		}
 		
+		boolRes = getcgcompact_widget().getButton().getSelection();
+		
+		
+		defBoolRes = false;
+		
+
+		if (boolRes != defBoolRes) {
+			getConfig().put(getcgcompact_widget().getAlias(), new Boolean(boolRes));
+		}
+		
 		stringRes = getcgjdkver_widget().getText().getText();
 		
 		defStringRes = "3";
@@ -2966,6 +3012,24 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 			getConfig().put(getcgguards_widget().getAlias(), stringRes);
 		}
 		
+		stringRes = getcgread_snapshot_widget().getText().getText();
+		
+		defStringRes = "";
+		
+
+	        if ( (!(stringRes.equals(defStringRes))) && (stringRes != null) && (stringRes.length() != 0)) {
+			getConfig().put(getcgread_snapshot_widget().getAlias(), stringRes);
+		}
+		
+		stringRes = getcgwrite_snapshot_widget().getText().getText();
+		
+		defStringRes = "";
+		
+
+	        if ( (!(stringRes.equals(defStringRes))) && (stringRes != null) && (stringRes.length() != 0)) {
+			getConfig().put(getcgwrite_snapshot_widget().getAlias(), stringRes);
+		}
+		
 		boolRes = getcgcg_chaenabled_widget().getButton().getSelection();
 		
 		
@@ -3296,6 +3360,16 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 			getConfig().put(getcgcg_sparkset_mass_widget().getAlias(), new Boolean(boolRes));
 		}
 		
+		boolRes = getcgcg_sparkfreeze_sets_widget().getButton().getSelection();
+		
+		
+		defBoolRes = false;
+		
+
+		if (boolRes != defBoolRes) {
+			getConfig().put(getcgcg_sparkfreeze_sets_widget().getAlias(), new Boolean(boolRes));
+		}
+		
 		boolRes = getcgcg_sparkcs_demand_widget().getButton().getSelection();
 		
 		
@@ -5336,6 +5410,15 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 			getConfig().put(getMiscellaneous_Optionsno_writeout_body_releasing_widget().getAlias(), new Boolean(boolRes));
 		}
 		
+		stringRes = getMiscellaneous_Optionsphase_metrics_widget().getText().getText();
+		
+		defStringRes = "";
+		
+
+	        if ( (!(stringRes.equals(defStringRes))) && (stringRes != null) && (stringRes.length() != 0)) {
+			getConfig().put(getMiscellaneous_Optionsphase_metrics_widget().getAlias(), stringRes);
+		}
+		
 		
 		setSootMainClass(getSootMainClassWidget().getText().getText());			
 		return setSootMainProject(getSootMainProjectWidget().getText().getText());
@@ -6616,6 +6699,18 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 	}	
 	
 	
+	
+	private StringOptionWidget General_Optionsnum_threads_widget;
+	
+	private void setGeneral_Optionsnum_threads_widget(StringOptionWidget widget) {
+		General_Optionsnum_threads_widget = widget;
+	}
+	
+	public StringOptionWidget getGeneral_Optionsnum_threads_widget() {
+		return General_Optionsnum_threads_widget;
+	}
+	
+	
 	private BooleanOptionWidget Input_Optionsprepend_classpath_widget;
 	
 	private void setInput_Optionsprepend_classpath_widget(BooleanOptionWidget widget) {
@@ -6636,6 +6731,16 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 		return Input_Optionsoaat_widget;
 	}	
 	
+	private BooleanOptionWidget Input_Optionslazy_dex_resolution_widget;
+	
+	private void setInput_Optionslazy_dex_resolution_widget(BooleanOptionWidget widget) {
+		Input_Optionslazy_dex_resolution_widget = widget;
+	}
+	
+	public BooleanOptionWidget getInput_Optionslazy_dex_resolution_widget() {
+		return Input_Optionslazy_dex_resolution_widget;
+	}	
+	
 	private BooleanOptionWidget Input_Optionsast_metrics_widget;
 	
 	private void setInput_Optionsast_metrics_widget(BooleanOptionWidget widget) {
@@ -6757,6 +6862,18 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 	
 	
 	
+	private StringOptionWidget Input_Optionsbody_cache_dir_widget;
+	
+	private void setInput_Optionsbody_cache_dir_widget(StringOptionWidget widget) {
+		Input_Optionsbody_cache_dir_widget = widget;
+	}
+	
+	public StringOptionWidget getInput_Optionsbody_cache_dir_widget() {
+		return Input_Optionsbody_cache_dir_widget;
+	}
+	
+	
+	
 	private MultiOptionWidget Input_Optionssrc_prec_widget;
 	
 	private void setInput_Optionssrc_prec_widget(MultiOptionWidget widget) {
@@ -7562,6 +7679,16 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 		return cgtrim_clinit_widget;
 	}	
 	
+	private BooleanOptionWidget cgcompact_widget;
+	
+	private void setcgcompact_widget(BooleanOptionWidget widget) {
+		cgcompact_widget = widget;
+	}
+	
+	public BooleanOptionWidget getcgcompact_widget() {
+		return cgcompact_widget;
+	}	
+	
 	
 	private StringOptionWidget cgjdkver_widget;
 	
@@ -7598,6 +7725,30 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 	}
 	
 	
+	
+	private StringOptionWidget cgread_snapshot_widget;
+	
+	private void setcgread_snapshot_widget(StringOptionWidget widget) {
+		cgread_snapshot_widget = widget;
+	}
+	
+	public StringOptionWidget getcgread_snapshot_widget() {
+		return cgread_snapshot_widget;
+	}
+	
+	
+	
+	private StringOptionWidget cgwrite_snapshot_widget;
+	
+	private void setcgwrite_snapshot_widget(StringOptionWidget widget) {
+		cgwrite_snapshot_widget = widget;
+	}
+	
+	public StringOptionWidget getcgwrite_snapshot_widget() {
+		return cgwrite_snapshot_widget;
+	}
+	
+	
 	private BooleanOptionWidget cgcg_chaenabled_widget;
 	
 	private void setcgcg_chaenabled_widget(BooleanOptionWidget widget) {
@@ -7936,6 +8087,16 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 		return cgcg_sparkset_mass_widget;
 	}	
 	
+	private BooleanOptionWidget cgcg_sparkfreeze_sets_widget;
+	
+	private void setcgcg_sparkfreeze_sets_widget(BooleanOptionWidget widget) {
+		cgcg_sparkfreeze_sets_widget = widget;
+	}
+	
+	public BooleanOptionWidget getcgcg_sparkfreeze_sets_widget() {
+		return cgcg_sparkfreeze_sets_widget;
+	}	
+	
 	private BooleanOptionWidget cgcg_sparkcs_demand_widget;
 	
 	private void setcgcg_sparkcs_demand_widget(BooleanOptionWidget widget) {
@@ -10066,6 +10227,18 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 		return Miscellaneous_Optionsno_writeout_body_releasing_widget;
 	}	
 	
+	
+	private StringOptionWidget Miscellaneous_Optionsphase_metrics_widget;
+	
+	private void setMiscellaneous_Optionsphase_metrics_widget(StringOptionWidget widget) {
+		Miscellaneous_Optionsphase_metrics_widget = widget;
+	}
+	
+	public StringOptionWidget getMiscellaneous_Optionsphase_metrics_widget() {
+		return Miscellaneous_Optionsphase_metrics_widget;
+	}
+	
+	
 
 	private Composite General_OptionsCreate(Composite parent) {
 		String defKey;
@@ -10329,6 +10502,21 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 
 		setGeneral_Optionsphase_help_widget(new ListOptionWidget(editGroupGeneral_Options, SWT.NONE, new OptionData("Phase Help",  "", "","ph", "\nPrint a help message about the phase or sub-phase named PHASE, \nthen exit. To see the help message of more than one phase, \nspecify multiple phase-help options. ", defaultString)));
 		
+		
+		defKey = ""+" "+""+" "+"num-threads";
+		defKey = defKey.trim();
+		
+		if (isInDefList(defKey)) {
+			defaultString = getStringDef(defKey);	
+		}
+		else {
+			
+			defaultString = "1";
+			
+		}
+
+		setGeneral_Optionsnum_threads_widget(new StringOptionWidget(editGroupGeneral_Options, SWT.NONE, new OptionData("Number of Threads",  "", "","num-threads", "\nUse a pool of NUM worker threads for the parts of Soot that can \nrun concurrently. The default of 1 does everything on the main \nthread. A value of 0 or less uses one thread per available \nprocessor. While resolving classes, the class files (or Jimple \nfiles) on the soot-class-path are located, read and parsed ahead \nof time on the worker threads; the resulting classes are still \nadded to the Scene on the main thread, in the same order as in \nsingle-threaded mode. This is not done for APK input or when the \nPolyglot front-end is used. The intraprocedural body packs (jtp, \njop, jap, the Shimple packs and Grimp/Baf creation) are applied \nto the methods of the application classes on the worker threads. \nBodies are still created on the main thread before the packs \nrun, and output is written in the same order as in \nsingle-threaded mode. Custom transformers registered in a body \npack must be thread-safe when this option is greater than 1. \nDava output and interactive mode always run single-threaded.", defaultString)));
+		
 
 		
 		return editGroupGeneral_Options;
@@ -10392,6 +10580,22 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 		
 		
 		
+		defKey = ""+" "+""+" "+"lazy-dex-resolution";
+		defKey = defKey.trim();
+
+		if (isInDefList(defKey)) {
+			defaultBool = getBoolDef(defKey);	
+		}
+		else {
+			
+			defaultBool = false;
+			
+		}
+
+		setInput_Optionslazy_dex_resolution_widget(new BooleanOptionWidget(editGroupInput_Options, SWT.NONE, new OptionData("Lazy Dex Resolution", "", "","lazy-dex-resolution", "\nBy default, Soot brings every type referenced by a dex or APK \nfile to the signatures level as soon as the first class is \nloaded from that file. With this option, the class definitions \nin the file are only indexed, and a class is resolved when it is \nrequested, like classes from class files. This makes loading \nlarge APKs much faster when only part of the code is analysed. \n			", defaultBool)));
+		
+		
+		
 		defKey = ""+" "+""+" "+"ast-metrics";
 		defKey = defKey.trim();
 
@@ -10610,6 +10814,21 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 
 		setInput_Optionsmain_class_widget(new StringOptionWidget(editGroupInput_Options, SWT.NONE, new OptionData("Main Class",  "", "","main-class", "\nBy default, the first class encountered with a main method is \ntreated as the main class (entry point) in whole-program \nanalysis. This option overrides this default. ", defaultString)));
 		
+		
+		defKey = ""+" "+""+" "+"body-cache-dir";
+		defKey = defKey.trim();
+		
+		if (isInDefList(defKey)) {
+			defaultString = getStringDef(defKey);	
+		}
+		else {
+			
+			defaultString = "";
+			
+		}
+
+		setInput_Optionsbody_cache_dir_widget(new StringOptionWidget(editGroupInput_Options, SWT.NONE, new OptionData("Body Cache Directory",  "", "","body-cache-dir", "\nStore the Jimple body of every method read from a class file, \nas it is after the jb pack, in a binary cache in DIR, and reuse \nit instead of converting the bytecode again in later runs. \nEntries are keyed by the contents of the class file, the Soot \nversion and the options of the jb pack, so a changed class file \nor different options never see stale bodies. Only classes read \nthrough the ASM front-end are cached. Bodies carrying tags other \nthan line numbers and bytecode offsets are not cached. By \ndefault no cache is used.", defaultString)));
+		
 
 		
 		return editGroupInput_Options;
@@ -12947,6 +13166,22 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 		
 		
 		
+		defKey = "p"+" "+"cg"+" "+"compact";
+		defKey = defKey.trim();
+
+		if (isInDefList(defKey)) {
+			defaultBool = getBoolDef(defKey);	
+		}
+		else {
+			
+			defaultBool = false;
+			
+		}
+
+		setcgcompact_widget(new BooleanOptionWidget(editGroupcg, SWT.NONE, new OptionData("Compact Call Graph", "p", "cg","compact", "\nWhen this option is enabled, the call graph is converted into a \nrepresentation that stores its edges in int arrays indexed by \nmethod and call site ids instead of as linked Edge objects. This \nuses a fraction of the memory for large call graphs. Edges can \nstill be added and removed afterwards, but Edge objects are \ncreated whenever they are returned. ", defaultBool)));
+		
+		
+		
 		defKey = "p"+" "+"cg"+" "+"jdkver";
 		defKey = defKey.trim();
 		
@@ -12991,6 +13226,36 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 
 		setcgguards_widget(new StringOptionWidget(editGroupcg, SWT.NONE, new OptionData("Guarding strategy",  "p", "cg","guards", "\nUsing a reflection log is only sound for method executions that \nwere logged. Executing the program differently may be unsound. \nSoot can insert guards at program points for which the \nreflection log contains no information. When these points are \nreached (because the program is executed differently) then the \nfollwing will happen, depending on the value of this flag. \nignore: no guard is inserted, the program executes normally but \nunder unsound assumptions. print: the program prints a stack \ntrace when reaching a porgram location that was not traced but \ncontinues to run. throw (default): the program throws an Error \ninstead. \n", defaultString)));
 		
+		
+		defKey = "p"+" "+"cg"+" "+"read-snapshot";
+		defKey = defKey.trim();
+		
+		if (isInDefList(defKey)) {
+			defaultString = getStringDef(defKey);	
+		}
+		else {
+			
+			defaultString = "";
+			
+		}
+
+		setcgread_snapshot_widget(new StringOptionWidget(editGroupcg, SWT.NONE, new OptionData("Read Snapshot",  "p", "cg","read-snapshot", "\nLoad the call graph, its entry points and reachable methods from \na snapshot file written by an earlier run with write-snapshot, \ninstead of running the enabled call graph builder. The snapshot \nmust have been written for the same program; Soot reports an \nerror if the class hierarchy, a method or a method body no \nlonger matches it. ", defaultString)));
+		
+		
+		defKey = "p"+" "+"cg"+" "+"write-snapshot";
+		defKey = defKey.trim();
+		
+		if (isInDefList(defKey)) {
+			defaultString = getStringDef(defKey);	
+		}
+		else {
+			
+			defaultString = "";
+			
+		}
+
+		setcgwrite_snapshot_widget(new StringOptionWidget(editGroupcg, SWT.NONE, new OptionData("Write Snapshot",  "p", "cg","write-snapshot", "\nAfter the call graph has been built, write it together with its \nentry points, reachable methods and the class hierarchy to the \ngiven file in a compact binary format, so that later runs can \nload it with read-snapshot. ", defaultString)));
+		
 
 		
 		return editGroupcg;
@@ -13524,6 +13789,12 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 		
 		false),
 		
+		new OptionData("Parallel",
+		"parallel",
+		"\nParallel computes the same points-to sets as Worklist. The new \npoints-to sets of all nodes on the worklist are propagated along \nsimple assignment edges in rounds, on the number of threads \ngiven by -num-threads. Each thread owns the target nodes with \ncertain numbers, so no set is written by two threads. The \non-the-fly call graph and field loads and stores are still \nhandled on the main thread between rounds. ",
+		
+		false),
+		
 		new OptionData("None",
 		"none",
 		"\nNone means that propagation is not done; the graph is only \nbuilt and simplified. This is useful if an external solver is \nbeing used to perform the propagation. ",
@@ -13584,6 +13855,12 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 		
 		false),
 		
+		new OptionData("Roaring",
+		"roaring",
+		"\nRoaring is a compressed bitmap. The allocation node numbers are \n									split into chunks of 65536, and each chunk is stored as \na sorted array, a 									bit vector or a list of runs of \nconsecutive numbers, whichever is smallest. 								",
+		
+		false),
+		
 		new OptionData("Double",
 		"double",
 		"\nDouble is an implementation that itself uses a pair of sets for \neach points-to set. The first set in the pair stores new \npointed-to objects that have not yet been propagated, while the \nsecond set stores old pointed-to objects that have been \npropagated and need not be reconsidered. This allows the \npropagation algorithms to be incremental, often speeding them up \nsignificantly. ",
@@ -13644,6 +13921,12 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 		
 		false),
 		
+		new OptionData("Roaring",
+		"roaring",
+		"\nRoaring is a compressed bitmap. The allocation node numbers are \n									split into chunks of 65536, and each chunk is stored as \na sorted array, a 									bit vector or a list of runs of \nconsecutive numbers, whichever is smallest. 								",
+		
+		false),
+		
 		};
 		
 										
@@ -13698,6 +13981,12 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 		
 		false),
 		
+		new OptionData("Roaring",
+		"roaring",
+		"\nRoaring is a compressed bitmap. The allocation node numbers are \n									split into chunks of 65536, and each chunk is stored as \na sorted array, a 									bit vector or a list of runs of \nconsecutive numbers, whichever is smallest. 								",
+		
+		false),
+		
 		};
 		
 										
@@ -13887,6 +14176,22 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 		setcgcg_sparkset_mass_widget(new BooleanOptionWidget(editGroupcgSpark_Output_Options, SWT.NONE, new OptionData("Calculate Set Mass", "p", "cg.spark","set-mass", "\nWhen this option is set to true, Spark computes and prints \nvarious cryptic statistics about the size of the points-to sets \ncomputed. ", defaultBool)));
 		
 		
+		
+		defKey = "p"+" "+"cg.spark"+" "+"freeze-sets";
+		defKey = defKey.trim();
+
+		if (isInDefList(defKey)) {
+			defaultBool = getBoolDef(defKey);	
+		}
+		else {
+			
+			defaultBool = false;
+			
+		}
+
+		setcgcg_sparkfreeze_sets_widget(new BooleanOptionWidget(editGroupcgSpark_Output_Options, SWT.NONE, new OptionData("Freeze Points-to Sets", "p", "cg.spark","freeze-sets", "\nWhen this option is set to true, Spark replaces the points-to \nsets of all nodes by immutable sets once the analysis is done. \nNodes whose sets contain the same objects share a single set, \nwhich reduces the memory kept by the pointer assignment graph, \nand the results of intersection tests between large sets are \ncached. The option has no effect together with the geometric \npoints-to analysis, which keeps updating the sets. ", defaultBool)));
+		
+		
 
 		
 		return editGroupcgSpark_Output_Options;
@@ -20187,6 +20492,21 @@ Composite dbdb_force_recompileChild = dbdb_force_recompileCreate(getPageContaine
 		setMiscellaneous_Optionsno_writeout_body_releasing_widget(new BooleanOptionWidget(editGroupMiscellaneous_Options, SWT.NONE, new OptionData("No body releasing after writeout", "", "","no-writeout-body-releasing", "\nBy default soot releases the method bodies of all reachable \nclasses after the final writeout. This option deactivates this \nbehaviour. This flag should not affect end users at all. ", defaultBool)));
 		
 		
+		
+		defKey = ""+" "+""+" "+"phase-metrics";
+		defKey = defKey.trim();
+		
+		if (isInDefList(defKey)) {
+			defaultString = getStringDef(defKey);	
+		}
+		else {
+			
+			defaultString = "";
+			
+		}
+
+		setMiscellaneous_Optionsphase_metrics_widget(new StringOptionWidget(editGroupMiscellaneous_Options, SWT.NONE, new OptionData("Phase Metrics",  "", "","phase-metrics", "\nRecord the wall-clock time, CPU time and bytes allocated by \nevery enabled transform, for scene transforms once and for body \ntransforms once per method, together with the size of the body \nbefore and after the transform, and write them to FILE. The \nrecords are written as JSON if FILE ends in .json, and as CSV \notherwise. ", defaultString)));
+		
 
 		
 		return editGroupMiscellaneous_Options;
@@ -176,6 +176,11 @@ public class AntTask extends MatchingTask {
             if(arg) addArg("-debug-resolver");
         }
   
+        public void setnum_threads(int arg) {
+            addArg("-num-threads");
+            addArg(Integer.toString(arg));
+        }
+  
         public void setsoot_classpath(String arg) {
             addArg("-soot-classpath");
             addArg(arg);
@@ -211,6 +216,10 @@ public class AntTask extends MatchingTask {
             addArg(arg);
         }
   
+        public void setlazy_dex_resolution(boolean arg) {
+            if(arg) addArg("-lazy-dex-resolution");
+        }
+  
         public void setast_metrics(boolean arg) {
             if(arg) addArg("-ast-metrics");
         }
@@ -258,6 +267,11 @@ public class AntTask extends MatchingTask {
             if(arg) addArg("-polyglot");
         }
   
+        public void setbody_cache_dir(String arg) {
+            addArg("-body-cache-dir");
+            addArg(arg);
+        }
+  
         public void setoutput_dir(String arg) {
             addArg("-output-dir");
             addArg(arg);
@@ -521,6 +535,11 @@ public class AntTask extends MatchingTask {
             if(arg) addArg("-subtract-gc");
         }
   
+        public void setphase_metrics(String arg) {
+            addArg("-phase-metrics");
+            addArg(arg);
+        }
+  
         public void setno_writeout_body_releasing(boolean arg) {
             if(arg) addArg("-no-writeout-body-releasing");
         }
@@ -1135,6 +1154,12 @@ public class AntTask extends MatchingTask {
             addArg("trim-clinit:"+(arg?"true":"false"));
           }
       
+          public void setcompact(boolean arg) {
+            addArg("-p");
+            addArg("cg");
+            addArg("compact:"+(arg?"true":"false"));
+          }
+      
           public void setjdkver(String arg) {
             addArg("-p");
             addArg("cg");
@@ -1153,6 +1178,18 @@ public class AntTask extends MatchingTask {
             addArg("guards:"+arg);
           }
       
+          public void setread_snapshot(String arg) {
+            addArg("-p");
+            addArg("cg");
+            addArg("read-snapshot:"+arg);
+          }
+      
+          public void setwrite_snapshot(String arg) {
+            addArg("-p");
+            addArg("cg");
+            addArg("write-snapshot:"+arg);
+          }
+      
         }
     
         public Object createp_cg_cha() {
@@ -1345,6 +1382,12 @@ public class AntTask extends MatchingTask {
             addArg("set-mass:"+(arg?"true":"false"));
           }
       
+          public void setfreeze_sets(boolean arg) {
+            addArg("-p");
+            addArg("cg.spark");
+            addArg("freeze-sets:"+(arg?"true":"false"));
+          }
+      
           public void setcs_demand(boolean arg) {
             addArg("-p");
             addArg("cg.spark");
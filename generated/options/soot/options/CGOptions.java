@@ -142,6 +142,21 @@ public class CGOptions
         return soot.PhaseOptions.getBoolean( options, "trim-clinit" );
     }
     
+    /** Compact Call Graph --
+    
+     * Stores the call graph in compact arrays once it is built.
+    
+     * When this option is enabled, the call graph is converted into a 
+     * representation that stores its edges in int arrays indexed by 
+     * method and call site ids instead of as linked Edge objects. This 
+     * uses a fraction of the memory for large call graphs. Edges can 
+     * still be added and removed afterwards, but Edge objects are 
+     * created whenever they are returned. 
+     */
+    public boolean compact() {
+        return soot.PhaseOptions.getBoolean( options, "compact" );
+    }
+    
     /** JDK version --
     
      * JDK version for native methods.
@@ -189,5 +204,33 @@ public class CGOptions
         return soot.PhaseOptions.getString( options, "guards" );
     }
     
+    /** Read Snapshot --
+    
+     * Loads the call graph from a snapshot instead of building it..
+    
+     * Load the call graph, its entry points and reachable methods from 
+     * a snapshot file written by an earlier run with write-snapshot, 
+     * instead of running the enabled call graph builder. The snapshot 
+     * must have been written for the same program; Soot reports an 
+     * error if the class hierarchy, a method or a method body no 
+     * longer matches it. 
+     */
+    public String read_snapshot() {
+        return soot.PhaseOptions.getString( options, "read-snapshot" );
+    }
+    
+    /** Write Snapshot --
+    
+     * Writes the call graph to a snapshot file after building it..
+    
+     * After the call graph has been built, write it together with its 
+     * entry points, reachable methods and the class hierarchy to the 
+     * given file in a compact binary format, so that later runs can 
+     * load it with read-snapshot. 
+     */
+    public String write_snapshot() {
+        return soot.PhaseOptions.getString( options, "write-snapshot" );
+    }
+    
 }
         
\ No newline at end of file
@@ -186,6 +186,23 @@ public class Options extends OptionsBase {
             )
                 debug_resolver = true;
   
+            else if( false
+            || option.equals( "num-threads" )
+            ) {
+                if( !hasMoreOptions() ) {
+                    G.v().out.println( "No value given for option -"+option );
+                    return false;
+                }
+                String value = nextOption();
+    
+                try {
+                    num_threads = Integer.parseInt( value );
+                } catch( NumberFormatException e ) {
+                    G.v().out.println( "Invalid integer "+value+" given for option -"+option );
+                    return false;
+                }
+            }
+  
             else if( false
             || option.equals( "cp" )
             || option.equals( "soot-class-path" )
@@ -267,6 +284,11 @@ public class Options extends OptionsBase {
                 }
             }
   
+            else if( false 
+            || option.equals( "lazy-dex-resolution" )
+            )
+                lazy_dex_resolution = true;
+  
             else if( false 
             || option.equals( "ast-metrics" )
             )
@@ -388,6 +410,23 @@ public class Options extends OptionsBase {
             )
                 polyglot = true;
   
+            else if( false
+            || option.equals( "body-cache-dir" )
+            ) {
+                if( !hasMoreOptions() ) {
+                    G.v().out.println( "No value given for option -"+option );
+                    return false;
+                }
+                String value = nextOption();
+    
+                if( body_cache_dir.length() == 0 )
+                    body_cache_dir = value;
+                else {
+                    G.v().out.println( "Duplicate values "+body_cache_dir+" and "+value+" for option -"+option );
+                    return false;
+                }
+            }
+  
             else if( false
             || option.equals( "d" )
             || option.equals( "output-dir" )
@@ -1058,6 +1097,23 @@ public class Options extends OptionsBase {
             )
                 subtract_gc = true;
   
+            else if( false
+            || option.equals( "phase-metrics" )
+            ) {
+                if( !hasMoreOptions() ) {
+                    G.v().out.println( "No value given for option -"+option );
+                    return false;
+                }
+                String value = nextOption();
+    
+                if( phase_metrics.length() == 0 )
+                    phase_metrics = value;
+                else {
+                    G.v().out.println( "Duplicate values "+phase_metrics+" and "+value+" for option -"+option );
+                    return false;
+                }
+            }
+  
             else if( false 
             || option.equals( "no-writeout-body-releasing" )
             )
@@ -1151,6 +1207,9 @@ public class Options extends OptionsBase {
     private boolean debug_resolver = false;
     public void set_debug_resolver( boolean setting ) { debug_resolver = setting; }
   
+    public int num_threads() { return num_threads; }
+    public void set_num_threads( int setting ) { num_threads = setting; }
+    private int num_threads = 1;
     public String soot_classpath() { return soot_classpath; }
     public void set_soot_classpath( String setting ) { soot_classpath = setting; }
     private String soot_classpath = "";
@@ -1176,6 +1235,10 @@ public class Options extends OptionsBase {
     public String force_android_jar() { return force_android_jar; }
     public void set_force_android_jar( String setting ) { force_android_jar = setting; }
     private String force_android_jar = "";
+    public boolean lazy_dex_resolution() { return lazy_dex_resolution; }
+    private boolean lazy_dex_resolution = false;
+    public void set_lazy_dex_resolution( boolean setting ) { lazy_dex_resolution = setting; }
+  
     public boolean ast_metrics() { return ast_metrics; }
     private boolean ast_metrics = false;
     public void set_ast_metrics( boolean setting ) { ast_metrics = setting; }
@@ -1209,6 +1272,9 @@ public class Options extends OptionsBase {
     private boolean polyglot = false;
     public void set_polyglot( boolean setting ) { polyglot = setting; }
   
+    public String body_cache_dir() { return body_cache_dir; }
+    public void set_body_cache_dir( String setting ) { body_cache_dir = setting; }
+    private String body_cache_dir = "";
     public String output_dir() { return output_dir; }
     public void set_output_dir( String setting ) { output_dir = setting; }
     private String output_dir = "";
@@ -1358,6 +1424,9 @@ public class Options extends OptionsBase {
     private boolean subtract_gc = false;
     public void set_subtract_gc( boolean setting ) { subtract_gc = setting; }
   
+    public String phase_metrics() { return phase_metrics; }
+    public void set_phase_metrics( String setting ) { phase_metrics = setting; }
+    private String phase_metrics = "";
     public boolean no_writeout_body_releasing() { return no_writeout_body_releasing; }
     private boolean no_writeout_body_releasing = false;
     public void set_no_writeout_body_releasing( boolean setting ) { no_writeout_body_releasing = setting; }
@@ -1383,6 +1452,7 @@ public class Options extends OptionsBase {
 +padOpt(" -validate", "Run internal validation on bodies" )
 +padOpt(" -debug", "Print various Soot debugging info" )
 +padOpt(" -debug-resolver", "Print debugging info from SootResolver" )
++padOpt(" -num-threads NUM", "Resolve classes and run body packs on NUM threads" )
 +"\nInput Options:\n"
       
 +padOpt(" -cp PATH -soot-class-path PATH -soot-classpath PATH", "Use PATH as the classpath for finding classes." )
@@ -1391,6 +1461,7 @@ public class Options extends OptionsBase {
 +padOpt(" -oaat", "From the process-dir, processes one class at a time." )
 +padOpt(" -android-jars PATH", "Use PATH as the path for finding the android.jar file" )
 +padOpt(" -force-android-jar PATH", "Force Soot to use PATH as the path for the android.jar file." )
++padOpt(" -lazy-dex-resolution", "Resolve classes from dex files only when they are needed" )
 +padOpt(" -ast-metrics", "Compute AST Metrics if performing java to jimple" )
 +padOpt(" -src-prec FORMAT", "Sets source precedence to FORMAT files" )
 +padVal(" c class (default)", "Favour class files as Soot source" )
@@ -1404,6 +1475,7 @@ public class Options extends OptionsBase {
 +padOpt(" -j2me", "Use J2ME mode; changes assignment of types" )
 +padOpt(" -main-class CLASS", "Sets the main class for whole-program analysis." )
 +padOpt(" -polyglot", "Use Java 1.4 Polyglot frontend instead of JastAdd" )
++padOpt(" -body-cache-dir DIR", "Cache Jimple bodies created from class files in DIR" )
 +"\nOutput Options:\n"
       
 +padOpt(" -d DIR -output-dir DIR", "Store output files in DIR" )
@@ -1474,6 +1546,7 @@ public class Options extends OptionsBase {
       
 +padOpt(" -time", "Report time required for transformations" )
 +padOpt(" -subtract-gc", "Subtract gc from time" )
++padOpt(" -phase-metrics FILE", "Write the cost of each transform to FILE" )
 +padOpt(" -no-writeout-body-releasing", "Disables the release of method bodies after writeout. This flag is used internally." );
     }
 
@@ -1800,7 +1873,10 @@ public class Options extends OptionsBase {
                 +padOpt( "implicit-entry (true)", "Include methods called implicitly by the VM as entry points" )
                 +padOpt( "trim-clinit (true)", "Removes redundant static initializer calls" )
                 +padOpt( "reflection-log", "Uses a reflection log to resolve reflective calls." )
-                +padOpt( "guards (ignore)", "Describes how to guard the program from unsound assumptions." );
+                +padOpt( "guards (ignore)", "Describes how to guard the program from unsound assumptions." )
+                +padOpt( "compact (false)", "Stores the call graph in compact arrays once it is built" )
+                +padOpt( "read-snapshot", "Loads the call graph from a snapshot instead of building it." )
+                +padOpt( "write-snapshot", "Writes the call graph to a snapshot file after building it." );
     
         if( phaseName.equals( "cg.cha" ) )
             return "Phase "+phaseName+":\n"+
@@ -1842,6 +1918,8 @@ public class Options extends OptionsBase {
                 
                 +padVal( "alias", "Alias-edge based algorithm" )
                 
+                +padVal( "parallel", "Worklist-based algorithm that propagates on several threads" )
+                
                 +padVal( "none", "Disable propagation" )
                 
                 +padOpt( "set-impl", "Select points-to set implementation" )
@@ -1857,6 +1935,8 @@ public class Options extends OptionsBase {
                 
                 +padVal( "sharedlist", "Shared list representation" )
                 
+                +padVal( "roaring", "Compressed bitmap representation" )
+                
                 +padVal( "double (default)", "Double set representation for incremental propagation" )
                 
                 +padOpt( "double-set-old", "Select implementation of points-to set for old part of double set" )
@@ -1872,6 +1952,8 @@ public class Options extends OptionsBase {
                 
                 +padVal( "sharedlist", "Shared list representation" )
                 
+                +padVal( "roaring", "Compressed bitmap representation" )
+                
                 +padOpt( "double-set-new", "Select implementation of points-to set for new part of double set" )
                 +padVal( "hash", "Use Java HashSet" )
                 
@@ -1885,6 +1967,8 @@ public class Options extends OptionsBase {
                 
                 +padVal( "sharedlist", "Shared list representation" )
                 
+                +padVal( "roaring", "Compressed bitmap representation" )
+                
                 +padOpt( "dump-html (false)", "Dump pointer assignment graph to HTML for debugging" )
                 +padOpt( "dump-pag (false)", "Dump pointer assignment graph for other solvers" )
                 +padOpt( "dump-solution (false)", "Dump final solution for comparison with other solvers" )
@@ -1894,6 +1978,7 @@ public class Options extends OptionsBase {
                 +padOpt( "dump-answer (false)", "Dump computed reaching types for comparison with other solvers" )
                 +padOpt( "add-tags (false)", "Output points-to results in tags for viewing with the Jimple" )
                 +padOpt( "set-mass (false)", "Calculate statistics about points-to set sizes" )
+                +padOpt( "freeze-sets (false)", "Replace points-to sets by shared immutable sets after solving" )
                 +padOpt( "cs-demand (false)", "After running Spark, refine points-to sets on demand with context information" )
                 +padOpt( "lazy-pts (true)", "Create lazy points-to sets that create context information only when needed." )
                 +padOpt( "traversal (75000)", "Make the analysis traverse at most this number of nodes per query." )
@@ -2752,7 +2837,10 @@ public class Options extends OptionsBase {
                 +"implicit-entry "
                 +"trim-clinit "
                 +"reflection-log "
-                +"guards ";
+                +"guards "
+                +"compact "
+                +"read-snapshot "
+                +"write-snapshot ";
     
         if( phaseName.equals( "cg.cha" ) )
             return ""
@@ -2792,6 +2880,7 @@ public class Options extends OptionsBase {
                 +"dump-answer "
                 +"add-tags "
                 +"set-mass "
+                +"freeze-sets "
                 +"cs-demand "
                 +"lazy-pts "
                 +"traversal "
@@ -3361,7 +3450,8 @@ public class Options extends OptionsBase {
               +"all-reachable:false "
               +"implicit-entry:true "
               +"trim-clinit:true "
-              +"guards:ignore ";
+              +"guards:ignore "
+              +"compact:false ";
     
         if( phaseName.equals( "cg.cha" ) )
             return ""
@@ -3401,6 +3491,7 @@ public class Options extends OptionsBase {
               +"dump-answer:false "
               +"add-tags:false "
               +"set-mass:false "
+              +"freeze-sets:false "
               +"cs-demand:false "
               +"lazy-pts:true "
               +"traversal:75000 "
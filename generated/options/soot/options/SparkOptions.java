@@ -380,6 +380,22 @@ public class SparkOptions
         return soot.PhaseOptions.getBoolean( options, "set-mass" );
     }
     
+    /** Freeze Points-to Sets --
+    
+     * Replace points-to sets by shared immutable sets after solving.
+    
+     * When this option is set to true, Spark replaces the points-to 
+     * sets of all nodes by immutable sets once the analysis is done. 
+     * Nodes whose sets contain the same objects share a single set, 
+     * which reduces the memory kept by the pointer assignment graph, 
+     * and the results of intersection tests between large sets are 
+     * cached. The option has no effect together with the geometric 
+     * points-to analysis, which keeps updating the sets. 
+     */
+    public boolean freeze_sets() {
+        return soot.PhaseOptions.getBoolean( options, "freeze-sets" );
+    }
+    
     /** Demand-driven refinement-based context-sensitive points-to analysis --
     
      * After running Spark, refine points-to sets on demand with 
@@ -555,7 +571,8 @@ public class SparkOptions
     public static final int propagator_cycle = 3;
     public static final int propagator_merge = 4;
     public static final int propagator_alias = 5;
-    public static final int propagator_none = 6;
+    public static final int propagator_parallel = 6;
+    public static final int propagator_none = 7;
     /** Propagator --
     
      * Select propagation algorithm.
@@ -581,6 +598,9 @@ public class SparkOptions
         if( s.equalsIgnoreCase( "alias" ) )
             return propagator_alias;
         
+        if( s.equalsIgnoreCase( "parallel" ) )
+            return propagator_parallel;
+        
         if( s.equalsIgnoreCase( "none" ) )
             return propagator_none;
         
@@ -593,7 +613,8 @@ public class SparkOptions
     public static final int set_impl_array = 4;
     public static final int set_impl_heintze = 5;
     public static final int set_impl_sharedlist = 6;
-    public static final int set_impl_double = 7;
+    public static final int set_impl_roaring = 7;
+    public static final int set_impl_double = 8;
     /** Set Implementation --
     
      * Select points-to set implementation.
@@ -621,6 +642,9 @@ public class SparkOptions
         if( s.equalsIgnoreCase( "sharedlist" ) )
             return set_impl_sharedlist;
         
+        if( s.equalsIgnoreCase( "roaring" ) )
+            return set_impl_roaring;
+        
         if( s.equalsIgnoreCase( "double" ) )
             return set_impl_double;
         
@@ -633,6 +657,7 @@ public class SparkOptions
     public static final int double_set_old_array = 4;
     public static final int double_set_old_heintze = 5;
     public static final int double_set_old_sharedlist = 6;
+    public static final int double_set_old_roaring = 7;
     /** Double Set Old --
     
      * Select implementation of points-to set for old part of double 
@@ -663,6 +688,9 @@ public class SparkOptions
         if( s.equalsIgnoreCase( "sharedlist" ) )
             return double_set_old_sharedlist;
         
+        if( s.equalsIgnoreCase( "roaring" ) )
+            return double_set_old_roaring;
+        
         throw new RuntimeException( "Invalid value "+s+" of phase option double-set-old" );
     }
     
@@ -672,6 +700,7 @@ public class SparkOptions
     public static final int double_set_new_array = 4;
     public static final int double_set_new_heintze = 5;
     public static final int double_set_new_sharedlist = 6;
+    public static final int double_set_new_roaring = 7;
     /** Double Set New --
     
      * Select implementation of points-to set for new part of double 
@@ -702,6 +731,9 @@ public class SparkOptions
         if( s.equalsIgnoreCase( "sharedlist" ) )
             return double_set_new_sharedlist;
         
+        if( s.equalsIgnoreCase( "roaring" ) )
+            return double_set_new_roaring;
+        
         throw new RuntimeException( "Invalid value "+s+" of phase option double-set-new" );
     }
     
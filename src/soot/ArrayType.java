@@ -81,8 +81,13 @@ public class ArrayType extends RefLikeType
         }
         ret = elementType.getArrayType();
         if( ret == null ) {
-            ret = new ArrayType(baseType, numDimensions);
-            elementType.setArrayType( ret );
+            synchronized( elementType ) {
+                ret = elementType.getArrayType();
+                if( ret == null ) {
+                    ret = new ArrayType(baseType, numDimensions);
+                    elementType.setArrayType( ret );
+                }
+            }
         }
         return ret;
     }
@@ -51,6 +51,7 @@ import soot.tagkit.Tag;
 import soot.toolkits.exceptions.PedanticThrowAnalysis;
 import soot.toolkits.exceptions.ThrowAnalysis;
 import soot.toolkits.exceptions.ThrowAnalysisFactory;
+import soot.toolkits.graph.CompactUnitGraph;
 import soot.toolkits.graph.ExceptionalUnitGraph;
 import soot.toolkits.graph.UnitGraph;
 import soot.toolkits.scalar.FlowSet;
@@ -89,6 +90,9 @@ public abstract class Body extends AbstractHost implements Serializable
     /** The chain of units for this Body. */
     protected PatchingChain<Unit> unitChain = new PatchingChain<Unit>(new HashChain<Unit>());
 
+    /** The results returned by getAnalysisCache(), if any. */
+    private transient BodyAnalysisCache analysisCache;
+
     /** Creates a deep copy of this Body. */
     abstract public Object clone();
 
@@ -340,6 +344,8 @@ public abstract class Body extends AbstractHost implements Serializable
         // "remove-unreachable-traps" option to true.
         ThrowAnalysis throwAnalysis = PedanticThrowAnalysis.v();
         UnitGraph g = new ExceptionalUnitGraph(this, throwAnalysis, false);
+        // not SparseLocalDefs, which gives a local with a single definition
+        // that definition even at uses it does not reach
         LocalDefs ld = new SmartLocalDefs(g, new SimpleLiveLocals(g));
 
         for (Unit u : getUnits()) {
@@ -469,6 +475,38 @@ public abstract class Body extends AbstractHost implements Serializable
         return unitChain;
     }
 
+    /**
+     * Returns a CompactUnitGraph of the ExceptionalUnitGraph that would be
+     * built for this body with the Scene's default ThrowAnalysis. The graph
+     * is kept with the body and returned again by later calls for as long
+     * as the units, their boxes and the traps of the body are unchanged, so
+     * that analyses run one after the other on an unchanged body share it.
+     */
+    public CompactUnitGraph getCompactUnitGraph()
+    {
+        return getAnalysisCache().get(BodyAnalysisCache.UNIT_GRAPH);
+    }
+
+    /**
+     * Returns the cache of analysis results for this body. The results
+     * computed through an earlier cache are kept if the units, their boxes
+     * and the traps of the body have not changed since, and dropped
+     * otherwise. Since the returned cache does not notice later changes,
+     * it should be fetched again after the body has been modified.
+     */
+    public synchronized BodyAnalysisCache getAnalysisCache()
+    {
+        if (analysisCache == null || !analysisCache.isValid())
+            analysisCache = new BodyAnalysisCache(this);
+        return analysisCache;
+    }
+
+    /** Drops the analysis results kept for this body. */
+    public synchronized void releaseAnalysisCache()
+    {
+        analysisCache = null;
+    }
+
     /**
      * Returns the result of iterating through all Units in this body
      * and querying them for their UnitBoxes.  All UnitBoxes thus
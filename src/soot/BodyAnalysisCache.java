@@ -0,0 +1,132 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 1997-2014 Raja Vallee-Rai and others
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+
+package soot;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import soot.options.Options;
+import soot.toolkits.exceptions.ThrowAnalysis;
+import soot.toolkits.graph.CompactUnitGraph;
+import soot.toolkits.scalar.LocalDefs;
+import soot.toolkits.scalar.LocalUses;
+import soot.toolkits.scalar.SimpleLocalUses;
+import soot.toolkits.scalar.SparseLocalDefs;
+
+/**
+ * Results of intra-procedural analyses computed for one body, such as its
+ * unit graph and its local definitions and uses. A cache is obtained from
+ * {@link Body#getAnalysisCache()}, which discards all results once the
+ * units, their boxes or the traps of the body have changed. The cache
+ * itself does not check the body again, so it should be fetched anew
+ * after the body has been modified:
+ *
+ * <pre>
+ * BodyAnalysisCache cache = b.getAnalysisCache();
+ * UnitGraph graph = cache.get(BodyAnalysisCache.UNIT_GRAPH);
+ * LocalDefs defs = cache.get(BodyAnalysisCache.LOCAL_DEFS);
+ * </pre>
+ *
+ * Results are computed with the Scene's default ThrowAnalysis; a
+ * transformer that needs a different one has to build its own graph.
+ */
+public final class BodyAnalysisCache {
+    /**
+     * An analysis whose result can be cached. Instances are used as keys,
+     * so each analysis should be a single shared constant.
+     */
+    public interface Analysis<T> {
+        /**
+         * Computes the result for <code>b</code>. Other results that the
+         * analysis needs should be taken from <code>cache</code>.
+         */
+        T compute(Body b, BodyAnalysisCache cache);
+    }
+
+    /** The CompactUnitGraph of the body's ExceptionalUnitGraph. Bodies with
+     * traps still build the ExceptionalUnitGraph and copy it. */
+    public static final Analysis<CompactUnitGraph> UNIT_GRAPH = new Analysis<CompactUnitGraph>() {
+        public CompactUnitGraph compute(Body b, BodyAnalysisCache cache) {
+            return CompactUnitGraph.exceptional(b, cache.throwAnalysis,
+                    cache.omitExceptingUnitEdges);
+        }
+    };
+
+    /** The local definitions over {@link #UNIT_GRAPH}. */
+    public static final Analysis<LocalDefs> LOCAL_DEFS = new Analysis<LocalDefs>() {
+        public LocalDefs compute(Body b, BodyAnalysisCache cache) {
+            return new SparseLocalDefs(cache.get(UNIT_GRAPH));
+        }
+    };
+
+    /** The local uses matching {@link #LOCAL_DEFS}. */
+    public static final Analysis<LocalUses> LOCAL_USES = new Analysis<LocalUses>() {
+        public LocalUses compute(Body b, BodyAnalysisCache cache) {
+            return new SimpleLocalUses(b, cache.get(LOCAL_DEFS));
+        }
+    };
+
+    private final Body body;
+    private final BodySnapshot snapshot;
+    private final ThrowAnalysis throwAnalysis;
+    private final boolean omitExceptingUnitEdges;
+    private final Map<Analysis<?>, Object> results = new HashMap<Analysis<?>, Object>();
+
+    BodyAnalysisCache(Body body) {
+        this.body = body;
+        this.snapshot = new BodySnapshot(body);
+        this.throwAnalysis = Scene.v().getDefaultThrowAnalysis();
+        this.omitExceptingUnitEdges = Options.v().omit_excepting_unit_edges();
+    }
+
+    /** Returns the body the results are computed for. */
+    public Body getBody() {
+        return body;
+    }
+
+    /**
+     * Returns the result of <code>a</code>, computing it on the first
+     * request.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T> T get(Analysis<T> a) {
+        T result = (T) results.get(a);
+        if (result == null) {
+            result = a.compute(body, this);
+            results.put(a, result);
+        }
+        return result;
+    }
+
+    /** Returns whether the result of <code>a</code> has been computed. */
+    public synchronized boolean contains(Analysis<?> a) {
+        return results.containsKey(a);
+    }
+
+    /**
+     * Returns whether the results may still be used for the body, that is
+     * whether the body and the settings they depend on are unchanged.
+     */
+    boolean isValid() {
+        return throwAnalysis == Scene.v().getDefaultThrowAnalysis()
+                && omitExceptingUnitEdges == Options.v().omit_excepting_unit_edges()
+                && snapshot.matches(body);
+    }
+}
@@ -0,0 +1,124 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 1997-2014 Raja Vallee-Rai and others
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+
+package soot;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records the structure of a body that graphs and dataflow results are
+ * computed from: its units, the units targeted by their unit boxes, the
+ * values in their value boxes, and its traps. A result computed from a
+ * body can be reused for as long as a snapshot taken at the time still
+ * matches the body. The locals of the body and their types are recorded
+ * as well, since the exceptions a unit may throw depend on them.
+ *
+ * Other changes to values that do not go through a box, such as the
+ * method referenced by an invoke expression, are not seen.
+ *
+ * Adding, removing or swapping units or traps changes the modification
+ * counts of their chains, which are compared first, so that such changes
+ * are found without walking the body; the boxes are only compared while
+ * the counts are unchanged.
+ */
+final class BodySnapshot {
+    private final Object[] refs;
+    private final int[] shape;
+    private final Object[] localTypes;
+    private final long unitCount;
+    private final long trapCount;
+
+    BodySnapshot(Body b) {
+        unitCount = b.getUnits().getModificationCount();
+        trapCount = b.getTraps().getModificationCount();
+        List<Object> r = new ArrayList<Object>(b.getUnits().size() * 4);
+        shape = new int[b.getUnits().size() * 2 + 1];
+        int s = 0;
+        for (Unit u : b.getUnits()) {
+            r.add(u);
+            List<UnitBox> ubs = u.getUnitBoxes();
+            shape[s++] = ubs.size();
+            for (UnitBox ub : ubs)
+                r.add(ub.getUnit());
+            List<ValueBox> vbs = u.getUseAndDefBoxes();
+            shape[s++] = vbs.size();
+            for (ValueBox vb : vbs)
+                r.add(vb.getValue());
+        }
+        shape[s] = b.getTraps().size();
+        for (Trap t : b.getTraps()) {
+            r.add(t.getBeginUnit());
+            r.add(t.getEndUnit());
+            r.add(t.getHandlerUnit());
+            r.add(t.getException());
+        }
+        localTypes = new Object[b.getLocalCount() * 2];
+        int l = 0;
+        for (Local local : b.getLocals()) {
+            localTypes[l++] = local;
+            localTypes[l++] = local.getType();
+        }
+        refs = r.toArray();
+    }
+
+    /** Returns true if <code>b</code> still has the structure recorded in
+     * this snapshot. */
+    boolean matches(Body b) {
+        if (b.getUnits().getModificationCount() != unitCount
+                || b.getTraps().getModificationCount() != trapCount)
+            return false;
+        if (b.getUnits().size() * 2 + 1 != shape.length)
+            return false;
+        int p = 0, s = 0;
+        for (Unit u : b.getUnits()) {
+            if (refs[p++] != u)
+                return false;
+            List<UnitBox> ubs = u.getUnitBoxes();
+            if (shape[s++] != ubs.size())
+                return false;
+            for (UnitBox ub : ubs) {
+                if (refs[p++] != ub.getUnit())
+                    return false;
+            }
+            List<ValueBox> vbs = u.getUseAndDefBoxes();
+            if (shape[s++] != vbs.size())
+                return false;
+            for (ValueBox vb : vbs) {
+                if (refs[p++] != vb.getValue())
+                    return false;
+            }
+        }
+        if (shape[s] != b.getTraps().size())
+            return false;
+        for (Trap t : b.getTraps()) {
+            if (refs[p++] != t.getBeginUnit() || refs[p++] != t.getEndUnit()
+                    || refs[p++] != t.getHandlerUnit() || refs[p++] != t.getException())
+                return false;
+        }
+        if (b.getLocalCount() * 2 != localTypes.length)
+            return false;
+        int l = 0;
+        for (Local local : b.getLocals()) {
+            if (localTypes[l++] != local || localTypes[l++] != local.getType())
+                return false;
+        }
+        return true;
+    }
+}
@@ -32,6 +32,11 @@ public abstract class ClassSource
     /** Resolve the class into the SootClass sc. Returns a list of Strings
      * or Types referenced by the class. */
     public abstract Dependencies resolve( SootClass sc );
+    /** Does the work of {@link #resolve(SootClass)} that touches neither
+     * the Scene nor the SootClass, such as parsing the class file. Called
+     * at most once, possibly on a different thread than resolve(). The
+     * default does nothing. */
+    public void prepare() {}
     protected String className;
 }
 
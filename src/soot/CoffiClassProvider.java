@@ -31,8 +31,10 @@ public class CoffiClassProvider implements ClassProvider
         SourceLocator.FoundFile file = 
             SourceLocator.v().lookupInClassPath(fileName);
         if( file == null ) return null;
-        return new CoffiClassSource(className, file.inputStream(), file.inputFile().getAbsolutePath(),
+        ClassSource ret = new CoffiClassSource(className, file.inputStream(), file.inputFile().getAbsolutePath(),
         		file.zipFile == null ? null : file.zipFile.getName());
+        file.close();
+        return ret;
     }
 }
 
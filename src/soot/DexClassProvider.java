@@ -29,11 +29,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import org.jf.dexlib2.DexFileFactory;
-import org.jf.dexlib2.dexbacked.DexBackedDexFile;
-import org.jf.dexlib2.iface.ClassDef;
 
-import soot.dexpler.Util;
+import soot.dexpler.DexResolver;
 
 /**
  * Looks for a dex file which includes the definition of a class.
@@ -116,13 +113,6 @@ public class DexClassProvider implements ClassProvider {
 	 * @return set of class names
 	 */
 	public static Set<String> classesOfDex(File file) throws IOException {
-		Set<String> classes = new HashSet<String>();
-		// TODO (SA): Go for API 1 because DexlibWrapper does so, but needs more attention
-		DexBackedDexFile d = DexFileFactory.loadDexFile(file, 1);
-		for (ClassDef c : d.getClasses()) {
-			String name = Util.dottedClassName(c.getType());
-			classes.add(name);
-		}
-		return classes;
+		return new HashSet<String>(DexResolver.v().getDexlibWrapper(file).getClassNames());
 	}
 }
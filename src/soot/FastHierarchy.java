@@ -20,15 +20,17 @@
 package soot;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import soot.jimple.SpecialInvokeExpr;
 import soot.util.HashMultiMap;
@@ -82,6 +84,16 @@ public class FastHierarchy
      * in the inheritance tree. */
     protected Map<SootClass, Interval> classToInterval = new HashMap<SootClass, Interval>();
 
+    /** For each interface, the set of preorder numbers (Interval.lower) of
+     * all classes that can be stored in a variable of the interface type.
+     * Filled on demand, so that asking whether a class implements an
+     * interface is a single bit test. */
+    protected ConcurrentMap<SootClass, BitSet> interfaceToStorableClasses = new ConcurrentHashMap<SootClass, BitSet>();
+
+    /** Memoizes canStoreType for an AnySubType: maps the base class to a map
+     * from the parent class to the answer. */
+    protected ConcurrentMap<SootClass, ConcurrentMap<SootClass, Boolean>> anySubTypeToStorable = new ConcurrentHashMap<SootClass, ConcurrentMap<SootClass, Boolean>>();
+
     protected Scene sc;
 
     protected class Interval {
@@ -135,13 +147,15 @@ public class FastHierarchy
         }
 
         /* Now do a dfs traversal to get the Interval numbers. */
-        dfsVisit( 0, Scene.v().getSootClass( "java.lang.Object" ) );
+        int start = dfsVisit( 0, Scene.v().getSootClass( "java.lang.Object" ) );
         /* also have to traverse for all phantom classes because they also
-         * can be roots of the type hierarchy
+         * can be roots of the type hierarchy; their numbers continue after
+         * the ones of the main tree, so that intervals of different trees
+         * never overlap
          */
         for(SootClass phantomClass: Scene.v().getPhantomClasses()) {
         	if(!phantomClass.isInterface())
-        		dfsVisit( 0, phantomClass );
+        		start = dfsVisit( start, phantomClass );
         }
     }
 
@@ -157,7 +171,7 @@ public class FastHierarchy
 
     /** For an interface parent (MUST be an interface), returns set of all
      * implementers of it but NOT their subclasses. */
-    public Set<SootClass> getAllImplementersOfInterface( SootClass parent ) {
+    public synchronized Set<SootClass> getAllImplementersOfInterface( SootClass parent ) {
         parent.checkLevel(SootClass.HIERARCHY);
         if( !interfaceToAllImplementers.containsKey( parent ) ) {
             for(SootClass subinterface : getAllSubinterfaces( parent )) {
@@ -176,7 +190,7 @@ public class FastHierarchy
      * @param parent the parent interface.
      * @return an set, possibly empty
      * */
-    public Set<SootClass> getAllSubinterfaces( SootClass parent ) {
+    public synchronized Set<SootClass> getAllSubinterfaces( SootClass parent ) {
         parent.checkLevel(SootClass.HIERARCHY);
         if (!parent.isInterface()) return Collections.<SootClass>emptySet();
         if( !interfaceToAllSubinterfaces.containsKey( parent ) ) {
@@ -212,34 +226,29 @@ public class FastHierarchy
             if( !(parent instanceof RefLikeType ) ) {
                 throw new RuntimeException( "Unhandled type "+parent );
             } else if(parent instanceof ArrayType) {
-                Type base = ((AnySubType)child).getBase();
                 // From Java Language Spec 2nd ed., Chapter 10, Arrays
-                return base.equals( RefType.v( "java.lang.Object" ) )
-                || base.equals( RefType.v( "java.io.Serializable" ) )
-                || base.equals( RefType.v( "java.lang.Cloneable" ) );
+                return isArraySupertype( ((AnySubType)child).getBase() );
             } else {
                 SootClass base = ((AnySubType)child).getBase().getSootClass();
                 SootClass parentClass = ((RefType) parent).getSootClass();
-                LinkedList<SootClass> worklist = new LinkedList<SootClass>();
-                if( base.isInterface() ) worklist.addAll(getAllImplementersOfInterface(base));
-                else worklist.add(base);
-                Set<SootClass> workset = new HashSet<SootClass>();
-                while(!worklist.isEmpty()) {
-                    SootClass cl = (SootClass) worklist.removeFirst();
-                    if( !workset.add(cl) ) continue;
-                    if( cl.isConcrete() 
-                    &&  canStoreClass(cl, parentClass) ) return true;
-                    worklist.addAll(getSubclassesOf(cl));
+                ConcurrentMap<SootClass, Boolean> storable = anySubTypeToStorable.get( base );
+                if( storable == null ) {
+                    storable = new ConcurrentHashMap<SootClass, Boolean>();
+                    ConcurrentMap<SootClass, Boolean> old = anySubTypeToStorable.putIfAbsent( base, storable );
+                    if( old != null ) storable = old;
                 }
-                return false;
+                Boolean ret = storable.get( parentClass );
+                if( ret == null ) {
+                    ret = canStoreAnySubClass( base, parentClass );
+                    storable.put( parentClass, ret );
+                }
+                return ret;
             }
         } else if (child instanceof ArrayType) {
             ArrayType achild = (ArrayType) child;
             if( parent instanceof RefType ) {
                 // From Java Language Spec 2nd ed., Chapter 10, Arrays
-                return parent.equals( RefType.v( "java.lang.Object" ) )
-                || parent.equals( RefType.v( "java.io.Serializable" ) )
-                || parent.equals( RefType.v( "java.lang.Cloneable" ) );
+                return isArraySupertype( parent );
             }
             if (!(parent instanceof ArrayType))
             	return false;
@@ -253,18 +262,40 @@ public class FastHierarchy
                 if( !(aparent.baseType instanceof RefType ) ) return false;
                 return canStoreType( achild.baseType, aparent.baseType );
             } else if( achild.numDimensions > aparent.numDimensions ) {
-                if( aparent.baseType.equals( RefType.v( "java.lang.Object" ) ) )
-                    return true;
-                if( aparent.baseType.equals( RefType.v( "java.io.Serializable" ) ) )
-                    return true;
-                if( aparent.baseType.equals( RefType.v( "java.lang.Cloneable" ) ) )
-                    return true;
-                return false;
+                return isArraySupertype( aparent.baseType );
             } else return false;
         } else
         	return false;
     }
 
+    /** Returns true if t is Object, Serializable or Cloneable, the class
+     * types that every array type can be stored in. */
+    private static boolean isArraySupertype( Type t ) {
+        if( !(t instanceof RefType) ) return false;
+        String name = ((RefType) t).getClassName();
+        return name.equals( "java.lang.Object" )
+            || name.equals( "java.io.Serializable" )
+            || name.equals( "java.lang.Cloneable" );
+    }
+
+    /** Returns true if some concrete class that is base, a subclass of base
+     * or (if base is an interface) an implementer of base can be stored in
+     * a variable of type parent. */
+    private boolean canStoreAnySubClass( SootClass base, SootClass parent ) {
+        LinkedList<SootClass> worklist = new LinkedList<SootClass>();
+        if( base.isInterface() ) worklist.addAll(getAllImplementersOfInterface(base));
+        else worklist.add(base);
+        Set<SootClass> workset = new HashSet<SootClass>();
+        while(!worklist.isEmpty()) {
+            SootClass cl = (SootClass) worklist.removeFirst();
+            if( !workset.add(cl) ) continue;
+            if( cl.isConcrete() 
+            &&  canStoreClass(cl, parent) ) return true;
+            worklist.addAll(getSubclassesOf(cl));
+        }
+        return false;
+    }
+
     /** Given an object of declared type child, returns true if the object
      * can be stored in a variable of type parent. If child is an interface
      * that is not a subinterface of parent, this method will return false
@@ -285,15 +316,27 @@ public class FastHierarchy
                 return getAllSubinterfaces( parent ).contains( child );
             }
         } else {
-            Set<SootClass> impl = getAllImplementersOfInterface( parent );
-            for( Iterator<SootClass> it = impl.iterator(); it.hasNext(); ) {
-                parentInterval = classToInterval.get( it.next() );
-                if( parentInterval != null && parentInterval.isSubrange( childInterval ) ) {
-                    return true;
-                }
+            return getStorableClasses( parent ).get( childInterval.lower );
+        }
+    }
+
+    /** For an interface parent, returns the preorder numbers of all classes
+     * that implement it, directly, through a subinterface or through a
+     * superclass. Since intervals are properly nested, a class is in the
+     * subtree of an implementer exactly if its lower bound lies in the
+     * implementer's interval. */
+    protected BitSet getStorableClasses( SootClass parent ) {
+        BitSet ret = interfaceToStorableClasses.get( parent );
+        if( ret == null ) {
+            ret = new BitSet();
+            for( SootClass impl : getAllImplementersOfInterface( parent ) ) {
+                Interval i = classToInterval.get( impl );
+                if( i != null ) ret.set( i.lower, i.upper + 1 );
             }
-            return false;
+            // racing threads compute the same set, so any of them may win
+            interfaceToStorableClasses.put( parent, ret );
         }
+        return ret;
     }
 
     public Collection<SootMethod> resolveConcreteDispatchWithoutFailing(Collection<Type> concreteTypes, SootMethod m, RefType declaredTypeOfBase ) {
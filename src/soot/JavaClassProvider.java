@@ -76,6 +76,7 @@ public class JavaClassProvider implements ClassProvider
 	        	return null;         
 	        
 	        if( file.file == null ) {
+	            file.close();
 	            throw new JarException(className);
 	        }
 	        return new JavaClassSource(className, file.file);
@@ -78,6 +78,10 @@ public class JimpleBodyPack extends BodyPack
         PackManager.v().getTransform( "jb.lp" ).apply( b );
         PackManager.v().getTransform( "jb.ne" ).apply( b );
         PackManager.v().getTransform( "jb.uce" ).apply( b );
+
+        // Bodies are often kept for a long time after jb; do not let
+        // them hold on to graphs and local defs/uses as well.
+        b.releaseAnalysisCache();
                     
         if(Options.v().time())
             Timers.v().stmtCount += b.getUnits().size();
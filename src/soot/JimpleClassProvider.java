@@ -32,7 +32,9 @@ public class JimpleClassProvider implements ClassProvider
         SourceLocator.FoundFile file = 
             SourceLocator.v().lookupInClassPath(fileName);
         if( file == null ) return null;
-        return new JimpleClassSource(className, file.inputStream());
+        ClassSource ret = new JimpleClassSource(className, file.inputStream());
+        file.close();
+        return ret;
     }
 }
 
@@ -170,6 +170,12 @@ public class Main {
 
             G.v().out.println("Soot started on " + start);
 
+            TransformMetrics metrics = null;
+            if (Options.v().phase_metrics() != null && Options.v().phase_metrics().length() > 0) {
+                metrics = new TransformMetrics();
+                PackManager.v().addTransformListener(metrics);
+            }
+
             Scene.v().loadNecessaryClasses();
 
             /*
@@ -206,6 +212,16 @@ public class Main {
 
             Timers.v().totalTimer.end();
 
+            if (metrics != null) {
+                PackManager.v().removeTransformListener(metrics);
+                try {
+                    metrics.write(Options.v().phase_metrics());
+                } catch (IOException e) {
+                    throw new CompilationDeathException("Cannot write phase metrics to "
+                            + Options.v().phase_metrics(), e);
+                }
+            }
+
             // Print out time stats.				
             if (Options.v().time())
                 Timers.v().printProfilingInformation();
@@ -33,6 +33,12 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.GZIPOutputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
@@ -51,6 +57,9 @@ import soot.dava.toolkits.base.AST.transformations.RemoveEmptyBodyDefaultConstru
 import soot.dava.toolkits.base.AST.transformations.VoidReturnRemover;
 import soot.dava.toolkits.base.misc.PackageNamer;
 import soot.dava.toolkits.base.misc.ThrowFinder;
+import soot.dexpler.DalvikThrowAnalysis;
+import soot.dexpler.DexMethodSource;
+import soot.dexpler.IDalvikTyper;
 import soot.grimp.Grimp;
 import soot.grimp.toolkits.base.ConstructorFolder;
 import soot.jimple.JimpleBody;
@@ -88,6 +97,7 @@ import soot.jimple.toolkits.invoke.StaticMethodBinder;
 import soot.jimple.toolkits.pointer.CastCheckEliminatorDumper;
 import soot.jimple.toolkits.pointer.DependenceTagAggregator;
 import soot.jimple.toolkits.pointer.ParameterAliasTagger;
+import soot.jimple.toolkits.pointer.SideEffectAnalysis;
 import soot.jimple.toolkits.pointer.SideEffectTagger;
 import soot.jimple.toolkits.scalar.CommonSubexpressionEliminator;
 import soot.jimple.toolkits.scalar.ConditionalBranchFolder;
@@ -112,6 +122,7 @@ import soot.sootify.TemplatePrinter;
 import soot.tagkit.InnerClassTagAggregator;
 import soot.tagkit.LineNumberTagAggregator;
 import soot.toDex.DexPrinter;
+import soot.toolkits.exceptions.ThrowableSet;
 import soot.toolkits.exceptions.TrapTightener;
 import soot.toolkits.graph.interaction.InteractionHandler;
 import soot.toolkits.scalar.LocalPacker;
@@ -382,6 +393,29 @@ public class PackManager {
         return Collections.unmodifiableList( packList );
     }
 
+    private final List<TransformListener> transformListeners =
+        new CopyOnWriteArrayList<TransformListener>();
+
+    /** Registers a listener that is told about the cost of every enabled
+     * transform applied from now on, to the Scene or to a Body. */
+    public void addTransformListener( TransformListener l ) {
+        transformListeners.add( l );
+    }
+
+    public void removeTransformListener( TransformListener l ) {
+        transformListeners.remove( l );
+    }
+
+    public boolean hasTransformListeners() {
+        return !transformListeners.isEmpty();
+    }
+
+    void fireTransformApplied( TransformMeasurement m ) {
+        for( TransformListener l : transformListeners ) {
+            l.transformApplied( m );
+        }
+    }
+
     public void runPacks() {
     	if(Options.v().oaat())
     		runPacksForOneClassAtATime();
@@ -578,12 +612,6 @@ public class PackManager {
         }
     }
 
-    private void runBodyPacks( Iterator<SootClass> classes ) {
-    	while( classes.hasNext() ) {
-            runBodyPacks(classes.next());
-        }
-    }
-
     private void handleInnerClasses(){
        InnerClassTagAggregator agg = InnerClassTagAggregator.v();
        agg.internalTransform("", null);
@@ -796,60 +824,60 @@ public class PackManager {
 
     }
     
-    @SuppressWarnings("fallthrough")
-    private void runBodyPacks(SootClass c) {
-        final int format = Options.v().output_format();
-        if (format == Options.output_format_dava) {
-            G.v().out.print("Decompiling ");
-
-	     //January 13th, 2006  SootMethodAddedByDava is set to false for SuperFirstStmtHandler
-	    G.v().SootMethodAddedByDava=false;
-        } else {
-            G.v().out.print("Transforming ");
-        }
-        G.v().out.println(c.getName() + "... ");
-
+    /**
+     * The intermediate representations that the body packs have to produce
+     * for the current output format.
+     */
+    private static class BodyPackTargets {
         boolean produceBaf = false, produceGrimp = false, produceDava = false,
             produceJimple = true, produceShimple = false;
+        final boolean wholeShimple = Options.v().whole_shimple();
+
+        @SuppressWarnings("fallthrough")
+        BodyPackTargets() {
+            switch (Options.v().output_format()) {
+                case Options.output_format_none :
+                case Options.output_format_xml :
+                case Options.output_format_jimple :
+                case Options.output_format_jimp :
+                case Options.output_format_template :
+                case Options.output_format_dex :
+                    break;
+                case Options.output_format_shimp:
+                case Options.output_format_shimple:
+                    produceShimple = true;
+                    // FLIP produceJimple
+                    produceJimple = false;
+                    break;
+                case Options.output_format_dava :
+                    produceDava = true;
+                    // FALL THROUGH
+                case Options.output_format_grimp :
+                case Options.output_format_grimple :
+                    produceGrimp = true;
+                    break;
+                case Options.output_format_baf :
+                case Options.output_format_b :
+                    produceBaf = true;
+                    break;
+                case Options.output_format_jasmin :
+                case Options.output_format_class :
+                    produceGrimp = Options.v().via_grimp();
+                    produceBaf = !produceGrimp;
+                    break;
+                default :
+                    throw new RuntimeException();
+            }
 
-        switch (format) {
-            case Options.output_format_none :
-            case Options.output_format_xml :
-            case Options.output_format_jimple :
-            case Options.output_format_jimp :
-            case Options.output_format_template :
-            case Options.output_format_dex :
-                break;
-            case Options.output_format_shimp:
-            case Options.output_format_shimple:
-                produceShimple = true;
-                // FLIP produceJimple
-                produceJimple = false;
-                break;
-            case Options.output_format_dava :
-                produceDava = true;
-                // FALL THROUGH
-            case Options.output_format_grimp :
-            case Options.output_format_grimple :
-                produceGrimp = true;
-                break;
-            case Options.output_format_baf :
-            case Options.output_format_b :
-                produceBaf = true;
-                break;
-            case Options.output_format_jasmin :
-            case Options.output_format_class :
-                produceGrimp = Options.v().via_grimp();
-                produceBaf = !produceGrimp;
-                break;
-            default :
-                throw new RuntimeException();
+            if( Options.v().via_shimple() ) produceShimple = true;
         }
+    }
 
-        soot.xml.TagCollector tc = new soot.xml.TagCollector();
+    private void runBodyPacks(SootClass c) {
+        startBodyPacks(c);
 
-        boolean wholeShimple = Options.v().whole_shimple();
-        if( Options.v().via_shimple() ) produceShimple = true;
+        BodyPackTargets targets = new BodyPackTargets();
+        TagCollector tc = new TagCollector();
 
         //here we create a copy of the methods so that transformers are able
         //to add method bodies during the following iteration;
@@ -868,67 +896,225 @@ public class PackManager {
 
             if (!m.isConcrete()) continue;
 
-            if (produceShimple || wholeShimple) {
-                ShimpleBody sBody = null;
+            runBodyPacks(m, targets, tc);
+        }
 
-                // whole shimple or not?
-                {
-                    Body body = m.retrieveActiveBody();
+        finishBodyPacks(c, targets, tc);
+    }
 
-                    if(body instanceof ShimpleBody){
-                        sBody = (ShimpleBody) body;
-                        if(!sBody.isSSA())
-                            sBody.rebuild();
-                    }
-                    else{
-                        sBody = Shimple.v().newBody(body);
-                    }
+    /**
+     * Runs the body packs on all given classes. Depending on
+     * <code>-num-threads</code> the methods are transformed on several
+     * threads; classes are still finished (xml attributes, dava) in the
+     * order in which they are returned by <code>classes</code>.
+     */
+    private void runBodyPacks( Iterator<SootClass> classes ) {
+        int threads = numThreads();
+
+        // Dava adds methods through G and the interaction handler blocks
+        // on the UI, so both stay single-threaded
+        if (threads == 1
+                || Options.v().output_format() == Options.output_format_dava
+                || Options.v().interactive_mode()) {
+            while( classes.hasNext() ) {
+                runBodyPacks(classes.next());
+            }
+        } else {
+            runBodyPacksInParallel(classes, threads);
+        }
+    }
+
+    /**
+     * Returns the number of threads requested by <code>-num-threads</code>.
+     */
+    public static int numThreads() {
+        int threads = Options.v().num_threads();
+        if (threads <= 0)
+            threads = Runtime.getRuntime().availableProcessors();
+        return threads;
+    }
+
+    private void runBodyPacksInParallel( Iterator<SootClass> classes, int threads ) {
+        final BodyPackTargets targets = new BodyPackTargets();
+
+        List<SootClass> classList = new ArrayList<SootClass>();
+        while( classes.hasNext() ) {
+            classList.add(classes.next());
+        }
+
+        // The front-ends are not thread-safe, so all bodies are created
+        // up front. getMethods() returns a snapshot, so phantom methods
+        // added during resolution are fine.
+        for (SootClass c : classList) {
+            for (SootMethod m : c.getMethods()) {
+                if (m.isConcrete())
+                    m.retrieveActiveBody();
+            }
+        }
+
+        // make sure that lazily built global structures exist before the
+        // workers start asking for them
+        Scene.v().getOrMakeFastHierarchy();
+        Scene.v().getDefaultThrowAnalysis();
+        ThrowableSet.Manager.v();
+        if (Scene.v().hasCallGraph() && usesSideEffectAnalysis()) {
+            // The side-effect summary of a callee is read from its body,
+            // which another worker may be changing, so all summaries are
+            // computed before any body is transformed.
+            SideEffectAnalysis sea = Scene.v().getSideEffectAnalysis();
+            for (SootClass c : classList) {
+                for (SootMethod m : c.getMethods()) {
+                    if (m.isConcrete())
+                        sea.findNTRWSets(m);
                 }
+            }
+        }
 
-                m.setActiveBody(sBody);
-                PackManager.v().getPack("stp").apply(sBody);
-                PackManager.v().getPack("sop").apply(sBody);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<List<Future<TagCollector>>> results =
+                new ArrayList<List<Future<TagCollector>>>(classList.size());
+            for (SootClass c : classList) {
+                List<Future<TagCollector>> classResults = new ArrayList<Future<TagCollector>>();
+                for (final SootMethod m : c.getMethods()) {
+                    if (!m.isConcrete()) continue;
+                    classResults.add(executor.submit(new Callable<TagCollector>() {
+                        public TagCollector call() {
+                            TagCollector tc = new TagCollector();
+                            runBodyPacks(m, targets, tc);
+                            return tc;
+                        }
+                    }));
+                }
+                results.add(classResults);
+            }
 
-                if( produceJimple || (wholeShimple && !produceShimple) )
-                    m.setActiveBody(sBody.toJimpleBody());
+            for (int i = 0; i < classList.size(); i++) {
+                SootClass c = classList.get(i);
+                startBodyPacks(c);
+                TagCollector tc = new TagCollector();
+                for (Future<TagCollector> f : results.get(i)) {
+                    tc.addAll(f.get());
+                }
+                finishBodyPacks(c, targets, tc);
             }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new RuntimeException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompilationDeathException("Interrupted while running body packs");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /** Returns true if an enabled body transformer asks the Scene's
+     * side-effect analysis about the methods being transformed. */
+    private static boolean usesSideEffectAnalysis() {
+        if (isEnabled("jop")) {
+            for (String phase : new String[] { "jop.cse", "jop.bcm", "jop.lcm" }) {
+                if (isEnabled(phase) && !PhaseOptions.getBoolean(
+                        PhaseOptions.v().getPhaseOptions(phase), "naive-side-effect"))
+                    return true;
+            }
+        }
+        return isEnabled("jap") && (isEnabled("jap.sea") || isEnabled("jap.aet"));
+    }
+
+    private static boolean isEnabled(String phase) {
+        return PhaseOptions.getBoolean(PhaseOptions.v().getPhaseOptions(phase), "enabled");
+    }
 
-            if (produceJimple) {
+    private void startBodyPacks(SootClass c) {
+        if (Options.v().output_format() == Options.output_format_dava) {
+            G.v().out.print("Decompiling ");
+
+	     //January 13th, 2006  SootMethodAddedByDava is set to false for SuperFirstStmtHandler
+	    G.v().SootMethodAddedByDava=false;
+        } else {
+            G.v().out.print("Transforming ");
+        }
+        G.v().out.println(c.getName() + "... ");
+    }
+
+    /**
+     * Runs the body packs on a single concrete method. Body tags are
+     * collected into <code>tc</code> if xml attributes are requested.
+     * May be called concurrently for different methods.
+     */
+    private void runBodyPacks(SootMethod m, BodyPackTargets targets, TagCollector tc) {
+        final boolean produceShimple = targets.produceShimple;
+        final boolean produceJimple = targets.produceJimple;
+        final boolean wholeShimple = targets.wholeShimple;
+
+        if (produceShimple || wholeShimple) {
+            ShimpleBody sBody = null;
+
+            // whole shimple or not?
+            {
                 Body body = m.retrieveActiveBody();
-                //Change
-                ConditionalBranchFolder.v().transform(body);
-                UnreachableCodeEliminator.v().transform(body);
-                DeadAssignmentEliminator.v().transform(body);
-                UnusedLocalEliminator.v().transform(body);
-                PackManager.v().getPack("jtp").apply(body);
-                if( Options.v().validate() ) {
-                    body.validate();
+
+                if(body instanceof ShimpleBody){
+                    sBody = (ShimpleBody) body;
+                    if(!sBody.isSSA())
+                        sBody.rebuild();
                 }
-                PackManager.v().getPack("jop").apply(body);
-                PackManager.v().getPack("jap").apply(body);
-                if (Options.v().xml_attributes() && Options.v().output_format() != Options.output_format_jimple) {
-                    //System.out.println("collecting body tags");
-                    tc.collectBodyTags(body);
+                else{
+                    sBody = Shimple.v().newBody(body);
                 }
             }
 
-            //PackManager.v().getPack("cfg").apply(m.retrieveActiveBody());
+            m.setActiveBody(sBody);
+            PackManager.v().getPack("stp").apply(sBody);
+            PackManager.v().getPack("sop").apply(sBody);
 
-            if (produceGrimp) {
-                m.setActiveBody(Grimp.v().newBody(m.getActiveBody(), "gb"));
-                PackManager.v().getPack("gop").apply(m.getActiveBody());
-            } else if (produceBaf) {
-        		m.setActiveBody(convertJimpleBodyToBaf(m));
+            if( produceJimple || (wholeShimple && !produceShimple) )
+                m.setActiveBody(sBody.toJimpleBody());
+        }
+
+        if (produceJimple) {
+            Body body = m.retrieveActiveBody();
+            //Change
+            ConditionalBranchFolder.v().transform(body);
+            UnreachableCodeEliminator.v().transform(body);
+            DeadAssignmentEliminator.v().transform(body);
+            UnusedLocalEliminator.v().transform(body);
+            PackManager.v().getPack("jtp").apply(body);
+            if( Options.v().validate() ) {
+                body.validate();
             }
+            PackManager.v().getPack("jop").apply(body);
+            PackManager.v().getPack("jap").apply(body);
+            if (Options.v().xml_attributes() && Options.v().output_format() != Options.output_format_jimple) {
+                //System.out.println("collecting body tags");
+                tc.collectBodyTags(body);
+            }
+            body.releaseAnalysisCache();
         }
 
+        //PackManager.v().getPack("cfg").apply(m.retrieveActiveBody());
+
+        if (targets.produceGrimp) {
+            m.setActiveBody(Grimp.v().newBody(m.getActiveBody(), "gb"));
+            PackManager.v().getPack("gop").apply(m.getActiveBody());
+        } else if (targets.produceBaf) {
+    		m.setActiveBody(convertJimpleBodyToBaf(m));
+        }
+    }
+
+    private void finishBodyPacks(SootClass c, BodyPackTargets targets, TagCollector tc) {
         if (Options.v().xml_attributes() && Options.v().output_format() != Options.output_format_jimple) {
             processXMLForClass(c, tc);
             //System.out.println("processed xml for class");
         }
 
-        if (produceDava) {
-            methodIt = c.methodIterator();
+        if (targets.produceDava) {
+            Iterator<SootMethod> methodIt = c.methodIterator();
             while (methodIt.hasNext()) {
                 SootMethod m = (SootMethod) methodIt.next();
                 if (!m.isConcrete())
@@ -1107,6 +1293,12 @@ public class PackManager {
     }
 
     private void retrieveAllBodies() {
+        int threads = numThreads();
+        // the Dalvik typer is one shared instance, so its bodies are built
+        // one at a time
+        if (threads > 1 && !IDalvikTyper.ENABLE_DVKTYPER)
+            retrieveDexBodiesInParallel(threads);
+
         Iterator<SootClass> clIt = reachableClasses();
         while( clIt.hasNext() ) {
             SootClass cl = (SootClass) clIt.next();
@@ -1130,6 +1322,59 @@ public class PackManager {
         }
     }
     
+    /**
+     * Builds the bodies of the methods read from dex files on
+     * <code>threads</code> threads. Unlike the other front-ends, dexpler
+     * translates each method on its own, so these bodies can be built
+     * concurrently; all other bodies are left to the caller.
+     */
+    private void retrieveDexBodiesInParallel(int threads) {
+        List<SootMethod> methods = new ArrayList<SootMethod>();
+        Iterator<SootClass> clIt = reachableClasses();
+        while( clIt.hasNext() ) {
+            for (SootMethod m : clIt.next().getMethods()) {
+                if (m.isConcrete() && !m.hasActiveBody()
+                        && m.getSource() instanceof DexMethodSource)
+                    methods.add(m);
+            }
+        }
+        if (methods.size() < 2)
+            return;
+
+        // make sure that lazily built global structures exist before the
+        // workers start asking for them
+        Scene.v().getDefaultThrowAnalysis();
+        ThrowableSet.Manager.v();
+        DalvikThrowAnalysis.v();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> results = new ArrayList<Future<?>>(methods.size());
+            for (final SootMethod m : methods) {
+                results.add(executor.submit(new Runnable() {
+                    public void run() {
+                        m.retrieveActiveBody();
+                    }
+                }));
+            }
+            for (Future<?> f : results) {
+                f.get();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new RuntimeException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompilationDeathException("Interrupted while retrieving bodies");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     public void resetDexPrinter() {
     	this.dexPrinter = new DexPrinter();
     }
@@ -65,6 +65,12 @@ public class PatchingChain<E extends Unit> extends AbstractCollection<E> impleme
         return innerChain.add(o);
     }
 
+    /** Returns the modification count of the inner chain. */
+    public long getModificationCount()
+    {
+        return innerChain.getModificationCount();
+    }
+
     /** Replaces <code>out</code> in the Chain by <code>in</code>. */
     public void swapWith(E out, E in)
     {
@@ -66,7 +66,12 @@ public class RefType extends RefLikeType implements Comparable<RefType>
     {
         if(Scene.v().containsType(className)) {
         	return Scene.v().getRefType( className );
-        } else {
+        }
+        // creation is serialized on the Scene, so that concurrent body
+        // packs asking for the same new type all end up with one RefType
+        synchronized(Scene.v()) {
+	        if(Scene.v().containsType(className))
+	        	return Scene.v().getRefType( className );
 	        RefType ret = new RefType(className);
 	        Scene.v().addRefType( ret );
 	        return ret;
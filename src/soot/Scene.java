@@ -44,11 +44,14 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
 import org.xmlpull.v1.XmlPullParser;
 
+import soot.jimple.spark.IncrementalUpdater;
+import soot.jimple.spark.pag.PAG;
 import soot.jimple.spark.pag.SparkField;
 import soot.jimple.toolkits.callgraph.CallGraph;
 import soot.jimple.toolkits.callgraph.ContextSensitiveCallGraph;
@@ -126,7 +129,7 @@ public class Scene  //extends AbstractHost
     Chain<SootClass> libraryClasses = new HashChain<SootClass>();
     Chain<SootClass> phantomClasses = new HashChain<SootClass>();
     
-    private final Map<String,Type> nameToClass = new HashMap<String,Type>();
+    private final Map<String,Type> nameToClass = new ConcurrentHashMap<String,Type>();
 
     ArrayNumberer<Kind> kindNumberer = new ArrayNumberer<Kind>();
     ArrayNumberer<Type> typeNumberer = new ArrayNumberer<Type>();
@@ -856,11 +859,13 @@ public class Scene  //extends AbstractHost
     /****************************************************************************/
     /** Makes a new fast hierarchy is none is active, and returns the active
      * fast hierarchy. */
-    public FastHierarchy getOrMakeFastHierarchy() {
-	if(!hasFastHierarchy() ) {
-	    setFastHierarchy( new FastHierarchy() );
+    public synchronized FastHierarchy getOrMakeFastHierarchy() {
+	FastHierarchy hierarchy = activeFastHierarchy;
+	if(hierarchy == null) {
+	    hierarchy = new FastHierarchy();
+	    setFastHierarchy( hierarchy );
 	}
-	return getFastHierarchy();
+	return hierarchy;
     }
     /**
         Retrieves the active fast hierarchy
@@ -978,6 +983,30 @@ public class Scene  //extends AbstractHost
         activeCallGraph = null;
         reachableMethods = null;
     }
+    /** Brings the call graph, reachable methods and points-to analysis up
+     * to date after the members or bodies of the classes in modified have
+     * been changed, and the classes in removed have been removed from the
+     * Scene. If the points-to analysis is a Spark PAG that
+     * IncrementalUpdater supports, only the parts affected by the change
+     * are computed again; otherwise the cg pack is run again. */
+    public void updateCallGraph( Collection<SootClass> modified, Collection<SootClass> removed )
+    {
+        if( activePointsToAnalysis instanceof PAG
+        && IncrementalUpdater.supports( (PAG) activePointsToAnalysis ) ) {
+            IncrementalUpdater updater = new IncrementalUpdater( (PAG) activePointsToAnalysis );
+            for( SootClass c : modified ) updater.classModified( c );
+            for( SootClass c : removed ) updater.classRemoved( c );
+            updater.update();
+            return;
+        }
+        releaseCallGraph();
+        releasePointsToAnalysis();
+        releaseActiveHierarchy();
+        releaseFastHierarchy();
+        // Spark caches the method PAGs by method alone
+        G.v().MethodPAG_methodToPag.clear();
+        PackManager.v().getPack( "cg" ).apply();
+    }
     public ReachableMethods getReachableMethods() {
         if( reachableMethods == null ) {
             reachableMethods = new ReachableMethods(
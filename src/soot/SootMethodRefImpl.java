@@ -130,7 +130,13 @@ class SootMethodRefImpl implements SootMethodRef {
             {
                 SootMethod m = new SootMethod(name, parameterTypes, returnType, isStatic()?Modifier.STATIC:0);
                 m.setPhantom(true);
-                cl.addMethod(m);
+                synchronized (cl) {
+                	// Be careful: Another thread may have already created this
+                	// method in the meantime, so better check twice.
+                	if( cl.declaresMethod( getSubSignature() ) )
+                		return checkStatic(cl.getMethod( getSubSignature() ));
+                	cl.addMethod(m);
+                }
                 return checkStatic(m);
             }
             if( cl.hasSuperclass() ) cl = cl.getSuperclass();
@@ -215,7 +221,12 @@ class SootMethodRefImpl implements SootMethodRef {
 		//throw exc
 		body.getUnits().insertAfter(Jimple.v().newThrowStmt(exceptionLocal), initStmt);
 
-		declaringClass.addMethod(m);
+		synchronized (declaringClass) {
+			// Another thread may have created this method in the meantime
+			if (declaringClass.declaresMethod(getSubSignature()))
+				return declaringClass.getMethod(getSubSignature());
+			declaringClass.addMethod(m);
+		}
 		return m;
 	}
     
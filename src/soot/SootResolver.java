@@ -34,6 +34,11 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import soot.JastAddJ.BytecodeParser;
 import soot.JastAddJ.CompilationUnit;
@@ -58,6 +63,14 @@ public class SootResolver
 
 	protected Program program;
 
+    /** Class sources that are being located and parsed ahead of time on
+     * the worker threads, see -num-threads. */
+    private final Map<SootClass, Future<ClassSource>> pendingClassSources = new HashMap<SootClass, Future<ClassSource>>();
+
+    /** The worker threads of the outermost processResolveWorklist() call,
+     * or null if class sources are looked up on demand. */
+    private ExecutorService classSourceExecutor;
+
     public SootResolver (Singletons.Global g) {
         worklist[SootClass.HIERARCHY] = new LinkedList<SootClass>();
         worklist[SootClass.SIGNATURES] = new LinkedList<SootClass>();
@@ -107,12 +120,19 @@ public class SootResolver
         if(Scene.v().containsClass(className))
             return Scene.v().getSootClass(className);
 
-        SootClass newClass;
-        newClass = new SootClass(className);
-        newClass.setResolvingLevel(SootClass.DANGLING);
-        Scene.v().addClass(newClass);
+        // dexpler builds bodies concurrently, so two threads may ask for
+        // the same new class; adding it is serialized on the Scene
+        synchronized(Scene.v()) {
+            if(Scene.v().containsClass(className))
+                return Scene.v().getSootClass(className);
+
+            SootClass newClass;
+            newClass = new SootClass(className);
+            newClass.setResolvingLevel(SootClass.DANGLING);
+            Scene.v().addClass(newClass);
 
-        return newClass;
+            return newClass;
+        }
     }
 
 
@@ -138,8 +158,43 @@ public class SootResolver
     	}
     }
 
+    /** Returns true if class sources may be looked up on worker threads.
+     * The Dex and Polyglot front-ends keep global state while locating
+     * classes, so they are always used on the main thread. */
+    private boolean prefetchClassSources() {
+        return Options.v().num_threads() != 1
+            && Options.v().src_prec() != Options.src_prec_apk
+            && !Options.v().polyglot();
+    }
+
     /** Resolve all classes on toResolveWorklist. */
     private void processResolveWorklist() {
+        if( classSourceExecutor != null || !prefetchClassSources() ) {
+            drainResolveWorklist();
+            return;
+        }
+        int threads = Options.v().num_threads();
+        if( threads <= 0 )
+            threads = Runtime.getRuntime().availableProcessors();
+        // set up the class path on this thread, it reads from the Scene
+        SourceLocator.v().getClassProviders();
+        classSourceExecutor = Executors.newFixedThreadPool(threads);
+        try {
+            // Everything queued so far has been added before the executor
+            // existed
+            for( int i = SootClass.HIERARCHY; i <= SootClass.BODIES; i++ ) {
+                for( SootClass sc : worklist[i] )
+                    prefetchClassSource(sc);
+            }
+            drainResolveWorklist();
+        } finally {
+            classSourceExecutor.shutdownNow();
+            classSourceExecutor = null;
+            pendingClassSources.clear();
+        }
+    }
+
+    private void drainResolveWorklist() {
         for( int i = SootClass.BODIES; i >= SootClass.HIERARCHY; i-- ) {
             while( !worklist[i].isEmpty() ) {
                 SootClass sc = (SootClass) worklist[i].removeFirst();
@@ -185,6 +240,44 @@ public class SootResolver
     private void addToResolveWorklist(SootClass sc, int desiredLevel) {
     	if( sc.resolvingLevel() >= desiredLevel ) return;
         worklist[desiredLevel].add(sc);
+        if( classSourceExecutor != null )
+            prefetchClassSource(sc);
+    }
+
+    /** Starts locating and parsing the class source of sc on a worker
+     * thread, unless this has already been done. */
+    private void prefetchClassSource(SootClass sc) {
+        if( sc.resolvingLevel() >= SootClass.HIERARCHY ) return;
+        if( pendingClassSources.containsKey(sc) ) return;
+        final String className = sc.getName();
+        pendingClassSources.put(sc, classSourceExecutor.submit(new Callable<ClassSource>() {
+            public ClassSource call() {
+                ClassSource is = SourceLocator.v().getClassSource(className);
+                if( is != null ) is.prepare();
+                return is;
+            }
+        }));
+    }
+
+    /** Returns the class source for sc, waiting for the worker thread if
+     * it has been prefetched. */
+    private ClassSource getClassSource(SootClass sc) {
+        Future<ClassSource> pending = pendingClassSources.remove(sc);
+        if( pending == null )
+            return SourceLocator.v().getClassSource(sc.getName());
+        try {
+            return pending.get();
+        } catch( ExecutionException e ) {
+            Throwable cause = e.getCause();
+            if( cause instanceof RuntimeException )
+                throw (RuntimeException) cause;
+            if( cause instanceof Error )
+                throw (Error) cause;
+            throw new RuntimeException(cause);
+        } catch( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new CompilationDeathException("Interrupted while resolving "+sc.getName());
+        }
     }
 
     /** Hierarchy - we know the hierarchy of the class and that's it
@@ -197,7 +290,7 @@ public class SootResolver
         sc.setResolvingLevel(SootClass.HIERARCHY);
 
         String className = sc.getName();
-        ClassSource is = SourceLocator.v().getClassSource(className);
+        ClassSource is = getClassSource(sc);
         boolean modelAsPhantomRef = is == null;
 //        || (
 //        		Options.v().no_jrl() &&
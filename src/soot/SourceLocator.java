@@ -53,22 +53,8 @@ public class SourceLocator
     /** Given a class name, uses the soot-class-path to return a ClassSource for the given class. */
 	public ClassSource getClassSource(String className) 
     {
-		if(classesToLoad==null) {
-			classesToLoad = new HashSet<String>();
-			classesToLoad.addAll(Scene.v().getBasicClasses());
-			for(SootClass c: Scene.v().getApplicationClasses()) {
-				classesToLoad.add(c.getName());
-			}
-		}
-    	
-        if( classPath == null ) {
-            classPath = explodeClassPath(Scene.v().getSootClassPath());
-        }
-        if( classProviders == null ) {
-            setupClassProviders();
-        }
         JarException ex = null;
-        for (ClassProvider cp : classProviders) {
+        for (ClassProvider cp : getClassProviders()) {
             try {
 	        	ClassSource ret = cp.find(className);
 	            if( ret != null ) return ret;
@@ -146,11 +132,35 @@ public class SourceLocator
     public void setClassProviders( List<ClassProvider> classProviders ) {
         this.classProviders = classProviders;
     }
+    /** Returns the class providers used by {@link #getClassSource(String)},
+     * setting up the class path and the default providers if necessary.
+     * Synchronized since the resolver may look up classes on several
+     * threads. */
+    public synchronized List<ClassProvider> getClassProviders() {
+		if(classesToLoad==null) {
+			classesToLoad = new HashSet<String>();
+			classesToLoad.addAll(Scene.v().getBasicClasses());
+			for(SootClass c: Scene.v().getApplicationClasses()) {
+				classesToLoad.add(c.getName());
+			}
+		}
+    	
+        if( classPath == null ) {
+            classPath = explodeClassPath(Scene.v().getSootClassPath());
+        }
+        if( classProviders == null ) {
+            setupClassProviders();
+        }
+        return classProviders;
+    }
 
     private List<String> classPath;
     public List<String> classPath() { return classPath; }
     public void invalidateClassPath() {
         classPath = null;
+        ClassPathIndex index = classPathIndex;
+        classPathIndex = null;
+        if( index != null ) index.release();
     }
 
     private List<String> sourcePath;
@@ -432,8 +442,10 @@ public class SourceLocator
         return ret;
     }
     public static class FoundFile {
-        FoundFile( ZipFile zipFile, ZipEntry entry ) {
-            this.zipFile = zipFile;
+        FoundFile( SharedZipFile sharedZipFile, ZipEntry entry ) {
+            sharedZipFile.acquire();
+            this.sharedZipFile = sharedZipFile;
+            this.zipFile = sharedZipFile.zipFile;
             this.entry = entry;
         }
         FoundFile( File file ) {
@@ -442,6 +454,7 @@ public class SourceLocator
         public File file;
         public ZipFile zipFile;
         public ZipEntry entry;
+        private SharedZipFile sharedZipFile;
         public InputStream inputStream() {
             try {
                 if( file != null ) return new FileInputStream(file);
@@ -457,6 +470,96 @@ public class SourceLocator
             else
                 return new File(zipFile.getName());
         }
+        /** Gives up this file's reference to the archive it was found in.
+         * The streams returned by {@link #inputStream()} stay valid. */
+        public void close() {
+            if( sharedZipFile != null ) {
+                sharedZipFile.release();
+                sharedZipFile = null;
+            }
+        }
+    }
+
+    /** A ZipFile handle that is shared by all lookups into the same
+     * archive. The class path index holds one reference and every
+     * FoundFile in the archive holds another one; the archive is closed
+     * when the last reference is released. */
+    static class SharedZipFile {
+        final ZipFile zipFile;
+        private int references = 1;
+
+        SharedZipFile( ZipFile zipFile ) {
+            this.zipFile = zipFile;
+        }
+        synchronized void acquire() {
+            if( references == 0 )
+                throw new IllegalStateException( "Archive "+zipFile.getName()+" has already been closed" );
+            references++;
+        }
+        synchronized void release() {
+            if( --references == 0 ) {
+                try {
+                    zipFile.close();
+                } catch( IOException e ) {
+                    // nothing was written, so there is nothing to lose
+                }
+            }
+        }
+    }
+
+    /** Maps the entries of all archives on the class path to the first
+     * archive containing them, so that a lookup does not have to probe
+     * every archive. Directories are not indexed since their contents may
+     * change while Soot is running (e.g. output of an earlier run). */
+    private class ClassPathIndex {
+        final String[] entries;
+        final SharedZipFile[] archives;
+        final Map<String, Integer> archiveEntries = new HashMap<String, Integer>();
+
+        ClassPathIndex( List<String> classPath ) {
+            entries = classPath.toArray(new String[classPath.size()]);
+            archives = new SharedZipFile[entries.length];
+            for( int i = 0; i < entries.length; i++ ) {
+                if( !isArchive(entries[i]) ) continue;
+                try {
+                    archives[i] = new SharedZipFile(new ZipFile(entries[i]));
+                } catch( IOException e ) {
+                    release();
+                    throw new RuntimeException("Caught IOException " + e + " opening archive file " + entries[i]);
+                }
+                Integer pos = i;
+                for( Enumeration<? extends ZipEntry> e = archives[i].zipFile.entries(); e.hasMoreElements(); ) {
+                    ZipEntry entry = e.nextElement();
+                    if( entry.isDirectory() ) continue;
+                    if( !archiveEntries.containsKey(entry.getName()) )
+                        archiveEntries.put(entry.getName(), pos);
+                }
+            }
+        }
+
+        void release() {
+            for( SharedZipFile archive : archives ) {
+                if( archive != null ) archive.release();
+            }
+        }
+    }
+
+    private volatile ClassPathIndex classPathIndex;
+
+    private ClassPathIndex classPathIndex() {
+        ClassPathIndex index = classPathIndex;
+        if( index == null ) {
+            synchronized( this ) {
+                index = classPathIndex;
+                if( index == null ) {
+                    if( classPath == null )
+                        classPath = explodeClassPath(Scene.v().getSootClassPath());
+                    index = new ClassPathIndex(classPath);
+                    classPathIndex = index;
+                }
+            }
+        }
+        return index;
     }
 
     private static InputStream doJDKBugWorkaround(InputStream is, long size) throws IOException {
@@ -477,18 +580,23 @@ public class SourceLocator
     }
 
 
-    /** Searches for a file with the given name in the exploded classPath. */
+    /** Searches for a file with the given name in the exploded classPath.
+     * Archives are looked up through an index that is built on the first
+     * call and kept until {@link #invalidateClassPath()}; callers should
+     * {@link FoundFile#close()} the result once they have read it. */
     public FoundFile lookupInClassPath( String fileName ) {
-        for (String dir : classPath) {
-            FoundFile ret;
-            if(isArchive(dir)) {
-                ret = lookupInArchive(dir, fileName);
-            } else {
-                ret = lookupInDir(dir, fileName);
-            }
+        ClassPathIndex index = classPathIndex();
+        Integer archivePos = index.archiveEntries.get(fileName);
+        // directories in front of the archive still take precedence
+        int end = archivePos == null ? index.entries.length : archivePos.intValue();
+        for( int i = 0; i < end; i++ ) {
+            if( index.archives[i] != null ) continue;
+            FoundFile ret = lookupInDir(index.entries[i], fileName);
             if( ret != null ) return ret;
         }
-        return null;
+        if( archivePos == null ) return null;
+        SharedZipFile archive = index.archives[archivePos.intValue()];
+        return new FoundFile(archive, archive.zipFile.getEntry(fileName));
     }
     private FoundFile lookupInDir(String dir, String fileName) {
         File f = new File( dir+File.separatorChar+fileName );
@@ -497,19 +605,6 @@ public class SourceLocator
         }
         return null;
     }
-    private FoundFile lookupInArchive(String archivePath, String fileName) {
-        try {
-            ZipFile archive = new ZipFile(archivePath);
-            ZipEntry entry = archive.getEntry(fileName);
-            if( entry == null ) {
-            	archive.close();
-            	return null;
-            }
-            return new FoundFile(archive, entry);
-        } catch( IOException e ) {
-            throw new RuntimeException("Caught IOException " + e + " looking in archive file " + archivePath + " for file " + fileName);
-        }
-    }
     private HashMap<String, String> sourceToClassMap;
 
     public HashMap<String, String> getSourceToClassMap(){
@@ -30,12 +30,17 @@ import soot.options.*;
 import java.util.*;
 
 /** Utility class providing a timer.  Used for profiling various
- * phases of Sootification. */
+ * phases of Sootification. 
+ *
+ * A timer may be running in several threads at once (for instance
+ * when body packs are applied with <code>-num-threads</code>); it then
+ * measures the wall-clock time during which at least one thread was
+ * inside the timed region. */
 public class Timer
 {
     private long duration;
     private long startTime;
-    private boolean hasStarted;
+    private final Set<Thread> activeThreads = new HashSet<Thread>(4);
 		
     private String name;
 		
@@ -56,8 +61,11 @@ public class Timer
     /** Starts the given timer. */
     public void start()
     {
-        // Subtract garbage collection time
-				if(!G.v().Timer_isGarbageCollecting && Options.v() != null && Options.v().subtract_gc() && ((G.v().Timer_count++ % 4) == 0))
+        final List<Timer> outstandingTimers = G.v().Timer_outstandingTimers;
+        synchronized(outstandingTimers)
+        {
+            // Subtract garbage collection time
+            if(!G.v().Timer_isGarbageCollecting && Options.v() != null && Options.v().subtract_gc() && ((G.v().Timer_count++ % 4) == 0))
             {
                 // garbage collects only every 4 calls to avoid round off errors
                 
@@ -67,13 +75,13 @@ public class Timer
                 
                 // Stop all outstanding timers
                 {
-                    Iterator<Timer> timerIt = G.v().Timer_outstandingTimers.iterator();
+                    Iterator<Timer> timerIt = outstandingTimers.iterator();
                     
                     while(timerIt.hasNext())
                     {
                         Timer t = timerIt.next();
                         
-                        t.end();
+                        t.pause();
                     }
                 }
                 
@@ -81,13 +89,13 @@ public class Timer
         
                 // Start all outstanding timers
                 {
-                    Iterator<Timer> timerIt = G.v().Timer_outstandingTimers.iterator();
+                    Iterator<Timer> timerIt = outstandingTimers.iterator();
                     
                     while(timerIt.hasNext())
                     {
                         Timer t = timerIt.next();
                         
-                        t.start();
+                        t.resume();
                     }
                 }
                 
@@ -95,21 +103,24 @@ public class Timer
                 
                 G.v().Timer_isGarbageCollecting = false;
             }
-                        
-        
-        startTime = System.currentTimeMillis();
-        
-        if(hasStarted)
-            throw new RuntimeException("timer " + name + " has already been started!");
-        else
-            hasStarted = true;
-        
-        
-        if(!G.v().Timer_isGarbageCollecting) 
-        {
-            G.v().Timer_outstandingTimers.add(this);
-        }
             
+            synchronized(this)
+            {
+                if(!activeThreads.add(Thread.currentThread()))
+                    throw new RuntimeException("timer " + name + " has already been started!");
+                
+                // already running in another thread
+                if(activeThreads.size() > 1)
+                    return;
+                
+                startTime = System.currentTimeMillis();
+            }
+            
+            if(!G.v().Timer_isGarbageCollecting) 
+            {
+                outstandingTimers.add(this);
+            }
+        }
     }
 
     /** Returns the name of the current timer. */
@@ -121,22 +132,42 @@ public class Timer
     /** Stops the current timer. */
     public void end()
     {   
-        if(!hasStarted)
-            throw new RuntimeException("timer " + name + " has not been started!");
-        else
-            hasStarted = false;
-        
-        duration += System.currentTimeMillis() - startTime;
-        
-        
-        if(!G.v().Timer_isGarbageCollecting)
+        final List<Timer> outstandingTimers = G.v().Timer_outstandingTimers;
+        synchronized(outstandingTimers)
         {
-            G.v().Timer_outstandingTimers.remove(this);
+            synchronized(this)
+            {
+                if(!activeThreads.remove(Thread.currentThread()))
+                    throw new RuntimeException("timer " + name + " has not been started!");
+                
+                // still running in another thread
+                if(!activeThreads.isEmpty())
+                    return;
+                
+                duration += System.currentTimeMillis() - startTime;
+            }
+            
+            if(!G.v().Timer_isGarbageCollecting)
+            {
+                outstandingTimers.remove(this);
+            }
         }
     }
 
+    /** Stops accumulating time while garbage is being collected,
+     * no matter which threads the timer is running in. */
+    private synchronized void pause()
+    {
+        duration += System.currentTimeMillis() - startTime;
+    }
+
+    private synchronized void resume()
+    {
+        startTime = System.currentTimeMillis();
+    }
+
     /** Returns the sum of the intervals start()-end() of the current timer. */
-    public long getTime()
+    public synchronized long getTime()
     {
         return duration;
     }
@@ -79,10 +79,14 @@ public class Transform implements HasPhaseOptions
 
     public void apply() {
         Map<String, String> options = PhaseOptions.v().getPhaseOptions( phaseName );
+        TransformMeasurement.Probe probe = null;
         if( PhaseOptions.getBoolean( options, "enabled" ) ) {
             if( Options.v().verbose()  ) {
                 G.v().out.println( "Applying phase "+phaseName+" to the scene." );
             }
+            if( PackManager.v().hasTransformListeners() ) {
+                probe = new TransformMeasurement.Probe( phaseName, null );
+            }
         }
 	if (DEBUG)
 	    PhaseDumper.v().dumpBefore(getPhaseName());
@@ -91,13 +95,18 @@ public class Transform implements HasPhaseOptions
 
 	if (DEBUG)
 	    PhaseDumper.v().dumpAfter(getPhaseName());
+        if( probe != null ) PackManager.v().fireTransformApplied( probe.finish() );
     }
     public void apply(Body b) {
         Map<String, String> options = PhaseOptions.v().getPhaseOptions( phaseName );
+        TransformMeasurement.Probe probe = null;
         if( PhaseOptions.getBoolean( options, "enabled" ) ) {
             if( Options.v().verbose() ) {
                 G.v().out.println( "Applying phase "+phaseName+" to "+b.getMethod()+"." );
             }
+            if( PackManager.v().hasTransformListeners() ) {
+                probe = new TransformMeasurement.Probe( phaseName, b );
+            }
         }
 	if (DEBUG)
 	    PhaseDumper.v().dumpBefore(b, getPhaseName());
@@ -106,5 +115,6 @@ public class Transform implements HasPhaseOptions
 
 	if (DEBUG)
 	    PhaseDumper.v().dumpAfter(b, getPhaseName());
+        if( probe != null ) PackManager.v().fireTransformApplied( probe.finish() );
     }
 }
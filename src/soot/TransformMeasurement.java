@@ -0,0 +1,135 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 1997-2014 Raja Vallee-Rai and others
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+
+package soot;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/** The cost of one application of a {@link Transform}: wall-clock time,
+ * CPU time and bytes allocated by the applying thread, and for body
+ * transforms the size of the body before and after.
+ *
+ * The figures are inclusive: if a transform causes another transform to
+ * run (for instance when it retrieves a body that has to be built by the
+ * jb pack first), the cost of the inner transform is counted in both.
+ * CPU time and allocated bytes are -1 if the JVM cannot measure them. */
+public class TransformMeasurement {
+    private final String phaseName;
+    private final SootMethod method;
+    private final long wallNanos;
+    private final long cpuNanos;
+    private final long allocatedBytes;
+    private final int unitsBefore;
+    private final int unitsAfter;
+    private final int localsBefore;
+    private final int localsAfter;
+
+    public TransformMeasurement( String phaseName, SootMethod method,
+            long wallNanos, long cpuNanos, long allocatedBytes,
+            int unitsBefore, int unitsAfter, int localsBefore, int localsAfter ) {
+        this.phaseName = phaseName;
+        this.method = method;
+        this.wallNanos = wallNanos;
+        this.cpuNanos = cpuNanos;
+        this.allocatedBytes = allocatedBytes;
+        this.unitsBefore = unitsBefore;
+        this.unitsAfter = unitsAfter;
+        this.localsBefore = localsBefore;
+        this.localsAfter = localsAfter;
+    }
+
+    public String getPhaseName() { return phaseName; }
+    /** Returns the method whose body was transformed, or null for a scene
+     * transform. */
+    public SootMethod getMethod() { return method; }
+    public long getWallNanos() { return wallNanos; }
+    public long getCpuNanos() { return cpuNanos; }
+    public long getAllocatedBytes() { return allocatedBytes; }
+    /** Returns the number of units in the body before the transform, or -1
+     * for a scene transform. */
+    public int getUnitsBefore() { return unitsBefore; }
+    public int getUnitsAfter() { return unitsAfter; }
+    public int getLocalsBefore() { return localsBefore; }
+    public int getLocalsAfter() { return localsAfter; }
+
+    public String toString() {
+        return phaseName+( method == null ? "" : " on "+method )
+            +": "+wallNanos/1000+"us wall, "+cpuNanos/1000+"us cpu, "
+            +allocatedBytes+" bytes";
+    }
+
+    /** Takes the readings of the current thread at the start of a
+     * transform, and builds the measurement at its end. */
+    static class Probe {
+        private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        private static final boolean cpuSupported = threads.isCurrentThreadCpuTimeSupported();
+        private static final boolean allocSupported = allocatedBytesSupported();
+
+        private static boolean allocatedBytesSupported() {
+            if( !(threads instanceof com.sun.management.ThreadMXBean) ) return false;
+            com.sun.management.ThreadMXBean t = (com.sun.management.ThreadMXBean) threads;
+            try {
+                if( !t.isThreadAllocatedMemorySupported() ) return false;
+                if( !t.isThreadAllocatedMemoryEnabled() ) t.setThreadAllocatedMemoryEnabled( true );
+                return true;
+            } catch( UnsupportedOperationException e ) {
+                return false;
+            } catch( SecurityException e ) {
+                return false;
+            }
+        }
+
+        private static long allocatedBytes() {
+            if( !allocSupported ) return -1;
+            return ((com.sun.management.ThreadMXBean) threads)
+                .getThreadAllocatedBytes( Thread.currentThread().getId() );
+        }
+
+        private final String phaseName;
+        private final Body body;
+        private final int unitsBefore;
+        private final int localsBefore;
+        private final long wallStart;
+        private final long cpuStart;
+        private final long allocStart;
+
+        Probe( String phaseName, Body body ) {
+            this.phaseName = phaseName;
+            this.body = body;
+            this.unitsBefore = body == null ? -1 : body.getUnits().size();
+            this.localsBefore = body == null ? -1 : body.getLocalCount();
+            this.allocStart = allocatedBytes();
+            this.cpuStart = cpuSupported ? threads.getCurrentThreadCpuTime() : -1;
+            this.wallStart = System.nanoTime();
+        }
+
+        TransformMeasurement finish() {
+            long wall = System.nanoTime() - wallStart;
+            long cpu = cpuSupported ? threads.getCurrentThreadCpuTime() - cpuStart : -1;
+            long alloc = allocSupported ? allocatedBytes() - allocStart : -1;
+            if( body == null ) {
+                return new TransformMeasurement( phaseName, null, wall, cpu, alloc,
+                        -1, -1, -1, -1 );
+            }
+            return new TransformMeasurement( phaseName, body.getMethod(), wall, cpu, alloc,
+                    unitsBefore, body.getUnits().size(), localsBefore, body.getLocalCount() );
+        }
+    }
+}
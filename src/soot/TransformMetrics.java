@@ -0,0 +1,125 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 1997-2014 Raja Vallee-Rai and others
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+
+package soot;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/** A {@link TransformListener} that keeps every measurement it receives
+ * and writes them out as CSV or JSON, one record per application of a
+ * transform. Used by the -phase-metrics option. */
+public class TransformMetrics implements TransformListener {
+    private final List<TransformMeasurement> measurements = new ArrayList<TransformMeasurement>();
+
+    public synchronized void transformApplied( TransformMeasurement m ) {
+        measurements.add( m );
+    }
+
+    /** Returns a copy of the measurements received so far. */
+    public synchronized List<TransformMeasurement> getMeasurements() {
+        return new ArrayList<TransformMeasurement>( measurements );
+    }
+
+    public synchronized void clear() {
+        measurements.clear();
+    }
+
+    /** Writes the measurements to the given file, as JSON if its name ends
+     * in .json and as CSV otherwise. */
+    public void write( String fileName ) throws IOException {
+        PrintWriter out = new PrintWriter( new OutputStreamWriter(
+                    new FileOutputStream( fileName ), "UTF-8" ) );
+        try {
+            if( fileName.endsWith( ".json" ) ) writeJSON( out );
+            else writeCSV( out );
+        } finally {
+            out.close();
+        }
+    }
+
+    public void writeCSV( Writer w ) {
+        PrintWriter out = new PrintWriter( w );
+        out.println( "phase,method,wall_ns,cpu_ns,allocated_bytes,units_before,units_after,locals_before,locals_after" );
+        for( TransformMeasurement m : getMeasurements() ) {
+            out.print( m.getPhaseName() );
+            out.print( ',' );
+            if( m.getMethod() != null ) {
+                out.print( '"' );
+                out.print( m.getMethod().getSignature().replace( "\"", "\"\"" ) );
+                out.print( '"' );
+            }
+            out.println( ","+m.getWallNanos()+","+m.getCpuNanos()+","+m.getAllocatedBytes()
+                    +","+m.getUnitsBefore()+","+m.getUnitsAfter()
+                    +","+m.getLocalsBefore()+","+m.getLocalsAfter() );
+        }
+        out.flush();
+    }
+
+    public void writeJSON( Writer w ) {
+        PrintWriter out = new PrintWriter( w );
+        out.println( "[" );
+        boolean first = true;
+        for( TransformMeasurement m : getMeasurements() ) {
+            if( !first ) out.println( "," );
+            first = false;
+            out.print( "  {\"phase\": "+quote( m.getPhaseName() ) );
+            out.print( ", \"method\": "
+                    +( m.getMethod() == null ? "null" : quote( m.getMethod().getSignature() ) ) );
+            out.print( ", \"wall_ns\": "+m.getWallNanos() );
+            out.print( ", \"cpu_ns\": "+m.getCpuNanos() );
+            out.print( ", \"allocated_bytes\": "+m.getAllocatedBytes() );
+            if( m.getMethod() != null ) {
+                out.print( ", \"units_before\": "+m.getUnitsBefore() );
+                out.print( ", \"units_after\": "+m.getUnitsAfter() );
+                out.print( ", \"locals_before\": "+m.getLocalsBefore() );
+                out.print( ", \"locals_after\": "+m.getLocalsAfter() );
+            }
+            out.print( "}" );
+        }
+        if( !first ) out.println();
+        out.println( "]" );
+        out.flush();
+    }
+
+    private static String quote( String s ) {
+        StringBuilder sb = new StringBuilder( s.length()+2 );
+        sb.append( '"' );
+        for( int i = 0; i < s.length(); i++ ) {
+            char c = s.charAt( i );
+            switch( c ) {
+                case '"': sb.append( "\\\"" ); break;
+                case '\\': sb.append( "\\\\" ); break;
+                case '\n': sb.append( "\\n" ); break;
+                case '\r': sb.append( "\\r" ); break;
+                case '\t': sb.append( "\\t" ); break;
+                default:
+                    if( c < 0x20 ) sb.append( String.format( "\\u%04x", (int) c ) );
+                    else sb.append( c );
+            }
+        }
+        sb.append( '"' );
+        return sb.toString();
+    }
+}
@@ -33,6 +33,10 @@ public class AsmClassProvider implements ClassProvider {
 		String clsFile = cls.replace('.', '/') + ".class";
 		SourceLocator.FoundFile file =
 				SourceLocator.v().lookupInClassPath(clsFile);
-		return file == null ? null : new AsmClassSource(cls, file.inputStream());
+		if (file == null)
+			return null;
+		ClassSource ret = new AsmClassSource(cls, file.inputStream());
+		file.close();
+		return ret;
 	}
 }
@@ -22,9 +22,11 @@ import java.io.IOException;
 import java.io.InputStream;
 
 import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
 
 import soot.ClassSource;
 import soot.SootClass;
+import soot.jimple.cache.BodyCache;
 import soot.javaToJimple.IInitialResolver.Dependencies;
 
 /**
@@ -35,6 +37,8 @@ import soot.javaToJimple.IInitialResolver.Dependencies;
 class AsmClassSource extends ClassSource {
 
 	private InputStream data;
+	private ClassNode node;
+	private byte[] classBytes;
 	
 	/**
 	 * Constructs a new ASM class source.
@@ -52,22 +56,47 @@ class AsmClassSource extends ClassSource {
 			throw new IllegalStateException();
 		data = null;
 		try {
-			return new ClassReader(d);
+			ClassReader clsr = new ClassReader(d);
+			if (BodyCache.v().isEnabled())
+				classBytes = clsr.b;
+			return clsr;
 		} finally {
 			d.close();
 		}
 	}
 	
 	@Override
-	public Dependencies resolve(SootClass sc) {
+	public void prepare() {
 		ClassReader clsr;
 		try {
 			clsr = read();
 		} catch (IOException e) {
 			throw new RuntimeException(e);
 		}
+		ClassNode n = new ClassNode();
+		clsr.accept(n, ClassReader.SKIP_FRAMES);
+		node = n;
+	}
+	
+	@Override
+	public Dependencies resolve(SootClass sc) {
 		SootClassBuilder scb = new SootClassBuilder(sc);
-		clsr.accept(scb, ClassReader.SKIP_FRAMES);
+		if (node != null) {
+			node.accept(scb);
+			node = null;
+		} else {
+			ClassReader clsr;
+			try {
+				clsr = read();
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+			clsr.accept(scb, ClassReader.SKIP_FRAMES);
+		}
+		if (classBytes != null) {
+			BodyCache.v().attach(sc, classBytes, scb.deps);
+			classBytes = null;
+		}
 		Dependencies deps = new Dependencies();
 		deps.typesToSignature.addAll(scb.deps);
 		return deps;
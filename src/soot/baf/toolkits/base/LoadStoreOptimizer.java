@@ -39,9 +39,6 @@ public class LoadStoreOptimizer extends BodyTransformer
     public LoadStoreOptimizer( Singletons.Global g ) {}
     public static LoadStoreOptimizer v() { return G.v().soot_baf_toolkits_base_LoadStoreOptimizer(); }
 
-    // Constants
-    boolean debug = false;
-    
     // constants returned by the stackIndependent function.
     final static private int FAILURE = 0;
     final static private int SUCCESS = 1;
@@ -54,8 +51,6 @@ public class LoadStoreOptimizer extends BodyTransformer
     final static private int STORE_LOAD_ELIMINATION = 0;
     final static private int STORE_LOAD_LOAD_ELIMINATION = -1;
 
-        
-    private Map<String,String> gOptions;
 
     /** The method that drives the optimizations. */
     /* This is the public interface to LoadStoreOptimizer */
@@ -63,13 +58,12 @@ public class LoadStoreOptimizer extends BodyTransformer
     protected void internalTransform(Body body, String phaseName, Map<String,String> options) 
     {   
 
-        gOptions = options;
-
-        Instance instance = new Instance();
+        // all per-body state lives in the Instance, since bodies may be
+        // optimized concurrently (see -num-threads)
+        Instance instance = new Instance(options);
         instance.mBody = body;        
         instance.mUnits =  body.getUnits();
-        
-        debug = PhaseOptions.getBoolean(gOptions, "debug");
+        boolean debug = instance.debug;
         
         if(Options.v().verbose())
             G.v().out.println("[" + body.getMethod().getName() + "] Performing LoadStore optimizations...");
@@ -79,7 +73,14 @@ public class LoadStoreOptimizer extends BodyTransformer
         instance.go();
     }
 class Instance {
+    Instance(Map<String,String> options) {
+        gOptions = options;
+        debug = PhaseOptions.getBoolean(options, "debug");
+    }
+
     // Instance vars.
+    private final Map<String,String> gOptions;
+    private final boolean debug;
     private Chain<Unit> mUnits;
     private Body mBody;
     private ExceptionalUnitGraph mExceptionalUnitGraph;
@@ -163,7 +164,7 @@ class Instance {
     private void computeLocalDefsAndLocalUsesInfo() 
     {        
         mExceptionalUnitGraph =  new ExceptionalUnitGraph(mBody);
-        mLocalDefs = new SmartLocalDefs(mExceptionalUnitGraph, new SimpleLiveLocals(mExceptionalUnitGraph));
+        mLocalDefs = new SparseLocalDefs(mExceptionalUnitGraph);
         mLocalUses = new SimpleLocalUses(mExceptionalUnitGraph, mLocalDefs);
     }
    
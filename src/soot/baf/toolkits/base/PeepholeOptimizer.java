@@ -46,7 +46,6 @@ public class PeepholeOptimizer extends BodyTransformer
     public PeepholeOptimizer( Singletons.Global g ) {}
     public static PeepholeOptimizer v() { return G.v().soot_baf_toolkits_base_PeepholeOptimizer(); }
 
-    private InputStream peepholeListingStream = null;
     private final String packageName = "soot.baf.toolkits.base";
 
     private final Map<String, Class<?>> peepholeMap = new HashMap<String, Class<?>>();
@@ -59,7 +58,7 @@ public class PeepholeOptimizer extends BodyTransformer
         boolean changed = true;
         BufferedReader reader = null;
         
-        peepholeListingStream = PeepholeOptimizer.class.getResourceAsStream("peephole.dat");
+        InputStream peepholeListingStream = PeepholeOptimizer.class.getResourceAsStream("peephole.dat");
 	if (peepholeListingStream == null)
 	    throw new RuntimeException("could not open file peephole.dat!");
         reader = new BufferedReader(new InputStreamReader(peepholeListingStream));        
@@ -94,13 +93,16 @@ public class PeepholeOptimizer extends BodyTransformer
 
                 
                     Class<?> peepholeClass;
-                    if((peepholeClass = peepholeMap.get(peepholeName)) == null) {
-                        try {
-                            peepholeClass =  Class.forName(packageName + "." + peepholeName);
-                        } catch (ClassNotFoundException e) {
-                            throw new RuntimeException(e.toString());
+                    // the map is shared by all bodies being optimized
+                    synchronized(peepholeMap) {
+                        if((peepholeClass = peepholeMap.get(peepholeName)) == null) {
+                            try {
+                                peepholeClass =  Class.forName(packageName + "." + peepholeName);
+                            } catch (ClassNotFoundException e) {
+                                throw new RuntimeException(e.toString());
+                            }
+                            peepholeMap.put(peepholeName, peepholeClass);
                         }
-                        peepholeMap.put(peepholeName, peepholeClass);
                     }
                     
                     Peephole p = null;
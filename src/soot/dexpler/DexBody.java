@@ -555,9 +555,11 @@ public class DexBody  {
           Debug.printDbg("\nafter Dalvik Typer");
 
         } else {
-          DexNumTransformer.v().transform (jBody);
-          DexNullTransformer.v().transform(jBody);
-          DexIfTransformer.v().transform(jBody);
+          // these transformers keep per-body state in fields, so every
+          // body gets its own instances
+          new DexNumTransformer().transform(jBody);
+          new DexNullTransformer().transform(jBody);
+          new DexIfTransformer().transform(jBody);
           
           DexReturnInliner.v().transform(jBody);
           DeadAssignmentEliminator.v().transform(jBody);
@@ -30,8 +30,20 @@ import org.jf.dexlib2.iface.Annotation;
 import org.jf.dexlib2.iface.ClassDef;
 import org.jf.dexlib2.iface.DexFile;
 import org.jf.dexlib2.iface.Field;
+import org.jf.dexlib2.iface.ExceptionHandler;
 import org.jf.dexlib2.iface.Method;
-
+import org.jf.dexlib2.iface.MethodImplementation;
+import org.jf.dexlib2.iface.MethodParameter;
+import org.jf.dexlib2.iface.TryBlock;
+import org.jf.dexlib2.iface.instruction.Instruction;
+import org.jf.dexlib2.iface.instruction.ReferenceInstruction;
+import org.jf.dexlib2.iface.reference.FieldReference;
+import org.jf.dexlib2.iface.reference.MethodReference;
+import org.jf.dexlib2.iface.reference.Reference;
+import org.jf.dexlib2.iface.reference.TypeReference;
+
+import soot.ArrayType;
+import soot.RefType;
 import soot.SootClass;
 import soot.SootField;
 import soot.SootMethod;
@@ -145,8 +157,67 @@ public class DexClass {
         
         da.handleClassAnnotation(sc, defItem);
 
+        // without the eager resolution in DexlibWrapper.initialize(), the
+        // types used by members and code have to be reported here
+        if (Options.v().lazy_dex_resolution())
+            addReferencedTypes(deps, defItem);
+
         return deps;
     }
 
+    /**
+     * Adds the class types referenced by the fields, method prototypes,
+     * instructions and exception handlers of <code>defItem</code> to the
+     * types that need to be brought to SIGNATURES.
+     */
+    private static void addReferencedTypes(Dependencies deps, ClassDef defItem) {
+        for (Field f : defItem.getFields())
+            addReferencedType(deps, f.getType());
+        for (Method method : defItem.getMethods()) {
+            addReferencedType(deps, method.getReturnType());
+            for (MethodParameter p : method.getParameters())
+                addReferencedType(deps, p.getType());
+
+            MethodImplementation impl = method.getImplementation();
+            if (impl == null)
+                continue;
+            for (Instruction insn : impl.getInstructions()) {
+                if (!(insn instanceof ReferenceInstruction))
+                    continue;
+                Reference ref = ((ReferenceInstruction) insn).getReference();
+                if (ref instanceof TypeReference) {
+                    addReferencedType(deps, ((TypeReference) ref).getType());
+                } else if (ref instanceof FieldReference) {
+                    FieldReference fr = (FieldReference) ref;
+                    addReferencedType(deps, fr.getDefiningClass());
+                    addReferencedType(deps, fr.getType());
+                } else if (ref instanceof MethodReference) {
+                    MethodReference mr = (MethodReference) ref;
+                    addReferencedType(deps, mr.getDefiningClass());
+                    addReferencedType(deps, mr.getReturnType());
+                    for (CharSequence t : mr.getParameterTypes())
+                        addReferencedType(deps, t.toString());
+                }
+            }
+            for (TryBlock<? extends ExceptionHandler> tb : impl.getTryBlocks()) {
+                for (ExceptionHandler h : tb.getExceptionHandlers()) {
+                    if (h.getExceptionType() != null)
+                        addReferencedType(deps, h.getExceptionType());
+                }
+            }
+        }
+    }
+
+    private static void addReferencedType(Dependencies deps, String typeDescriptor) {
+        Type t = DexType.toSoot(typeDescriptor);
+        if (t instanceof ArrayType)
+            t = ((ArrayType) t).baseType;
+        if (!(t instanceof RefType))
+            return;
+        if (DexlibWrapper.isSystemAnnotation(((RefType) t).getClassName()))
+            return;
+        deps.typesToSignature.add(t);
+    }
+
 
 }
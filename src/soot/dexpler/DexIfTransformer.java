@@ -83,7 +83,9 @@ import soot.toolkits.scalar.UnitValueBoxPair;
  */
 public class DexIfTransformer extends DexTransformer {
 	// Note: we need an instance variable for inner class access, treat this as
-	// a local variable (including initialization before use)
+	// a local variable (including initialization before use). Never share an
+	// instance between bodies: v() returns a new one on every call, since
+	// bodies are built concurrently (see -num-threads).
 
 	private boolean usedAsObject;
 	private boolean doBreak = false;
@@ -92,7 +94,7 @@ public class DexIfTransformer extends DexTransformer {
         return new DexIfTransformer();
     }
 
-   Local l = null;
+   private Local l = null;
 
 	protected void internalTransform(final Body body, String phaseName, @SuppressWarnings("rawtypes") Map options) {
         final ExceptionalUnitGraph g = new ExceptionalUnitGraph(body);
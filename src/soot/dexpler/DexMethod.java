@@ -36,8 +36,6 @@ import org.jf.dexlib2.iface.value.ArrayEncodedValue;
 import org.jf.dexlib2.iface.value.EncodedValue;
 import org.jf.dexlib2.iface.value.TypeEncodedValue;
 
-import soot.Body;
-import soot.MethodSource;
 import soot.Modifier;
 import soot.RefType;
 import soot.SootClass;
@@ -134,19 +132,8 @@ public class DexMethod {
 //	        }
 //        }
 
-        //add the body of this code item
-        final DexBody dexBody = new DexBody(dexFile, method, (RefType) declaringClass.getType());
-
-        for (Type t : dexBody.usedTypes())
-            types.add(t);
-
-        // sets the method source by adding its body as the active body
-        sm.setSource(new MethodSource() {
-        	public Body getBody(SootMethod m, String phaseName) {
-        		m.setActiveBody(dexBody.jimplify(m));
-        		return m.getActiveBody();
-        	}
-        });
+        // the code is decoded and translated when the body is requested
+        sm.setSource(new DexMethodSource(dexFile, method, (RefType) declaringClass.getType()));
 
         return sm;
     }
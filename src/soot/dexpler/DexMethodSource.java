@@ -0,0 +1,53 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 1997-2014 Raja Vallee-Rai and others
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+
+package soot.dexpler;
+
+import org.jf.dexlib2.iface.Method;
+
+import soot.Body;
+import soot.MethodSource;
+import soot.RefType;
+import soot.SootMethod;
+
+/**
+ * MethodSource for a method read from a dex file. The Dalvik code is only
+ * decoded when the body is requested, and the translation only touches
+ * state that is safe to share, so the bodies of different methods may be
+ * built on different threads (see PackManager.retrieveAllBodies()).
+ *
+ */
+public class DexMethodSource implements MethodSource {
+
+    private final String dexFile;
+    private final Method method;
+    private final RefType declaringClassType;
+
+    public DexMethodSource(String dexFile, Method method, RefType declaringClassType) {
+        this.dexFile = dexFile;
+        this.method = method;
+        this.declaringClassType = declaringClassType;
+    }
+
+    public Body getBody(SootMethod m, String phaseName) {
+        DexBody dexBody = new DexBody(dexFile, method, declaringClassType);
+        m.setActiveBody(dexBody.jimplify(m));
+        return m.getActiveBody();
+    }
+}
@@ -97,16 +97,18 @@ import soot.toolkits.scalar.UnitValueBoxPair;
  */
 public class DexNumTransformer extends DexTransformer {
 	// Note: we need an instance variable for inner class access, treat this as
-	// a local variable (including initialization before use)
+	// a local variable (including initialization before use). Never share an
+	// instance between bodies: v() returns a new one on every call, since
+	// bodies are built concurrently (see -num-threads).
 
 	private boolean usedAsFloatingPoint;
-	boolean doBreak = false;
+	private boolean doBreak = false;
 
 	public static DexNumTransformer v() {
 		return new DexNumTransformer();
 	}
 
-	Local l = null;
+	private Local l = null;
 
 	protected void internalTransform(final Body body, String phaseName,
 			@SuppressWarnings("rawtypes") Map options) {
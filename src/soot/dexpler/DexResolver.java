@@ -25,6 +25,7 @@
 package soot.dexpler;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.Map;
 import java.util.TreeMap;
 
@@ -50,12 +51,13 @@ public class DexResolver {
      * @return the dependencies of this class.
      */
     public Dependencies resolveFromFile(File file, String className, SootClass sc) {
-    	DexlibWrapper wrapper = cache.get(file);
-    	if(wrapper==null) {
-    		wrapper = new DexlibWrapper(file);
-    		cache.put(file, wrapper);
-    		wrapper.initialize();
+    	DexlibWrapper wrapper;
+    	try {
+    		wrapper = getDexlibWrapper(file);
+    	} catch (IOException e) {
+    		throw new RuntimeException(e.toString());
     	}
+    	wrapper.initialize();
 
         Dependencies deps = wrapper.makeSootClass(sc, className);
         addSourceFileTag(sc, "dalvik_source_" + file.getName());
@@ -63,6 +65,24 @@ public class DexResolver {
         return deps;
     }
 
+    /**
+     * Returns the wrapper for the given dex/apk file, reading and indexing
+     * the file on first access. The wrapper is shared between the class
+     * index and the resolver, so each file is only read once.
+     *
+     * @param file the path to the dex/apk file
+     * @return the loaded wrapper.
+     */
+    public DexlibWrapper getDexlibWrapper(File file) throws IOException {
+    	DexlibWrapper wrapper = cache.get(file);
+    	if(wrapper==null) {
+    		wrapper = new DexlibWrapper(file);
+    		wrapper.load();
+    		cache.put(file, wrapper);
+    	}
+    	return wrapper;
+    }
+
     /**
      *  adds source file tag to each sootclass
      */
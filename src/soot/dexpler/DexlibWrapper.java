@@ -24,15 +24,26 @@
 
 package soot.dexpler;
 
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
 
 import org.jf.dexlib2.DexFileFactory;
+import org.jf.dexlib2.Opcodes;
+import org.jf.dexlib2.dexbacked.DexBackedClassDef;
 import org.jf.dexlib2.dexbacked.DexBackedDexFile;
-import org.jf.dexlib2.iface.ClassDef;
-import org.jf.dexlib2.iface.DexFile;
+import org.jf.dexlib2.dexbacked.raw.HeaderItem;
 
 import soot.ArrayType;
 import soot.PrimType;
@@ -42,12 +53,14 @@ import soot.SootResolver;
 import soot.Type;
 import soot.VoidType;
 import soot.javaToJimple.IInitialResolver.Dependencies;
+import soot.options.Options;
 
 
 /**
  * DexlibWrapper provides an entry point to the dexlib library from the smali project.
- * Given a dex file, it will use dexlib to retrieve all classes for further processing
- * A call to getClass retrieves the specific class to analyze further.
+ * Given a dex file, or an APK with one or more dex files (classes.dex, classes2.dex, ...),
+ * it will use dexlib to index all class definitions by name.
+ * A call to makeSootClass retrieves the specific class to analyze further.
  *
  */
 public class DexlibWrapper {
@@ -65,93 +78,167 @@ public class DexlibWrapper {
         systemAnnotationNames = Collections.unmodifiableSet(systemAnnotationNamesModifiable);
 	}
 
-    private DexFile dexFile;
+    /**
+     * The API level dexlib decodes instructions for. It only decides which
+     * odex-only opcodes (volatile field accesses, invoke-object-init-range
+     * and the like) are recognized; every opcode of a plain dex file is
+     * decoded the same way at any level. Soot cannot translate odex
+     * instructions anyway, so the lowest level is used, and there is no
+     * option to set it.
+     */
+    private static final int API = 1;
+
+    /** The dex files in the input file, in the order the VM searches them. */
+    private List<DexBackedDexFile> dexFiles;
 
-    //private Map<String, ClassDef> dexClasses;
+    /** The class definitions of all dex files by dotted class name. */
+    private Map<String, DexBackedClassDef> classesByName;
 
-    //private Map<String, DexClass> classesByName;
+    private boolean initialized = false;
 
     private final static Set<String> systemAnnotationNames;
 
 	private final File inputDexFile;
 
     /**
-     * Construct a DexlibWrapper from a dex file and stores its classes referenced by their name.
+     * Construct a DexlibWrapper from a dex file.
      * No further process is done here.
      *
-     * @param inputDexFileName the dex file.
+     * @param inputDexFile the dex or APK file.
      */
 
     public DexlibWrapper(File inputDexFile) {
         this.inputDexFile = inputDexFile;
     }
 
+    /**
+     * Reads the dex files and indexes their class definitions by name.
+     * Does nothing if this has been done before.
+     */
+    public void load() throws IOException {
+        if (dexFiles != null)
+            return;
+
+        dexFiles = loadDexFiles(inputDexFile);
+        classesByName = new LinkedHashMap<String, DexBackedClassDef>();
+        for (DexBackedDexFile dexFile : dexFiles) {
+            for (DexBackedClassDef defItem : dexFile.getClasses()) {
+                String className = Util.dottedClassName(defItem.getType());
+                // like the VM, use the first definition of a class
+                if (!classesByName.containsKey(className))
+                    classesByName.put(className, defItem);
+            }
+        }
+    }
+
+    /**
+     * Returns the dex files contained in <code>file</code>: the file itself
+     * if it is a dex file, or classes.dex, classes2.dex, ... if it is an APK
+     * or other zip archive.
+     */
+    private static List<DexBackedDexFile> loadDexFiles(File file) throws IOException {
+        ZipFile archive;
+        try {
+            archive = new ZipFile(file);
+        } catch (ZipException e) {
+            return Collections.singletonList(DexFileFactory.loadDexFile(file, API));
+        }
+
+        List<DexBackedDexFile> res = new ArrayList<DexBackedDexFile>();
+        try {
+            for (int i = 1; ; i++) {
+                ZipEntry entry = archive.getEntry(i == 1 ? "classes.dex" : "classes" + i + ".dex");
+                if (entry == null)
+                    break;
+                InputStream in = new BufferedInputStream(archive.getInputStream(entry));
+                try {
+                    res.add(DexBackedDexFile.fromInputStream(new Opcodes(API), in));
+                } finally {
+                    in.close();
+                }
+            }
+        } finally {
+            archive.close();
+        }
+        if (res.isEmpty())
+            throw new IOException("no classes.dex in " + file);
+        return res;
+    }
+
+    /**
+     * Returns the names of the classes defined in the dex files.
+     */
+    public Set<String> getClassNames() {
+        return Collections.unmodifiableSet(classesByName.keySet());
+    }
+
+    /**
+     * Prepares the Scene for classes from this file. Unless
+     * {@link Options#lazy_dex_resolution()} is set, all types referenced
+     * by the dex files are brought to SIGNATURES, since the dependencies
+     * reported for a class do not cover the types used in its code.
+     * Does nothing if this has been done before.
+     */
     public void initialize() {
+        if (initialized)
+            return;
+        initialized = true;
 
         try {
-            int api = 1; // TODO:
-            this.dexFile = DexFileFactory.loadDexFile(inputDexFile, api);
-        } catch (Exception e) {
+            load();
+        } catch (IOException e) {
             throw new RuntimeException(e.toString());
         }
 
-        if (dexFile instanceof DexBackedDexFile) {
-            DexBackedDexFile dbdf = (DexBackedDexFile)dexFile;
-            int i = 0;
-            try {
-                while (true) {
-                    String t = dbdf.getType(i++);
+        if (Options.v().lazy_dex_resolution())
+            return;
 
-                    Type st = DexType.toSoot(t);
-                    if (st instanceof ArrayType) {
-                        st = ((ArrayType) st).baseType;
-                    }
-                    Debug.printDbg("Type: ", t ," soot type:", st);
-                    String sootTypeName = st.toString();
-                    if (!Scene.v().containsClass(sootTypeName)) {
-                        if (st instanceof PrimType || st instanceof VoidType || systemAnnotationNames.contains(sootTypeName)) {
-                            // dex files contain references to the Type IDs of void / primitive types - we obviously do not want them to be resolved
-                            /*
-                             * dex files contain references to the Type IDs of the system annotations.
-                             * They are only visible to the Dalvik VM (for reflection, see vm/reflect/Annotations.cpp), and not to
-                             * the user - so we do not want them to be resolved.
-                             */
-                            continue;
-                        }
-                        SootResolver.v().makeClassRef(sootTypeName);
+        for (DexBackedDexFile dbdf : dexFiles) {
+            int typeCount = dbdf.readSmallUint(HeaderItem.TYPE_COUNT_OFFSET);
+            for (int i = 0; i < typeCount; i++) {
+                String t = dbdf.getType(i);
 
+                Type st = DexType.toSoot(t);
+                if (st instanceof ArrayType) {
+                    st = ((ArrayType) st).baseType;
+                }
+                Debug.printDbg("Type: ", t ," soot type:", st);
+                String sootTypeName = st.toString();
+                if (!Scene.v().containsClass(sootTypeName)) {
+                    if (st instanceof PrimType || st instanceof VoidType || systemAnnotationNames.contains(sootTypeName)) {
+                        // dex files contain references to the Type IDs of void / primitive types - we obviously do not want them to be resolved
+                        /*
+                         * dex files contain references to the Type IDs of the system annotations.
+                         * They are only visible to the Dalvik VM (for reflection, see vm/reflect/Annotations.cpp), and not to
+                         * the user - so we do not want them to be resolved.
+                         */
+                        continue;
                     }
-                    SootResolver.v().resolveClass(sootTypeName, SootClass.SIGNATURES);
+                    SootResolver.v().makeClassRef(sootTypeName);
+
                 }
-            } catch (Exception e) {
-                // hack: we stop when an exception is thrown at us
-                // indicating that the type index reached its max value
-                //
-                //System.out.println("Exception: "+ e);
-                //e.printStackTrace();
+                SootResolver.v().resolveClass(sootTypeName, SootClass.SIGNATURES);
             }
-
-        } else {
-            System.out.println("Warning: DexFile not instance of DexBackedDexFile! Not resolving types!");
-            System.out.println("type: "+ dexFile.getClass());
         }
     }
 
-
+    /**
+     * Returns whether <code>className</code> names one of the system
+     * annotations that only the VM sees.
+     */
+    static boolean isSystemAnnotation(String className) {
+        return systemAnnotationNames.contains(className);
+    }
 
     public Dependencies makeSootClass(SootClass sc, String className) {
         if (Util.isByteCodeClassName(className)) {
             className = Util.dottedClassName(className);
         }
 
-      for (ClassDef defItem : this.dexFile.getClasses()) {
-          String forClassName = Util.dottedClassName(defItem.getType());
-          if (className.equals(forClassName)) {
-              return DexClass.makeSootClass(sc, defItem, dexFile);
-          }
-      }
-      throw new RuntimeException("Error: class not found in classes.dex: "+ className);
-
+        DexBackedClassDef defItem = classesByName.get(className);
+        if (defItem == null)
+            throw new RuntimeException("Error: class not found in " + inputDexFile.getName() + ": " + className);
+        return DexClass.makeSootClass(sc, defItem, defItem.dexFile);
     }
 
 }
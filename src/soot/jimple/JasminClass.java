@@ -116,7 +116,7 @@ public class JasminClass extends AbstractJasminClass
         if (!disablePeephole)
         {
             stmtGraph = new ExceptionalUnitGraph(body);
-            ld = new SmartLocalDefs(stmtGraph, new SimpleLiveLocals(stmtGraph));
+            ld = new SparseLocalDefs(stmtGraph);
             lu = new SimpleLocalUses(stmtGraph, ld);
         }
 
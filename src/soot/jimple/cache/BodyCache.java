@@ -0,0 +1,331 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 1997-2014 Raja Vallee-Rai and others
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+
+package soot.jimple.cache;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import soot.Body;
+import soot.G;
+import soot.Main;
+import soot.MethodSource;
+import soot.PackManager;
+import soot.PhaseOptions;
+import soot.RefType;
+import soot.Scene;
+import soot.Singletons;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.Transform;
+import soot.Type;
+import soot.jimple.JimpleBody;
+import soot.options.Options;
+
+/**
+ * A persistent cache of Jimple bodies as they are after the <code>jb</code>
+ * pack, enabled with <code>-body-cache-dir</code>.
+ *
+ * <p>There is one file per class in the cache directory. Its name is a
+ * digest of the class file's contents, the Soot version and the options
+ * that influence <code>jb</code>, followed by a digest of the class
+ * hierarchy above the types the class refers to, which typing depends on.
+ * Stale entries are thus never found rather than having to be
+ * invalidated. A file starts with a header and is followed by one record
+ * per method, appended as the bodies are created. A file with a truncated
+ * last record, e.g. after a crash, is discarded.</p>
+ */
+public class BodyCache {
+	public BodyCache(Singletons.Global g) {
+	}
+
+	public static BodyCache v() {
+		return G.v().soot_jimple_cache_BodyCache();
+	}
+
+	private static final int MAGIC = 0x4A424332; // "JBC2"
+
+	private String optionsKey;
+
+	private final Map<String, ClassEntry> classes = new HashMap<String, ClassEntry>();
+
+	/** Returns true if a cache directory has been set. */
+	public boolean isEnabled() {
+		return Options.v().body_cache_dir().length() > 0;
+	}
+
+	/**
+	 * Makes the concrete methods of <code>sc</code>, which has just been
+	 * resolved from <code>classBytes</code>, retrieve their bodies through
+	 * the cache. <code>references</code> are the types that the class file
+	 * refers to.
+	 */
+	public void attach(SootClass sc, byte[] classBytes, Collection<Type> references) {
+		if (!isEnabled())
+			return;
+		ClassEntry entry = getClassEntry(digest(classBytes), references);
+		for (SootMethod m : sc.getMethods()) {
+			MethodSource ms = m.getSource();
+			if (ms != null && m.isConcrete())
+				m.setSource(new CachingMethodSource(entry, ms));
+		}
+	}
+
+	private synchronized ClassEntry getClassEntry(String key, Collection<Type> references) {
+		ClassEntry entry = classes.get(key);
+		if (entry == null) {
+			List<String> classNames = new ArrayList<String>();
+			for (Type t : references) {
+				if (t instanceof RefType)
+					classNames.add(((RefType) t).getClassName());
+			}
+			entry = new ClassEntry(new File(Options.v().body_cache_dir()), key, classNames);
+			classes.put(key, entry);
+		}
+		return entry;
+	}
+
+	/**
+	 * Returns a key that changes whenever the bodies produced for the same
+	 * class file could change: a different Soot version, different options
+	 * for <code>jb</code> or one of its sub-phases, or different global
+	 * options that the front-end reads.
+	 */
+	private synchronized String optionsKey() {
+		if (optionsKey == null) {
+			StringBuilder b = new StringBuilder();
+			b.append(Main.v().versionString);
+			b.append(new TreeMap<String, String>(PhaseOptions.v().getPhaseOptions("jb")));
+			for (Transform t : PackManager.v().getPack("jb")) {
+				b.append(t.getPhaseName());
+				b.append(new TreeMap<String, String>(PhaseOptions.v().getPhaseOptions(t)));
+			}
+			b.append(Options.v().keep_line_number());
+			b.append(Options.v().keep_offset());
+			b.append(Options.v().allow_phantom_refs());
+			b.append(Options.v().throw_analysis());
+			optionsKey = b.toString();
+		}
+		return optionsKey;
+	}
+
+	private String digest(byte[] classBytes) {
+		return digest(optionsKey(), classBytes);
+	}
+
+	/**
+	 * Returns a description of the classes above <code>classNames</code> in
+	 * the class hierarchy: for each, whether it is phantom or an interface,
+	 * its superclass and its interfaces. Classes that have not been
+	 * resolved to the hierarchy level yet are only listed by name.
+	 */
+	static String hierarchyKey(Collection<String> classNames) {
+		Map<String, String> classes = new TreeMap<String, String>();
+		List<String> worklist = new ArrayList<String>(classNames);
+		while (!worklist.isEmpty()) {
+			String name = worklist.remove(worklist.size() - 1);
+			if (classes.containsKey(name))
+				continue;
+			if (!Scene.v().containsClass(name)) {
+				classes.put(name, "-");
+				continue;
+			}
+			SootClass c = Scene.v().getSootClass(name);
+			if (c.resolvingLevel() < SootClass.HIERARCHY) {
+				classes.put(name, "?");
+				continue;
+			}
+			StringBuilder b = new StringBuilder();
+			b.append(c.isPhantom() ? 'p' : ' ');
+			b.append(c.isInterface() ? 'i' : 'c');
+			if (c.hasSuperclass()) {
+				b.append(' ').append(c.getSuperclass().getName());
+				worklist.add(c.getSuperclass().getName());
+			}
+			TreeSet<String> interfaces = new TreeSet<String>();
+			for (SootClass i : c.getInterfaces())
+				interfaces.add(i.getName());
+			b.append(' ').append(interfaces);
+			worklist.addAll(interfaces);
+			classes.put(name, b.toString());
+		}
+		return classes.toString();
+	}
+
+	/** Returns the SHA-1 digest of <code>key</code> and <code>data</code> in hex. */
+	static String digest(String key, byte[] data) {
+		MessageDigest md;
+		try {
+			md = MessageDigest.getInstance("SHA-1");
+			md.update(key.getBytes("UTF-8"));
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		} catch (UnsupportedEncodingException e) {
+			throw new RuntimeException(e);
+		}
+		md.update(data);
+		StringBuilder b = new StringBuilder();
+		for (byte x : md.digest()) {
+			b.append(Character.forDigit((x >> 4) & 0xf, 16));
+			b.append(Character.forDigit(x & 0xf, 16));
+		}
+		return b.toString();
+	}
+
+	/** The cached bodies of a single class file. */
+	static class ClassEntry {
+		private final File dir;
+		private final String key;
+		private final List<String> references;
+		/** Chosen on first use, once the hierarchy has been resolved. */
+		private File file;
+		private Map<String, byte[]> bodies;
+
+		ClassEntry(File dir, String key, List<String> references) {
+			this.dir = dir;
+			this.key = key;
+			this.references = references;
+		}
+
+		/**
+		 * Returns the cached body of <code>m</code>, or null if there is
+		 * none.
+		 */
+		synchronized JimpleBody load(SootMethod m) {
+			if (bodies == null)
+				bodies = read();
+			byte[] data = bodies.get(m.getSubSignature());
+			if (data == null)
+				return null;
+			try {
+				return new BodyReader(data).read(m);
+			} catch (IOException e) {
+				G.v().out.println("Warning: ignoring corrupt cache entry for " + m + ": " + e);
+				bodies.remove(m.getSubSignature());
+				return null;
+			}
+		}
+
+		/** Adds <code>body</code> to the cache, if it can be encoded. */
+		synchronized void store(SootMethod m, Body body) {
+			byte[] data;
+			try {
+				data = new BodyWriter().write((JimpleBody) body);
+			} catch (BodyWriter.UnsupportedBodyException e) {
+				if (Options.v().verbose())
+					G.v().out.println("Not caching body of " + m + ": " + e.getMessage());
+				return;
+			}
+			if (bodies == null)
+				bodies = read();
+			bodies.put(m.getSubSignature(), data);
+			try {
+				append(m.getSubSignature(), data);
+			} catch (IOException e) {
+				G.v().out.println("Warning: could not write body cache file " + file + ": " + e);
+			}
+		}
+
+		private Map<String, byte[]> read() {
+			file = new File(dir, key + "-"
+					+ digest(hierarchyKey(references), new byte[0]).substring(0, 16) + ".jbc");
+			Map<String, byte[]> ret = new HashMap<String, byte[]>();
+			if (!file.exists())
+				return ret;
+			byte[] contents;
+			try {
+				contents = readFile();
+			} catch (IOException e) {
+				G.v().out.println("Warning: could not read body cache file " + file + ": " + e);
+				return ret;
+			}
+			ByteArrayInputStream bin = new ByteArrayInputStream(contents);
+			DataInputStream in = new DataInputStream(bin);
+			try {
+				if (in.readInt() != MAGIC)
+					throw new EOFException();
+				while (bin.available() > 0) {
+					String subSig = in.readUTF();
+					int length = in.readInt();
+					if (length < 0 || length > bin.available())
+						throw new EOFException();
+					byte[] data = new byte[length];
+					in.readFully(data);
+					ret.put(subSig, data);
+				}
+			} catch (IOException e) {
+				// A record that has not been written completely. Further
+				// records would be appended after it, so start over; the
+				// complete ones are still used in this run.
+				file.delete();
+			}
+			return ret;
+		}
+
+		private byte[] readFile() throws IOException {
+			InputStream in = new FileInputStream(file);
+			try {
+				ByteArrayOutputStream out = new ByteArrayOutputStream((int) file.length());
+				byte[] buf = new byte[8192];
+				int n;
+				while ((n = in.read(buf)) != -1)
+					out.write(buf, 0, n);
+				return out.toByteArray();
+			} finally {
+				in.close();
+			}
+		}
+
+		private void append(String subSig, byte[] data) throws IOException {
+			boolean isNew = !file.exists();
+			if (isNew)
+				file.getParentFile().mkdirs();
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+					new FileOutputStream(file, true)));
+			try {
+				if (isNew)
+					out.writeInt(MAGIC);
+				out.writeUTF(subSig);
+				out.writeInt(data.length);
+				out.write(data);
+			} finally {
+				out.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,390 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 1997-2014 Raja Vallee-Rai and others
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+
+package soot.jimple.cache;
+
+import static soot.jimple.cache.BodyWriter.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import soot.ArrayType;
+import soot.BooleanType;
+import soot.ByteType;
+import soot.CharType;
+import soot.DoubleType;
+import soot.FloatType;
+import soot.IntType;
+import soot.Local;
+import soot.LongType;
+import soot.NullType;
+import soot.RefType;
+import soot.Scene;
+import soot.ShortType;
+import soot.SootClass;
+import soot.SootFieldRef;
+import soot.SootMethod;
+import soot.SootMethodRef;
+import soot.SootResolver;
+import soot.Type;
+import soot.Unit;
+import soot.UnitBox;
+import soot.UnknownType;
+import soot.Value;
+import soot.VoidType;
+import soot.jimple.ClassConstant;
+import soot.jimple.DoubleConstant;
+import soot.jimple.FloatConstant;
+import soot.jimple.IntConstant;
+import soot.jimple.Jimple;
+import soot.jimple.JimpleBody;
+import soot.jimple.LongConstant;
+import soot.jimple.NullConstant;
+import soot.jimple.StringConstant;
+import soot.tagkit.BytecodeOffsetTag;
+import soot.tagkit.LineNumberTag;
+import soot.util.Chain;
+
+/** Decodes a body written by {@link BodyWriter}. */
+class BodyReader {
+	private final DataInputStream in;
+	private Local[] locals;
+	private Unit[] units;
+
+	/** Branch targets are written as unit indices and may point forward,
+	 * so they are filled in once all units have been read. */
+	private final List<UnitBox> pendingBoxes = new ArrayList<UnitBox>();
+	private final List<Integer> pendingTargets = new ArrayList<Integer>();
+
+	BodyReader(byte[] data) {
+		in = new DataInputStream(new ByteArrayInputStream(data));
+	}
+
+	JimpleBody read(SootMethod m) throws IOException {
+		Jimple j = Jimple.v();
+		JimpleBody body = j.newBody(m);
+
+		locals = new Local[in.readInt()];
+		Chain<Local> localChain = body.getLocals();
+		for (int i = 0; i < locals.length; i++) {
+			String name = in.readUTF();
+			locals[i] = j.newLocal(name, readType());
+			localChain.add(locals[i]);
+		}
+
+		units = new Unit[in.readInt()];
+		Chain<Unit> unitChain = body.getUnits();
+		for (int i = 0; i < units.length; i++) {
+			units[i] = readStmt();
+			readUnitTags(units[i]);
+			unitChain.add(units[i]);
+		}
+		for (int i = 0; i < pendingBoxes.size(); i++)
+			pendingBoxes.get(i).setUnit(units[pendingTargets.get(i)]);
+
+		int traps = in.readInt();
+		for (int i = 0; i < traps; i++) {
+			SootClass exception = makeClassRef(in.readUTF());
+			Unit begin = readUnit(), end = readUnit(), handler = readUnit();
+			body.getTraps().add(j.newTrap(exception, begin, end, handler));
+		}
+		return body;
+	}
+
+	private void readUnitTags(Unit u) throws IOException {
+		while (true) {
+			int tag = in.readByte();
+			switch (tag) {
+			case TAG_END:
+				return;
+			case TAG_LINENUMBER:
+				u.addTag(new LineNumberTag(in.readInt()));
+				break;
+			case TAG_BYTECODEOFFSET:
+				u.addTag(new BytecodeOffsetTag(in.readInt()));
+				break;
+			default:
+				throw new IOException("unknown tag " + tag);
+			}
+		}
+	}
+
+	/** Reads a unit that has already been read, e.g. for traps. */
+	private Unit readUnit() throws IOException {
+		return units[checkUnitIndex(in.readInt())];
+	}
+
+	/** Reads a branch target that is filled in later. */
+	private UnitBox readTarget() throws IOException {
+		UnitBox box = Jimple.v().newStmtBox(null);
+		pendingBoxes.add(box);
+		pendingTargets.add(checkUnitIndex(in.readInt()));
+		return box;
+	}
+
+	private int checkUnitIndex(int i) throws IOException {
+		if (i < 0 || i >= units.length)
+			throw new IOException("invalid unit index " + i);
+		return i;
+	}
+
+	private SootClass makeClassRef(String name) {
+		return SootResolver.v().makeClassRef(name);
+	}
+
+	private Type readType() throws IOException {
+		int tag = in.readByte();
+		switch (tag) {
+		case T_BOOLEAN: return BooleanType.v();
+		case T_BYTE: return ByteType.v();
+		case T_CHAR: return CharType.v();
+		case T_SHORT: return ShortType.v();
+		case T_INT: return IntType.v();
+		case T_LONG: return LongType.v();
+		case T_FLOAT: return FloatType.v();
+		case T_DOUBLE: return DoubleType.v();
+		case T_VOID: return VoidType.v();
+		case T_NULL: return NullType.v();
+		case T_UNKNOWN: return UnknownType.v();
+		case T_REF: return RefType.v(in.readUTF());
+		case T_ARRAY: {
+			Type base = readType();
+			return ArrayType.v(base, in.readInt());
+		}
+		default:
+			throw new IOException("unknown type tag " + tag);
+		}
+	}
+
+	private List<Type> readTypes() throws IOException {
+		int n = in.readInt();
+		List<Type> ret = new ArrayList<Type>(n);
+		for (int i = 0; i < n; i++)
+			ret.add(readType());
+		return ret;
+	}
+
+	private SootMethodRef readMethodRef() throws IOException {
+		SootClass declaringClass = makeClassRef(in.readUTF());
+		String name = in.readUTF();
+		List<Type> parameterTypes = readTypes();
+		Type returnType = readType();
+		boolean isStatic = in.readBoolean();
+		return Scene.v().makeMethodRef(declaringClass, name, parameterTypes, returnType, isStatic);
+	}
+
+	private SootFieldRef readFieldRef() throws IOException {
+		SootClass declaringClass = makeClassRef(in.readUTF());
+		String name = in.readUTF();
+		Type type = readType();
+		boolean isStatic = in.readBoolean();
+		return Scene.v().makeFieldRef(declaringClass, name, type, isStatic);
+	}
+
+	private Local readLocal() throws IOException {
+		Value v = readValue();
+		if (!(v instanceof Local))
+			throw new IOException("expected a local, found " + v);
+		return (Local) v;
+	}
+
+	private List<Value> readValues() throws IOException {
+		int n = in.readInt();
+		List<Value> ret = new ArrayList<Value>(n);
+		for (int i = 0; i < n; i++)
+			ret.add(readValue());
+		return ret;
+	}
+
+	private Value readValue() throws IOException {
+		Jimple j = Jimple.v();
+		int tag = in.readByte();
+		switch (tag) {
+		case V_LOCAL: {
+			int i = in.readInt();
+			if (i < 0 || i >= locals.length)
+				throw new IOException("invalid local index " + i);
+			return locals[i];
+		}
+		case V_INT: return IntConstant.v(in.readInt());
+		case V_LONG: return LongConstant.v(in.readLong());
+		case V_FLOAT: return FloatConstant.v(in.readFloat());
+		case V_DOUBLE: return DoubleConstant.v(in.readDouble());
+		case V_STRING: {
+			byte[] b = new byte[in.readInt()];
+			in.readFully(b);
+			return StringConstant.v(new String(b, "UTF-8"));
+		}
+		case V_NULL: return NullConstant.v();
+		case V_CLASS: return ClassConstant.v(in.readUTF());
+
+		case V_ADD: return j.newAddExpr(readValue(), readValue());
+		case V_AND: return j.newAndExpr(readValue(), readValue());
+		case V_CMP: return j.newCmpExpr(readValue(), readValue());
+		case V_CMPG: return j.newCmpgExpr(readValue(), readValue());
+		case V_CMPL: return j.newCmplExpr(readValue(), readValue());
+		case V_DIV: return j.newDivExpr(readValue(), readValue());
+		case V_EQ: return j.newEqExpr(readValue(), readValue());
+		case V_NE: return j.newNeExpr(readValue(), readValue());
+		case V_GE: return j.newGeExpr(readValue(), readValue());
+		case V_GT: return j.newGtExpr(readValue(), readValue());
+		case V_LE: return j.newLeExpr(readValue(), readValue());
+		case V_LT: return j.newLtExpr(readValue(), readValue());
+		case V_MUL: return j.newMulExpr(readValue(), readValue());
+		case V_OR: return j.newOrExpr(readValue(), readValue());
+		case V_REM: return j.newRemExpr(readValue(), readValue());
+		case V_SHL: return j.newShlExpr(readValue(), readValue());
+		case V_SHR: return j.newShrExpr(readValue(), readValue());
+		case V_USHR: return j.newUshrExpr(readValue(), readValue());
+		case V_SUB: return j.newSubExpr(readValue(), readValue());
+		case V_XOR: return j.newXorExpr(readValue(), readValue());
+
+		case V_INTERFACE_INVOKE: {
+			Local base = readLocal();
+			SootMethodRef ref = readMethodRef();
+			return j.newInterfaceInvokeExpr(base, ref, readValues());
+		}
+		case V_SPECIAL_INVOKE: {
+			Local base = readLocal();
+			SootMethodRef ref = readMethodRef();
+			return j.newSpecialInvokeExpr(base, ref, readValues());
+		}
+		case V_VIRTUAL_INVOKE: {
+			Local base = readLocal();
+			SootMethodRef ref = readMethodRef();
+			return j.newVirtualInvokeExpr(base, ref, readValues());
+		}
+		case V_STATIC_INVOKE: {
+			SootMethodRef ref = readMethodRef();
+			return j.newStaticInvokeExpr(ref, readValues());
+		}
+		case V_DYNAMIC_INVOKE: {
+			SootMethodRef bootstrapRef = readMethodRef();
+			List<Value> bootstrapArgs = readValues();
+			SootMethodRef ref = readMethodRef();
+			return j.newDynamicInvokeExpr(bootstrapRef, bootstrapArgs, ref, readValues());
+		}
+
+		case V_CAST: {
+			Value op = readValue();
+			return j.newCastExpr(op, readType());
+		}
+		case V_INSTANCEOF: {
+			Value op = readValue();
+			return j.newInstanceOfExpr(op, readType());
+		}
+		case V_NEWARRAY: {
+			Type base = readType();
+			return j.newNewArrayExpr(base, readValue());
+		}
+		case V_NEWMULTIARRAY: {
+			Type base = readType();
+			if (!(base instanceof ArrayType))
+				throw new IOException("expected an array type, found " + base);
+			return j.newNewMultiArrayExpr((ArrayType) base, readValues());
+		}
+		case V_NEW: {
+			Type base = readType();
+			if (!(base instanceof RefType))
+				throw new IOException("expected a class type, found " + base);
+			return j.newNewExpr((RefType) base);
+		}
+		case V_LENGTH: return j.newLengthExpr(readValue());
+		case V_NEG: return j.newNegExpr(readValue());
+
+		case V_ARRAYREF: {
+			Value base = readValue();
+			return j.newArrayRef(base, readValue());
+		}
+		case V_STATICFIELDREF: return j.newStaticFieldRef(readFieldRef());
+		case V_INSTANCEFIELDREF: {
+			Value base = readValue();
+			return j.newInstanceFieldRef(base, readFieldRef());
+		}
+		case V_PARAMETERREF: {
+			Type type = readType();
+			return j.newParameterRef(type, in.readInt());
+		}
+		case V_CAUGHTEXCEPTIONREF: return j.newCaughtExceptionRef();
+		case V_THISREF: {
+			Type type = readType();
+			if (!(type instanceof RefType))
+				throw new IOException("expected a class type, found " + type);
+			return j.newThisRef((RefType) type);
+		}
+		default:
+			throw new IOException("unknown value tag " + tag);
+		}
+	}
+
+	private Unit readStmt() throws IOException {
+		Jimple j = Jimple.v();
+		int tag = in.readByte();
+		switch (tag) {
+		case S_BREAKPOINT: return j.newBreakpointStmt();
+		case S_NOP: return j.newNopStmt();
+		case S_RETURNVOID: return j.newReturnVoidStmt();
+		case S_INVOKE: return j.newInvokeStmt(readValue());
+		case S_ENTERMONITOR: return j.newEnterMonitorStmt(readValue());
+		case S_EXITMONITOR: return j.newExitMonitorStmt(readValue());
+		case S_RET: return j.newRetStmt(readValue());
+		case S_RETURN: return j.newReturnStmt(readValue());
+		case S_THROW: return j.newThrowStmt(readValue());
+		case S_ASSIGN: {
+			Value left = readValue();
+			return j.newAssignStmt(left, readValue());
+		}
+		case S_IDENTITY: {
+			Value left = readValue();
+			return j.newIdentityStmt(left, readValue());
+		}
+		case S_GOTO: return j.newGotoStmt(readTarget());
+		case S_IF: {
+			Value condition = readValue();
+			return j.newIfStmt(condition, readTarget());
+		}
+		case S_LOOKUPSWITCH: {
+			Value key = readValue();
+			int n = in.readInt();
+			List<IntConstant> values = new ArrayList<IntConstant>(n);
+			for (int i = 0; i < n; i++)
+				values.add(IntConstant.v(in.readInt()));
+			List<UnitBox> targets = new ArrayList<UnitBox>(n);
+			for (int i = 0; i < n; i++)
+				targets.add(readTarget());
+			return j.newLookupSwitchStmt(key, values, targets, readTarget());
+		}
+		case S_TABLESWITCH: {
+			Value key = readValue();
+			int low = in.readInt();
+			int high = in.readInt();
+			int n = in.readInt();
+			List<UnitBox> targets = new ArrayList<UnitBox>(n);
+			for (int i = 0; i < n; i++)
+				targets.add(readTarget());
+			return j.newTableSwitchStmt(key, low, high, targets, readTarget());
+		}
+		default:
+			throw new IOException("unknown statement tag " + tag);
+		}
+	}
+}
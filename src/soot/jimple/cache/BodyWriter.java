@@ -0,0 +1,616 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 1997-2014 Raja Vallee-Rai and others
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+
+package soot.jimple.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import soot.ArrayType;
+import soot.BooleanType;
+import soot.ByteType;
+import soot.CharType;
+import soot.DoubleType;
+import soot.FloatType;
+import soot.IntType;
+import soot.Local;
+import soot.LongType;
+import soot.NullType;
+import soot.RefType;
+import soot.ShortType;
+import soot.SootFieldRef;
+import soot.SootMethodRef;
+import soot.Trap;
+import soot.Type;
+import soot.Unit;
+import soot.UnknownType;
+import soot.Value;
+import soot.ValueBox;
+import soot.VoidType;
+import soot.jimple.*;
+import soot.tagkit.BytecodeOffsetTag;
+import soot.tagkit.LineNumberTag;
+import soot.tagkit.Tag;
+
+/**
+ * Encodes a {@link JimpleBody} for the {@link BodyCache}. The format is read
+ * back by {@link BodyReader}; both share the tag constants defined here.
+ */
+class BodyWriter {
+
+	/** Thrown for bodies that contain something the cache cannot encode. */
+	static class UnsupportedBodyException extends RuntimeException {
+		private static final long serialVersionUID = -4040125812370716412L;
+
+		UnsupportedBodyException(String message) {
+			super(message);
+		}
+	}
+
+	// types
+	static final int T_BOOLEAN = 0, T_BYTE = 1, T_CHAR = 2, T_SHORT = 3,
+			T_INT = 4, T_LONG = 5, T_FLOAT = 6, T_DOUBLE = 7, T_VOID = 8,
+			T_NULL = 9, T_UNKNOWN = 10, T_REF = 11, T_ARRAY = 12;
+
+	// values
+	static final int V_LOCAL = 0, V_INT = 1, V_LONG = 2, V_FLOAT = 3,
+			V_DOUBLE = 4, V_STRING = 5, V_NULL = 6, V_CLASS = 7,
+			V_ADD = 8, V_AND = 9, V_CMP = 10, V_CMPG = 11, V_CMPL = 12,
+			V_DIV = 13, V_EQ = 14, V_NE = 15, V_GE = 16, V_GT = 17, V_LE = 18,
+			V_LT = 19, V_MUL = 20, V_OR = 21, V_REM = 22, V_SHL = 23,
+			V_SHR = 24, V_USHR = 25, V_SUB = 26, V_XOR = 27,
+			V_INTERFACE_INVOKE = 28, V_SPECIAL_INVOKE = 29,
+			V_STATIC_INVOKE = 30, V_VIRTUAL_INVOKE = 31,
+			V_DYNAMIC_INVOKE = 32, V_CAST = 33, V_INSTANCEOF = 34,
+			V_NEWARRAY = 35, V_NEWMULTIARRAY = 36, V_NEW = 37, V_LENGTH = 38,
+			V_NEG = 39, V_ARRAYREF = 40, V_STATICFIELDREF = 41,
+			V_INSTANCEFIELDREF = 42, V_PARAMETERREF = 43,
+			V_CAUGHTEXCEPTIONREF = 44, V_THISREF = 45;
+
+	// statements
+	static final int S_BREAKPOINT = 0, S_INVOKE = 1, S_ASSIGN = 2,
+			S_IDENTITY = 3, S_ENTERMONITOR = 4, S_EXITMONITOR = 5, S_GOTO = 6,
+			S_IF = 7, S_LOOKUPSWITCH = 8, S_NOP = 9, S_RET = 10,
+			S_RETURN = 11, S_RETURNVOID = 12, S_TABLESWITCH = 13,
+			S_THROW = 14;
+
+	// unit tags
+	static final int TAG_END = 0, TAG_LINENUMBER = 1, TAG_BYTECODEOFFSET = 2;
+
+	private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	private final DataOutputStream out = new DataOutputStream(bytes);
+	private final Map<Local, Integer> localIndex = new HashMap<Local, Integer>();
+	private final Map<Unit, Integer> unitIndex = new HashMap<Unit, Integer>();
+
+	byte[] write(JimpleBody body) {
+		if (!body.getTags().isEmpty())
+			throw new UnsupportedBodyException("body has tags");
+		try {
+			out.writeInt(body.getLocalCount());
+			for (Local l : body.getLocals()) {
+				localIndex.put(l, localIndex.size());
+				out.writeUTF(l.getName());
+				writeType(l.getType());
+			}
+
+			for (Unit u : body.getUnits())
+				unitIndex.put(u, unitIndex.size());
+			out.writeInt(unitIndex.size());
+			StmtWriter sw = new StmtWriter();
+			for (Unit u : body.getUnits()) {
+				u.apply(sw);
+				if (sw.error != null)
+					throw sw.error;
+				writeUnitTags(u);
+			}
+
+			out.writeInt(body.getTraps().size());
+			for (Trap t : body.getTraps()) {
+				out.writeUTF(t.getException().getName());
+				writeUnit(t.getBeginUnit());
+				writeUnit(t.getEndUnit());
+				writeUnit(t.getHandlerUnit());
+			}
+			out.flush();
+		} catch (IOException e) {
+			// cannot happen on a ByteArrayOutputStream
+			throw new RuntimeException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	private void writeUnitTags(Unit u) throws IOException {
+		for (Tag t : u.getTags()) {
+			if (t instanceof LineNumberTag) {
+				out.writeByte(TAG_LINENUMBER);
+				out.writeInt(((LineNumberTag) t).getLineNumber());
+			} else if (t instanceof BytecodeOffsetTag) {
+				out.writeByte(TAG_BYTECODEOFFSET);
+				out.writeInt(((BytecodeOffsetTag) t).getBytecodeOffset());
+			} else {
+				throw new UnsupportedBodyException("unit has a " + t.getName());
+			}
+		}
+		out.writeByte(TAG_END);
+		for (ValueBox vb : u.getUseAndDefBoxes()) {
+			if (!vb.getTags().isEmpty())
+				throw new UnsupportedBodyException("value box has tags");
+		}
+	}
+
+	private void writeUnit(Unit u) throws IOException {
+		Integer i = unitIndex.get(u);
+		if (i == null)
+			throw new UnsupportedBodyException("reference to unit outside of the body: " + u);
+		out.writeInt(i);
+	}
+
+	private void writeType(Type t) throws IOException {
+		if (t instanceof RefType) {
+			out.writeByte(T_REF);
+			out.writeUTF(((RefType) t).getClassName());
+		} else if (t instanceof ArrayType) {
+			ArrayType at = (ArrayType) t;
+			out.writeByte(T_ARRAY);
+			writeType(at.baseType);
+			out.writeInt(at.numDimensions);
+		} else if (t instanceof IntType) {
+			out.writeByte(T_INT);
+		} else if (t instanceof BooleanType) {
+			out.writeByte(T_BOOLEAN);
+		} else if (t instanceof ByteType) {
+			out.writeByte(T_BYTE);
+		} else if (t instanceof CharType) {
+			out.writeByte(T_CHAR);
+		} else if (t instanceof ShortType) {
+			out.writeByte(T_SHORT);
+		} else if (t instanceof LongType) {
+			out.writeByte(T_LONG);
+		} else if (t instanceof FloatType) {
+			out.writeByte(T_FLOAT);
+		} else if (t instanceof DoubleType) {
+			out.writeByte(T_DOUBLE);
+		} else if (t instanceof VoidType) {
+			out.writeByte(T_VOID);
+		} else if (t instanceof NullType) {
+			out.writeByte(T_NULL);
+		} else if (t instanceof UnknownType) {
+			out.writeByte(T_UNKNOWN);
+		} else {
+			throw new UnsupportedBodyException("type " + t);
+		}
+	}
+
+	private void writeTypes(List<Type> types) throws IOException {
+		out.writeInt(types.size());
+		for (Type t : types)
+			writeType(t);
+	}
+
+	private void writeMethodRef(SootMethodRef ref) throws IOException {
+		out.writeUTF(ref.declaringClass().getName());
+		out.writeUTF(ref.name());
+		writeTypes(ref.parameterTypes());
+		writeType(ref.returnType());
+		out.writeBoolean(ref.isStatic());
+	}
+
+	private void writeFieldRef(SootFieldRef ref) throws IOException {
+		out.writeUTF(ref.declaringClass().getName());
+		out.writeUTF(ref.name());
+		writeType(ref.type());
+		out.writeBoolean(ref.isStatic());
+	}
+
+	private void writeValue(Value v) throws IOException {
+		ValueWriter vw = new ValueWriter();
+		v.apply(vw);
+		if (vw.error != null)
+			throw vw.error;
+	}
+
+	private void writeValues(List<Value> values) throws IOException {
+		out.writeInt(values.size());
+		for (Value v : values)
+			writeValue(v);
+	}
+
+	/**
+	 * Writes a single value. The switch methods cannot throw checked
+	 * exceptions, so an IOException is kept in <code>error</code>.
+	 */
+	private class ValueWriter extends AbstractJimpleValueSwitch {
+		IOException error;
+
+		private void binop(int tag, BinopExpr v) {
+			try {
+				out.writeByte(tag);
+				writeValue(v.getOp1());
+				writeValue(v.getOp2());
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+
+		private void invoke(int tag, InvokeExpr v) {
+			try {
+				out.writeByte(tag);
+				if (v instanceof InstanceInvokeExpr)
+					writeValue(((InstanceInvokeExpr) v).getBase());
+				writeMethodRef(v.getMethodRef());
+				writeValues(v.getArgs());
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+
+		public void caseLocal(Local l) {
+			Integer i = localIndex.get(l);
+			if (i == null)
+				throw new UnsupportedBodyException("local " + l + " is not in the body");
+			try {
+				out.writeByte(V_LOCAL);
+				out.writeInt(i);
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+
+		public void caseIntConstant(IntConstant v) {
+			try {
+				out.writeByte(V_INT);
+				out.writeInt(v.value);
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+
+		public void caseLongConstant(LongConstant v) {
+			try {
+				out.writeByte(V_LONG);
+				out.writeLong(v.value);
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+
+		public void caseFloatConstant(FloatConstant v) {
+			try {
+				out.writeByte(V_FLOAT);
+				out.writeFloat(v.value);
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+
+		public void caseDoubleConstant(DoubleConstant v) {
+			try {
+				out.writeByte(V_DOUBLE);
+				out.writeDouble(v.value);
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+
+		public void caseStringConstant(StringConstant v) {
+			try {
+				// writeUTF is limited to 64k, string constants are not
+				out.writeByte(V_STRING);
+				byte[] b = v.value.getBytes("UTF-8");
+				out.writeInt(b.length);
+				out.write(b);
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+
+		public void caseNullConstant(NullConstant v) {
+			try {
+				out.writeByte(V_NULL);
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+
+		public void caseClassConstant(ClassConstant v) {
+			try {
+				out.writeByte(V_CLASS);
+				out.writeUTF(v.value);
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+
+		public void caseAddExpr(AddExpr v) { binop(V_ADD, v); }
+		public void caseAndExpr(AndExpr v) { binop(V_AND, v); }
+		public void caseCmpExpr(CmpExpr v) { binop(V_CMP, v); }
+		public void caseCmpgExpr(CmpgExpr v) { binop(V_CMPG, v); }
+		public void caseCmplExpr(CmplExpr v) { binop(V_CMPL, v); }
+		public void caseDivExpr(DivExpr v) { binop(V_DIV, v); }
+		public void caseEqExpr(EqExpr v) { binop(V_EQ, v); }
+		public void caseNeExpr(NeExpr v) { binop(V_NE, v); }
+		public void caseGeExpr(GeExpr v) { binop(V_GE, v); }
+		public void caseGtExpr(GtExpr v) { binop(V_GT, v); }
+		public void caseLeExpr(LeExpr v) { binop(V_LE, v); }
+		public void caseLtExpr(LtExpr v) { binop(V_LT, v); }
+		public void caseMulExpr(MulExpr v) { binop(V_MUL, v); }
+		public void caseOrExpr(OrExpr v) { binop(V_OR, v); }
+		public void caseRemExpr(RemExpr v) { binop(V_REM, v); }
+		public void caseShlExpr(ShlExpr v) { binop(V_SHL, v); }
+		public void caseShrExpr(ShrExpr v) { binop(V_SHR, v); }
+		public void caseUshrExpr(UshrExpr v) { binop(V_USHR, v); }
+		public void caseSubExpr(SubExpr v) { binop(V_SUB, v); }
+		public void caseXorExpr(XorExpr v) { binop(V_XOR, v); }
+
+		public void caseInterfaceInvokeExpr(InterfaceInvokeExpr v) { invoke(V_INTERFACE_INVOKE, v); }
+		public void caseSpecialInvokeExpr(SpecialInvokeExpr v) { invoke(V_SPECIAL_INVOKE, v); }
+		public void caseStaticInvokeExpr(StaticInvokeExpr v) { invoke(V_STATIC_INVOKE, v); }
+		public void caseVirtualInvokeExpr(VirtualInvokeExpr v) { invoke(V_VIRTUAL_INVOKE, v); }
+
+		public void caseDynamicInvokeExpr(DynamicInvokeExpr v) {
+			try {
+				out.writeByte(V_DYNAMIC_INVOKE);
+				writeMethodRef(v.getBootstrapMethodRef());
+				writeValues(v.getBootstrapArgs());
+				writeMethodRef(v.getMethodRef());
+				writeValues(v.getArgs());
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+
+		public void caseCastExpr(CastExpr v) {
+			try {
+				out.writeByte(V_CAST);
+				writeValue(v.getOp());
+				writeType(v.getCastType());
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+
+		public void caseInstanceOfExpr(InstanceOfExpr v) {
+			try {
+				out.writeByte(V_INSTANCEOF);
+				writeValue(v.getOp());
+				writeType(v.getCheckType());
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+
+		public void caseNewArrayExpr(NewArrayExpr v) {
+			try {
+				out.writeByte(V_NEWARRAY);
+				writeType(v.getBaseType());
+				writeValue(v.getSize());
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+
+		public void caseNewMultiArrayExpr(NewMultiArrayExpr v) {
+			try {
+				out.writeByte(V_NEWMULTIARRAY);
+				writeType(v.getBaseType());
+				writeValues(v.getSizes());
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+
+		public void caseNewExpr(NewExpr v) {
+			try {
+				out.writeByte(V_NEW);
+				writeType(v.getBaseType());
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+
+		public void caseLengthExpr(LengthExpr v) {
+			try {
+				out.writeByte(V_LENGTH);
+				writeValue(v.getOp());
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+
+		public void caseNegExpr(NegExpr v) {
+			try {
+				out.writeByte(V_NEG);
+				writeValue(v.getOp());
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+
+		public void caseArrayRef(ArrayRef v) {
+			try {
+				out.writeByte(V_ARRAYREF);
+				writeValue(v.getBase());
+				writeValue(v.getIndex());
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+
+		public void caseStaticFieldRef(StaticFieldRef v) {
+			try {
+				out.writeByte(V_STATICFIELDREF);
+				writeFieldRef(v.getFieldRef());
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+
+		public void caseInstanceFieldRef(InstanceFieldRef v) {
+			try {
+				out.writeByte(V_INSTANCEFIELDREF);
+				writeValue(v.getBase());
+				writeFieldRef(v.getFieldRef());
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+
+		public void caseParameterRef(ParameterRef v) {
+			try {
+				out.writeByte(V_PARAMETERREF);
+				writeType(v.getType());
+				out.writeInt(v.getIndex());
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+
+		public void caseCaughtExceptionRef(CaughtExceptionRef v) {
+			try {
+				out.writeByte(V_CAUGHTEXCEPTIONREF);
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+
+		public void caseThisRef(ThisRef v) {
+			try {
+				out.writeByte(V_THISREF);
+				writeType(v.getType());
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+
+		public void defaultCase(Object v) {
+			throw new UnsupportedBodyException("value " + v + " of " + v.getClass());
+		}
+	}
+
+	/** Writes a single statement, see {@link ValueWriter}. */
+	private class StmtWriter extends AbstractStmtSwitch {
+		IOException error;
+
+		private void op(int tag, Value v) {
+			try {
+				out.writeByte(tag);
+				writeValue(v);
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+
+		private void simple(int tag) {
+			try {
+				out.writeByte(tag);
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+
+		public void caseBreakpointStmt(BreakpointStmt stmt) { simple(S_BREAKPOINT); }
+		public void caseNopStmt(NopStmt stmt) { simple(S_NOP); }
+		public void caseReturnVoidStmt(ReturnVoidStmt stmt) { simple(S_RETURNVOID); }
+		public void caseInvokeStmt(InvokeStmt stmt) { op(S_INVOKE, stmt.getInvokeExpr()); }
+		public void caseEnterMonitorStmt(EnterMonitorStmt stmt) { op(S_ENTERMONITOR, stmt.getOp()); }
+		public void caseExitMonitorStmt(ExitMonitorStmt stmt) { op(S_EXITMONITOR, stmt.getOp()); }
+		public void caseRetStmt(RetStmt stmt) { op(S_RET, stmt.getStmtAddress()); }
+		public void caseReturnStmt(ReturnStmt stmt) { op(S_RETURN, stmt.getOp()); }
+		public void caseThrowStmt(ThrowStmt stmt) { op(S_THROW, stmt.getOp()); }
+
+		public void caseAssignStmt(AssignStmt stmt) {
+			try {
+				out.writeByte(S_ASSIGN);
+				writeValue(stmt.getLeftOp());
+				writeValue(stmt.getRightOp());
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+
+		public void caseIdentityStmt(IdentityStmt stmt) {
+			try {
+				out.writeByte(S_IDENTITY);
+				writeValue(stmt.getLeftOp());
+				writeValue(stmt.getRightOp());
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+
+		public void caseGotoStmt(GotoStmt stmt) {
+			try {
+				out.writeByte(S_GOTO);
+				writeUnit(stmt.getTarget());
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+
+		public void caseIfStmt(IfStmt stmt) {
+			try {
+				out.writeByte(S_IF);
+				writeValue(stmt.getCondition());
+				writeUnit(stmt.getTarget());
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+
+		public void caseLookupSwitchStmt(LookupSwitchStmt stmt) {
+			try {
+				out.writeByte(S_LOOKUPSWITCH);
+				writeValue(stmt.getKey());
+				List<IntConstant> values = stmt.getLookupValues();
+				out.writeInt(values.size());
+				for (IntConstant c : values)
+					out.writeInt(c.value);
+				for (Unit target : stmt.getTargets())
+					writeUnit(target);
+				writeUnit(stmt.getDefaultTarget());
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+
+		public void caseTableSwitchStmt(TableSwitchStmt stmt) {
+			try {
+				out.writeByte(S_TABLESWITCH);
+				writeValue(stmt.getKey());
+				out.writeInt(stmt.getLowIndex());
+				out.writeInt(stmt.getHighIndex());
+				List<Unit> targets = stmt.getTargets();
+				out.writeInt(targets.size());
+				for (Unit target : targets)
+					writeUnit(target);
+				writeUnit(stmt.getDefaultTarget());
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+
+		public void defaultCase(Object stmt) {
+			throw new UnsupportedBodyException("statement " + stmt + " of " + stmt.getClass());
+		}
+	}
+}
@@ -0,0 +1,58 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 1997-2014 Raja Vallee-Rai and others
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+
+package soot.jimple.cache;
+
+import soot.Body;
+import soot.G;
+import soot.MethodSource;
+import soot.SootMethod;
+import soot.jimple.JimpleBody;
+import soot.options.Options;
+
+/**
+ * A method source that looks up the body in the {@link BodyCache} first and
+ * only asks the original method source if it is not cached.
+ */
+class CachingMethodSource implements MethodSource {
+	private final BodyCache.ClassEntry entry;
+	private final MethodSource delegate;
+
+	CachingMethodSource(BodyCache.ClassEntry entry, MethodSource delegate) {
+		this.entry = entry;
+		this.delegate = delegate;
+	}
+
+	public Body getBody(SootMethod m, String phaseName) {
+		// only bodies that went through jb are cached
+		if (!phaseName.equals("jb"))
+			return delegate.getBody(m, phaseName);
+
+		JimpleBody cached = entry.load(m);
+		if (cached != null) {
+			if (Options.v().verbose())
+				G.v().out.println("[" + m.getName() + "] Retrieving JimpleBody from body cache...");
+			return cached;
+		}
+		Body body = delegate.getBody(m, phaseName);
+		if (body instanceof JimpleBody)
+			entry.store(m, body);
+		return body;
+	}
+}
@@ -0,0 +1,575 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 1997-2014 Raja Vallee-Rai and others
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+
+package soot.jimple.spark;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import soot.G;
+import soot.Local;
+import soot.PhaseOptions;
+import soot.PointsToAnalysis;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootField;
+import soot.SootMethod;
+import soot.Type;
+import soot.Value;
+import soot.jimple.InstanceInvokeExpr;
+import soot.jimple.InvokeExpr;
+import soot.jimple.Stmt;
+import soot.jimple.spark.internal.TypeManager;
+import soot.jimple.spark.pag.AllocDotField;
+import soot.jimple.spark.pag.AllocNode;
+import soot.jimple.spark.pag.FieldRefNode;
+import soot.jimple.spark.pag.GlobalVarNode;
+import soot.jimple.spark.pag.LocalVarNode;
+import soot.jimple.spark.pag.MethodPAG;
+import soot.jimple.spark.pag.Node;
+import soot.jimple.spark.pag.PAG;
+import soot.jimple.spark.pag.Parm;
+import soot.jimple.spark.pag.SparkField;
+import soot.jimple.spark.pag.VarNode;
+import soot.jimple.spark.sets.P2SetVisitor;
+import soot.jimple.spark.solver.OnFlyCallGraph;
+import soot.jimple.spark.solver.PropWorklist;
+import soot.jimple.toolkits.callgraph.CallGraph;
+import soot.jimple.toolkits.callgraph.ClinitElimTransformer;
+import soot.jimple.toolkits.callgraph.Edge;
+import soot.jimple.toolkits.callgraph.VirtualCallSite;
+import soot.jimple.toolkits.callgraph.VirtualCalls;
+import soot.options.CGOptions;
+import soot.options.SparkOptions;
+import soot.toolkits.scalar.Pair;
+import soot.util.queue.QueueReader;
+
+/** Updates the Spark points-to sets, the on-the-fly call graph and the
+ * reachable methods in place after some classes or methods in the Scene
+ * have been modified or removed.
+ *
+ * The caller makes the change in the Scene first (by editing the bodies or
+ * members of a class, or by removing it and adding a new version of the
+ * same name), reports it with methodModified, classModified and
+ * classRemoved, and then calls update(). The method PAGs of the retracted
+ * methods, which are the modified ones, those declared in a modified or
+ * removed class, those using a field that is no longer in the Scene, and
+ * the callers of methods that are no longer in the Scene, are removed from
+ * the graph along with their call edges, and rebuilt from the current
+ * bodies. The points-to sets that may have depended on a removed edge
+ * are found by following the old graph and sets forward from the nodes
+ * of the retracted methods; only these are discarded, refilled from
+ * their remaining predecessors and propagated again. Call sites whose
+ * receivers lose points-to facts, or that may now dispatch to a method
+ * added to a modified class, lose their edges and are resolved again.
+ *
+ * Removing facts is not monotone, so the cost of an update grows with
+ * the part of the points-to sets that the change can reach, which for a
+ * change to a widely used method may be most of the program.
+ *
+ * Limitations:
+ * <ul>
+ * <li>Only the context-insensitive on-the-fly configuration of Spark,
+ * with the worklist propagator and without simplification, is supported,
+ * and the call graph must not have been compacted.</li>
+ * <li>A modified class must keep its superclass and interfaces. Classes
+ * that are new to the Scene need not be reported, since they are handled
+ * when the solver reaches them.</li>
+ * <li>Methods are never removed from the reachable methods, even when no
+ * edges lead to them any more or they are no longer in the Scene.</li>
+ * <li>Class.forName calls in unchanged methods keep the static
+ * initializer edges found for them, even if the string constants they
+ * are passed no longer reach them.</li>
+ * <li>The nodes of the retracted methods lose their edges and points-to
+ * sets, but cannot be removed from the numberers of the PAG, which still
+ * hold them and the Locals of the replaced bodies. Each update therefore
+ * leaks these nodes; a client making many updates should run Spark
+ * afresh now and then.</li>
+ * </ul>
+ */
+public class IncrementalUpdater {
+    public IncrementalUpdater( PAG pag ) {
+        if( !supports( pag ) ) {
+            throw new RuntimeException(
+                    "Incremental update requires on-fly-cg, the worklist propagator, "
+                    +"an uncompacted call graph, and no vta, rta, geom-pta or simplification" );
+        }
+        this.pag = pag;
+        this.ofcg = pag.getOnFlyCallGraph();
+        this.cg = ofcg.callGraph();
+        this.typeCount = Scene.v().getTypeNumberer().size();
+    }
+
+    /** Returns true if the Spark configuration of pag can be updated
+     * incrementally. */
+    public static boolean supports( PAG pag ) {
+        SparkOptions opts = pag.getOpts();
+        return opts.on_fly_cg() && !opts.vta() && !opts.rta() && !opts.geom_pta()
+            && !opts.simplify_offline() && !opts.simplify_sccs()
+            && !opts.simple_edges_bidirectional()
+            && opts.propagator() == SparkOptions.propagator_worklist
+            && pag.getOnFlyCallGraph() != null
+            && Scene.v().hasCallGraph()
+            && Scene.v().getCallGraph() == pag.getOnFlyCallGraph().callGraph();
+    }
+
+    /** Records that class c has been removed from the Scene. */
+    public void classRemoved( SootClass c ) {
+        changed.add( c.getName() );
+    }
+    /** Records that the methods or fields of class c have changed, either
+     * in place or by replacing c with a new version of the same name. */
+    public void classModified( SootClass c ) {
+        changed.add( c.getName() );
+    }
+    /** Records that the body of m has changed, while the members of its
+     * class have not. */
+    public void methodModified( SootMethod m ) {
+        changedMethods.add( m );
+    }
+
+    /** Brings the points-to sets, the call graph and the reachable methods
+     * up to date with the changes recorded since the last call. */
+    public void update() {
+        Date start = new Date();
+        updateHierarchy();
+        updateEntryPoints();
+
+        // find what to remove, following the old graph and points-to sets
+        Set<SootMethod> retracted = retractedMethods();
+        Set<Node> retractedNodes = new HashSet<Node>();
+        for( SootMethod m : retracted ) {
+            for( Node n : nodesOf( m ) ) {
+                retractedNodes.add( n );
+                markDirty( n );
+            }
+            for( Iterator<Edge> eIt = cg.edgesOutOf( m ); eIt.hasNext(); ) {
+                removeCallEdge( eIt.next() );
+            }
+            if( isGone( m ) ) {
+                for( Iterator<Edge> eIt = cg.edgesInto( m ); eIt.hasNext(); ) {
+                    removeCallEdge( eIt.next() );
+                }
+            }
+        }
+        redispatchOverridden();
+        closeDirty();
+
+        // remove it
+        for( Node n : retractedNodes ) pag.removeEdgesOf( n );
+        for( Node[] edge : detachedEdges ) pag.removeEdge( edge[0], edge[1] );
+        for( Edge e : removedEdges ) {
+            cg.removeEdge( e );
+            Stmt s = e.srcStmt();
+            if( s != null && s.containsInvokeExpr() ) {
+                InvokeExpr ie = s.getInvokeExpr();
+                pag.callAssigns.remove( ie );
+                pag.callToMethod.remove( ie );
+                pag.virtualCallsToReceivers.remove( ie );
+            }
+        }
+        for( Node n : dirty ) n.discardP2Set();
+        for( SootMethod m : retracted ) G.v().MethodPAG_methodToPag.remove( m );
+        for( Iterator<VarNode> vnIt = pag.getDereferences().iterator(); vnIt.hasNext(); ) {
+            if( retractedNodes.contains( vnIt.next() ) ) vnIt.remove();
+        }
+
+        // add the current bodies and call edges
+        QueueReader<Node> addedEdges = pag.edgeReader();
+        List<SootMethod> rebuilt = new ArrayList<SootMethod>();
+        for( SootMethod m : retracted ) {
+            if( isGone( m ) ) {
+                ofcg.ofcgb().methodRemoved( m );
+            } else {
+                ofcg.ofcgb().methodChanged( m );
+                if( ofcg.reachableMethods().contains( m ) ) rebuilt.add( m );
+            }
+        }
+        for( SootMethod m : rebuilt ) {
+            MethodPAG mpag = MethodPAG.v( pag, m );
+            mpag.build();
+            mpag.addToPAG( null );
+        }
+        for( Edge e : edgesToReattach( rebuilt ) ) pag.addCallTarget( e );
+        for( Local receiver : redispatched.values() ) {
+            VarNode vn = pag.findLocalVarNode( receiver );
+            if( vn != null && !dirty.contains( vn ) ) ofcg.updatedNode( vn, vn.getP2Set() );
+        }
+        ofcg.build();
+
+        new PropWorklist( pag ).propagate( addedEdges, dirty );
+        // as the cg pack does after a fresh run, for the new bodies only
+        CGOptions cgOpts = new CGOptions( PhaseOptions.v().getPhaseOptions( "cg" ) );
+        if( cgOpts.trim_clinit() ) {
+            ClinitElimTransformer trimmer = new ClinitElimTransformer();
+            for( SootMethod m : rebuilt ) {
+                if( m.isConcrete() && m.hasActiveBody() ) trimmer.transform( m.getActiveBody() );
+            }
+        }
+
+        if( pag.getOpts().verbose() ) {
+            G.v().out.println( "[Spark] Retracted "+retracted.size()+" methods, removed "
+                    +removedEdges.size()+" call edges and recomputed "+dirty.size()+" nodes" );
+        }
+        SparkTransformer.reportTime( "Incremental update", start, new Date() );
+        changed.clear();
+        changedMethods.clear();
+        dirty.clear();
+        removedEdges.clear();
+        detachedEdges.clear();
+        redispatched.clear();
+        loadsByField = null;
+    }
+
+    /* End of public methods. */
+
+    /** Releases the hierarchies and dispatch tables, which may be stale,
+     * and rebuilds the type masks if new types have appeared. */
+    protected void updateHierarchy() {
+        Scene.v().releaseActiveHierarchy();
+        Scene.v().releaseFastHierarchy();
+        VirtualCalls.v().clearCache();
+        TypeManager tm = pag.getTypeManager();
+        if( tm.getFastHierarchy() == null ) return;
+        tm.setFastHierarchy( Scene.v().getOrMakeFastHierarchy() );
+        int types = Scene.v().getTypeNumberer().size();
+        if( types != typeCount ) {
+            tm.makeTypeMask();
+            typeCount = types;
+        }
+    }
+
+    /** Replaces the entry points declared in a changed class by the method
+     * of the same subsignature in the current version of the class, and
+     * drops those that no longer exist. */
+    protected void updateEntryPoints() {
+        List<SootMethod> entryPoints = new ArrayList<SootMethod>();
+        boolean stale = false;
+        for( SootMethod m : Scene.v().getEntryPoints() ) {
+            if( !isGone( m ) ) {
+                entryPoints.add( m );
+                continue;
+            }
+            stale = true;
+            String cls = m.getDeclaringClass().getName();
+            if( !Scene.v().containsClass( cls ) ) continue;
+            SootClass c = Scene.v().getSootClass( cls );
+            if( c.declaresMethod( m.getSubSignature() ) ) {
+                SootMethod replacement = c.getMethod( m.getSubSignature() );
+                entryPoints.add( replacement );
+                ofcg.reachableMethods().addEntryPoint( replacement );
+            }
+        }
+        if( stale ) Scene.v().setEntryPoints( entryPoints );
+    }
+
+    /** Returns the methods whose method PAGs must be rebuilt: those that
+     * were modified, those declared in a changed class, those no longer in
+     * the Scene, those using a field that is no longer in the Scene, and
+     * the callers of methods no longer in the Scene, whose call sites must
+     * be resolved again. */
+    protected Set<SootMethod> retractedMethods() {
+        Set<SootMethod> ret = new HashSet<SootMethod>();
+        for( MethodPAG mpag : G.v().MethodPAG_methodToPag.values() ) {
+            final SootMethod m = mpag.getMethod();
+            if( changedMethods.contains( m ) || isGone( m )
+            || changed.contains( m.getDeclaringClass().getName() )
+            || usesStaleField( mpag ) ) {
+                ret.add( m );
+            }
+        }
+        for( SootMethod m : new ArrayList<SootMethod>( ret ) ) {
+            if( !isGone( m ) ) continue;
+            for( Iterator<Edge> eIt = cg.edgesInto( m ); eIt.hasNext(); ) {
+                ret.add( eIt.next().src() );
+            }
+        }
+        return ret;
+    }
+
+    protected boolean usesStaleField( MethodPAG mpag ) {
+        for( Iterator<Node> nIt = mpag.edgeNodes(); nIt.hasNext(); ) {
+            final Node n = nIt.next();
+            Object field = null;
+            if( n instanceof FieldRefNode ) {
+                field = ((FieldRefNode) n).getField();
+            } else if( n instanceof GlobalVarNode ) {
+                field = ((GlobalVarNode) n).getVariable();
+            }
+            if( !(field instanceof SootField) ) continue;
+            SootField f = (SootField) field;
+            if( !f.isDeclared() || isStale( f.getDeclaringClass() ) ) return true;
+        }
+        return false;
+    }
+
+    /** Returns the nodes of the graph that belong to m: those of its
+     * method PAG, its parameter and return nodes, and the field
+     * references based on them. */
+    protected Set<Node> nodesOf( SootMethod m ) {
+        Set<Node> ret = new HashSet<Node>();
+        MethodPAG mpag = G.v().MethodPAG_methodToPag.get( m );
+        if( mpag != null ) {
+            for( Iterator<Node> nIt = mpag.edgeNodes(); nIt.hasNext(); ) {
+                final Node n = nIt.next();
+                if( belongsTo( n, m ) ) ret.add( n );
+            }
+        }
+        ret.addAll( parameterNodes( m ) );
+        VarNode retNode = returnNode( m );
+        if( retNode != null ) ret.add( retNode );
+        for( Node n : new ArrayList<Node>( ret ) ) {
+            if( n instanceof VarNode ) ret.addAll( ((VarNode) n).getAllFieldRefs() );
+        }
+        return ret;
+    }
+
+    /** Schedules the removal of call edge e, along with the assignments
+     * between the nodes of the caller and the parameter and return nodes
+     * of the callee that it added to the graph. Other edges between the
+     * same methods put back any assignment they share with e. */
+    protected void removeCallEdge( Edge e ) {
+        if( !removedEdges.add( e ) || !e.passesParameters() ) return;
+        SootMethod src = e.src();
+        for( VarNode parm : parameterNodes( e.tgt() ) ) {
+            for( Node s : pag.simpleInvLookup( parm ) ) {
+                if( !belongsTo( s, src ) ) continue;
+                detachedEdges.add( new Node[] { s, parm } );
+                markDirty( parm );
+            }
+        }
+        VarNode ret = returnNode( e.tgt() );
+        if( ret == null ) return;
+        for( Node t : pag.simpleLookup( ret ) ) {
+            if( !belongsTo( t, src ) ) continue;
+            detachedEdges.add( new Node[] { ret, t } );
+            markDirty( t );
+        }
+    }
+
+    /** Returns the remaining call edges whose assignments may have been
+     * removed: those out of the call sites of the removed edges, those
+     * between the methods of the removed edges, and those into the
+     * rebuilt methods. */
+    protected Set<Edge> edgesToReattach( List<SootMethod> rebuilt ) {
+        Set<Edge> ret = new LinkedHashSet<Edge>();
+        for( Edge e : removedEdges ) {
+            if( e.srcUnit() != null ) {
+                for( Iterator<Edge> eIt = cg.edgesOutOf( e.srcUnit() ); eIt.hasNext(); ) {
+                    ret.add( eIt.next() );
+                }
+            }
+            if( isGone( e.tgt() ) ) continue;
+            for( Iterator<Edge> eIt = cg.edgesInto( e.tgt() ); eIt.hasNext(); ) {
+                final Edge into = eIt.next();
+                if( into.src() == e.src() ) ret.add( into );
+            }
+        }
+        for( SootMethod m : rebuilt ) {
+            for( Iterator<Edge> eIt = cg.edgesInto( m ); eIt.hasNext(); ) {
+                ret.add( eIt.next() );
+            }
+        }
+        return ret;
+    }
+
+    /** Resolves again the calls that may now dispatch to a method added to
+     * a modified class: those that reach the method it used to inherit,
+     * on a receiver that may point to an instance of the class or of a
+     * subclass. */
+    protected void redispatchOverridden() {
+        for( String name : changed ) {
+            if( !Scene.v().containsClass( name ) ) continue;
+            SootClass c = Scene.v().getSootClass( name );
+            for( SootMethod m : c.getMethods() ) {
+                if( m.isStatic() || m.isPrivate() || m.isConstructor() ) continue;
+                for( SootClass sc = c; sc.hasSuperclass(); ) {
+                    sc = sc.getSuperclass();
+                    if( !sc.declaresMethod( m.getNumberedSubSignature() ) ) continue;
+                    redispatchCallsTo( sc.getMethod( m.getNumberedSubSignature() ), c );
+                    break;
+                }
+            }
+        }
+    }
+
+    protected void redispatchCallsTo( SootMethod target, SootClass c ) {
+        for( Iterator<Edge> eIt = cg.edgesInto( target ); eIt.hasNext(); ) {
+            final Edge e = eIt.next();
+            final Stmt s = e.srcStmt();
+            if( s == null || !s.containsInvokeExpr() ) continue;
+            InvokeExpr ie = s.getInvokeExpr();
+            List<Value> receivers = new ArrayList<Value>( ie.getArgs() );
+            if( ie instanceof InstanceInvokeExpr ) {
+                receivers.add( ((InstanceInvokeExpr) ie).getBase() );
+            }
+            for( Value v : receivers ) {
+                if( !(v instanceof Local) ) continue;
+                VarNode vn = pag.findLocalVarNode( v );
+                if( vn != null && mayPointToInstanceOf( vn, c ) ) redispatch( (Local) v, s );
+            }
+        }
+    }
+
+    protected boolean mayPointToInstanceOf( VarNode vn, SootClass c ) {
+        final TypeManager tm = pag.getTypeManager();
+        final Type type = c.getType();
+        return vn.getP2Set().forall( new P2SetVisitor() {
+        public final void visit( Node n ) {
+                if( tm.castNeverFails( n.getType(), type ) ) returnValue = true;
+            }
+        } );
+    }
+
+    /** Schedules the removal of the edges out of the call sites with the
+     * given receiver, at statement s or everywhere if s is null, so that
+     * they are resolved again. */
+    protected void redispatch( Local receiver, Stmt s ) {
+        List<VirtualCallSite> sites = ofcg.ofcgb().callSitesOf( receiver );
+        if( sites == null ) return;
+        for( VirtualCallSite site : sites ) {
+            if( s != null && site.stmt() != s ) continue;
+            if( redispatched.put( site, receiver ) != null ) continue;
+            for( Iterator<Edge> eIt = cg.edgesOutOf( site.stmt() ); eIt.hasNext(); ) {
+                final Edge e = eIt.next();
+                if( e.kind() == site.kind() ) removeCallEdge( e );
+            }
+        }
+    }
+
+    protected void markDirty( Node n ) {
+        if( dirty.add( n ) ) dirtyWorkList.add( n );
+    }
+
+    /** Marks every node whose points-to set may depend on a dirty node as
+     * dirty, and schedules the call sites of dirty receivers to be
+     * resolved again. */
+    protected void closeDirty() {
+        while( !dirtyWorkList.isEmpty() ) {
+            Node n = dirtyWorkList.removeFirst();
+            if( n instanceof VarNode ) {
+                VarNode vn = (VarNode) n;
+                for( Node t : pag.simpleLookup( vn ) ) markDirty( t );
+                for( Node t : pag.storeLookup( vn ) ) {
+                    FieldRefNode fr = (FieldRefNode) t;
+                    markFieldsDirty( fr.getBase(), fr.getField() );
+                }
+                for( FieldRefNode fr : vn.getAllFieldRefs() ) {
+                    for( Node t : pag.loadLookup( fr ) ) markDirty( t );
+                    if( pag.storeInvLookup( fr ).length > 0 ) {
+                        markFieldsDirty( vn, fr.getField() );
+                    }
+                }
+                if( vn.getVariable() instanceof Local ) {
+                    redispatch( (Local) vn.getVariable(), null );
+                }
+            } else if( n instanceof AllocDotField ) {
+                AllocDotField adf = (AllocDotField) n;
+                for( FieldRefNode fr : loadsOf( adf.getField() ) ) {
+                    if( !fr.getBase().getP2Set().contains( adf.getBase() ) ) continue;
+                    for( Node t : pag.loadLookup( fr ) ) markDirty( t );
+                }
+            }
+        }
+    }
+
+    protected void markFieldsDirty( VarNode base, final SparkField field ) {
+        base.getP2Set().forall( new P2SetVisitor() {
+        public final void visit( Node n ) {
+                AllocDotField adf = pag.findAllocDotField( (AllocNode) n, field );
+                if( adf != null ) markDirty( adf );
+            }
+        } );
+    }
+
+    protected List<FieldRefNode> loadsOf( SparkField field ) {
+        if( loadsByField == null ) {
+            loadsByField = new HashMap<SparkField, List<FieldRefNode>>();
+            for( Object object : pag.loadSources() ) {
+                FieldRefNode fr = (FieldRefNode) object;
+                List<FieldRefNode> frs = loadsByField.get( fr.getField() );
+                if( frs == null ) {
+                    loadsByField.put( fr.getField(), frs = new ArrayList<FieldRefNode>() );
+                }
+                frs.add( fr );
+            }
+        }
+        List<FieldRefNode> ret = loadsByField.get( field );
+        return ret == null ? new ArrayList<FieldRefNode>() : ret;
+    }
+
+    /** Returns the this and parameter nodes of m that are in the graph. */
+    protected List<VarNode> parameterNodes( SootMethod m ) {
+        List<VarNode> ret = new ArrayList<VarNode>();
+        VarNode thiz = pag.findLocalVarNode(
+                new Pair<SootMethod, String>( m, PointsToAnalysis.THIS_NODE ) );
+        if( thiz != null ) ret.add( thiz );
+        for( int i = 0; i < m.getParameterCount(); i++ ) {
+            VarNode parm = pag.findLocalVarNode(
+                    new Pair<SootMethod, Integer>( m, new Integer( i ) ) );
+            if( parm != null ) ret.add( parm );
+        }
+        return ret;
+    }
+
+    protected VarNode returnNode( SootMethod m ) {
+        return pag.findLocalVarNode( Parm.v( m, PointsToAnalysis.RETURN_NODE ) );
+    }
+
+    protected static boolean belongsTo( Node n, SootMethod m ) {
+        if( n instanceof LocalVarNode ) return ((LocalVarNode) n).getMethod() == m;
+        if( n instanceof FieldRefNode ) return belongsTo( ((FieldRefNode) n).getBase(), m );
+        if( n instanceof AllocNode ) return ((AllocNode) n).getMethod() == m;
+        return false;
+    }
+
+    /** Returns true if m is no longer a method of a class in the Scene. */
+    protected static boolean isGone( SootMethod m ) {
+        return !m.isDeclared() || isStale( m.getDeclaringClass() );
+    }
+
+    /** Returns true if c has been removed from the Scene, or replaced by a
+     * new version. */
+    protected static boolean isStale( SootClass c ) {
+        return !Scene.v().containsClass( c.getName() )
+            || Scene.v().getSootClass( c.getName() ) != c;
+    }
+
+    private final PAG pag;
+    private final OnFlyCallGraph ofcg;
+    private final CallGraph cg;
+    private int typeCount;
+    private final Set<String> changed = new HashSet<String>();
+    private final Set<SootMethod> changedMethods = new HashSet<SootMethod>();
+    /** The nodes whose points-to sets are discarded and computed again. */
+    private final Set<Node> dirty = new LinkedHashSet<Node>();
+    private final LinkedList<Node> dirtyWorkList = new LinkedList<Node>();
+    private final Set<Edge> removedEdges = new LinkedHashSet<Edge>();
+    private final List<Node[]> detachedEdges = new ArrayList<Node[]>();
+    /** The call sites resolved again, with their receivers. */
+    private final Map<VirtualCallSite, Local> redispatched = new HashMap<VirtualCallSite, Local>();
+    private Map<SparkField, List<FieldRefNode>> loadsByField;
+}
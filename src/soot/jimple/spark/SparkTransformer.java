@@ -24,6 +24,7 @@ import java.util.Map;
 
 import soot.G;
 import soot.Local;
+import soot.PackManager;
 import soot.PointsToAnalysis;
 import soot.Scene;
 import soot.SceneTransformer;
@@ -41,11 +42,14 @@ import soot.jimple.spark.geom.geomPA.GeomPointsTo;
 import soot.jimple.spark.ondemand.DemandCSPointsTo;
 import soot.jimple.spark.pag.AllocDotField;
 import soot.jimple.spark.pag.AllocNode;
+import soot.jimple.spark.pag.FieldRefNode;
 import soot.jimple.spark.pag.Node;
 import soot.jimple.spark.pag.PAG;
 import soot.jimple.spark.pag.PAG2HTML;
 import soot.jimple.spark.pag.PAGDumper;
 import soot.jimple.spark.pag.VarNode;
+import soot.jimple.spark.sets.EmptyPointsToSet;
+import soot.jimple.spark.sets.FrozenPointsToSet;
 import soot.jimple.spark.sets.P2SetVisitor;
 import soot.jimple.spark.sets.PointsToSetInternal;
 import soot.jimple.spark.solver.EBBCollapser;
@@ -53,6 +57,7 @@ import soot.jimple.spark.solver.PropAlias;
 import soot.jimple.spark.solver.PropCycle;
 import soot.jimple.spark.solver.PropIter;
 import soot.jimple.spark.solver.PropMerge;
+import soot.jimple.spark.solver.PropParallel;
 import soot.jimple.spark.solver.PropWorklist;
 import soot.jimple.spark.solver.Propagator;
 import soot.jimple.spark.solver.SCCCollapser;
@@ -128,27 +133,7 @@ public class SparkTransformer extends SceneTransformer
         // Propagate
         Date startProp = new Date();
         final Propagator[] propagator = new Propagator[1];
-        switch( opts.propagator() ) {
-            case SparkOptions.propagator_iter:
-                propagator[0] = new PropIter( pag );
-                break;
-            case SparkOptions.propagator_worklist:
-                propagator[0] = new PropWorklist( pag );
-                break;
-            case SparkOptions.propagator_cycle:
-                propagator[0] = new PropCycle( pag );
-                break;
-            case SparkOptions.propagator_merge:
-                propagator[0] = new PropMerge( pag );
-                break;
-            case SparkOptions.propagator_alias:
-                propagator[0] = new PropAlias( pag );
-                break;
-            case SparkOptions.propagator_none:
-                break;
-            default:
-                throw new RuntimeException();
-        }
+        propagator[0] = makePropagator( pag, opts );
         if( propagator[0] != null ) propagator[0].propagate();
         Date endProp = new Date();
         reportTime( "Propagation", startProp, endProp );
@@ -189,6 +174,17 @@ public class SparkTransformer extends SceneTransformer
         	}
         }
         
+        if( opts.freeze_sets() ) {
+            if( opts.geom_pta() ) {
+                G.v().out.println( "The points-to sets are not frozen, since the geometric points-to analysis keeps updating them." );
+            } else {
+                Date startFreeze = new Date();
+                freezeSets( pag, opts.verbose() );
+                Date endFreeze = new Date();
+                reportTime( "Points-to sets frozen", startFreeze, endFreeze );
+            }
+        }
+
         if(opts.cs_demand()) {
         		//replace by demand-driven refinement-based context-sensitive analysis
         		Date startOnDemand = new Date();
@@ -242,6 +238,50 @@ public class SparkTransformer extends SceneTransformer
             }
         }
     }
+    /** Returns the propagator selected by opts, or null for none. */
+    public static Propagator makePropagator( PAG pag, SparkOptions opts ) {
+        switch( opts.propagator() ) {
+            case SparkOptions.propagator_iter:
+                return new PropIter( pag );
+            case SparkOptions.propagator_worklist:
+                return new PropWorklist( pag );
+            case SparkOptions.propagator_cycle:
+                return new PropCycle( pag );
+            case SparkOptions.propagator_merge:
+                return new PropMerge( pag );
+            case SparkOptions.propagator_alias:
+                return new PropAlias( pag );
+            case SparkOptions.propagator_parallel:
+                return makeParallelPropagator( pag, opts );
+            case SparkOptions.propagator_none:
+                return null;
+            default:
+                throw new RuntimeException();
+        }
+    }
+
+    /** Returns a PropParallel running on -num-threads threads, or a
+     * PropWorklist if there is only one thread or the points-to sets
+     * share state between nodes and so cannot be updated concurrently. */
+    protected static Propagator makeParallelPropagator( PAG pag, SparkOptions opts ) {
+        int threads = PackManager.numThreads();
+        boolean shared = opts.set_impl() == SparkOptions.set_impl_heintze
+            || opts.set_impl() == SparkOptions.set_impl_sharedlist;
+        if( opts.set_impl() == SparkOptions.set_impl_double ) {
+            shared = opts.double_set_old() == SparkOptions.double_set_old_heintze
+                || opts.double_set_old() == SparkOptions.double_set_old_sharedlist
+                || opts.double_set_new() == SparkOptions.double_set_new_heintze
+                || opts.double_set_new() == SparkOptions.double_set_new_sharedlist;
+        }
+        if( shared ) {
+            G.v().out.println( "[Spark] Warning: the parallel propagator does not support "
+                    +"shared points-to sets; using the worklist propagator." );
+            return new PropWorklist( pag );
+        }
+        if( threads == 1 ) return new PropWorklist( pag );
+        return new PropParallel( pag, threads );
+    }
+
     protected static void reportTime( String desc, Date start, Date end ) {
         long time = end.getTime()-start.getTime();
         G.v().out.println( "[Spark] "+desc+" in "+time/1000+"."+(time/100)%10+" seconds." );
@@ -261,6 +301,34 @@ public class SparkTransformer extends SceneTransformer
         else h.addTag( unknown );
     }
 
+    /** Replaces the points-to sets of all nodes by immutable sets, one for
+     * each distinct set of objects. */
+    protected void freezeSets( PAG pag, boolean verbose ) {
+        FrozenPointsToSet.Interner interner =
+            new FrozenPointsToSet.Interner( pag.getAllocNodeNumberer() );
+        int sets = 0;
+        for( VarNode v : pag.getVarNodeNumberer() ) {
+            if( freeze( v, interner ) ) sets++;
+        }
+        for( FieldRefNode fr : pag.getFieldRefNodeNumberer() ) {
+            if( freeze( fr, interner ) ) sets++;
+        }
+        for( AllocDotField adf : pag.getAllocDotFieldNodeNumberer() ) {
+            if( freeze( adf, interner ) ) sets++;
+        }
+        if( verbose ) {
+            G.v().out.println( "[Spark] Froze "+sets+" points-to sets into "
+                    +interner.size()+" distinct sets" );
+        }
+    }
+    private static boolean freeze( Node n, FrozenPointsToSet.Interner interner ) {
+        if( n.getReplacement() != n ) return false;
+        PointsToSetInternal set = n.getP2Set();
+        if( set == EmptyPointsToSet.v() ) return false;
+        n.setP2Set( interner.intern( set ) );
+        return true;
+    }
+
     protected void findSetMass( PAG pag ) {
         int mass = 0;
         int varMass = 0;
@@ -53,7 +53,9 @@ public class FieldTagger extends BodyTransformer
             }
         }
     }
-    protected void internalTransform(Body body, String phaseName, Map options)
+    // synchronized: ensureProcessed fills processedMethods and the
+    // read/write maps shared by all bodies
+    protected synchronized void internalTransform(Body body, String phaseName, Map options)
     {
         int threshold = PhaseOptions.getInt( options, "threshold" );
 
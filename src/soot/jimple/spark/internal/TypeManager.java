@@ -78,6 +78,15 @@ public final class TypeManager {
     }
     final public BitVector get( Type type ) {
         if( type == null ) return null;
+        update();
+        BitVector ret = (BitVector) typeMask.get( type );
+        if( ret == null && fh != null ) throw new RuntimeException( "Type mask not found for type "+type );
+        return ret;
+    }
+    /** Adds the alloc nodes created since the last call to the masks.
+     * Synchronized for the parallel propagator, which calls get() from
+     * several threads. */
+    private synchronized void update() {
         while(allocNodeListener.hasNext()) {
             AllocNode n = allocNodeListener.next();
             for( final Type t : Scene.v().getTypeNumberer()) {
@@ -99,9 +108,6 @@ public final class TypeManager {
                 }
             }
         }
-        BitVector ret = (BitVector) typeMask.get( type );
-        if( ret == null && fh != null ) throw new RuntimeException( "Type mask not found for type "+type );
-        return ret;
     }
     final public void clearTypeMask() {
         typeMask = null;
@@ -168,6 +174,8 @@ public final class TypeManager {
     protected QueueReader<AllocNode> allocNodeListener = null;
     // ** new methods
     private void initClass2allocs() {
+        class2allocs.clear();
+        anySubtypeAllocs.clear();
         for ( AllocNode an : pag.getAllocNodeNumberer() ) {
             addAllocNode(an);
         }
@@ -24,15 +24,23 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import soot.AnySubType;
 import soot.ArrayType;
 import soot.Context;
 import soot.G;
 import soot.Local;
+import soot.PackManager;
 import soot.PointsToAnalysis;
 import soot.PointsToSet;
 import soot.RefType;
@@ -292,11 +300,32 @@ public final class DemandCSPointsTo implements PointsToAnalysis {
 		this.lazy = lazy;
 		this.maxNodesPerPass = maxTraversal / maxPasses;
 		this.heuristicType = HeuristicType.INCR;
-		this.reachingObjectsCache = new HashMap<Local, PointsToSet>();
-		this.reachingObjectsCacheNoCGRefinement = new HashMap<Local, PointsToSet>();
+		this.reachingObjectsCache = new ConcurrentHashMap<Local, PointsToSet>();
+		this.reachingObjectsCacheNoCGRefinement = new ConcurrentHashMap<Local, PointsToSet>();
         this.useCache = true;
 	}
 
+	/**
+	 * Makes a worker for {@link #doReachingObjects(Collection)}. The worker
+	 * has its own per-query state, but shares the settings, the read-only
+	 * indices and the result caches of analysis.
+	 */
+	private DemandCSPointsTo(DemandCSPointsTo analysis) {
+		this.csInfo = analysis.csInfo;
+		this.pag = analysis.pag;
+		this.maxPasses = analysis.maxPasses;
+		this.lazy = analysis.lazy;
+		this.maxNodesPerPass = analysis.maxNodesPerPass;
+		this.heuristicType = analysis.heuristicType;
+		this.refineCallGraph = analysis.refineCallGraph;
+		this.reachingObjectsCache = analysis.reachingObjectsCache;
+		this.reachingObjectsCacheNoCGRefinement = analysis.reachingObjectsCacheNoCGRefinement;
+		this.useCache = analysis.useCache;
+		this.fieldToStores = analysis.fieldToStores;
+		this.fieldToLoads = analysis.fieldToLoads;
+		this.vMatches = analysis.vMatches;
+	}
+
 	private void init() {
 		this.fieldToStores = SootUtil.storesOnField(pag);
         this.fieldToLoads = SootUtil.loadsOnField(pag);
@@ -338,6 +367,70 @@ public final class DemandCSPointsTo implements PointsToAnalysis {
 	    return result;
 	}
 
+	/**
+	 * Computes the refined points-to sets of all locals, running the queries
+	 * on <code>-num-threads</code> threads. Each thread answers its queries
+	 * with its own worker; results are shared with this analysis through
+	 * the cache, so that later queries for the same locals are free.
+	 * 
+	 * @return the points-to set of each local, in the order of locals
+	 */
+	public Map<Local, PointsToSet> doReachingObjects(Collection<Local> locals) {
+		if(fieldToStores==null) {
+	        init();
+		}
+		final List<Local> queries = new ArrayList<Local>(locals);
+		final Map<Local, PointsToSet> results = new ConcurrentHashMap<Local, PointsToSet>();
+		int threads = Math.min(PackManager.numThreads(), queries.size());
+		if (threads <= 1) {
+			for (Local l : queries) {
+				results.put(l, doReachingObjects(l));
+			}
+		} else {
+			// make sure that lazily built global structures exist before the
+			// workers start asking for them; reading an edge map of the PAG
+			// trims it unless this has been done for every row
+			Scene.v().getOrMakeFastHierarchy();
+			pag.cleanUpMerges();
+			final AtomicInteger next = new AtomicInteger();
+			ExecutorService executor = Executors.newFixedThreadPool(threads);
+			try {
+				List<Future<?>> futures = new ArrayList<Future<?>>(threads);
+				for (int i = 0; i < threads; i++) {
+					futures.add(executor.submit(new Runnable() {
+						public void run() {
+							DemandCSPointsTo worker = new DemandCSPointsTo(DemandCSPointsTo.this);
+							for (int q = next.getAndIncrement(); q < queries.size(); q = next.getAndIncrement()) {
+								Local l = queries.get(q);
+								results.put(l, worker.doReachingObjects(l));
+							}
+						}
+					}));
+				}
+				for (Future<?> f : futures) {
+					f.get();
+				}
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof RuntimeException)
+					throw (RuntimeException) cause;
+				if (cause instanceof Error)
+					throw (Error) cause;
+				throw new RuntimeException(cause);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException("Interrupted while answering points-to queries", e);
+			} finally {
+				executor.shutdownNow();
+			}
+		}
+		Map<Local, PointsToSet> ret = new LinkedHashMap<Local, PointsToSet>();
+		for (Local l : queries) {
+			ret.put(l, results.get(l));
+		}
+		return ret;
+	}
+
     /**
      * Returns <code>false</code> if an inconsistent computation occurred, i.e. if result
      * differs from the result computed by {@link #computeReachingObjects(Local)} on l.
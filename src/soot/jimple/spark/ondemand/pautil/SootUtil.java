@@ -249,8 +249,8 @@ public class SootUtil {
 
   public static PointsToSetInternal constructIntersection(final PointsToSetInternal set1, final PointsToSetInternal set2, PAG pag) {
     HybridPointsToSet hybridSet1 = null, hybridSet2 = null;
-    hybridSet1 = convertToHybrid(set1);
-    hybridSet2 = convertToHybrid(set2);
+    hybridSet1 = convertToHybrid(set1, pag);
+    hybridSet2 = convertToHybrid(set2, pag);
     HybridPointsToSet intersection = HybridPointsToSet.intersection(hybridSet1, hybridSet2, pag);
     // checkSetsEqual(intersection, set1, set2, pag);
     return intersection;
@@ -305,13 +305,23 @@ public class SootUtil {
 
   }
 
-  private static HybridPointsToSet convertToHybrid(final PointsToSetInternal set) {
+  private static HybridPointsToSet convertToHybrid(final PointsToSetInternal set, PAG pag) {
     HybridPointsToSet ret = null;
     if (set instanceof HybridPointsToSet) {
       ret = (HybridPointsToSet) set;
     } else if (set instanceof DoublePointsToSet) {
       assert ((DoublePointsToSet) set).getNewSet().isEmpty();
       ret = (HybridPointsToSet) ((DoublePointsToSet) set).getOldSet();
+    } else {
+      // e.g. a frozen set; copy it
+      final HybridPointsToSet copy = new HybridPointsToSet(null, pag);
+      set.forall(new P2SetVisitor() {
+        @Override
+        public void visit(Node n) {
+          copy.add(n);
+        }
+      });
+      ret = copy;
     }
     return ret;
   }
@@ -0,0 +1,284 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 1997-2014 Raja Vallee-Rai and others
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+
+package soot.jimple.spark.pag;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import soot.util.ArrayNumberer;
+
+/** Stores one kind of edges of the pointer assignment graph. The targets
+ * of each source node are kept in an array of node numbers indexed by the
+ * number of the source node, so no hashing or boxing is needed to find
+ * them. The arrays grow while the graph is built, and are trimmed to
+ * their exact length when they are read; an array returned by targets
+ * is never modified afterwards.
+ *
+ * <p>An edge map is not thread-safe, and since targets trims rows and
+ * replaces merged nodes, not even reads may run concurrently with each
+ * other. Once trim has been called, targets does not change the map
+ * until the next call to add, merge or remove, so threads may then read
+ * it in parallel as long as no nodes are merged meanwhile.
+ * @author Ondrej Lhotak
+ */
+public final class EdgeMap {
+    private static final int[] EMPTY_INT_ARRAY = new int[0];
+    /** Rows longer than this get a hash index to find duplicate edges. */
+    private static final int INDEX_THRESHOLD = 16;
+
+    private final ArrayNumberer<? extends Node> keyNumberer;
+    private final ArrayNumberer<? extends Node> valueNumberer;
+    private int[][] rows = new int[0][];
+    private int[] sizes = new int[0];
+    /** Open-addressing hash sets of the numbers in the long rows; 0 marks
+     * an empty slot, since no node has the number 0. */
+    private int[][] indices = new int[0][];
+    private int keyCount = 0;
+    private final Set<Object> keySet = new KeySet();
+
+    public EdgeMap( ArrayNumberer<? extends Node> keyNumberer,
+            ArrayNumberer<? extends Node> valueNumberer ) {
+        this.keyNumberer = keyNumberer;
+        this.valueNumberer = valueNumberer;
+    }
+
+    /** Adds an edge from key to value; returns false if it was already
+     * there. */
+    public boolean add( Node key, Node value ) {
+        return add( key.getNumber(), value.getNumber() );
+    }
+
+    /** Returns the numbers of the targets of key. If merged is true, targets
+     * that have been merged into another node are replaced by their
+     * representative, and an edge to key itself is dropped. */
+    public int[] targets( Node key, boolean merged ) {
+        int k = key.getNumber();
+        if( !hasRow( k ) ) return EMPTY_INT_ARRAY;
+        int size = sizes[k];
+        int[] row = rows[k];
+        if( row.length != size ) {
+            rows[k] = row = Arrays.copyOf( row, size );
+            indices[k] = null;
+        }
+        if( merged ) {
+            for( int i = 0; i < size; i++ ) {
+                Node n = valueNumberer.get( row[i] );
+                Node rep = n.getReplacement();
+                if( rep != n || rep == key ) return replaceMerged( key, row );
+            }
+        }
+        return row;
+    }
+
+    /** Returns the targets of key; see targets. */
+    public Node[] lookup( Node key, boolean merged ) {
+        int[] targets = targets( key, merged );
+        if( targets.length == 0 ) return PAG.EMPTY_NODE_ARRAY;
+        Node[] ret = new Node[targets.length];
+        for( int i = 0; i < targets.length; i++ ) {
+            ret[i] = valueNumberer.get( targets[i] );
+        }
+        return ret;
+    }
+
+    /** Returns the node with the given number among the targets. */
+    public Node target( int number ) {
+        return valueNumberer.get( number );
+    }
+
+    /** Moves the edges of n2 to n1, after n2 has been merged into n1. */
+    public void merge( Node n1, Node n2 ) {
+        if( !containsKey( n2 ) ) return;
+        int k2 = n2.getNumber();
+        int[] row = rows[k2];
+        int size = sizes[k2];
+        removeRow( k2 );
+        int k1 = n1.getNumber();
+        for( int i = 0; i < size; i++ ) add( k1, row[i] );
+    }
+
+    /** Trims every row to its exact length and replaces the targets that
+     * have been merged into another node by their representative, so that
+     * targets only reads the map until it is next changed. */
+    public void trim() {
+        for( int k = 1; k < sizes.length; k++ ) {
+            if( sizes[k] == 0 ) continue;
+            targets( keyNumberer.get( k ), true );
+        }
+    }
+
+    /** Removes all edges out of key. */
+    public void remove( Node key ) {
+        if( containsKey( key ) ) removeRow( key.getNumber() );
+    }
+
+    /** Removes the edge from key to value; returns false if it was not
+     * there. The row is copied, so that arrays already returned by targets
+     * are not modified. */
+    public boolean remove( Node key, Node value ) {
+        int k = key.getNumber();
+        if( !hasRow( k ) ) return false;
+        int v = value.getNumber();
+        int size = sizes[k];
+        int[] row = rows[k];
+        for( int i = 0; i < size; i++ ) {
+            if( row[i] != v ) continue;
+            if( size == 1 ) {
+                removeRow( k );
+                return true;
+            }
+            int[] copy = new int[size - 1];
+            System.arraycopy( row, 0, copy, 0, i );
+            System.arraycopy( row, i + 1, copy, i, size - i - 1 );
+            rows[k] = copy;
+            sizes[k] = size - 1;
+            indices[k] = null;
+            return true;
+        }
+        return false;
+    }
+
+    /** Removes all edges. */
+    public void clear() {
+        rows = new int[0][];
+        sizes = new int[0];
+        indices = new int[0][];
+        keyCount = 0;
+    }
+
+    /** Returns the nodes that have at least one outgoing edge. */
+    public Set<Object> keySet() { return keySet; }
+
+    public boolean containsKey( Object o ) {
+        if( !(o instanceof Node) ) return false;
+        int k = ((Node) o).getNumber();
+        return hasRow( k ) && keyNumberer.get( k ) == o;
+    }
+
+    private boolean hasRow( int k ) {
+        return k > 0 && k < sizes.length && sizes[k] > 0;
+    }
+
+    private boolean add( int k, int v ) {
+        if( k >= rows.length ) grow( k );
+        int[] row = rows[k];
+        int size = sizes[k];
+        if( size == 0 ) {
+            if( row == null ) rows[k] = row = new int[4];
+            keyCount++;
+        } else {
+            int[] index = indices[k];
+            if( index == null && size > INDEX_THRESHOLD ) {
+                indices[k] = index = makeIndex( row, size );
+            }
+            if( index != null ) {
+                if( !addToIndex( index, v ) ) return false;
+                if( 2 * (size + 1) > index.length ) {
+                    indices[k] = makeIndex( row, size );
+                    addToIndex( indices[k], v );
+                }
+            } else {
+                for( int i = 0; i < size; i++ ) {
+                    if( row[i] == v ) return false;
+                }
+            }
+            if( size == row.length ) rows[k] = row = Arrays.copyOf( row, 2 * size );
+        }
+        row[size] = v;
+        sizes[k] = size + 1;
+        return true;
+    }
+
+    private int[] replaceMerged( Node key, int[] row ) {
+        int k = key.getNumber();
+        removeRow( k );
+        for( int t : row ) {
+            Node rep = valueNumberer.get( t ).getReplacement();
+            if( rep != key ) add( k, rep.getNumber() );
+        }
+        if( !hasRow( k ) ) return EMPTY_INT_ARRAY;
+        indices[k] = null;
+        return rows[k] = Arrays.copyOf( rows[k], sizes[k] );
+    }
+
+    private void removeRow( int k ) {
+        rows[k] = null;
+        indices[k] = null;
+        sizes[k] = 0;
+        keyCount--;
+    }
+
+    private void grow( int k ) {
+        int length = Math.max( k + 1, 2 * rows.length );
+        rows = Arrays.copyOf( rows, length );
+        sizes = Arrays.copyOf( sizes, length );
+        indices = Arrays.copyOf( indices, length );
+    }
+
+    private static int[] makeIndex( int[] row, int size ) {
+        int length = 4 * Integer.highestOneBit( size );
+        int[] index = new int[length];
+        for( int i = 0; i < size; i++ ) addToIndex( index, row[i] );
+        return index;
+    }
+
+    /** Adds v to the hash set index; returns false if it was already
+     * there. */
+    private static boolean addToIndex( int[] index, int v ) {
+        int mask = index.length - 1;
+        int h = v * 0x9E3779B9;
+        for( int i = (h ^ (h >>> 16)) & mask; ; i = (i + 1) & mask ) {
+            int e = index[i];
+            if( e == v ) return false;
+            if( e == 0 ) {
+                index[i] = v;
+                return true;
+            }
+        }
+    }
+
+    /** The nodes with at least one outgoing edge, in order of their
+     * numbers. */
+    private final class KeySet extends AbstractSet<Object> {
+        public int size() { return keyCount; }
+        public boolean contains( Object o ) { return containsKey( o ); }
+        public Iterator<Object> iterator() {
+            return new Iterator<Object>() {
+                private int next = advance( 1 );
+                private int advance( int k ) {
+                    while( k < sizes.length && sizes[k] == 0 ) k++;
+                    return k;
+                }
+                public boolean hasNext() { return next < sizes.length; }
+                public Object next() {
+                    if( !hasNext() ) throw new NoSuchElementException();
+                    Object ret = keyNumberer.get( next );
+                    next = advance( next + 1 );
+                    return ret;
+                }
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+    }
+}
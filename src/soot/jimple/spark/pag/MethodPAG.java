@@ -18,8 +18,11 @@
  */
 
 package soot.jimple.spark.pag;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 
 import soot.ArrayType;
@@ -91,6 +94,16 @@ public final class MethodPAG {
             pag.addEdge( src, dst );
         }
     }
+    /** Returns the source and target nodes of all internal, incoming and
+     * outgoing edges of this method, in pairs. */
+    public Iterator<Node> edgeNodes() {
+        List<Node> ret = new ArrayList<Node>();
+        for( QueueReader<Node> reader : new QueueReader[] {
+                internalReader.clone(), inReader.clone(), outReader.clone() } ) {
+            while( reader.hasNext() ) ret.add( reader.next() );
+        }
+        return ret.iterator();
+    }
     public void addInternalEdge( Node src, Node dst ) {
         if( src == null ) return;
         internalEdges.add( src );
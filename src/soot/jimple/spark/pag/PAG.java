@@ -58,6 +58,7 @@ import soot.jimple.spark.sets.HybridPointsToSet;
 import soot.jimple.spark.sets.P2SetFactory;
 import soot.jimple.spark.sets.P2SetVisitor;
 import soot.jimple.spark.sets.PointsToSetInternal;
+import soot.jimple.spark.sets.RoaringPointsToSet;
 import soot.jimple.spark.sets.SharedHybridSet;
 import soot.jimple.spark.sets.SharedListSet;
 import soot.jimple.spark.sets.SortedArraySet;
@@ -107,6 +108,9 @@ public class PAG implements PointsToAnalysis {
             case SparkOptions.set_impl_bit:
                 setFactory = BitPointsToSet.getFactory();
                 break;
+            case SparkOptions.set_impl_roaring:
+                setFactory = RoaringPointsToSet.getFactory();
+                break;
             case SparkOptions.set_impl_double:
                 P2SetFactory oldF;
                 P2SetFactory newF;
@@ -129,6 +133,9 @@ public class PAG implements PointsToAnalysis {
                     case SparkOptions.double_set_old_bit:
                         oldF = BitPointsToSet.getFactory();
                         break;
+                    case SparkOptions.double_set_old_roaring:
+                        oldF = RoaringPointsToSet.getFactory();
+                        break;
                     default:
                         throw new RuntimeException();
                 }
@@ -151,6 +158,9 @@ public class PAG implements PointsToAnalysis {
                     case SparkOptions.double_set_new_bit:
                         newF = BitPointsToSet.getFactory();
                         break;
+                    case SparkOptions.double_set_new_roaring:
+                        newF = RoaringPointsToSet.getFactory();
+                        break;
                     default:
                         throw new RuntimeException();
                 }
@@ -236,12 +246,8 @@ public class PAG implements PointsToAnalysis {
         if( opts.verbose() ) {
             G.v().out.println( "Cleaning up graph for merged nodes" );
         }
-        Map[] maps = { simple, alloc, store, load,
-            simpleInv, allocInv, storeInv, loadInv };
-        for (Map<Object, Object> m : maps) {
-            for (Object object : m.keySet()) {
-                lookup( m, object );
-            }
+        for (EdgeMap m : edgeMaps()) {
+            m.trim();
         }
         somethingMerged = false;
         if( opts.verbose() ) {
@@ -249,19 +255,19 @@ public class PAG implements PointsToAnalysis {
         }
     }
     public boolean doAddSimpleEdge( VarNode from, VarNode to ) {
-        return addToMap( simple, from, to ) | addToMap( simpleInv, to, from );
+        return simple.add( from, to ) | simpleInv.add( to, from );
     }
 
     public boolean doAddStoreEdge( VarNode from, FieldRefNode to ) {
-        return addToMap( store, from, to ) | addToMap( storeInv, to, from );
+        return store.add( from, to ) | storeInv.add( to, from );
     }
 
     public boolean doAddLoadEdge( FieldRefNode from, VarNode to ) {
-        return addToMap( load, from, to ) | addToMap( loadInv, to, from );
+        return load.add( from, to ) | loadInv.add( to, from );
     }
 
     public boolean doAddAllocEdge( AllocNode from, VarNode to ) {
-        return addToMap( alloc, from, to ) | addToMap( allocInv, to, from );
+        return alloc.add( from, to ) | allocInv.add( to, from );
     }
 
     /** Node uses this to notify PAG that n2 has been merged into n1. */
@@ -271,135 +277,32 @@ public class PAG implements PointsToAnalysis {
         somethingMerged = true;
         if( ofcg() != null ) ofcg().mergedWith( n1, n2 );
 
-        Map[] maps = { simple, alloc, store, load,
-            simpleInv, allocInv, storeInv, loadInv };
-        for (Map<Node, Object> m : maps) {
-            if( !m.keySet().contains( n2 ) ) continue;
-
-            Object[] os = { m.get( n1 ), m.get( n2 ) };
-            int size1 = getSize(os[0]); int size2 = getSize(os[1]);
-            if( size1 == 0 ) {
-                if( os[1] != null ) m.put( n1, os[1] );
-            } else if( size2 == 0 ) {
-                // nothing needed
-            } else if( os[0] instanceof HashSet ) {
-                if( os[1] instanceof HashSet ) {
-                    ((HashSet) os[0]).addAll( (HashSet) os[1] );
-                } else {
-                    Node[] ar = (Node[]) os[1];
-                    for (Node element0 : ar) {
-                        ( (HashSet<Node>) os[0] ).add( element0 );
-                    }
-                }
-            } else if( os[1] instanceof HashSet ) {
-                Node[] ar = (Node[]) os[0];
-                for (Node element0 : ar) {
-                    ((HashSet<Node>) os[1]).add( element0 );
-                }
-                m.put( n1, os[1] );
-            } else if( size1*size2 < 1000 ) {
-                Node[] a1 = (Node[]) os[0];
-                Node[] a2 = (Node[]) os[1];
-                Node[] ret = new Node[size1+size2];
-                System.arraycopy( a1, 0, ret, 0, a1.length ); 
-                int j = a1.length;
-                outer: for (Node rep : a2) {
-                    for( int k = 0; k < j; k++ )
-                        if( rep == ret[k] ) continue outer;
-                    ret[j++] = rep;
-                }
-                Node[] newArray = new Node[j];
-                System.arraycopy( ret, 0, newArray, 0, j );
-                m.put( n1, ret = newArray );
-            } else {
-                HashSet<Node> s = new HashSet<Node>( size1+size2 );
-                for (Object o : os) {
-                    if( o == null ) continue;
-                    if( o instanceof Set ) {
-                        s.addAll( (Set<Node>) o );
-                    } else {
-                        Node[] ar = (Node[]) o;
-                        for (Node element1 : ar) {
-                            s.add( element1 );
-                        }
-                    }
-                }
-                m.put( n1, s );
-            }
-            m.remove( n2 );
+        for (EdgeMap m : edgeMaps()) {
+            m.merge( n1, n2 );
         }
     }
     protected final static Node[] EMPTY_NODE_ARRAY = new Node[0];
-    protected Node[] lookup( Map<Object, Object> m, Object key ) {
-	Object valueList = m.get( key );
-	if( valueList == null ) {
-	    return EMPTY_NODE_ARRAY;
-	}
-	if( valueList instanceof Set ) {
-            try {
-	    m.put( key, valueList = 
-		    ( (Set) valueList ).toArray( EMPTY_NODE_ARRAY ) );
-            } catch( Exception e ) {
-                for( Iterator it = ((Set)valueList).iterator(); it.hasNext(); ) {
-                    G.v().out.println( ""+it.next() );
-                }
-                throw new RuntimeException( ""+valueList+e );
-            }
-	}
-	Node[] ret = (Node[]) valueList;
-        if( somethingMerged ) {
-            for( int i = 0; i < ret.length; i++ ) {
-                Node reti = ret[i];
-                Node rep = reti.getReplacement();
-                if( rep != reti || rep == key ) {
-                    Set<Node> s;
-                    if( ret.length <= 75 ) {
-                        int j = i;
-                        outer: for( ; i < ret.length; i++ ) {
-                            reti = ret[i];
-                            rep = reti.getReplacement();
-                            if( rep == key ) continue;
-                            for( int k = 0; k < j; k++ )
-                                if( rep == ret[k] ) continue outer;
-                            ret[j++] = rep;
-                        }
-                        Node[] newArray = new Node[j];
-                        System.arraycopy( ret, 0, newArray, 0, j );
-                        m.put( key, ret = newArray );
-                    } else {
-                        s = new HashSet<Node>( ret.length * 2 );
-                        for( int j = 0; j < i; j++ ) s.add( ret[j] );
-                        for( int j = i; j < ret.length; j++ ) {
-                            rep = ret[j].getReplacement();
-                            if( rep != key ) {
-                                s.add( rep );
-                            }
-                        }
-                        m.put( key, ret = s.toArray( EMPTY_NODE_ARRAY ) );
-                    }
-                    break;
-                }
-            }
-        }
-	return ret;
+    protected EdgeMap[] edgeMaps() {
+        return new EdgeMap[] { simple, alloc, store, load,
+            simpleInv, allocInv, storeInv, loadInv };
     }
 
     public Node[] simpleLookup( VarNode key ) 
-    { return lookup( simple, key ); }
+    { return simple.lookup( key, somethingMerged ); }
     public Node[] simpleInvLookup( VarNode key ) 
-    { return lookup( simpleInv, key ); }
+    { return simpleInv.lookup( key, somethingMerged ); }
     public Node[] loadLookup( FieldRefNode key ) 
-    { return lookup( load, key ); }
+    { return load.lookup( key, somethingMerged ); }
     public Node[] loadInvLookup( VarNode key ) 
-    { return lookup( loadInv, key ); }
+    { return loadInv.lookup( key, somethingMerged ); }
     public Node[] storeLookup( VarNode key ) 
-    { return lookup( store, key ); }
+    { return store.lookup( key, somethingMerged ); }
     public Node[] storeInvLookup( FieldRefNode key ) 
-    { return lookup( storeInv, key ); }
+    { return storeInv.lookup( key, somethingMerged ); }
     public Node[] allocLookup( AllocNode key ) 
-    { return lookup( alloc, key ); }
+    { return alloc.lookup( key, somethingMerged ); }
     public Node[] allocInvLookup( VarNode key ) 
-    { return lookup( allocInv, key ); }
+    { return allocInv.lookup( key, somethingMerged ); }
     public Set<Object> simpleSources() { return simple.keySet(); }
     public Set<Object> allocSources() { return alloc.keySet(); }
     public Set<Object> storeSources() { return store.keySet(); }
@@ -409,6 +312,25 @@ public class PAG implements PointsToAnalysis {
     public Set<Object> storeInvSources() { return storeInv.keySet(); }
     public Set<Object> loadInvSources() { return loadInv.keySet(); }
 
+    /* The following return the numbers of the targets, to be looked up in
+     * the numberer of the target kind; they avoid creating Node arrays. */
+    public int[] simpleTargets( VarNode key ) 
+    { return simple.targets( key, somethingMerged ); }
+    public int[] simpleInvTargets( VarNode key ) 
+    { return simpleInv.targets( key, somethingMerged ); }
+    public int[] loadTargets( FieldRefNode key ) 
+    { return load.targets( key, somethingMerged ); }
+    public int[] loadInvTargets( VarNode key ) 
+    { return loadInv.targets( key, somethingMerged ); }
+    public int[] storeTargets( VarNode key ) 
+    { return store.targets( key, somethingMerged ); }
+    public int[] storeInvTargets( FieldRefNode key ) 
+    { return storeInv.targets( key, somethingMerged ); }
+    public int[] allocTargets( AllocNode key ) 
+    { return alloc.targets( key, somethingMerged ); }
+    public int[] allocInvTargets( VarNode key ) 
+    { return allocInv.targets( key, somethingMerged ); }
+
     public Iterator<Object> simpleSourcesIterator() { return simple.keySet().iterator(); }
     public Iterator<Object> allocSourcesIterator() { return alloc.keySet().iterator(); }
     public Iterator<Object> storeSourcesIterator() { return store.keySet().iterator(); }
@@ -418,12 +340,6 @@ public class PAG implements PointsToAnalysis {
     public Iterator<Object> storeInvSourcesIterator() { return storeInv.keySet().iterator(); }
     public Iterator<Object> loadInvSourcesIterator() { return loadInv.keySet().iterator(); }
 
-    static private int getSize( Object set ) {
-        if( set instanceof Set ) return ((Set) set).size();
-        else if( set == null ) return 0;
-        else return ((Object[]) set).length;
-    }
-
 
     protected P2SetFactory setFactory;
     protected boolean somethingMerged = false;
@@ -1098,58 +1014,61 @@ public class PAG implements PointsToAnalysis {
      */
     public void cleanPAG()
     {
-    	simple.clear();
-    	load.clear();
-    	store.clear();
-    	alloc.clear();
-    	simpleInv.clear();
-    	loadInv.clear();
-    	storeInv.clear();
-    	allocInv.clear();
+        for (EdgeMap m : edgeMaps()) {
+            m.clear();
+        }
+    }
+    
+    /** Removes the edge from from to to, of whichever kind it is; returns
+     * false if it was not in the graph. Readers of edgeReader() are not
+     * told, and the points-to sets are left as they are. */
+    public boolean removeEdge( Node from, Node to ) {
+        if( from instanceof VarNode ) {
+            if( to instanceof VarNode ) {
+                return simple.remove( from, to ) | simpleInv.remove( to, from );
+            }
+            return store.remove( from, to ) | storeInv.remove( to, from );
+        } else if( from instanceof FieldRefNode ) {
+            return load.remove( from, to ) | loadInv.remove( to, from );
+        }
+        return alloc.remove( from, to ) | allocInv.remove( to, from );
+    }
+
+    /** Removes all the edges into and out of n. Edges into or out of the
+     * FieldRefNodes based on n are not affected. */
+    public void removeEdgesOf( Node n ) {
+        if( n instanceof VarNode ) {
+            removeEdgesOf( n, simple, simpleInv );
+            removeEdgesOf( n, simpleInv, simple );
+            removeEdgesOf( n, store, storeInv );
+            removeEdgesOf( n, loadInv, load );
+            removeEdgesOf( n, allocInv, alloc );
+        } else if( n instanceof FieldRefNode ) {
+            removeEdgesOf( n, load, loadInv );
+            removeEdgesOf( n, storeInv, store );
+        } else {
+            removeEdgesOf( n, alloc, allocInv );
+        }
+    }
+    private static void removeEdgesOf( Node n, EdgeMap m, EdgeMap inv ) {
+        for( Node t : m.lookup( n, false ) ) inv.remove( t, n );
+        m.remove( n );
     }
     
     /* End of package methods. */
 
     protected SparkOptions opts;
 
-    protected Map<Object, Object> simple = new HashMap<Object, Object>();
-    protected Map<Object, Object> load = new HashMap<Object, Object>();
-    protected Map<Object, Object> store = new HashMap<Object, Object>();
-    protected Map<Object, Object> alloc = new HashMap<Object, Object>();
-
-    protected Map<Object, Object> simpleInv = new HashMap<Object, Object>();
-    protected Map<Object, Object> loadInv = new HashMap<Object, Object>();
-    protected Map<Object, Object> storeInv = new HashMap<Object, Object>();
-    protected Map<Object, Object> allocInv = new HashMap<Object, Object>();
-
-    protected boolean addToMap( Map<Object, Object> m, Node key, Node value ) {
-	Object valueList = m.get( key );
-
-	if( valueList == null ) {
-	    m.put( key, valueList = new HashSet(4) );
-	} else if( !(valueList instanceof Set) ) {
-	    Node[] ar = (Node[]) valueList;
-            HashSet<Node> vl = new HashSet<Node>(ar.length+4);
-            m.put( key, vl );
-            for (Node element : ar)
-				vl.add( element );
-            return vl.add( value );
-            /*
-	    Node[] ar = (Node[]) valueList;
-            Node[] newar = new Node[ar.length+1];
-            for( int i = 0; i < ar.length; i++ ) {
-                Node n = ar[i];
-                if( n == value ) return false;
-                newar[i] = n;
-            }
-            newar[ar.length] = value;
-            m.put( key, newar );
-            return true;
-            */
-	}
-	return ((Set<Node>) valueList).add( value );
-    }
-	
+    protected EdgeMap simple = new EdgeMap( varNodeNumberer, varNodeNumberer );
+    protected EdgeMap load = new EdgeMap( fieldRefNodeNumberer, varNodeNumberer );
+    protected EdgeMap store = new EdgeMap( varNodeNumberer, fieldRefNodeNumberer );
+    protected EdgeMap alloc = new EdgeMap( allocNodeNumberer, varNodeNumberer );
+
+    protected EdgeMap simpleInv = new EdgeMap( varNodeNumberer, varNodeNumberer );
+    protected EdgeMap loadInv = new EdgeMap( varNodeNumberer, fieldRefNodeNumberer );
+    protected EdgeMap storeInv = new EdgeMap( fieldRefNodeNumberer, varNodeNumberer );
+    protected EdgeMap allocInv = new EdgeMap( varNodeNumberer, allocNodeNumberer );
+
     private boolean runGeomPTA = false;
     protected Map<Pair, Set<Edge>> assign2edges = new HashMap<Pair, Set<Edge>>();
     private final Map<Object, LocalVarNode> valToLocalVarNode = new HashMap<Object, LocalVarNode>(1000);
@@ -0,0 +1,180 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 1997-2014 Raja Vallee-Rai and others
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+
+package soot.jimple.spark.sets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import soot.PointsToSet;
+import soot.jimple.spark.pag.AllocNode;
+import soot.jimple.spark.pag.Node;
+import soot.util.ArrayNumberer;
+
+/** Immutable points-to set holding the sorted numbers of its allocation
+ * nodes. Frozen sets are made by an {@link Interner}, which returns the
+ * same object for sets with equal contents, so that nodes with equal
+ * points-to sets share one array and equal sets compare by identity.
+ * Intersection tests between two frozen sets are remembered.
+ */
+public final class FrozenPointsToSet extends PointsToSetInternal {
+    private FrozenPointsToSet( int[] elements, int id, Shared shared ) {
+        super( null );
+        this.elements = elements;
+        this.id = id;
+        this.shared = shared;
+    }
+    /** Returns true if this set contains no run-time objects. */
+    public final boolean isEmpty() {
+        return elements.length == 0;
+    }
+    public final int size() {
+        return elements.length;
+    }
+    public final boolean addAll( PointsToSetInternal other,
+            PointsToSetInternal exclude ) {
+        throw new RuntimeException( "can't add into frozen points-to set" );
+    }
+    /** Calls v's visit method on all nodes in this set. */
+    public final boolean forall( P2SetVisitor v ) {
+        for( int element : elements ) {
+            v.visit( shared.allocNodes.get( element ) );
+        }
+        return v.getReturnValue();
+    }
+    public final boolean add( Node n ) {
+        throw new RuntimeException( "can't add into frozen points-to set" );
+    }
+    /** Returns true iff the set contains n. */
+    public final boolean contains( Node n ) {
+        return Arrays.binarySearch( elements, n.getNumber() ) >= 0;
+    }
+    /** Returns true if this set shares some objects with other. */
+    public final boolean hasNonEmptyIntersection( PointsToSet other ) {
+        if( !(other instanceof FrozenPointsToSet) ) {
+            final PointsToSetInternal o = (PointsToSetInternal) other;
+            for( int element : elements ) {
+                if( o.contains( shared.allocNodes.get( element ) ) ) return true;
+            }
+            return false;
+        }
+        FrozenPointsToSet o = (FrozenPointsToSet) other;
+        if( elements.length == 0 || o.elements.length == 0 ) return false;
+        if( o == this ) return true;
+        if( elements.length < CACHE_THRESHOLD || o.elements.length < CACHE_THRESHOLD
+                || o.shared != shared ) {
+            return intersects( elements, o.elements );
+        }
+        Long key = id < o.id ? ((long) id << 32) | o.id : ((long) o.id << 32) | id;
+        Boolean ret = shared.intersections.get( key );
+        if( ret == null ) {
+            ret = intersects( elements, o.elements );
+            if( shared.intersections.size() < MAX_CACHED ) {
+                shared.intersections.put( key, ret );
+            }
+        }
+        return ret;
+    }
+    /** Makes frozen copies of points-to sets, sharing one copy among all
+     * sets with equal contents. */
+    public static final class Interner {
+        public Interner( ArrayNumberer<AllocNode> allocNodes ) {
+            shared = new Shared( allocNodes );
+        }
+        /** Returns the frozen set with the same contents as set. */
+        public FrozenPointsToSet intern( PointsToSetInternal set ) {
+            if( set instanceof FrozenPointsToSet
+                    && ((FrozenPointsToSet) set).shared == shared ) {
+                return (FrozenPointsToSet) set;
+            }
+            final int[] elements = new int[ set.size() ];
+            set.forall( new P2SetVisitor() {
+                int i = 0;
+                public final void visit( Node n ) {
+                    elements[i++] = n.getNumber();
+                }
+            } );
+            Arrays.sort( elements );
+            Key key = new Key( elements );
+            FrozenPointsToSet ret = pool.get( key );
+            if( ret == null ) {
+                ret = new FrozenPointsToSet( elements, pool.size(), shared );
+                pool.put( key, ret );
+            }
+            return ret;
+        }
+        /** Returns the number of distinct sets made so far. */
+        public int size() {
+            return pool.size();
+        }
+
+        private final Shared shared;
+        private final Map<Key, FrozenPointsToSet> pool = new HashMap<Key, FrozenPointsToSet>();
+    }
+
+    /* End of public methods. */
+    /* End of package methods. */
+
+    private static boolean intersects( int[] a, int[] b ) {
+        int i = 0;
+        int j = 0;
+        while( i < a.length && j < b.length ) {
+            if( a[i] < b[j] ) i++;
+            else if( a[i] > b[j] ) j++;
+            else return true;
+        }
+        return false;
+    }
+
+    /** State shared by all sets made by one interner. */
+    private static final class Shared {
+        Shared( ArrayNumberer<AllocNode> allocNodes ) {
+            this.allocNodes = allocNodes;
+        }
+        final ArrayNumberer<AllocNode> allocNodes;
+        final ConcurrentMap<Long, Boolean> intersections = new ConcurrentHashMap<Long, Boolean>();
+    }
+
+    private static final class Key {
+        Key( int[] elements ) {
+            this.elements = elements;
+            this.hash = Arrays.hashCode( elements );
+        }
+        public int hashCode() {
+            return hash;
+        }
+        public boolean equals( Object o ) {
+            return o instanceof Key && ((Key) o).hash == hash
+                && Arrays.equals( ((Key) o).elements, elements );
+        }
+        final int[] elements;
+        final int hash;
+    }
+
+    /** Sets smaller than this are intersected directly, since merging them
+     * is cheaper than looking up the cache. */
+    private static final int CACHE_THRESHOLD = 16;
+    private static final int MAX_CACHED = 1 << 20;
+
+    private final int[] elements;
+    private final int id;
+    private final Shared shared;
+}
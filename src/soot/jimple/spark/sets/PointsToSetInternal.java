@@ -41,7 +41,8 @@ public abstract class PointsToSetInternal implements PointsToSet, EqualsSupporti
         } else if( exclude instanceof EmptyPointsToSet ) { 
             return addAll( other, null );
         }
-        if( !G.v().PointsToSetInternal_warnedAlready ) {
+        if( !G.v().PointsToSetInternal_warnedAlready
+                && !( other instanceof FrozenPointsToSet ) ) {
             G.v().out.println( "Warning: using default implementation of addAll. You should implement a faster specialized implementation." );
             G.v().out.println( "this is of type "+getClass().getName() );
             G.v().out.println( "other is of type "+other.getClass().getName() );
@@ -0,0 +1,94 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 1997-2014 Raja Vallee-Rai and others
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+
+package soot.jimple.spark.sets;
+import soot.Type;
+import soot.jimple.spark.internal.TypeManager;
+import soot.jimple.spark.pag.Node;
+import soot.jimple.spark.pag.PAG;
+import soot.util.BitVector;
+import soot.util.RoaringBitVector;
+
+/** Implementation of points-to set using a compressed bitmap, which
+ * stores sparse sets as sorted arrays and clustered sets as runs of
+ * allocation node numbers.
+ */
+public final class RoaringPointsToSet extends PointsToSetInternal {
+    public RoaringPointsToSet( Type type, PAG pag ) {
+        super( type );
+        this.pag = pag;
+    }
+    /** Returns true if this set contains no run-time objects. */
+    public final boolean isEmpty() {
+        return bits.isEmpty();
+    }
+
+    private final boolean nativeAddAll( RoaringPointsToSet other, RoaringPointsToSet exclude ) {
+        BitVector mask = null;
+        TypeManager typeManager = pag.getTypeManager();
+        if( !typeManager.castNeverFails( other.getType(), this.getType() ) ) {
+            mask = typeManager.get( this.getType() );
+        }
+        RoaringBitVector ebits = ( exclude==null ? null : exclude.bits );
+        return bits.orAndAndNot( other.bits, mask, ebits );
+    }
+
+    /** Adds contents of other into this set, returns true if this set 
+     * changed. */
+    public final boolean addAll( PointsToSetInternal other,
+            PointsToSetInternal exclude ) {
+        if( other != null && !(other instanceof RoaringPointsToSet) )
+            return super.addAll( other, exclude );
+        if( exclude != null && !(exclude instanceof RoaringPointsToSet) )
+            return super.addAll( other, exclude );
+        if( other == null ) return false;
+        return nativeAddAll( (RoaringPointsToSet) other, (RoaringPointsToSet) exclude );
+    }
+    /** Calls v's visit method on all nodes in this set. */
+    public final boolean forall( P2SetVisitor v ) {
+        for( RoaringBitVector.SetBitIterator it = bits.iterator(); it.hasNext(); ) {
+            v.visit( (Node) pag.getAllocNodeNumberer().get( it.next() ) );
+        }
+        return v.getReturnValue();
+    }
+    /** Adds n to this set, returns true if n was not already in this set. */
+    public final boolean add( Node n ) {
+        if( pag.getTypeManager().castNeverFails( n.getType(), type ) ) {
+            return bits.set( n.getNumber() );
+        }
+        return false;
+    }
+    /** Returns true iff the set contains n. */
+    public final boolean contains( Node n ) {
+        return bits.get( n.getNumber() );
+    }
+    public static P2SetFactory getFactory() {
+        return new P2SetFactory() {
+            public PointsToSetInternal newSet( Type type, PAG pag ) {
+                return new RoaringPointsToSet( type, pag );
+            }
+        };
+    }
+
+    /* End of public methods. */
+    /* End of package methods. */
+
+    private final RoaringBitVector bits = new RoaringBitVector();
+    private final PAG pag;
+}
@@ -78,12 +78,17 @@ public class OnFlyCallGraph {
     public OnFlyCallGraphBuilder ofcgb() { return ofcgb; }
 
     public void updatedNode( VarNode vn ) {
+        updatedNode( vn, vn.getP2Set().getNewSet() );
+    }
+
+    /** Like updatedNode(VarNode), for a propagator that has already
+     * flushed the new points-to set p2set of vn. */
+    public void updatedNode( VarNode vn, PointsToSetInternal p2set ) {
         Object r = vn.getVariable();
         if( !(r instanceof Local) ) return;
         final Local receiver = (Local) r;
         final Context context = vn.context();
 
-        PointsToSetInternal p2set = vn.getP2Set().getNewSet();
         if( ofcgb.wantTypes( receiver ) ) {
             p2set.forall( new P2SetVisitor() {
             public final void visit( Node n ) { 
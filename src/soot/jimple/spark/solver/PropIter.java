@@ -21,6 +21,7 @@ package soot.jimple.spark.solver;
 import soot.jimple.spark.pag.*;
 import soot.jimple.spark.sets.*;
 import soot.*;
+import soot.util.ArrayNumberer;
 import soot.util.queue.*;
 import java.util.*;
 
@@ -29,7 +30,11 @@ import java.util.*;
  */
 
 public final class PropIter extends Propagator {
-    public PropIter( PAG pag ) { this.pag = pag; }
+    public PropIter( PAG pag ) {
+        this.pag = pag;
+        this.varNodes = pag.getVarNodeNumberer();
+        this.fieldRefNodes = pag.getFieldRefNodeNumberer();
+    }
     /** Actually does the propagation. */
     public final void propagate() {
         final OnFlyCallGraph ofcg = pag.getOnFlyCallGraph();
@@ -86,9 +91,8 @@ public final class PropIter extends Propagator {
      * successors. */
     protected final boolean handleAllocNode( AllocNode src ) {
 	boolean ret = false;
-	Node[] targets = pag.allocLookup( src );
-	for (Node element : targets) {
-	    ret = element.makeP2Set().add( src ) | ret;
+	for (int t : pag.allocTargets( src )) {
+	    ret = varNodes.get( t ).makeP2Set().add( src ) | ret;
 	}
 	return ret;
     }
@@ -97,9 +101,8 @@ public final class PropIter extends Propagator {
 	boolean ret = false;
 	PointsToSetInternal srcSet = src.getP2Set();
 	if( srcSet.isEmpty() ) return false;
-	Node[] simpleTargets = pag.simpleLookup( src );
-	for (Node element : simpleTargets) {
-	    ret = element.makeP2Set().addAll( srcSet, null ) | ret;
+	for (int t : pag.simpleTargets( src )) {
+	    ret = varNodes.get( t ).makeP2Set().addAll( srcSet, null ) | ret;
 	}
         return ret;
     }
@@ -108,9 +111,8 @@ public final class PropIter extends Propagator {
 	boolean ret = false;
 	final PointsToSetInternal srcSet = src.getP2Set();
 	if( srcSet.isEmpty() ) return false;
-	Node[] storeTargets = pag.storeLookup( src );
-	for (Node element : storeTargets) {
-            final FieldRefNode fr = (FieldRefNode) element;
+	for (int t : pag.storeTargets( src )) {
+            final FieldRefNode fr = fieldRefNodes.get( t );
             final SparkField f = fr.getField();
             ret = fr.getBase().getP2Set().forall( new P2SetVisitor() {
             public final void visit( Node n ) {
@@ -127,7 +129,7 @@ public final class PropIter extends Propagator {
 
     protected final boolean handleLoads( FieldRefNode src ) {
 	boolean ret = false;
-	final Node[] loadTargets = pag.loadLookup( src );
+	final int[] loadTargets = pag.loadTargets( src );
         final SparkField f = src.getField();
         ret = src.getBase().getP2Set().forall( new P2SetVisitor() {
         public final void visit( Node n ) {
@@ -135,8 +137,8 @@ public final class PropIter extends Propagator {
                 if( nDotF == null ) return;
                 PointsToSetInternal set = nDotF.getP2Set();
                 if( set.isEmpty() ) return;
-                for (Node element : loadTargets) {
-                    VarNode target = (VarNode) element;
+                for (int t : loadTargets) {
+                    VarNode target = varNodes.get( t );
                     if( target.makeP2Set().addAll( set, null ) ) {
                         returnValue = true;
                     }
@@ -147,6 +149,8 @@ public final class PropIter extends Propagator {
     }
 
     protected PAG pag;
+    protected final ArrayNumberer<VarNode> varNodes;
+    protected final ArrayNumberer<FieldRefNode> fieldRefNodes;
 }
 
 
@@ -0,0 +1,351 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 1997-2014 Raja Vallee-Rai and others
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+
+package soot.jimple.spark.solver;
+import soot.jimple.spark.pag.*;
+import soot.jimple.spark.sets.*;
+import soot.*;
+import soot.util.ArrayNumberer;
+import soot.util.queue.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/** Propagates points-to sets along pointer assignment graph using a
+ * worklist, like PropWorklist, but propagates along simple edges on
+ * several threads.
+ *
+ * <p>The worklist is processed in rounds. At the start of a round, the
+ * new points-to set of every node on the worklist is taken out of the
+ * node by flushing it, so it no longer changes, and the on-the-fly call
+ * graph is updated with it. Then the flushed sets are added to the
+ * targets of the simple edges; the targets are partitioned by their
+ * number between the threads, so each points-to set is only written by
+ * one thread. Loads and stores, which create new nodes, are handled
+ * afterwards on the calling thread. Since every set grows monotonically
+ * the fixed point is the same as with PropWorklist.</p>
+ */
+
+public final class PropParallel extends Propagator {
+    protected final Set<VarNode> varNodeWorkList = new TreeSet<VarNode>();
+    private final int threads;
+
+    public PropParallel( PAG pag, int threads ) {
+        this.pag = pag;
+        this.threads = threads;
+        this.varNodes = pag.getVarNodeNumberer();
+        this.fieldRefNodes = pag.getFieldRefNodeNumberer();
+    }
+    /** Actually does the propagation. */
+    public final void propagate() {
+        ofcg = pag.getOnFlyCallGraph();
+        new TopoSorter( pag, false ).sort();
+	for (Object object : pag.allocSources()) {
+	    handleAllocNode( (AllocNode) object );
+	}
+
+        boolean verbose = pag.getOpts().verbose();
+        ExecutorService executor = Executors.newFixedThreadPool( threads );
+        try {
+	do {
+            if( verbose ) {
+                G.v().out.println( "Worklist has "+varNodeWorkList.size()+
+                        " nodes." );
+            }
+            while( !varNodeWorkList.isEmpty() ) {
+                handleRound( executor );
+            }
+            if( verbose ) {
+                G.v().out.println( "Now handling field references" );
+            }
+            for (Object object : pag.storeSources()) {
+                final VarNode src = (VarNode) object;
+                for (int t : pag.storeTargets( src )) {
+                    final FieldRefNode target = fieldRefNodes.get( t );
+                    target.getBase().makeP2Set().forall( new P2SetVisitor() {
+                    public final void visit( Node n ) {
+                            AllocDotField nDotF = pag.makeAllocDotField(
+                                (AllocNode) n, target.getField() );
+                            nDotF.makeP2Set().addAll( src.getP2Set(), null );
+                        }
+                    } );
+                }
+            }
+            HashSet<Object[]> edgesToPropagate = new HashSet<Object[]>();
+	    for (Object object : pag.loadSources()) {
+                handleFieldRefNode( (FieldRefNode) object, edgesToPropagate );
+	    }
+	        Set<PointsToSetInternal> nodesToFlush = Collections.newSetFromMap(new IdentityHashMap<PointsToSetInternal,Boolean>());
+            for (Object[] pair : edgesToPropagate) {
+                PointsToSetInternal nDotF = (PointsToSetInternal) pair[0];
+		PointsToSetInternal newP2Set = nDotF.getNewSet();
+                VarNode loadTarget = (VarNode) pair[1];
+                if( loadTarget.makeP2Set().addAll( newP2Set, null ) ) {
+                    varNodeWorkList.add( loadTarget );
+                }
+                nodesToFlush.add( nDotF );
+            }
+            for (PointsToSetInternal nDotF : nodesToFlush) {
+                nDotF.flushNew();
+            }
+	} while( !varNodeWorkList.isEmpty() );
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /* End of public methods. */
+    /* End of package methods. */
+
+    /** Propagates new points-to information of node src to all its
+     * successors. */
+    protected final boolean handleAllocNode( AllocNode src ) {
+	boolean ret = false;
+	for (int t : pag.allocTargets( src )) {
+	    VarNode element = varNodes.get( t );
+	    if( element.makeP2Set().add( src ) ) {
+                varNodeWorkList.add( element );
+                ret = true;
+            }
+	}
+	return ret;
+    }
+
+    /** Propagates the new points-to sets of all nodes currently on the
+     * worklist to their successors. */
+    private void handleRound( ExecutorService executor ) {
+        List<VarNode> srcs = new ArrayList<VarNode>( varNodeWorkList );
+        varNodeWorkList.clear();
+
+        List<VarNode> flushedSrcs = new ArrayList<VarNode>( srcs.size() );
+        List<PointsToSetInternal> flushedSets = new ArrayList<PointsToSetInternal>( srcs.size() );
+        for( VarNode src : srcs ) {
+            PointsToSetInternal newP2Set = flush( src );
+            if( newP2Set == null ) continue;
+            flushedSrcs.add( src );
+            flushedSets.add( newP2Set );
+            if( ofcg != null ) updateCallGraph( src, newP2Set );
+        }
+
+        propagateSimpleEdges( executor, flushedSrcs, flushedSets );
+
+        for( int i = 0; i < flushedSrcs.size(); i++ ) {
+            handleFieldRefs( flushedSrcs.get( i ), flushedSets.get( i ) );
+        }
+    }
+
+    /** Flushes the points-to set of src and returns the set of nodes that
+     * were new, or null if there were none. */
+    private PointsToSetInternal flush( VarNode src ) {
+        if( src.getReplacement() != src ) throw new RuntimeException(
+                "Got bad node "+src+" with rep "+src.getReplacement() );
+        PointsToSetInternal p2set = src.getP2Set();
+        PointsToSetInternal newP2Set = p2set.getNewSet();
+        if( newP2Set.isEmpty() ) return null;
+        if( newP2Set == p2set ) {
+            // Set implementations without a separate new set keep growing,
+            // so the threads work on a copy.
+            newP2Set = pag.getSetFactory().newSet( src.getType(), pag );
+            newP2Set.addAll( p2set, null );
+        } else {
+            p2set.flushNew();
+        }
+        return newP2Set;
+    }
+
+    /** Tells the on-the-fly call graph about the new points-to set of src,
+     * and propagates along the edges added to the PAG as a result. */
+    private void updateCallGraph( VarNode src, PointsToSetInternal newP2Set ) {
+        QueueReader<Node> addedEdges = pag.edgeReader();
+        ofcg.updatedNode( src, newP2Set );
+        ofcg.build();
+
+        while(addedEdges.hasNext()) {
+            Node addedSrc = addedEdges.next();
+            Node addedTgt = addedEdges.next();
+            if( addedSrc instanceof VarNode ) {
+                if( addedTgt instanceof VarNode ) {
+                    VarNode edgeSrc = (VarNode) addedSrc.getReplacement();
+                    VarNode edgeTgt = (VarNode) addedTgt.getReplacement();
+
+                    if( edgeTgt.makeP2Set().addAll( edgeSrc.getP2Set(), null ) ) {
+                        varNodeWorkList.add( edgeTgt );
+                    }
+                }
+            } else if( addedSrc instanceof AllocNode ) {
+                AllocNode edgeSrc = (AllocNode) addedSrc;
+                VarNode edgeTgt = (VarNode) addedTgt.getReplacement();
+                if( edgeTgt.makeP2Set().add( edgeSrc ) ) {
+                    varNodeWorkList.add( edgeTgt );
+                }
+            }
+        }
+    }
+
+    /** Adds each flushed set to the points-to sets of the simple-edge
+     * targets of its node, with the targets divided between the
+     * threads. */
+    private void propagateSimpleEdges( ExecutorService executor,
+            List<VarNode> srcs, List<PointsToSetInternal> sets ) {
+        final List<List<PointsToSetInternal>> partSets = new ArrayList<List<PointsToSetInternal>>( threads );
+        final List<List<VarNode>> partTargets = new ArrayList<List<VarNode>>( threads );
+        for( int i = 0; i < threads; i++ ) {
+            partSets.add( new ArrayList<PointsToSetInternal>() );
+            partTargets.add( new ArrayList<VarNode>() );
+        }
+        for( int i = 0; i < srcs.size(); i++ ) {
+            for (int t : pag.simpleTargets( srcs.get( i ) )) {
+                VarNode element = varNodes.get( t );
+                // create the set here, the threads only add to it
+                element.makeP2Set();
+                int part = t % threads;
+                partSets.get( part ).add( sets.get( i ) );
+                partTargets.get( part ).add( element );
+            }
+        }
+
+        List<Future<List<VarNode>>> futures = new ArrayList<Future<List<VarNode>>>( threads );
+        for( int i = 0; i < threads; i++ ) {
+            final List<PointsToSetInternal> setsOfPart = partSets.get( i );
+            final List<VarNode> targetsOfPart = partTargets.get( i );
+            if( targetsOfPart.isEmpty() ) continue;
+            futures.add( executor.submit( new Callable<List<VarNode>>() {
+                public List<VarNode> call() {
+                    List<VarNode> changed = new ArrayList<VarNode>();
+                    for( int j = 0; j < targetsOfPart.size(); j++ ) {
+                        VarNode target = targetsOfPart.get( j );
+                        if( target.getP2Set().addAll( setsOfPart.get( j ), null ) ) {
+                            changed.add( target );
+                        }
+                    }
+                    return changed;
+                }
+            } ) );
+        }
+        for( Future<List<VarNode>> future : futures ) {
+            try {
+                varNodeWorkList.addAll( future.get() );
+            } catch( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException( e );
+            } catch( ExecutionException e ) {
+                Throwable cause = e.getCause();
+                if( cause instanceof RuntimeException ) throw (RuntimeException) cause;
+                if( cause instanceof Error ) throw (Error) cause;
+                throw new RuntimeException( cause );
+            }
+        }
+    }
+
+    /** Propagates the flushed set newP2Set of src along loads and stores,
+     * as PropWorklist does for the new points-to set of a node. */
+    private void handleFieldRefs( final VarNode src, final PointsToSetInternal newP2Set ) {
+        for (int t : pag.storeTargets( src )) {
+            final FieldRefNode fr = fieldRefNodes.get( t );
+            final SparkField f = fr.getField();
+            fr.getBase().getP2Set().forall( new P2SetVisitor() {
+            public final void visit( Node n ) {
+                    AllocDotField nDotF = pag.makeAllocDotField(
+                        (AllocNode) n, f );
+                    nDotF.makeP2Set().addAll( newP2Set, null );
+		}
+	    } );
+        }
+
+        final HashSet<Node[]> storesToPropagate = new HashSet<Node[]>();
+        final HashSet<Node[]> loadsToPropagate = new HashSet<Node[]>();
+	for( final FieldRefNode fr : src.getAllFieldRefs()) {
+	    final SparkField field = fr.getField();
+	    final int[] storeSources = pag.storeInvTargets( fr );
+            if( storeSources.length > 0 ) {
+                newP2Set.forall( new P2SetVisitor() {
+                public final void visit( Node n ) {
+                        AllocDotField nDotF = pag.makeAllocDotField(
+                            (AllocNode) n, field );
+                        for (int t : storeSources) {
+                            Node[] pair = { varNodes.get( t ),
+                                nDotF.getReplacement() };
+                            storesToPropagate.add( pair );
+                        }
+                    }
+                } );
+            }
+
+	    final int[] loadTargets = pag.loadTargets( fr );
+            if( loadTargets.length > 0 ) {
+                newP2Set.forall( new P2SetVisitor() {
+                public final void visit( Node n ) {
+                        AllocDotField nDotF = pag.makeAllocDotField(
+                            (AllocNode) n, field );
+                        if( nDotF != null ) {
+                            for (int t : loadTargets) {
+                                Node[] pair = { nDotF.getReplacement(),
+                                    varNodes.get( t ) };
+                                loadsToPropagate.add( pair );
+                            }
+                        }
+                    }
+                } );
+            }
+	}
+        for (Node[] p : storesToPropagate) {
+            VarNode storeSource = (VarNode) p[0];
+            AllocDotField nDotF = (AllocDotField) p[1];
+            nDotF.makeP2Set().addAll( storeSource.getP2Set(), null );
+        }
+        for (Node[] p : loadsToPropagate) {
+            AllocDotField nDotF = (AllocDotField) p[0];
+            VarNode loadTarget = (VarNode) p[1];
+            if( loadTarget.makeP2Set().
+                addAll( nDotF.getP2Set(), null ) ) {
+                varNodeWorkList.add( loadTarget );
+            }
+        }
+    }
+
+    /** Propagates new points-to information of node src to all its
+     * successors. */
+    protected final void handleFieldRefNode( FieldRefNode src,
+            final HashSet<Object[]> edgesToPropagate ) {
+	final int[] loadTargets = pag.loadTargets( src );
+	if( loadTargets.length == 0 ) return;
+        final SparkField field = src.getField();
+
+	src.getBase().getP2Set().forall( new P2SetVisitor() {
+
+	public final void visit( Node n ) {
+                AllocDotField nDotF = pag.makeAllocDotField(
+                    (AllocNode) n, field );
+                if( nDotF != null ) {
+                    PointsToSetInternal p2Set = nDotF.getP2Set();
+                    if( !p2Set.getNewSet().isEmpty() ) {
+                        for (int t : loadTargets) {
+                            Object[] pair = { p2Set, varNodes.get( t ) };
+                            edgesToPropagate.add( pair );
+                        }
+                    }
+                }
+	    }
+	} );
+    }
+
+    protected PAG pag;
+    protected final ArrayNumberer<VarNode> varNodes;
+    protected final ArrayNumberer<FieldRefNode> fieldRefNodes;
+    protected OnFlyCallGraph ofcg;
+}
@@ -21,6 +21,7 @@ package soot.jimple.spark.solver;
 import soot.jimple.spark.pag.*;
 import soot.jimple.spark.sets.*;
 import soot.*;
+import soot.util.ArrayNumberer;
 import soot.util.queue.*;
 import java.util.*;
 
@@ -31,7 +32,11 @@ import java.util.*;
 public final class PropWorklist extends Propagator {
     protected final Set<VarNode> varNodeWorkList = new TreeSet<VarNode>();
 
-    public PropWorklist( PAG pag ) { this.pag = pag; }
+    public PropWorklist( PAG pag ) {
+        this.pag = pag;
+        this.varNodes = pag.getVarNodeNumberer();
+        this.fieldRefNodes = pag.getFieldRefNodeNumberer();
+    }
     /** Actually does the propagation. */
     public final void propagate() {
         ofcg = pag.getOnFlyCallGraph();
@@ -56,9 +61,8 @@ public final class PropWorklist extends Propagator {
             }
             for (Object object : pag.storeSources()) {
                 final VarNode src = (VarNode) object;
-                Node[] targets = pag.storeLookup( src );
-                for (Node element0 : targets) {
-                    final FieldRefNode target = (FieldRefNode) element0;
+                for (int t : pag.storeTargets( src )) {
+                    final FieldRefNode target = fieldRefNodes.get( t );
                     target.getBase().makeP2Set().forall( new P2SetVisitor() {
                     public final void visit( Node n ) {
                             AllocDotField nDotF = pag.makeAllocDotField( 
@@ -88,17 +92,188 @@ public final class PropWorklist extends Propagator {
 	} while( !varNodeWorkList.isEmpty() );
     }
 
+    /** Brings the points-to sets up to date after the graph has changed,
+     * working only from the nodes affected by the change. The sets of all
+     * nodes other than those in discarded must hold no more than the
+     * solution of the new graph, and be closed under the graph as it was
+     * before the edges still to be read from addedEdges were added. The
+     * VarNodes and AllocDotFields in discarded, whose sets have been
+     * discarded, are first filled again from their predecessors. Unlike
+     * propagate(), this does not sweep all loads and stores on each round;
+     * the AllocDotFields that change are pushed to the loads of their
+     * field instead. */
+    public final void propagate( QueueReader<Node> addedEdges,
+            Collection<? extends Node> discarded ) {
+        ofcg = pag.getOnFlyCallGraph();
+        fieldWorkList = new HashSet<AllocDotField>();
+        fieldRefsByField = new HashMap<SparkField, Set<FieldRefNode>>();
+        for (Object object : pag.loadSources()) {
+            indexFieldRef( (FieldRefNode) object );
+        }
+        for (Object object : pag.storeInvSources()) {
+            indexFieldRef( (FieldRefNode) object );
+        }
+        handleAddedEdges( addedEdges, true );
+        for( Node n : discarded ) {
+            if( n instanceof VarNode ) fillVarNode( (VarNode) n );
+            else if( n instanceof AllocDotField ) fillAllocDotField( (AllocDotField) n );
+        }
+
+        boolean verbose = pag.getOpts().verbose();
+        do {
+            if( verbose ) {
+                G.v().out.println( "Worklist has "+varNodeWorkList.size()+
+                        " nodes and "+fieldWorkList.size()+" fields." );
+            }
+            while( !varNodeWorkList.isEmpty() ) {
+                VarNode src = varNodeWorkList.iterator().next();
+                varNodeWorkList.remove( src );
+                handleVarNode( src );
+                handleAddedEdges( addedEdges, false );
+            }
+            List<AllocDotField> fields = new ArrayList<AllocDotField>( fieldWorkList );
+            fieldWorkList.clear();
+            for( AllocDotField nDotF : fields ) {
+                PointsToSetInternal newP2Set = nDotF.getP2Set().getNewSet();
+                if( !newP2Set.isEmpty() ) {
+                    for( FieldRefNode fr : loadsOf( nDotF ) ) {
+                        for (int t : pag.loadTargets( fr )) {
+                            VarNode loadTarget = varNodes.get( t );
+                            if( loadTarget.makeP2Set().addAll( newP2Set, null ) ) {
+                                varNodeWorkList.add( loadTarget );
+                            }
+                        }
+                    }
+                }
+                nDotF.getP2Set().flushNew();
+            }
+        } while( !varNodeWorkList.isEmpty() || !fieldWorkList.isEmpty() );
+        fieldWorkList = null;
+        fieldRefsByField = null;
+    }
+
     /* End of public methods. */
     /* End of package methods. */
 
+    /** Adds the objects of the predecessors of the emptied node vn back
+     * to its set. */
+    protected final void fillVarNode( VarNode vn ) {
+        PointsToSetInternal p2set = vn.makeP2Set();
+        boolean changed = false;
+        for (int s : pag.simpleInvTargets( vn )) {
+            changed = p2set.addAll( varNodes.get( s ).getP2Set(), null ) | changed;
+        }
+        ArrayNumberer<AllocNode> allocNodes = pag.getAllocNodeNumberer();
+        for (int a : pag.allocInvTargets( vn )) {
+            changed = p2set.add( allocNodes.get( a ) ) | changed;
+        }
+        for (int l : pag.loadInvTargets( vn )) {
+            changed = loadInto( fieldRefNodes.get( l ), vn ) | changed;
+        }
+        if( changed ) varNodeWorkList.add( vn );
+    }
+
+    /** Adds the objects stored into the emptied node nDotF back to its
+     * set. */
+    protected final void fillAllocDotField( AllocDotField nDotF ) {
+        Set<FieldRefNode> frs = fieldRefsByField.get( nDotF.getField() );
+        if( frs == null ) return;
+        for( FieldRefNode fr : frs ) {
+            if( !fr.getBase().getP2Set().contains( nDotF.getBase() ) ) continue;
+            for (int s : pag.storeInvTargets( fr )) {
+                if( nDotF.makeP2Set().addAll( varNodes.get( s ).getP2Set(), null ) ) {
+                    fieldWorkList.add( nDotF );
+                }
+            }
+        }
+    }
+
+    /** Adds the whole contents of the AllocDotFields loaded by fr to
+     * target. */
+    protected final boolean loadInto( FieldRefNode fr, final VarNode target ) {
+        final SparkField field = fr.getField();
+        return fr.getBase().getP2Set().forall( new P2SetVisitor() {
+        public final void visit( Node n ) {
+                AllocDotField nDotF = pag.findAllocDotField( (AllocNode) n, field );
+                if( nDotF != null
+                && target.makeP2Set().addAll( nDotF.getP2Set(), null ) ) {
+                    returnValue = true;
+                }
+            }
+        } );
+    }
+
+    /** Propagates along the edges read from addedEdges: all of them if all
+     * is true, and otherwise only loads and stores, since handleVarNode
+     * already propagates along the simple and allocation edges added by
+     * the call graph. */
+    protected final void handleAddedEdges( QueueReader<Node> addedEdges, boolean all ) {
+        while( addedEdges.hasNext() ) {
+            Node addedSrc = addedEdges.next();
+            Node addedTgt = addedEdges.next();
+            if( addedSrc instanceof FieldRefNode ) {
+                FieldRefNode fr = (FieldRefNode) addedSrc;
+                VarNode loadTarget = (VarNode) addedTgt;
+                indexFieldRef( fr );
+                if( loadInto( fr, loadTarget ) ) varNodeWorkList.add( loadTarget );
+            } else if( addedTgt instanceof FieldRefNode ) {
+                final FieldRefNode fr = (FieldRefNode) addedTgt;
+                final VarNode storeSource = (VarNode) addedSrc;
+                indexFieldRef( fr );
+                fr.getBase().getP2Set().forall( new P2SetVisitor() {
+                public final void visit( Node n ) {
+                        AllocDotField nDotF = pag.makeAllocDotField(
+                            (AllocNode) n, fr.getField() );
+                        if( nDotF.makeP2Set().addAll( storeSource.getP2Set(), null ) ) {
+                            fieldWorkList.add( nDotF );
+                        }
+                    }
+                } );
+            } else if( !all ) {
+                continue;
+            } else if( addedSrc instanceof AllocNode ) {
+                VarNode edgeTgt = (VarNode) addedTgt;
+                if( edgeTgt.makeP2Set().add( addedSrc ) ) varNodeWorkList.add( edgeTgt );
+            } else {
+                VarNode edgeTgt = (VarNode) addedTgt;
+                if( edgeTgt.makeP2Set().addAll( ((VarNode) addedSrc).getP2Set(), null ) ) {
+                    varNodeWorkList.add( edgeTgt );
+                }
+            }
+        }
+    }
+
+    /** Returns the loads of the field of nDotF whose base may point to
+     * the base of nDotF. */
+    protected final List<FieldRefNode> loadsOf( AllocDotField nDotF ) {
+        List<FieldRefNode> ret = new ArrayList<FieldRefNode>();
+        Set<FieldRefNode> frs = fieldRefsByField.get( nDotF.getField() );
+        if( frs == null ) return ret;
+        for( FieldRefNode fr : frs ) {
+            if( pag.loadTargets( fr ).length > 0
+            && fr.getBase().getP2Set().contains( nDotF.getBase() ) ) {
+                ret.add( fr );
+            }
+        }
+        return ret;
+    }
+
+    protected final void indexFieldRef( FieldRefNode fr ) {
+        Set<FieldRefNode> frs = fieldRefsByField.get( fr.getField() );
+        if( frs == null ) {
+            fieldRefsByField.put( fr.getField(), frs = new HashSet<FieldRefNode>() );
+        }
+        frs.add( fr );
+    }
+
     /** Propagates new points-to information of node src to all its
      * successors. */
     protected final boolean handleAllocNode( AllocNode src ) {
 	boolean ret = false;
-	Node[] targets = pag.allocLookup( src );
-	for (Node element : targets) {
+	for (int t : pag.allocTargets( src )) {
+	    VarNode element = varNodes.get( t );
 	    if( element.makeP2Set().add( src ) ) {
-                varNodeWorkList.add( (VarNode) element );
+                varNodeWorkList.add( element );
                 ret = true;
             }
 	}
@@ -146,24 +321,24 @@ public final class PropWorklist extends Propagator {
             }
         }
 
-	Node[] simpleTargets = pag.simpleLookup( src );
-	for (Node element : simpleTargets) {
+	for (int t : pag.simpleTargets( src )) {
+	    VarNode element = varNodes.get( t );
 	    if( element.makeP2Set().addAll( newP2Set, null ) ) {
-                varNodeWorkList.add( (VarNode) element );
+                varNodeWorkList.add( element );
                 if(element == src) flush = false;
                 ret = true;
             }
 	}
 
-        Node[] storeTargets = pag.storeLookup( src );
-        for (Node element : storeTargets) {
-            final FieldRefNode fr = (FieldRefNode) element;
+        for (int t : pag.storeTargets( src )) {
+            final FieldRefNode fr = fieldRefNodes.get( t );
             final SparkField f = fr.getField();
             ret = fr.getBase().getP2Set().forall( new P2SetVisitor() {
             public final void visit( Node n ) {
                     AllocDotField nDotF = pag.makeAllocDotField( 
                         (AllocNode) n, f );
                     if( nDotF.makeP2Set().addAll( newP2Set, null ) ) {
+                        if( fieldWorkList != null ) fieldWorkList.add( nDotF );
                         returnValue = true;
                     }
 		}
@@ -174,14 +349,14 @@ public final class PropWorklist extends Propagator {
         final HashSet<Node[]> loadsToPropagate = new HashSet<Node[]>();
 	for( final FieldRefNode fr : src.getAllFieldRefs()) {
 	    final SparkField field = fr.getField();
-	    final Node[] storeSources = pag.storeInvLookup( fr );
+	    final int[] storeSources = pag.storeInvTargets( fr );
             if( storeSources.length > 0 ) {
                 newP2Set.forall( new P2SetVisitor() {
                 public final void visit( Node n ) {
                         AllocDotField nDotF = pag.makeAllocDotField(
                             (AllocNode) n, field );
-                        for (Node element : storeSources) {
-                            Node[] pair = { element,
+                        for (int t : storeSources) {
+                            Node[] pair = { varNodes.get( t ),
                                 nDotF.getReplacement() };
                             storesToPropagate.add( pair );
                         }
@@ -189,16 +364,16 @@ public final class PropWorklist extends Propagator {
                 } );
             }
 
-	    final Node[] loadTargets = pag.loadLookup( fr );
+	    final int[] loadTargets = pag.loadTargets( fr );
             if( loadTargets.length > 0 ) {
                 newP2Set.forall( new P2SetVisitor() {
                 public final void visit( Node n ) {
                         AllocDotField nDotF = pag.makeAllocDotField(
                             (AllocNode) n, field );
                         if( nDotF != null ) {
-                            for (Node element : loadTargets) {
+                            for (int t : loadTargets) {
                                 Node[] pair = { nDotF.getReplacement(),
-                                    element };
+                                    varNodes.get( t ) };
                                 loadsToPropagate.add( pair );
                             }
                         }
@@ -211,6 +386,7 @@ public final class PropWorklist extends Propagator {
             VarNode storeSource = (VarNode) p[0];
             AllocDotField nDotF = (AllocDotField) p[1];
             if( nDotF.makeP2Set().addAll( storeSource.getP2Set(), null ) ) {
+                if( fieldWorkList != null ) fieldWorkList.add( nDotF );
                 ret = true;
             }
         }
@@ -230,7 +406,7 @@ public final class PropWorklist extends Propagator {
      * successors. */
     protected final void handleFieldRefNode( FieldRefNode src, 
             final HashSet<Object[]> edgesToPropagate ) {
-	final Node[] loadTargets = pag.loadLookup( src );
+	final int[] loadTargets = pag.loadTargets( src );
 	if( loadTargets.length == 0 ) return;
         final SparkField field = src.getField();
 
@@ -242,8 +418,8 @@ public final class PropWorklist extends Propagator {
                 if( nDotF != null ) {
                     PointsToSetInternal p2Set = nDotF.getP2Set();
                     if( !p2Set.getNewSet().isEmpty() ) {
-                        for (Node element : loadTargets) {
-                            Object[] pair = { p2Set, element };
+                        for (int t : loadTargets) {
+                            Object[] pair = { p2Set, varNodes.get( t ) };
                             edgesToPropagate.add( pair );
                         }
                     }
@@ -253,7 +429,13 @@ public final class PropWorklist extends Propagator {
     }
     
     protected PAG pag;
+    protected final ArrayNumberer<VarNode> varNodes;
+    protected final ArrayNumberer<FieldRefNode> fieldRefNodes;
     protected OnFlyCallGraph ofcg;
+    /** The AllocDotFields with new objects, and the FieldRefNodes of each
+     * field; only used by the incremental propagate. */
+    protected Set<AllocDotField> fieldWorkList;
+    protected Map<SparkField, Set<FieldRefNode>> fieldRefsByField;
 }
 
 
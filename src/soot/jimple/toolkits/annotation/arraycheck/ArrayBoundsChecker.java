@@ -46,7 +46,9 @@ public class ArrayBoundsChecker extends BodyTransformer
     protected boolean takeRectArray = false;
     protected boolean addColorTags = false;
     
-    protected void internalTransform(Body body, String phaseName, Map opts)
+    // synchronized: the take* and addColorTags flags are set from the
+    // options of each call and read while the body is analysed
+    protected synchronized void internalTransform(Body body, String phaseName, Map opts)
     {
         ABCOptions options = new ABCOptions( opts );
         if (options.with_all())
@@ -31,7 +31,8 @@ public class CallGraphTagger extends BodyTransformer {
     public static CallGraphTagger v() { return G.v().soot_jimple_toolkits_annotation_callgraph_CallGraphTagger(); }
     
     private MethodToContexts methodToContexts;
-    protected void internalTransform(
+    // synchronized: methodToContexts is built by whichever body comes first
+    protected synchronized void internalTransform(
             Body b, String phaseName, Map options)
     {
         
@@ -52,10 +52,12 @@ public class LoopFinder extends BodyTransformer {
     
     protected void internalTransform (Body b, String phaseName, Map options){
     
-        g = new ExceptionalUnitGraph(b);
+        // the results are only stored once they are complete, so that the
+        // fields never hold a half-built answer
+        UnitGraph g = new ExceptionalUnitGraph(b);
         MHGDominatorsFinder a = new MHGDominatorsFinder(g);
         
-        loops = new HashMap<Stmt, List<Stmt>>();
+        HashMap<Stmt, List<Stmt>> loops = new HashMap<Stmt, List<Stmt>>();
         
         Iterator<Unit> stmtsIt = b.getUnits().iterator();
         while (stmtsIt.hasNext()){
@@ -78,7 +80,7 @@ public class LoopFinder extends BodyTransformer {
             Iterator<Stmt> headersIt = headers.iterator();
             while (headersIt.hasNext()){
                 Stmt header = headersIt.next();
-                List<Stmt> loopBody = getLoopBodyFor(header, s);
+                List<Stmt> loopBody = getLoopBodyFor(header, s, g);
 
                 // for now just print out loops as sets of stmts
                 //System.out.println("FOUND LOOP: Header: "+header+" Body: "+loopBody);
@@ -93,10 +95,12 @@ public class LoopFinder extends BodyTransformer {
             }
         }
 
+        this.g = g;
+        this.loops = loops;
     }
     
 
-    private List<Stmt> getLoopBodyFor(Stmt header, Stmt node){
+    private List<Stmt> getLoopBodyFor(Stmt header, Stmt node, UnitGraph g){
     
         ArrayList<Stmt> loopBody = new ArrayList<Stmt>();
         Stack<Unit> stack = new Stack<Unit>();
@@ -57,14 +57,10 @@ public class NullPointerChecker extends BodyTransformer
     public NullPointerChecker( Singletons.Global g ) {}
     public static NullPointerChecker v() { return G.v().soot_jimple_toolkits_annotation_nullcheck_NullPointerChecker(); }
 
-    private boolean isProfiling = false;
- 
-    private boolean enableOther = true;
-    
     protected void internalTransform(Body body, String phaseName, Map<String,String> options)
     {
-	isProfiling = PhaseOptions.getBoolean(options, "profiling");
-	enableOther = !PhaseOptions.getBoolean(options, "onlyarrayref");
+	boolean isProfiling = PhaseOptions.getBoolean(options, "profiling");
+	boolean enableOther = !PhaseOptions.getBoolean(options, "onlyarrayref");
 
 	{
 	    Date start = new Date();
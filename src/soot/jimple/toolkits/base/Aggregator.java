@@ -107,13 +107,14 @@ public class Aggregator extends BodyTransformer
       Iterator stmtIt;
       LocalUses localUses;
       LocalDefs localDefs;
-      ExceptionalUnitGraph graph;
+      UnitGraph graph;
       boolean hadAggregation = false;
       Chain units = body.getUnits();
       
-      graph = new ExceptionalUnitGraph(body);
-      localDefs = new SmartLocalDefs(graph, new SimpleLiveLocals(graph));
-      localUses = new SimpleLocalUses(graph, localDefs);
+      BodyAnalysisCache cache = body.getAnalysisCache();
+      graph = cache.get(BodyAnalysisCache.UNIT_GRAPH);
+      localDefs = cache.get(BodyAnalysisCache.LOCAL_DEFS);
+      localUses = cache.get(BodyAnalysisCache.LOCAL_USES);
           
       stmtIt = (new PseudoTopologicalOrderer()).newList(graph,false).iterator();
       
@@ -75,7 +75,7 @@ public class PartialConstructorFolder extends BodyTransformer
         
         ExceptionalUnitGraph graph = new ExceptionalUnitGraph(body);
         
-        LocalDefs localDefs = new SmartLocalDefs(graph, new SimpleLiveLocals(graph));
+        LocalDefs localDefs = new SparseLocalDefs(graph);
         LocalUses localUses = new SimpleLocalUses(graph, localDefs);
 
         /* fold in NewExpr's with specialinvoke's */
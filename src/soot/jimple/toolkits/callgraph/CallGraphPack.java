@@ -21,7 +21,11 @@ package soot.jimple.toolkits.callgraph;
 
 import soot.*;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
+import soot.jimple.spark.pag.PAG;
+import soot.jimple.spark.solver.OnFlyCallGraph;
 import soot.options.CGOptions;
 
 /** A radio pack implementation for the call graph pack that calls the
@@ -35,6 +39,15 @@ public class CallGraphPack extends RadioScenePack
     protected void internalApply()
     {
         CGOptions options = new CGOptions( PhaseOptions.v().getPhaseOptions(this) );
+        if( options.read_snapshot().length() > 0 ) {
+            try {
+                CallGraphSnapshot.read( new File( options.read_snapshot() ), true );
+            } catch( IOException e ) {
+                throw new CompilationDeathException( "Cannot read call graph snapshot "+options.read_snapshot(), e );
+            }
+            if( options.compact() ) compact();
+            return;
+        }
         if(!Scene.v().hasCustomEntryPoints()) {
 	        if(!options.implicit_entry()) {
 	            Scene.v().setEntryPoints(EntryPoints.v().application());
@@ -47,17 +60,44 @@ public class CallGraphPack extends RadioScenePack
 	        }
         }
         super.internalApply();
-        ClinitElimTransformer trimmer = new ClinitElimTransformer();
+        if( options.trim_clinit() ) trimClinits();
+        if( options.compact() ) compact();
 
-        if( options.trim_clinit() ) {
-            for (SootClass cl : Scene.v().getClasses(SootClass.BODIES)) {
-                for( Iterator mIt = cl.getMethods().iterator(); mIt.hasNext(); ) {
-                    final SootMethod m = (SootMethod) mIt.next();
-                    if( m.isConcrete() && m.hasActiveBody() ) {
-                        trimmer.transform( m.getActiveBody() );
-                    }
+        if( options.write_snapshot().length() > 0 ) {
+            try {
+                CallGraphSnapshot.write( new File( options.write_snapshot() ) );
+            } catch( IOException e ) {
+                throw new CompilationDeathException( "Cannot write call graph snapshot "+options.write_snapshot(), e );
+            }
+        }
+    }
+
+    /** Runs the clinit eliminator on every method body, removing the
+     * call edges to static initializers that must already have run. */
+    public static void trimClinits() {
+        ClinitElimTransformer trimmer = new ClinitElimTransformer();
+        for (SootClass cl : Scene.v().getClasses(SootClass.BODIES)) {
+            for( Iterator mIt = cl.getMethods().iterator(); mIt.hasNext(); ) {
+                final SootMethod m = (SootMethod) mIt.next();
+                if( m.isConcrete() && m.hasActiveBody() ) {
+                    trimmer.transform( m.getActiveBody() );
                 }
             }
         }
     }
+
+    private void compact() {
+        CallGraph cg = Scene.v().getCallGraph();
+        Scene.v().setCallGraph( new CompactCallGraph( cg ) );
+        // Spark's on-the-fly call graph still refers to the graph it built,
+        // which would keep it alive; it is only used after propagation by
+        // IncrementalUpdater, which cannot update a compacted graph anyway,
+        // so it is released
+        if( Scene.v().hasPointsToAnalysis()
+                && Scene.v().getPointsToAnalysis() instanceof PAG ) {
+            PAG pag = (PAG) Scene.v().getPointsToAnalysis();
+            OnFlyCallGraph ofcg = pag.getOnFlyCallGraph();
+            if( ofcg != null && ofcg.callGraph() == cg ) pag.setOnFlyCallGraph( null );
+        }
+    }
 }
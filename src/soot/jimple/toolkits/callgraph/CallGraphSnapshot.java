@@ -0,0 +1,511 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 1997-2014 Raja Vallee-Rai and others
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+
+package soot.jimple.toolkits.callgraph;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import soot.ArrayType;
+import soot.Body;
+import soot.BooleanType;
+import soot.ByteType;
+import soot.CharType;
+import soot.DoubleType;
+import soot.FloatType;
+import soot.IntType;
+import soot.Kind;
+import soot.LongType;
+import soot.MethodOrMethodContext;
+import soot.Modifier;
+import soot.RefType;
+import soot.Scene;
+import soot.ShortType;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.Type;
+import soot.Unit;
+import soot.VoidType;
+import soot.jimple.toolkits.ide.libsumm.SummaryStore;
+
+/** Writes the call graph, the reachable methods, the entry points and the
+ * class hierarchy of the Scene to a compact binary file, and reads such a
+ * file back into the Scene of another run on the same program.
+ *
+ * <p>Classes and methods are given dense indices in the order of their
+ * Numberer ids. The file consists of a header of counts followed by
+ * fixed-width int tables, so it is read through a memory mapping without
+ * creating any intermediate objects, and a UTF-8 string pool at the end.
+ * Edges are stored as (source, statement, target, kind) records sorted by
+ * source, where the statement is the position of the call site in the
+ * active body of the source method. The bodies of such methods are stored
+ * by their size and {@link SummaryStore#hashOf(Body) hash}, and a snapshot
+ * whose bodies have changed is rejected when its statements are read.</p>
+ *
+ * <p>Contexts are not stored; a context-sensitive call graph is written
+ * as its context-insensitive projection.</p>
+ */
+public class CallGraphSnapshot
+{
+    private static final int MAGIC = 0x53434731; // "SCG1"
+    private static final int VERSION = 2;
+
+    private static final int HEADER_INTS = 12;
+    private static final int CLASS_INTS = 5;
+    private static final int METHOD_INTS = 9;
+    private static final int EDGE_INTS = 4;
+
+    /** The edge kinds by name, taken from the constants of {@link Kind} so
+     * that a newly added kind can be read back without changing this class. */
+    private static final Map<String, Kind> KINDS = kindsByName();
+
+    private CallGraphSnapshot() {}
+
+    /** Writes the call graph of the Scene, together with its entry points,
+     * reachable methods and class hierarchy, to <code>file</code>. */
+    public static void write( File file ) throws IOException {
+        new Writer().write( file );
+    }
+
+    /** Reads the snapshot in <code>file</code> and installs its call graph,
+     * entry points and reachable methods in the Scene. Classes are resolved
+     * as needed, and an exception is thrown if their hierarchy no longer
+     * matches the snapshot.
+     * @param withStatements if true, the bodies of all methods with
+     * outgoing edges are retrieved so that edges refer to their call
+     * sites; otherwise the edges have no source statement. */
+    public static CallGraph read( File file, boolean withStatements ) throws IOException {
+        FileInputStream in = new FileInputStream( file );
+        try {
+            FileChannel channel = in.getChannel();
+            MappedByteBuffer buf = channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size() );
+            return new Reader( file, buf ).read( withStatements );
+        } finally {
+            in.close();
+        }
+    }
+
+    private static class Writer
+    {
+        private final List<String> strings = new ArrayList<String>();
+        private final Map<String, Integer> stringIndex = new HashMap<String, Integer>();
+        private final Map<SootClass, Integer> classIndex = new HashMap<SootClass, Integer>();
+        private final Map<SootMethod, Integer> methodIndex = new HashMap<SootMethod, Integer>();
+        private final Map<Kind, Integer> kindIndex = new HashMap<Kind, Integer>();
+        private final List<Kind> kinds = new ArrayList<Kind>();
+        private final Map<SootMethod, Map<Unit, Integer>> unitIndex = new HashMap<SootMethod, Map<Unit, Integer>>();
+
+        void write( File file ) throws IOException {
+            Scene scene = Scene.v();
+            CallGraph cg = scene.getCallGraph();
+
+            List<SootClass> classes = new ArrayList<SootClass>( scene.getClasses() );
+            Collections.sort( classes, new Comparator<SootClass>() {
+                public int compare( SootClass a, SootClass b ) {
+                    return a.getNumber() - b.getNumber();
+                }
+            } );
+            for( SootClass c : classes ) classIndex.put( c, classIndex.size() );
+
+            Set<SootMethod> methodSet = new LinkedHashSet<SootMethod>();
+            List<SootMethod> entryPoints = scene.getEntryPoints();
+            methodSet.addAll( entryPoints );
+            Set<SootMethod> reachable = new LinkedHashSet<SootMethod>();
+            for( Iterator<MethodOrMethodContext> it = scene.getReachableMethods().listener(); it.hasNext(); ) {
+                reachable.add( it.next().method() );
+            }
+            methodSet.addAll( reachable );
+            for( Iterator<Edge> it = cg.listener(); it.hasNext(); ) {
+                Edge e = it.next();
+                methodSet.add( e.src() );
+                methodSet.add( e.tgt() );
+            }
+            List<SootMethod> methods = new ArrayList<SootMethod>( methodSet );
+            Collections.sort( methods, new Comparator<SootMethod>() {
+                public int compare( SootMethod a, SootMethod b ) {
+                    return a.getNumber() - b.getNumber();
+                }
+            } );
+            for( SootMethod m : methods ) {
+                if( !classIndex.containsKey( m.getDeclaringClass() ) )
+                    throw new RuntimeException( "Method "+m+" of a class that is not in the Scene" );
+                methodIndex.put( m, methodIndex.size() );
+            }
+
+            int[] classTable = new int[classes.size() * CLASS_INTS];
+            List<Integer> interfaces = new ArrayList<Integer>();
+            for( SootClass c : classes ) {
+                int i = classIndex.get( c ) * CLASS_INTS;
+                classTable[i] = string( c.getName() );
+                classTable[i+1] = c.getModifiers();
+                classTable[i+2] = c.hasSuperclass() ? classOf( c.getSuperclass() ) : -1;
+                classTable[i+3] = interfaces.size();
+                classTable[i+4] = c.getInterfaceCount();
+                for( SootClass iface : c.getInterfaces() ) interfaces.add( classOf( iface ) );
+            }
+
+            List<int[]> edges = new ArrayList<int[]>();
+            for( Iterator<Edge> it = cg.listener(); it.hasNext(); ) {
+                Edge e = it.next();
+                edges.add( new int[] { methodIndex.get( e.src() ),
+                        e.srcUnit() == null ? -1 : unitOf( e.src(), e.srcUnit() ),
+                        methodIndex.get( e.tgt() ), kind( e.kind() ) } );
+            }
+            Collections.sort( edges, new Comparator<int[]>() {
+                public int compare( int[] a, int[] b ) {
+                    for( int i = 0; i < EDGE_INTS; i++ ) {
+                        if( a[i] != b[i] ) return a[i] < b[i] ? -1 : 1;
+                    }
+                    return 0;
+                }
+            } );
+
+            int[] methodTable = new int[methods.size() * METHOD_INTS];
+            List<Integer> params = new ArrayList<Integer>();
+            for( SootMethod m : methods ) {
+                int i = methodIndex.get( m ) * METHOD_INTS;
+                methodTable[i] = classIndex.get( m.getDeclaringClass() );
+                methodTable[i+1] = string( m.getName() );
+                methodTable[i+2] = string( m.getReturnType().toString() );
+                methodTable[i+3] = params.size();
+                methodTable[i+4] = m.getParameterCount();
+                methodTable[i+5] = m.getModifiers();
+                methodTable[i+6] = m.hasActiveBody() ? m.getActiveBody().getUnits().size() : -1;
+                if( unitIndex.containsKey( m ) ) {
+                    long hash = SummaryStore.hashOf( m.getActiveBody() );
+                    methodTable[i+7] = (int) (hash >>> 32);
+                    methodTable[i+8] = (int) hash;
+                }
+                for( Type t : m.getParameterTypes() ) params.add( string( t.toString() ) );
+            }
+
+            int[] kindTable = new int[kinds.size()];
+            for( int i = 0; i < kindTable.length; i++ ) kindTable[i] = string( kinds.get( i ).name() );
+
+            ByteArrayOutputStream blob = new ByteArrayOutputStream();
+            int[] stringOffsets = new int[strings.size() + 1];
+            for( int i = 0; i < strings.size(); i++ ) {
+                stringOffsets[i] = blob.size();
+                byte[] b = utf8( strings.get( i ) );
+                blob.write( b, 0, b.length );
+            }
+            stringOffsets[strings.size()] = blob.size();
+
+            DataOutputStream out = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( file ) ) );
+            try {
+                out.writeInt( MAGIC );
+                out.writeInt( VERSION );
+                out.writeInt( strings.size() );
+                out.writeInt( kindTable.length );
+                out.writeInt( classes.size() );
+                out.writeInt( interfaces.size() );
+                out.writeInt( methods.size() );
+                out.writeInt( params.size() );
+                out.writeInt( edges.size() );
+                out.writeInt( entryPoints.size() );
+                out.writeInt( reachable.size() );
+                out.writeInt( blob.size() );
+                writeInts( out, stringOffsets );
+                writeInts( out, kindTable );
+                writeInts( out, classTable );
+                for( Integer i : interfaces ) out.writeInt( i );
+                writeInts( out, methodTable );
+                for( Integer i : params ) out.writeInt( i );
+                for( int[] e : edges ) writeInts( out, e );
+                for( SootMethod m : entryPoints ) out.writeInt( methodIndex.get( m ) );
+                for( SootMethod m : reachable ) out.writeInt( methodIndex.get( m ) );
+                blob.writeTo( out );
+            } finally {
+                out.close();
+            }
+        }
+
+        private int string( String s ) {
+            Integer i = stringIndex.get( s );
+            if( i == null ) {
+                i = strings.size();
+                strings.add( s );
+                stringIndex.put( s, i );
+            }
+            return i;
+        }
+
+        private int classOf( SootClass c ) {
+            Integer i = classIndex.get( c );
+            if( i == null ) throw new RuntimeException( "Class "+c+" is referenced but not in the Scene" );
+            return i;
+        }
+
+        private int kind( Kind k ) {
+            Integer i = kindIndex.get( k );
+            if( i == null ) {
+                i = kinds.size();
+                kinds.add( k );
+                kindIndex.put( k, i );
+            }
+            return i;
+        }
+
+        private int unitOf( SootMethod m, Unit u ) {
+            Map<Unit, Integer> units = unitIndex.get( m );
+            if( units == null ) {
+                units = new HashMap<Unit, Integer>();
+                for( Unit v : m.getActiveBody().getUnits() ) units.put( v, units.size() );
+                unitIndex.put( m, units );
+            }
+            Integer i = units.get( u );
+            if( i == null ) throw new RuntimeException( "Call site "+u+" is not in the body of "+m );
+            return i;
+        }
+
+        private static void writeInts( DataOutputStream out, int[] ints ) throws IOException {
+            for( int i : ints ) out.writeInt( i );
+        }
+    }
+
+    private static class Reader
+    {
+        private final File file;
+        private final ByteBuffer buf;
+        private final IntBuffer ints;
+        private final int nStrings, nKinds, nClasses, nInterfaces, nMethods,
+                nParams, nEdges, nEntryPoints, nReachable;
+        private final int stringsAt, kindsAt, classesAt, interfacesAt, methodsAt,
+                paramsAt, edgesAt, entryPointsAt, reachableAt, blobAt;
+
+        Reader( File file, ByteBuffer buf ) throws IOException {
+            this.file = file;
+            this.buf = buf;
+            this.ints = buf.asIntBuffer();
+            if( buf.capacity() < HEADER_INTS * 4 || ints.get( 0 ) != MAGIC )
+                throw new IOException( file+" is not a call graph snapshot" );
+            if( ints.get( 1 ) != VERSION )
+                throw new IOException( file+" has snapshot version "+ints.get( 1 )+", expected "+VERSION );
+            nStrings = ints.get( 2 );
+            nKinds = ints.get( 3 );
+            nClasses = ints.get( 4 );
+            nInterfaces = ints.get( 5 );
+            nMethods = ints.get( 6 );
+            nParams = ints.get( 7 );
+            nEdges = ints.get( 8 );
+            nEntryPoints = ints.get( 9 );
+            nReachable = ints.get( 10 );
+            stringsAt = HEADER_INTS;
+            kindsAt = stringsAt + nStrings + 1;
+            classesAt = kindsAt + nKinds;
+            interfacesAt = classesAt + nClasses * CLASS_INTS;
+            methodsAt = interfacesAt + nInterfaces;
+            paramsAt = methodsAt + nMethods * METHOD_INTS;
+            edgesAt = paramsAt + nParams;
+            entryPointsAt = edgesAt + nEdges * EDGE_INTS;
+            reachableAt = entryPointsAt + nEntryPoints;
+            blobAt = (reachableAt + nReachable) * 4;
+            if( (long) blobAt + ints.get( 11 ) != buf.capacity() )
+                throw new IOException( file+" is truncated" );
+        }
+
+        CallGraph read( boolean withStatements ) {
+            SootClass[] classes = new SootClass[nClasses];
+            for( int i = 0; i < nClasses; i++ ) {
+                classes[i] = Scene.v().forceResolve( string( ints.get( classesAt + i * CLASS_INTS ) ), SootClass.HIERARCHY );
+            }
+            for( int i = 0; i < nClasses; i++ ) checkHierarchy( classes, i );
+
+            SootMethod[] methods = new SootMethod[nMethods];
+            for( int i = 0; i < nMethods; i++ ) methods[i] = method( classes, i );
+
+            Kind[] kinds = new Kind[nKinds];
+            for( int i = 0; i < nKinds; i++ ) {
+                String name = string( ints.get( kindsAt + i ) );
+                kinds[i] = KINDS.get( name );
+                if( kinds[i] == null ) throw stale( "unknown edge kind "+name );
+            }
+
+            CallGraph cg = new CallGraph();
+            int lastSrc = -1;
+            Unit[] units = null;
+            for( int i = 0; i < nEdges; i++ ) {
+                int at = edgesAt + i * EDGE_INTS;
+                int src = ints.get( at );
+                int unit = ints.get( at + 1 );
+                Unit srcUnit = null;
+                if( withStatements && unit >= 0 ) {
+                    if( src != lastSrc ) {
+                        units = units( methods[src], methodsAt + src * METHOD_INTS );
+                        lastSrc = src;
+                    }
+                    srcUnit = units[unit];
+                }
+                cg.addEdge( new Edge( methods[src], srcUnit, methods[ints.get( at + 2 )], kinds[ints.get( at + 3 )] ) );
+            }
+
+            List<SootMethod> entryPoints = new ArrayList<SootMethod>( nEntryPoints );
+            for( int i = 0; i < nEntryPoints; i++ ) entryPoints.add( methods[ints.get( entryPointsAt + i )] );
+            List<MethodOrMethodContext> reachable = new ArrayList<MethodOrMethodContext>( nReachable );
+            for( int i = 0; i < nReachable; i++ ) reachable.add( methods[ints.get( reachableAt + i )] );
+
+            Scene.v().setEntryPoints( entryPoints );
+            Scene.v().setCallGraph( cg );
+            ReachableMethods rm = new ReachableMethods( cg, reachable );
+            rm.update();
+            Scene.v().setReachableMethods( rm );
+            return cg;
+        }
+
+        private void checkHierarchy( SootClass[] classes, int i ) {
+            SootClass c = classes[i];
+            if( c.isPhantom() ) return;
+            int at = classesAt + i * CLASS_INTS;
+            int superclass = ints.get( at + 2 );
+            if( superclass < 0 ? c.hasSuperclass()
+                    : !c.hasSuperclass() || c.getSuperclass() != classes[superclass] )
+                throw stale( "superclass of "+c+" has changed" );
+            int first = ints.get( at + 3 );
+            int count = ints.get( at + 4 );
+            if( count != c.getInterfaceCount() )
+                throw stale( "interfaces of "+c+" have changed" );
+            for( int j = 0; j < count; j++ ) {
+                if( !c.implementsInterface( classes[ints.get( interfacesAt + first + j )].getName() ) )
+                    throw stale( "interfaces of "+c+" have changed" );
+            }
+        }
+
+        private SootMethod method( SootClass[] classes, int i ) {
+            int at = methodsAt + i * METHOD_INTS;
+            SootClass c = classes[ints.get( at )];
+            String name = string( ints.get( at + 1 ) );
+            Type returnType = type( string( ints.get( at + 2 ) ) );
+            int first = ints.get( at + 3 );
+            List<Type> parameterTypes = new ArrayList<Type>( ints.get( at + 4 ) );
+            for( int j = 0; j < ints.get( at + 4 ); j++ ) {
+                parameterTypes.add( type( string( ints.get( paramsAt + first + j ) ) ) );
+            }
+            String subSig = SootMethod.getSubSignature( name, parameterTypes, returnType );
+            if( c.declaresMethod( subSig ) ) return c.getMethod( subSig );
+            if( !c.isPhantom() || !Scene.v().allowsPhantomRefs() )
+                throw stale( "method "+subSig+" no longer exists in "+c );
+            // Phantom methods are created on demand while building the call
+            // graph, so create it in the same way as SootMethodRef does.
+            synchronized( c ) {
+                if( c.declaresMethod( subSig ) ) return c.getMethod( subSig );
+                SootMethod m = new SootMethod( name, parameterTypes, returnType,
+                        ints.get( at + 5 ) & Modifier.STATIC );
+                m.setPhantom( true );
+                c.addMethod( m );
+                return m;
+            }
+        }
+
+        /** Returns the units of the body of <code>m</code>, whose entry in
+         * the method table is at <code>at</code>, after checking that the body
+         * is the one the call sites were numbered in. */
+        private Unit[] units( SootMethod m, int at ) {
+            Body b = m.retrieveActiveBody();
+            int count = ints.get( at + 6 );
+            if( b.getUnits().size() != count )
+                throw stale( "body of "+m+" has "+b.getUnits().size()+" statements instead of "+count );
+            long hash = ((long) ints.get( at + 7 ) << 32) | (ints.get( at + 8 ) & 0xffffffffL);
+            if( SummaryStore.hashOf( b ) != hash )
+                throw stale( "body of "+m+" has changed" );
+            return b.getUnits().toArray( new Unit[count] );
+        }
+
+        private String string( int i ) {
+            if( i < 0 || i >= nStrings ) throw stale( "string index out of range" );
+            int start = ints.get( stringsAt + i );
+            int end = ints.get( stringsAt + i + 1 );
+            byte[] b = new byte[end - start];
+            ByteBuffer slice = buf.duplicate();
+            slice.position( blobAt + start );
+            slice.get( b );
+            try {
+                return new String( b, "UTF-8" );
+            } catch( UnsupportedEncodingException e ) {
+                throw new RuntimeException( e );
+            }
+        }
+
+        private RuntimeException stale( String why ) {
+            return new RuntimeException( "Call graph snapshot "+file+" does not match the Scene: "+why );
+        }
+    }
+
+    private static byte[] utf8( String s ) {
+        try {
+            return s.getBytes( "UTF-8" );
+        } catch( UnsupportedEncodingException e ) {
+            throw new RuntimeException( e );
+        }
+    }
+
+    private static Map<String, Kind> kindsByName() {
+        Map<String, Kind> ret = new HashMap<String, Kind>();
+        for( Field f : Kind.class.getFields() ) {
+            if( f.getType() != Kind.class || !java.lang.reflect.Modifier.isStatic( f.getModifiers() ) ) continue;
+            try {
+                Kind k = (Kind) f.get( null );
+                ret.put( k.name(), k );
+            } catch( IllegalAccessException e ) {
+                throw new RuntimeException( e );
+            }
+        }
+        return ret;
+    }
+
+    /** Parses a type as printed by {@link Type#toString()}. */
+    private static Type type( String s ) {
+        int dims = 0;
+        while( s.endsWith( "[]" ) ) {
+            s = s.substring( 0, s.length() - 2 );
+            dims++;
+        }
+        Type t;
+        if( s.equals( "void" ) ) t = VoidType.v();
+        else if( s.equals( "boolean" ) ) t = BooleanType.v();
+        else if( s.equals( "byte" ) ) t = ByteType.v();
+        else if( s.equals( "char" ) ) t = CharType.v();
+        else if( s.equals( "short" ) ) t = ShortType.v();
+        else if( s.equals( "int" ) ) t = IntType.v();
+        else if( s.equals( "long" ) ) t = LongType.v();
+        else if( s.equals( "float" ) ) t = FloatType.v();
+        else if( s.equals( "double" ) ) t = DoubleType.v();
+        else t = RefType.v( s );
+        return dims == 0 ? t : ArrayType.v( t, dims );
+    }
+}
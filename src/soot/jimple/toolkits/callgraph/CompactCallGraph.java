@@ -0,0 +1,421 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 1997-2014 Raja Vallee-Rai and others
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+
+package soot.jimple.toolkits.callgraph;
+import soot.*;
+import soot.util.queue.*;
+import java.util.*;
+
+/** A call graph that keeps most of its edges in compressed sparse row
+ * form instead of as linked Edge objects.
+ *
+ * <p>Methods (with their contexts), call sites and kinds are given dense
+ * ids. The frozen part of the graph stores, per edge, the call site,
+ * target and kind ids in arrays grouped by source method, together with
+ * permutations grouping the same edges by call site and by target. Edges
+ * added after the last {@link #freeze()} go to a delta that is stored as
+ * in {@link CallGraph}, and removed frozen edges are only marked as such
+ * until the next freeze.</p>
+ *
+ * <p>Edge objects for frozen edges are created as they are returned, so
+ * two calls may return different but equal Edge objects for the same
+ * edge. This includes {@link #listener()}: its readers create the frozen
+ * edges as they are read and do not keep them, and then continue with
+ * the edges added since the last freeze. A reader that was created
+ * before a freeze keeps the arrays of its own frozen edges alive until
+ * it is dropped.</p>
+ */
+public class CompactCallGraph extends CallGraph
+{
+    private final List<MethodOrMethodContext> methods = new ArrayList<MethodOrMethodContext>();
+    private final Map<MethodOrMethodContext, Integer> methodIds = new HashMap<MethodOrMethodContext, Integer>();
+    private final List<Unit> units = new ArrayList<Unit>();
+    private final Map<Unit, Integer> unitIds = new HashMap<Unit, Integer>();
+    private final List<Kind> kinds = new ArrayList<Kind>();
+
+    /** Edges with source method id m are at positions
+     * srcOffsets[m] to srcOffsets[m+1]-1. */
+    private int[] srcOffsets = new int[1];
+    private int[] edgeUnit = new int[0];
+    private int[] edgeTgt = new int[0];
+    private byte[] edgeKind = new byte[0];
+    /** The positions of the edges from call site u are
+     * byUnit[unitOffsets[u]] to byUnit[unitOffsets[u+1]-1]. */
+    private int[] unitOffsets = new int[1];
+    private int[] byUnit = new int[0];
+    /** The same for the edges into the method with id m. */
+    private int[] tgtOffsets = new int[1];
+    private int[] byTgt = new int[0];
+    private BitSet removed = new BitSet();
+    private int frozenSize = 0;
+
+    public CompactCallGraph() {
+    }
+
+    /** Creates a frozen copy of the edges of cg. */
+    public CompactCallGraph( CallGraph cg ) {
+        build( cg.listener() );
+    }
+
+    /** Moves all edges added since the last freeze into the compact
+     * representation, and drops the removed ones. */
+    public void freeze() {
+        build( edges.iterator() );
+        edges = new HashSet<Edge>();
+        // the stream is kept for the listeners made before the freeze, but
+        // new listeners only need the edges added after it
+        reader = stream.reader();
+        srcMethodToEdge = new HashMap<MethodOrMethodContext, Edge>();
+        srcUnitToEdge = new HashMap<Unit, Edge>();
+        tgtToEdge = new HashMap<MethodOrMethodContext, Edge>();
+    }
+
+    private void build( Iterator<Edge> added ) {
+        int n = frozenSize;
+        int[] src = new int[Math.max( n, 16 )];
+        int[] unit = new int[src.length];
+        int[] tgt = new int[src.length];
+        byte[] kind = new byte[src.length];
+        int i = 0;
+        for( int m = 0; m + 1 < srcOffsets.length; m++ ) {
+            for( int p = srcOffsets[m]; p < srcOffsets[m+1]; p++ ) {
+                if( removed.get( p ) ) continue;
+                src[i] = m;
+                unit[i] = edgeUnit[p];
+                tgt[i] = edgeTgt[p];
+                kind[i] = edgeKind[p];
+                i++;
+            }
+        }
+        while( added.hasNext() ) {
+            Edge e = added.next();
+            if( i == src.length ) {
+                int length = src.length * 2;
+                src = Arrays.copyOf( src, length );
+                unit = Arrays.copyOf( unit, length );
+                tgt = Arrays.copyOf( tgt, length );
+                kind = Arrays.copyOf( kind, length );
+            }
+            src[i] = methodId( e.getSrc() );
+            unit[i] = e.srcUnit() == null ? -1 : unitId( e.srcUnit() );
+            tgt[i] = methodId( e.getTgt() );
+            kind[i] = kindId( e.kind() );
+            i++;
+        }
+        n = i;
+
+        srcOffsets = new int[methods.size() + 1];
+        for( i = 0; i < n; i++ ) srcOffsets[src[i] + 1]++;
+        for( i = 0; i < methods.size(); i++ ) srcOffsets[i + 1] += srcOffsets[i];
+        int[] next = Arrays.copyOf( srcOffsets, methods.size() );
+        edgeUnit = new int[n];
+        edgeTgt = new int[n];
+        edgeKind = new byte[n];
+        for( i = 0; i < n; i++ ) {
+            int p = next[src[i]]++;
+            edgeUnit[p] = unit[i];
+            edgeTgt[p] = tgt[i];
+            edgeKind[p] = kind[i];
+        }
+
+        unitOffsets = new int[units.size() + 1];
+        byUnit = group( edgeUnit, n, unitOffsets );
+        tgtOffsets = new int[methods.size() + 1];
+        byTgt = group( edgeTgt, n, tgtOffsets );
+        removed = new BitSet();
+        frozenSize = n;
+    }
+
+    /** Groups the positions 0 to n-1 by their key in keys, ignoring
+     * negative keys, and fills in the offsets of the groups. */
+    private static int[] group( int[] keys, int n, int[] offsets ) {
+        int count = 0;
+        for( int p = 0; p < n; p++ ) {
+            if( keys[p] < 0 ) continue;
+            offsets[keys[p] + 1]++;
+            count++;
+        }
+        for( int k = 0; k + 1 < offsets.length; k++ ) offsets[k + 1] += offsets[k];
+        int[] next = Arrays.copyOf( offsets, offsets.length - 1 );
+        int[] ret = new int[count];
+        for( int p = 0; p < n; p++ ) {
+            if( keys[p] < 0 ) continue;
+            ret[next[keys[p]]++] = p;
+        }
+        return ret;
+    }
+
+    private int methodId( MethodOrMethodContext m ) {
+        Integer id = methodIds.get( m );
+        if( id == null ) {
+            id = methods.size();
+            methods.add( m );
+            methodIds.put( m, id );
+        }
+        return id;
+    }
+
+    private int unitId( Unit u ) {
+        Integer id = unitIds.get( u );
+        if( id == null ) {
+            id = units.size();
+            units.add( u );
+            unitIds.put( u, id );
+        }
+        return id;
+    }
+
+    private byte kindId( Kind k ) {
+        int id = kinds.indexOf( k );
+        if( id < 0 ) {
+            id = kinds.size();
+            kinds.add( k );
+        }
+        return (byte) id;
+    }
+
+    /** Returns the id of m if it is the source or target of a frozen
+     * edge, or -1. */
+    private int frozenMethod( MethodOrMethodContext m ) {
+        Integer id = methodIds.get( m );
+        return id == null || id + 1 >= srcOffsets.length ? -1 : id;
+    }
+
+    private int frozenUnit( Unit u ) {
+        Integer id = unitIds.get( u );
+        return id == null || id + 1 >= unitOffsets.length ? -1 : id;
+    }
+
+    /** Returns the position of e among the frozen edges, or -1. */
+    private int find( Edge e ) {
+        int src = frozenMethod( e.getSrc() );
+        int tgt = frozenMethod( e.getTgt() );
+        if( src < 0 || tgt < 0 ) return -1;
+        int unit = -1;
+        if( e.srcUnit() != null ) {
+            unit = frozenUnit( e.srcUnit() );
+            if( unit < 0 ) return -1;
+        }
+        int kind = kinds.indexOf( e.kind() );
+        for( int p = srcOffsets[src]; p < srcOffsets[src + 1]; p++ ) {
+            if( edgeUnit[p] == unit && edgeTgt[p] == tgt && edgeKind[p] == kind
+                    && !removed.get( p ) ) return p;
+        }
+        return -1;
+    }
+
+    private int srcOf( int p ) {
+        int lo = 0, hi = srcOffsets.length - 2;
+        while( lo < hi ) {
+            int mid = (lo + hi + 1) >>> 1;
+            if( srcOffsets[mid] <= p ) lo = mid;
+            else hi = mid - 1;
+        }
+        return lo;
+    }
+
+    private Edge edge( int p ) {
+        return edge( srcOf( p ), p );
+    }
+
+    private Edge edge( int src, int p ) {
+        Unit u = edgeUnit[p] < 0 ? null : units.get( edgeUnit[p] );
+        return new Edge( methods.get( src ), u, methods.get( edgeTgt[p] ), kinds.get( edgeKind[p] ) );
+    }
+
+    public boolean addEdge( Edge e ) {
+        if( find( e ) >= 0 ) return false;
+        return super.addEdge( e );
+    }
+
+    public boolean removeEdge( Edge e ) {
+        int p = find( e );
+        if( p < 0 ) return super.removeEdge( e );
+        removed.set( p );
+        return true;
+    }
+
+    public boolean isEntryMethod( SootMethod method ) {
+        int m = frozenMethod( method );
+        if( m >= 0 ) {
+            for( int i = tgtOffsets[m]; i < tgtOffsets[m + 1]; i++ ) {
+                if( !removed.get( byTgt[i] ) ) return false;
+            }
+        }
+        return super.isEntryMethod( method );
+    }
+
+    public Edge findEdge( Unit u, SootMethod callee ) {
+        for( Iterator<Edge> it = edgesOutOf( u ); it.hasNext(); ) {
+            Edge e = it.next();
+            if( e.tgt() == callee ) return e;
+        }
+        return null;
+    }
+
+    public Iterator<MethodOrMethodContext> sourceMethods() {
+        Set<MethodOrMethodContext> ret = new LinkedHashSet<MethodOrMethodContext>();
+        for( int m = 0; m + 1 < srcOffsets.length; m++ ) {
+            for( int p = srcOffsets[m]; p < srcOffsets[m + 1]; p++ ) {
+                if( !removed.get( p ) ) {
+                    ret.add( methods.get( m ) );
+                    break;
+                }
+            }
+        }
+        for( Iterator<MethodOrMethodContext> it = super.sourceMethods(); it.hasNext(); ) {
+            MethodOrMethodContext m = it.next();
+            if( super.edgesOutOf( m ).hasNext() ) ret.add( m );
+        }
+        return ret.iterator();
+    }
+
+    public Iterator<Edge> edgesOutOf( Unit u ) {
+        if( u == null ) throw new RuntimeException();
+        int id = frozenUnit( u );
+        if( id < 0 ) return super.edgesOutOf( u );
+        return new EdgeIterator( byUnit, unitOffsets[id], unitOffsets[id + 1], super.edgesOutOf( u ) );
+    }
+
+    public Iterator<Edge> edgesOutOf( MethodOrMethodContext m ) {
+        if( m == null ) throw new RuntimeException();
+        final int id = frozenMethod( m );
+        if( id < 0 ) return super.edgesOutOf( m );
+        return new EdgeIterator( null, srcOffsets[id], srcOffsets[id + 1], super.edgesOutOf( m ) ) {
+            Edge frozenEdge( int p ) {
+                return edge( id, p );
+            }
+        };
+    }
+
+    public Iterator<Edge> edgesInto( MethodOrMethodContext m ) {
+        if( m == null ) throw new RuntimeException();
+        int id = frozenMethod( m );
+        if( id < 0 ) return super.edgesInto( m );
+        return new EdgeIterator( byTgt, tgtOffsets[id], tgtOffsets[id + 1], super.edgesInto( m ) );
+    }
+
+    /** Iterates over the frozen edges at the given positions that have
+     * not been removed, followed by the edges of a delta iterator. */
+    private class EdgeIterator implements Iterator<Edge> {
+        private final int[] positions;
+        private final int end;
+        private final Iterator<Edge> delta;
+        private int i;
+        private int next;
+        EdgeIterator( int[] positions, int start, int end, Iterator<Edge> delta ) {
+            this.positions = positions;
+            this.i = start;
+            this.end = end;
+            this.delta = delta;
+            advance();
+        }
+        private void advance() {
+            while( i < end ) {
+                int p = positions == null ? i : positions[i];
+                i++;
+                if( !removed.get( p ) ) {
+                    next = p;
+                    return;
+                }
+            }
+            next = -1;
+        }
+        Edge frozenEdge( int p ) {
+            return edge( p );
+        }
+        public boolean hasNext() {
+            return next >= 0 || delta.hasNext();
+        }
+        public Edge next() {
+            if( next < 0 ) return delta.next();
+            Edge ret = frozenEdge( next );
+            advance();
+            return ret;
+        }
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /** Returns a QueueReader object containing all edges added so far, and
+     * which will be informed of any new edges that are later added to
+     * the graph. */
+    public QueueReader<Edge> listener() {
+        return new FrozenEdgeReader( super.listener() );
+    }
+
+    /** Reads the frozen edges at the time it was created, making an Edge
+     * for each one as it is read, followed by the edges added since the
+     * last freeze. */
+    private class FrozenEdgeReader extends QueueReader<Edge> {
+        private final int[] offsets;
+        private final int[] unit;
+        private final int[] tgt;
+        private final byte[] kind;
+        private final BitSet gone;
+        private final QueueReader<Edge> delta;
+        private int src;
+        private int p;
+        FrozenEdgeReader( QueueReader<Edge> delta ) {
+            this.offsets = srcOffsets;
+            this.unit = edgeUnit;
+            this.tgt = edgeTgt;
+            this.kind = edgeKind;
+            // as in CallGraph, an edge removed later is still read
+            this.gone = (BitSet) removed.clone();
+            this.delta = delta;
+        }
+        private FrozenEdgeReader( FrozenEdgeReader r ) {
+            this.offsets = r.offsets;
+            this.unit = r.unit;
+            this.tgt = r.tgt;
+            this.kind = r.kind;
+            this.gone = r.gone;
+            this.delta = r.delta.clone();
+            this.src = r.src;
+            this.p = r.p;
+        }
+        /** Moves p to the next frozen edge that has not been removed, and
+         * src to its source; returns false if there is none. */
+        private boolean skip() {
+            while( p < unit.length && gone.get( p ) ) p++;
+            if( p >= unit.length ) return false;
+            while( offsets[src + 1] <= p ) src++;
+            return true;
+        }
+        public boolean hasNext() {
+            return skip() || delta.hasNext();
+        }
+        public Edge next() {
+            if( !skip() ) return delta.next();
+            Unit u = unit[p] < 0 ? null : units.get( unit[p] );
+            Edge ret = new Edge( methods.get( src ), u, methods.get( tgt[p] ), kinds.get( kind[p] ) );
+            p++;
+            return ret;
+        }
+        public QueueReader<Edge> clone() {
+            return new FrozenEdgeReader( this );
+        }
+    }
+
+    public int size() {
+        return frozenSize - removed.cardinality() + super.size();
+    }
+}
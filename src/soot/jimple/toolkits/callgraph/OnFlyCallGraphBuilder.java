@@ -463,6 +463,28 @@ public final class OnFlyCallGraphBuilder
             }
         }
     }
+    /** Returns the call sites whose targets depend on the types of the
+     * objects receiver points to, or null if there are none. */
+    public List<VirtualCallSite> callSitesOf( Local receiver ) {
+        return receiverToSites.get( receiver );
+    }
+    /** Forgets the call sites and static edges found in m, whose body has
+     * changed, and finds them again in its current body if m has already
+     * been reached. The caller removes the edges out of m from the call
+     * graph beforehand. Only the context-insensitive call graph is
+     * supported. */
+    public void methodChanged( SootMethod m ) {
+        forgetMethod( m );
+        if( !analyzedMethods.contains( m ) ) return;
+        processNewMethod( m );
+        processNewMethodContext( m );
+    }
+    /** Forgets the call sites and static edges found in m, which is no
+     * longer in the Scene. */
+    public void methodRemoved( SootMethod m ) {
+        forgetMethod( m );
+        analyzedMethods.remove( m );
+    }
     public boolean wantStringConstants( Local stringConst ) {
         return stringConstToSites.get(stringConst) != null;
     }
@@ -508,6 +530,23 @@ public final class OnFlyCallGraphBuilder
 
     /* End of public methods. */
 
+    private void forgetMethod( SootMethod m ) {
+        List<Local> receivers = methodToReceivers.get( m );
+        if( receivers != null ) {
+            for( Local receiver : receivers ) receiverToSites.put( receiver, null );
+            methodToReceivers.put( m, null );
+        }
+        List<Local> stringConstants = methodToStringConstants.get( m );
+        if( stringConstants != null ) {
+            for( Local l : stringConstants ) stringConstToSites.put( l, null );
+            methodToStringConstants.put( m, null );
+        }
+        List<Edge> edges = new ArrayList<Edge>();
+        for( Iterator<Edge> eIt = cicg.edgesOutOf( m ); eIt.hasNext(); ) {
+            edges.add( eIt.next() );
+        }
+        for( Edge e : edges ) cicg.removeEdge( e );
+    }
     private void addVirtualCallSite( Stmt s, SootMethod m, Local receiver,
             InstanceInvokeExpr iie, NumberedString subSig, Kind kind ) {
         List<VirtualCallSite> sites = (List<VirtualCallSite>) receiverToSites.get(receiver);
@@ -59,6 +59,11 @@ public class ReachableMethods
                 reachables.add( m );
             }
     }
+    /** Makes m reachable as an additional entry point, such as one that
+     * has replaced an entry point removed from the Scene. */
+    public void addEntryPoint( MethodOrMethodContext m ) {
+        addMethod( m );
+    }
     /** Causes the QueueReader objects to be filled up with any methods
      * that have become reachable since the last call. */
     public void update() {
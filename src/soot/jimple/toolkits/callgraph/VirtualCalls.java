@@ -32,9 +32,20 @@ public final class VirtualCalls
     public VirtualCalls( Singletons.Global g ) {}
     public static VirtualCalls v() { return G.v().soot_jimple_toolkits_callgraph_VirtualCalls(); }
 
-    private final LargeNumberedMap typeToVtbl =
+    /* The tables below are filled lazily, so all methods that use them
+     * are synchronized; demand-driven points-to queries resolve calls from
+     * several threads. */
+    private LargeNumberedMap typeToVtbl =
         new LargeNumberedMap( Scene.v().getTypeNumberer() );
 
+    /** Forgets all previously resolved targets. Must be called when
+     * classes have been added, removed or changed since the last call
+     * graph was built. */
+    public synchronized void clearCache() {
+        typeToVtbl = new LargeNumberedMap( Scene.v().getTypeNumberer() );
+        baseToSubTypes.clear();
+    }
+
     public SootMethod resolveSpecial( SpecialInvokeExpr iie, NumberedString subSig, SootMethod container ) {
         SootMethod target = iie.getMethod();
         /* cf. JVM spec, invokespecial instruction */
@@ -54,7 +65,7 @@ public final class VirtualCalls
         }
     }
 
-    public SootMethod resolveNonSpecial( RefType t, NumberedString subSig ) {
+    public synchronized SootMethod resolveNonSpecial( RefType t, NumberedString subSig ) {
         SmallNumberedMap vtbl = (SmallNumberedMap) typeToVtbl.get( t );
         if( vtbl == null ) {
             typeToVtbl.put( t, vtbl =
@@ -82,7 +93,7 @@ public final class VirtualCalls
     public void resolve( Type t, Type declaredType, NumberedString subSig, SootMethod container, ChunkedQueue targets ) {
         resolve(t, declaredType, null, subSig, container, targets);
     }
-    public void resolve( Type t, Type declaredType, Type sigType, NumberedString subSig, SootMethod container, ChunkedQueue targets ) {
+    public synchronized void resolve( Type t, Type declaredType, Type sigType, NumberedString subSig, SootMethod container, ChunkedQueue targets ) {
         if( declaredType instanceof ArrayType ) declaredType = RefType.v("java.lang.Object");
         if( sigType instanceof ArrayType ) sigType = RefType.v("java.lang.Object");
         if( t instanceof ArrayType ) t = RefType.v( "java.lang.Object" );
@@ -29,8 +29,23 @@ import soot.Unit;
 public abstract class DefaultJimpleIDETabulationProblem<D,V,I extends InterproceduralCFG<Unit,SootMethod>>
   extends DefaultIDETabulationProblem<Unit,D,SootMethod,V,I> {
 
+	private int numThreads;
+
 	public DefaultJimpleIDETabulationProblem(I icfg) {
 		super(icfg);
 	}
+
+	/**
+	 * Sets the number of threads the solver uses. With a value below one,
+	 * the default of one thread per available processor is used.
+	 */
+	public void setNumThreads(int numThreads) {
+		this.numThreads = numThreads;
+	}
+
+	@Override
+	public int numThreads() {
+		return numThreads > 0 ? numThreads : super.numThreads();
+	}
 	
 }
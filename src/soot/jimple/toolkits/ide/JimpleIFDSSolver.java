@@ -18,6 +18,7 @@
  */
 package soot.jimple.toolkits.ide;
 
+import heros.EdgeFunction;
 import heros.IFDSTabulationProblem;
 import heros.InterproceduralCFG;
 import heros.solver.IFDSSolver;
@@ -27,7 +28,11 @@ import java.io.FileOutputStream;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import soot.PatchingChain;
 import soot.SootMethod;
@@ -56,6 +61,37 @@ public class JimpleIFDSSolver<D, I extends InterproceduralCFG<Unit, SootMethod>>
 			dumpResults();
 	}
 
+	/**
+	 * Returns the end summaries computed for <code>m</code>. They map each fact
+	 * that reached a start point of <code>m</code> to the facts it gives rise
+	 * to at each exit statement of <code>m</code>. A fact that reached a start
+	 * point but no exit statement maps to an empty map. Should only be called
+	 * after {@link #solve()} has returned.
+	 */
+	public Map<D, Map<Unit, Set<D>>> endSummariesOf(SootMethod m) {
+		Map<D, Map<Unit, Set<D>>> res = new HashMap<D, Map<Unit, Set<D>>>();
+		for (Unit sP : icfg.getStartPointsOf(m)) {
+			// all path edges in m start with a fact at the start points
+			for (Cell<D, D, EdgeFunction<BinaryDomain>> jf : jumpFn.lookupByTarget(sP)) {
+				D d1 = jf.getRowKey();
+				Map<Unit, Set<D>> exits = res.get(d1);
+				if (exits == null) {
+					exits = new HashMap<Unit, Set<D>>();
+					res.put(d1, exits);
+				}
+				for (Cell<Unit, D, EdgeFunction<BinaryDomain>> es : endSummary(sP, d1)) {
+					Set<D> facts = exits.get(es.getRowKey());
+					if (facts == null) {
+						facts = new HashSet<D>();
+						exits.put(es.getRowKey(), facts);
+					}
+					facts.add(es.getColumnKey());
+				}
+			}
+		}
+		return res;
+	}
+
 	public void dumpResults() {
 		try {
 			PrintWriter out = new PrintWriter(new FileOutputStream("ideSolverDump" + System.currentTimeMillis() + ".csv"));
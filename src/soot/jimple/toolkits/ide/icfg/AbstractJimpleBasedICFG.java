@@ -1,17 +1,16 @@
 package soot.jimple.toolkits.ide.icfg;
 
-import heros.DontSynchronize;
 import heros.SynchronizedBy;
 import heros.solver.IDESolver;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import soot.Body;
 import soot.SootMethod;
@@ -28,8 +27,8 @@ import com.google.common.cache.LoadingCache;
 
 public abstract class AbstractJimpleBasedICFG implements BiDiInterproceduralCFG<Unit,SootMethod> {
 
-	@DontSynchronize("written by single thread; read afterwards")
-	protected final Map<Unit,Body> unitToOwner = new HashMap<Unit,Body>();
+	@SynchronizedBy("by use of ConcurrentHashMap; subclasses may add units while a solver runs")
+	protected final Map<Unit,Body> unitToOwner = new ConcurrentHashMap<Unit,Body>();
 	
 	@SynchronizedBy("by use of synchronized LoadingCache class")
 	protected final LoadingCache<Body,DirectedGraph<Unit>> bodyToUnitGraph = IDESolver.DEFAULT_CACHE_BUILDER.build( new CacheLoader<Body,DirectedGraph<Unit>>() {
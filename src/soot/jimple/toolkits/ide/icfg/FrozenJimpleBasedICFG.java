@@ -0,0 +1,345 @@
+package soot.jimple.toolkits.ide.icfg;
+
+import heros.DontSynchronize;
+import heros.ThreadSafe;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import soot.Body;
+import soot.MethodOrMethodContext;
+import soot.Scene;
+import soot.SootMethod;
+import soot.Unit;
+import soot.UnitBox;
+import soot.Value;
+import soot.toolkits.graph.DirectedGraph;
+
+/**
+ * An immutable copy of a {@link JimpleBasedInterproceduralCFG}. All unit graphs
+ * and call-site tables are computed once when the copy is made and stored in
+ * arrays indexed by dense unit and method numbers, so that lookups neither
+ * take locks nor go through caches. Units are numbered through a single
+ * identity hash table; methods through their {@link SootMethod#getNumber() number}.
+ *
+ * The copy covers the reachable methods that had an active body when it was
+ * made. Bodies must not be changed while it is in use.
+ */
+@ThreadSafe
+public class FrozenJimpleBasedICFG implements BiDiInterproceduralCFG<Unit,SootMethod> {
+
+	private static final byte CALL = 1, START = 2, EXIT = 4, RETURN_SITE = 8;
+
+	@DontSynchronize("readonly")
+	private final Unit[] unitTable;
+	@DontSynchronize("readonly")
+	private final int[] unitTableIndex;
+	@DontSynchronize("readonly")
+	private final Unit[] units;
+	@DontSynchronize("readonly")
+	private final int[] unitToMethod;
+	@DontSynchronize("readonly")
+	private final byte[] unitFlags;
+	@DontSynchronize("readonly")
+	private final List<Unit>[] succs;
+	@DontSynchronize("readonly")
+	private final List<Unit>[] preds;
+	@DontSynchronize("readonly")
+	private final Collection<SootMethod>[] callees;
+
+	@DontSynchronize("readonly")
+	private final int[] methodNumberToIndex;
+	@DontSynchronize("readonly")
+	private final SootMethod[] methods;
+	@DontSynchronize("readonly")
+	private final Body[] bodies;
+	@DontSynchronize("readonly")
+	private final DirectedGraph<Unit>[] graphs;
+	@DontSynchronize("readonly")
+	private final Collection<Unit>[] callers;
+	@DontSynchronize("readonly")
+	private final Set<Unit>[] callsFromWithin;
+	@DontSynchronize("readonly")
+	private final List<Value>[] parameterRefs;
+
+	/**
+	 * Freezes a new {@link JimpleBasedInterproceduralCFG} over the Scene's
+	 * call graph.
+	 */
+	public FrozenJimpleBasedICFG() {
+		this(new JimpleBasedInterproceduralCFG());
+	}
+
+	/**
+	 * Freezes a new {@link JimpleBasedInterproceduralCFG}, computing its
+	 * tables with <code>numThreads</code> threads first.
+	 */
+	public FrozenJimpleBasedICFG(int numThreads) {
+		this(new JimpleBasedInterproceduralCFG(numThreads));
+	}
+
+	/**
+	 * Copies <code>icfg</code> for all reachable methods that have an
+	 * active body.
+	 */
+	@SuppressWarnings("unchecked")
+	public FrozenJimpleBasedICFG(JimpleBasedInterproceduralCFG icfg) {
+		List<SootMethod> ms = new ArrayList<SootMethod>();
+		int unitCount = 0, maxNumber = 0;
+		for(Iterator<MethodOrMethodContext> iter = Scene.v().getReachableMethods().listener(); iter.hasNext(); ) {
+			SootMethod m = iter.next().method();
+			if(m.hasActiveBody()) {
+				Scene.v().getMethodNumberer().add(m);
+				ms.add(m);
+				unitCount += m.getActiveBody().getUnits().size();
+				maxNumber = Math.max(maxNumber, m.getNumber());
+			}
+		}
+
+		methods = ms.toArray(new SootMethod[ms.size()]);
+		bodies = new Body[methods.length];
+		graphs = new DirectedGraph[methods.length];
+		callers = new Collection[methods.length];
+		callsFromWithin = new Set[methods.length];
+		parameterRefs = new List[methods.length];
+		methodNumberToIndex = new int[maxNumber + 1];
+
+		units = new Unit[unitCount];
+		unitToMethod = new int[unitCount];
+		unitFlags = new byte[unitCount];
+		succs = new List[unitCount];
+		preds = new List[unitCount];
+		callees = new Collection[unitCount];
+		int tableSize = Integer.highestOneBit(Math.max(unitCount, 1)) << 2;
+		unitTable = new Unit[tableSize];
+		unitTableIndex = new int[tableSize];
+
+		int next = 0;
+		for (int mi = 0; mi < methods.length; mi++) {
+			SootMethod m = methods[mi];
+			Body b = m.getActiveBody();
+			DirectedGraph<Unit> graph = icfg.getOrCreateUnitGraph(b);
+			methodNumberToIndex[m.getNumber()] = mi + 1;
+			bodies[mi] = b;
+			graphs[mi] = graph;
+			parameterRefs[mi] = icfg.getParameterRefs(m);
+			callsFromWithin[mi] = Collections.unmodifiableSet(new LinkedHashSet<Unit>(icfg.getCallsFromWithin(m)));
+			callers[mi] = Collections.unmodifiableList(new ArrayList<Unit>(icfg.getCallersOf(m)));
+
+			for (Unit u : b.getUnits()) {
+				int ui = next++;
+				units[ui] = u;
+				unitToMethod[ui] = mi;
+				succs[ui] = graph.getSuccsOf(u);
+				preds[ui] = graph.getPredsOf(u);
+				byte flags = 0;
+				if (icfg.isCallStmt(u)) {
+					flags |= CALL;
+					callees[ui] = Collections.unmodifiableList(new ArrayList<SootMethod>(icfg.getCalleesOfCallAt(u)));
+				}
+				put(u, ui);
+				unitFlags[ui] = flags;
+			}
+			for (Unit u : graph.getHeads())
+				unitFlags[indexOf(u)] |= START;
+			for (Unit u : graph.getTails())
+				unitFlags[indexOf(u)] |= EXIT;
+		}
+		for (int ui = 0; ui < unitCount; ui++) {
+			if ((unitFlags[ui] & CALL) != 0) {
+				for (Unit succ : succs[ui])
+					unitFlags[indexOf(succ)] |= RETURN_SITE;
+			}
+		}
+	}
+
+	private static int hash(Unit u) {
+		int h = System.identityHashCode(u);
+		return h ^ (h >>> 16);
+	}
+
+	private void put(Unit u, int index) {
+		int mask = unitTable.length - 1;
+		int i = hash(u) & mask;
+		while (unitTable[i] != null)
+			i = (i + 1) & mask;
+		unitTable[i] = u;
+		unitTableIndex[i] = index;
+	}
+
+	/**
+	 * Returns the number of <code>u</code> in this ICFG, or -1 if it does
+	 * not belong to a method covered by it.
+	 */
+	public int indexOf(Unit u) {
+		int mask = unitTable.length - 1;
+		int i = hash(u) & mask;
+		Unit k;
+		while ((k = unitTable[i]) != null) {
+			if (k == u)
+				return unitTableIndex[i];
+			i = (i + 1) & mask;
+		}
+		return -1;
+	}
+
+	/** Returns the unit numbered <code>index</code>. */
+	public Unit getUnit(int index) {
+		return units[index];
+	}
+
+	/** Returns the number of units covered by this ICFG. */
+	public int size() {
+		return units.length;
+	}
+
+	private int methodIndex(SootMethod m) {
+		int n = m.getNumber();
+		if (n <= 0 || n >= methodNumberToIndex.length)
+			return -1;
+		int mi = methodNumberToIndex[n] - 1;
+		return mi >= 0 && methods[mi] == m ? mi : -1;
+	}
+
+	private int unitIndex(Unit u) {
+		int ui = indexOf(u);
+		if (ui < 0)
+			throw new IllegalArgumentException("Unit not covered by this ICFG: " + u);
+		return ui;
+	}
+
+	@Override
+	public SootMethod getMethodOf(Unit u) {
+		return methods[unitToMethod[unitIndex(u)]];
+	}
+
+	@Override
+	public List<Unit> getSuccsOf(Unit u) {
+		return succs[unitIndex(u)];
+	}
+
+	@Override
+	public List<Unit> getPredsOf(Unit u) {
+		assert u != null;
+		return preds[unitIndex(u)];
+	}
+
+	@Override
+	public Collection<SootMethod> getCalleesOfCallAt(Unit u) {
+		Collection<SootMethod> res = callees[unitIndex(u)];
+		return res == null ? Collections.<SootMethod>emptyList() : res;
+	}
+
+	@Override
+	public Collection<Unit> getCallersOf(SootMethod m) {
+		int mi = methodIndex(m);
+		return mi < 0 ? Collections.<Unit>emptyList() : callers[mi];
+	}
+
+	@Override
+	public Set<Unit> getCallsFromWithin(SootMethod m) {
+		int mi = methodIndex(m);
+		return mi < 0 ? Collections.<Unit>emptySet() : callsFromWithin[mi];
+	}
+
+	@Override
+	public Collection<Unit> getStartPointsOf(SootMethod m) {
+		int mi = methodIndex(m);
+		return mi < 0 ? Collections.<Unit>emptySet() : graphs[mi].getHeads();
+	}
+
+	@Override
+	public Collection<Unit> getEndPointsOf(SootMethod m) {
+		int mi = methodIndex(m);
+		return mi < 0 ? Collections.<Unit>emptySet() : graphs[mi].getTails();
+	}
+
+	@Override
+	public Collection<Unit> getReturnSitesOfCallAt(Unit u) {
+		return getSuccsOf(u);
+	}
+
+	@Override
+	public List<Unit> getPredsOfCallAt(Unit u) {
+		return getPredsOf(u);
+	}
+
+	@Override
+	public boolean isCallStmt(Unit u) {
+		return (unitFlags[unitIndex(u)] & CALL) != 0;
+	}
+
+	@Override
+	public boolean isExitStmt(Unit u) {
+		return (unitFlags[unitIndex(u)] & EXIT) != 0;
+	}
+
+	@Override
+	public boolean isStartPoint(Unit u) {
+		return (unitFlags[unitIndex(u)] & START) != 0;
+	}
+
+	@Override
+	public boolean isReturnSite(Unit n) {
+		return (unitFlags[unitIndex(n)] & RETURN_SITE) != 0;
+	}
+
+	@Override
+	public Set<Unit> allNonCallStartNodes() {
+		Set<Unit> res = new LinkedHashSet<Unit>();
+		for (int ui = 0; ui < units.length; ui++) {
+			if ((unitFlags[ui] & (START | CALL)) == 0)
+				res.add(units[ui]);
+		}
+		return res;
+	}
+
+	@Override
+	public Set<Unit> allNonCallEndNodes() {
+		Set<Unit> res = new LinkedHashSet<Unit>();
+		for (int ui = 0; ui < units.length; ui++) {
+			if ((unitFlags[ui] & (EXIT | CALL)) == 0)
+				res.add(units[ui]);
+		}
+		return res;
+	}
+
+	@Override
+	public boolean isFallThroughSuccessor(Unit u, Unit succ) {
+		assert getSuccsOf(u).contains(succ);
+		if(!u.fallsThrough()) return false;
+		Body body = bodies[unitToMethod[unitIndex(u)]];
+		return body.getUnits().getSuccOf(u) == succ;
+	}
+
+	@Override
+	public boolean isBranchTarget(Unit u, Unit succ) {
+		assert getSuccsOf(u).contains(succ);
+		if(!u.branches()) return false;
+		for (UnitBox ub : succ.getUnitBoxes()) {
+			if(ub.getUnit()==succ) return true;
+		}
+		return false;
+	}
+
+	@Override
+	public DirectedGraph<Unit> getOrCreateUnitGraph(SootMethod m) {
+		int mi = methodIndex(m);
+		if (mi < 0)
+			throw new IllegalArgumentException("Method not covered by this ICFG: " + m);
+		return graphs[mi];
+	}
+
+	@Override
+	public List<Value> getParameterRefs(SootMethod m) {
+		int mi = methodIndex(m);
+		if (mi < 0)
+			throw new IllegalArgumentException("Method not covered by this ICFG: " + m);
+		return parameterRefs[mi];
+	}
+}
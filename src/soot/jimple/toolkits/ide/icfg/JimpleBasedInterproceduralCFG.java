@@ -27,6 +27,11 @@ import heros.solver.IDESolver;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import soot.Body;
 import soot.MethodOrMethodContext;
@@ -38,6 +43,8 @@ import soot.jimple.toolkits.callgraph.CallGraph;
 import soot.jimple.toolkits.callgraph.Edge;
 import soot.jimple.toolkits.callgraph.EdgePredicate;
 import soot.jimple.toolkits.callgraph.Filter;
+import soot.toolkits.exceptions.ThrowableSet;
+import soot.toolkits.exceptions.UnitThrowAnalysis;
 
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
@@ -50,6 +57,8 @@ import com.google.common.cache.LoadingCache;
  * 
  * This class is designed to be thread safe, and subclasses of this class must be designed
  * in a thread-safe way, too.
+ * 
+ * @see FrozenJimpleBasedICFG for an immutable, array-based copy of this ICFG
  */
 @ThreadSafe
 public class JimpleBasedInterproceduralCFG extends AbstractJimpleBasedICFG {
@@ -113,6 +122,77 @@ public class JimpleBasedInterproceduralCFG extends AbstractJimpleBasedICFG {
 		initializeUnitToOwner();
 	}
 
+	/**
+	 * Creates an ICFG whose unit graphs, parameter refs and call-site tables
+	 * are computed up front for all reachable methods, using <code>numThreads</code>
+	 * threads. Solvers running on many threads then mostly read from the caches
+	 * instead of contending to fill them.
+	 */
+	public JimpleBasedInterproceduralCFG(int numThreads) {
+		this();
+		prebuild(numThreads);
+	}
+
+	/**
+	 * Computes the unit graph, the parameter refs, the calls made from within
+	 * and the callers of every reachable method with an active body, and the
+	 * callees of every such call, using <code>numThreads</code> threads.
+	 */
+	public void prebuild(int numThreads) {
+		List<SootMethod> methods = new ArrayList<SootMethod>();
+		for(Iterator<MethodOrMethodContext> iter = Scene.v().getReachableMethods().listener(); iter.hasNext(); ) {
+			SootMethod m = iter.next().method();
+			if(m.hasActiveBody())
+				methods.add(m);
+		}
+
+		// make sure that lazily built global structures exist before the
+		// workers start asking for them
+		Scene.v().getOrMakeFastHierarchy();
+		ThrowableSet.Manager.v();
+		UnitThrowAnalysis.v();
+
+		if(numThreads <= 1) {
+			for (SootMethod m : methods)
+				prebuild(m);
+			return;
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+		try {
+			List<Future<?>> results = new ArrayList<Future<?>>(methods.size());
+			for (final SootMethod m : methods) {
+				results.add(executor.submit(new Runnable() {
+					public void run() {
+						prebuild(m);
+					}
+				}));
+			}
+			for (Future<?> f : results)
+				f.get();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw new RuntimeException(cause);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while building the ICFG", e);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void prebuild(SootMethod m) {
+		getOrCreateUnitGraph(m.getActiveBody());
+		getParameterRefs(m);
+		for (Unit u : getCallsFromWithin(m))
+			getCalleesOfCallAt(u);
+		getCallersOf(m);
+	}
+
 	protected void initializeUnitToOwner() {
 		for(Iterator<MethodOrMethodContext> iter = Scene.v().getReachableMethods().listener(); iter.hasNext(); ) {
 			SootMethod m = iter.next().method();
@@ -6,12 +6,13 @@ import heros.solver.IDESolver;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import soot.ArrayType;
 import soot.Body;
@@ -109,8 +110,8 @@ public class OnTheFlyJimpleBasedICFG extends AbstractJimpleBasedICFG {
 				}
 			});
 	
-	@SynchronizedBy("explicit lock on data structure")
-	protected Map<SootMethod, Set<Unit>> methodToCallers = new HashMap<SootMethod, Set<Unit>>();
+	@SynchronizedBy("by use of ConcurrentHashMap and concurrent caller sets")
+	protected final ConcurrentMap<SootMethod, Set<Unit>> methodToCallers = new ConcurrentHashMap<SootMethod, Set<Unit>>();
 	
 	public OnTheFlyJimpleBasedICFG(SootMethod... entryPoints) {
 		this(Arrays.asList(entryPoints));
@@ -165,14 +166,14 @@ public class OnTheFlyJimpleBasedICFG extends AbstractJimpleBasedICFG {
 	}
 	
 	private void addCallerForMethod(Unit callSite, SootMethod target) {
-		synchronized (methodToCallers) {
-			Set<Unit> callers = methodToCallers.get(target);
-			if (callers == null) {
-				callers = new HashSet<Unit>();
-				methodToCallers.put(target, callers);
-			}
-			callers.add(callSite);
+		Set<Unit> callers = methodToCallers.get(target);
+		if (callers == null) {
+			callers = Collections.newSetFromMap(new ConcurrentHashMap<Unit, Boolean>());
+			Set<Unit> old = methodToCallers.putIfAbsent(target, callers);
+			if (old != null)
+				callers = old;
 		}
+		callers.add(callSite);
 	}
 
 	@Override
@@ -0,0 +1,28 @@
+package soot.jimple.toolkits.ide.libsumm;
+
+import soot.Body;
+
+/**
+ * Translates the data-flow facts of an IFDS problem to and from strings, so
+ * that a {@link SummaryStore} can keep them on disk. Facts are encoded in the
+ * context of the body of the method they hold in, so that a fact naming a
+ * local can be decoded to the corresponding local of the same body in a later
+ * run. The zero value is handled by the store and never passed to a codec.
+ */
+public interface FactCodec<D> {
+
+	/**
+	 * Encodes <code>fact</code>, which holds in <code>body</code>. Returns
+	 * <code>null</code> if the fact cannot be encoded; summaries involving it
+	 * are then not stored.
+	 */
+	String encode(D fact, Body body);
+
+	/**
+	 * Decodes a fact encoded by {@link #encode(Object, Body)} for the
+	 * equivalent of <code>body</code>. Returns <code>null</code> if it cannot
+	 * be decoded; summaries involving it are then not used.
+	 */
+	D decode(String encoded, Body body);
+
+}
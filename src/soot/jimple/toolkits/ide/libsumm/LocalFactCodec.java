@@ -0,0 +1,27 @@
+package soot.jimple.toolkits.ide.libsumm;
+
+import soot.Body;
+import soot.Local;
+
+/**
+ * A {@link FactCodec} for problems whose facts are the locals of a body, such
+ * as {@link soot.jimple.toolkits.ide.exampleproblems.IFDSLocalInfoFlow}.
+ * Locals are encoded by name.
+ */
+public class LocalFactCodec implements FactCodec<Local> {
+
+	@Override
+	public String encode(Local fact, Body body) {
+		return fact.getName();
+	}
+
+	@Override
+	public Local decode(String encoded, Body body) {
+		for (Local l : body.getLocals()) {
+			if (l.getName().equals(encoded))
+				return l;
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,169 @@
+package soot.jimple.toolkits.ide.libsumm;
+
+import heros.FlowFunction;
+import heros.FlowFunctions;
+import heros.IFDSTabulationProblem;
+import heros.InterproceduralCFG;
+import heros.ZeroedFlowFunctions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import soot.SootMethod;
+import soot.Unit;
+
+/**
+ * Wraps an IFDS problem so that calls to methods with summaries in a
+ * {@link SummaryStore} are not analysed again. For a fact that would flow
+ * into such a method and for which a summary is stored, the call flow
+ * function drops the fact and the call-to-return flow function instead
+ * produces what the summary yields at the return site. Facts without a stored
+ * summary flow into the callee as usual. Since the store only summarizes
+ * methods that cannot call back into application code, no fact is kept from
+ * reaching an application method this way.
+ *
+ * After solving, {@link SummaryStore#record(soot.jimple.toolkits.ide.JimpleIFDSSolver, Object)}
+ * adds the summaries of the library methods that were analysed to the store.
+ */
+public class SummarizedIFDSTabulationProblem<D, I extends InterproceduralCFG<Unit, SootMethod>>
+		implements IFDSTabulationProblem<Unit, D, SootMethod, I> {
+
+	private final IFDSTabulationProblem<Unit, D, SootMethod, I> delegate;
+	private final SummaryStore<D> store;
+	private FlowFunctions<Unit, D, SootMethod> flowFunctions;
+
+	public SummarizedIFDSTabulationProblem(IFDSTabulationProblem<Unit, D, SootMethod, I> delegate, SummaryStore<D> store) {
+		this.delegate = delegate;
+		this.store = store;
+	}
+
+	@Override
+	public synchronized FlowFunctions<Unit, D, SootMethod> flowFunctions() {
+		if (flowFunctions == null) {
+			// add the zero value here rather than in the solver, so that
+			// it is not passed into summarized methods again
+			FlowFunctions<Unit, D, SootMethod> ff = delegate.flowFunctions();
+			if (delegate.autoAddZero())
+				ff = new ZeroedFlowFunctions<Unit, D, SootMethod>(ff, zeroValue());
+			flowFunctions = new SummarizedFlowFunctions(ff);
+		}
+		return flowFunctions;
+	}
+
+	private class SummarizedFlowFunctions implements FlowFunctions<Unit, D, SootMethod> {
+		private final FlowFunctions<Unit, D, SootMethod> ff;
+
+		SummarizedFlowFunctions(FlowFunctions<Unit, D, SootMethod> ff) {
+			this.ff = ff;
+		}
+
+		@Override
+		public FlowFunction<D> getNormalFlowFunction(Unit curr, Unit succ) {
+			return ff.getNormalFlowFunction(curr, succ);
+		}
+
+		@Override
+		public FlowFunction<D> getCallFlowFunction(Unit callStmt, final SootMethod destinationMethod) {
+			final FlowFunction<D> call = ff.getCallFlowFunction(callStmt, destinationMethod);
+			final D zero = zeroValue();
+			if (!store.hasSummaries(destinationMethod, zero))
+				return call;
+			return new FlowFunction<D>() {
+				@Override
+				public Set<D> computeTargets(D source) {
+					Set<D> res = null;
+					for (D d : call.computeTargets(source)) {
+						if (store.getSummary(destinationMethod, d, zero) == null) {
+							if (res == null)
+								res = new HashSet<D>();
+							res.add(d);
+						}
+					}
+					return res == null ? Collections.<D>emptySet() : res;
+				}
+			};
+		}
+
+		@Override
+		public FlowFunction<D> getReturnFlowFunction(Unit callSite, SootMethod calleeMethod, Unit exitStmt, Unit returnSite) {
+			return ff.getReturnFlowFunction(callSite, calleeMethod, exitStmt, returnSite);
+		}
+
+		@Override
+		public FlowFunction<D> getCallToReturnFlowFunction(final Unit callSite, final Unit returnSite) {
+			final FlowFunction<D> callToReturn = ff.getCallToReturnFlowFunction(callSite, returnSite);
+			final D zero = zeroValue();
+			final List<SootMethod> summarized = new ArrayList<SootMethod>();
+			for (SootMethod m : interproceduralCFG().getCalleesOfCallAt(callSite)) {
+				if (store.hasSummaries(m, zero))
+					summarized.add(m);
+			}
+			if (summarized.isEmpty())
+				return callToReturn;
+			return new FlowFunction<D>() {
+				@Override
+				public Set<D> computeTargets(D source) {
+					Set<D> res = new HashSet<D>(callToReturn.computeTargets(source));
+					for (SootMethod m : summarized) {
+						for (D d : ff.getCallFlowFunction(callSite, m).computeTargets(source)) {
+							Map<Unit, Set<D>> summary = store.getSummary(m, d, zero);
+							if (summary == null)
+								continue;
+							for (Map.Entry<Unit, Set<D>> exit : summary.entrySet()) {
+								FlowFunction<D> ret = ff.getReturnFlowFunction(callSite, m, exit.getKey(), returnSite);
+								for (D fact : exit.getValue())
+									res.addAll(ret.computeTargets(fact));
+							}
+						}
+					}
+					return res;
+				}
+			};
+		}
+	}
+
+	@Override
+	public I interproceduralCFG() {
+		return delegate.interproceduralCFG();
+	}
+
+	@Override
+	public Map<Unit, Set<D>> initialSeeds() {
+		return delegate.initialSeeds();
+	}
+
+	@Override
+	public D zeroValue() {
+		return delegate.zeroValue();
+	}
+
+	@Override
+	public boolean followReturnsPastSeeds() {
+		return delegate.followReturnsPastSeeds();
+	}
+
+	@Override
+	public boolean autoAddZero() {
+		return false;
+	}
+
+	@Override
+	public int numThreads() {
+		return delegate.numThreads();
+	}
+
+	@Override
+	public boolean computeValues() {
+		return delegate.computeValues();
+	}
+
+	@Override
+	public boolean recordEdges() {
+		return delegate.recordEdges();
+	}
+
+}
@@ -0,0 +1,492 @@
+package soot.jimple.toolkits.ide.libsumm;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import soot.Body;
+import soot.PhaseOptions;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.Trap;
+import soot.Unit;
+import soot.jimple.toolkits.callgraph.CallGraph;
+import soot.jimple.toolkits.callgraph.Edge;
+import soot.jimple.toolkits.ide.JimpleIFDSSolver;
+
+/**
+ * Keeps the end summaries of library methods computed by a
+ * {@link JimpleIFDSSolver}, so that later runs of the same problem can apply
+ * them instead of analysing the library methods again; see
+ * {@link SummarizedIFDSTabulationProblem}.
+ *
+ * Summaries are keyed by method signature and by a hash of the Jimple bodies
+ * of the method and of all methods it transitively calls, and are dropped
+ * when any of these bodies has changed. Files are also tagged with the call
+ * graph options, since these decide which methods are called. Facts are
+ * stored through a {@link FactCodec}, exit statements by their position in
+ * the body.
+ *
+ * A summary stands for everything the method does, including what flows
+ * into the methods it calls. Methods that may call back into application
+ * code are therefore never summarized; see {@link #isSummarized(SootMethod)}.
+ */
+public class SummaryStore<D> {
+
+	private static final int VERSION = 3;
+	private static final String ZERO = "0";
+	private static final String FACT = "+";
+
+	private final String problemKey;
+	private final FactCodec<D> codec;
+
+	/** Summaries in their stored form, by method signature. */
+	private final Map<String, StoredMethod> stored = new LinkedHashMap<String, StoredMethod>();
+
+	/** Summaries decoded for the current Scene. */
+	private final Map<SootMethod, Map<D, Map<Unit, Set<D>>>> decoded =
+			new ConcurrentHashMap<SootMethod, Map<D, Map<Unit, Set<D>>>>();
+
+	/** The call graph that {@link #reachesApplication} and {@link #keys} were computed for. */
+	private CallGraph callGraph;
+	/** Methods that may transitively call a method of an application class. */
+	private Set<SootMethod> reachesApplication;
+	/**
+	 * Hashes of the code of each method and its transitive callees, computed
+	 * once per call graph by {@link #computeKeys(SootMethod)}.
+	 */
+	private final Map<SootMethod, Long> keys = new HashMap<SootMethod, Long>();
+
+	private static class StoredMethod {
+		final long hash;
+		final Map<String, List<StoredExit>> entries = new LinkedHashMap<String, List<StoredExit>>();
+
+		StoredMethod(long hash) {
+			this.hash = hash;
+		}
+	}
+
+	private static class StoredExit {
+		final int unit;
+		final String fact;
+
+		StoredExit(int unit, String fact) {
+			this.unit = unit;
+			this.fact = fact;
+		}
+	}
+
+	/**
+	 * Creates an empty store for the problem identified by
+	 * <code>problemKey</code>. Only files written for the same key are
+	 * loaded.
+	 */
+	public SummaryStore(String problemKey, FactCodec<D> codec) {
+		this.problemKey = problemKey;
+		this.codec = codec;
+	}
+
+	/**
+	 * Returns whether summaries of <code>m</code> are recorded and applied.
+	 * By default these are the methods of library classes that cannot
+	 * transitively call a method of an application class, such as a callback,
+	 * according to the Scene's call graph. Without a call graph, no method is
+	 * summarized.
+	 */
+	public boolean isSummarized(SootMethod m) {
+		if (!m.isConcrete() || m.getDeclaringClass().isApplicationClass() || !Scene.v().hasCallGraph())
+			return false;
+		synchronized (this) {
+			update();
+			return !reachesApplication.contains(m);
+		}
+	}
+
+	/**
+	 * Drops everything derived from the call graph if the Scene's call graph
+	 * is not the one it was computed for.
+	 */
+	private void update() {
+		CallGraph cg = Scene.v().getCallGraph();
+		if (cg == callGraph)
+			return;
+		callGraph = cg;
+		keys.clear();
+		decoded.clear();
+
+		// walk the call graph backwards from the application methods
+		reachesApplication = new HashSet<SootMethod>();
+		List<SootMethod> worklist = new ArrayList<SootMethod>();
+		for (Iterator<Edge> it = cg.listener(); it.hasNext(); ) {
+			SootMethod tgt = it.next().tgt();
+			if (tgt.getDeclaringClass().isApplicationClass() && reachesApplication.add(tgt))
+				worklist.add(tgt);
+		}
+		while (!worklist.isEmpty()) {
+			SootMethod m = worklist.remove(worklist.size() - 1);
+			for (Iterator<Edge> it = cg.edgesInto(m); it.hasNext(); ) {
+				SootMethod src = it.next().src();
+				if (reachesApplication.add(src))
+					worklist.add(src);
+			}
+		}
+	}
+
+	/**
+	 * Returns the hash that summaries of <code>m</code> are stored under,
+	 * which covers the body of <code>m</code> and the bodies of all methods
+	 * that <code>m</code> transitively calls.
+	 */
+	private synchronized long keyOf(SootMethod m) {
+		update();
+		Long key = keys.get(m);
+		if (key == null) {
+			computeKeys(m);
+			key = keys.get(m);
+		}
+		return key;
+	}
+
+	/**
+	 * Computes the keys of <code>root</code> and of all methods it
+	 * transitively calls that have no key yet. The strongly connected
+	 * components of the call graph are found with Tarjan's algorithm, which
+	 * completes each component after all components it calls, so a component
+	 * is keyed by the bodies of its own methods and the keys of its callees.
+	 */
+	private void computeKeys(SootMethod root) {
+		Map<SootMethod, Integer> index = new HashMap<SootMethod, Integer>();
+		Map<SootMethod, Integer> lowLink = new HashMap<SootMethod, Integer>();
+		List<SootMethod> stack = new ArrayList<SootMethod>();
+		Set<SootMethod> onStack = new HashSet<SootMethod>();
+		List<SootMethod> path = new ArrayList<SootMethod>();
+		List<Iterator<Edge>> pathEdges = new ArrayList<Iterator<Edge>>();
+
+		index.put(root, 0);
+		lowLink.put(root, 0);
+		stack.add(root);
+		onStack.add(root);
+		path.add(root);
+		pathEdges.add(callGraph.edgesOutOf(root));
+		while (!path.isEmpty()) {
+			int top = path.size() - 1;
+			SootMethod m = path.get(top);
+			Iterator<Edge> it = pathEdges.get(top);
+			if (it.hasNext()) {
+				SootMethod tgt = it.next().tgt();
+				if (keys.containsKey(tgt))
+					continue;
+				if (!index.containsKey(tgt)) {
+					index.put(tgt, index.size());
+					lowLink.put(tgt, index.get(tgt));
+					stack.add(tgt);
+					onStack.add(tgt);
+					path.add(tgt);
+					pathEdges.add(callGraph.edgesOutOf(tgt));
+				} else if (onStack.contains(tgt)) {
+					lowLink.put(m, Math.min(lowLink.get(m), index.get(tgt)));
+				}
+				continue;
+			}
+			path.remove(top);
+			pathEdges.remove(top);
+			if (top > 0) {
+				SootMethod caller = path.get(top - 1);
+				lowLink.put(caller, Math.min(lowLink.get(caller), lowLink.get(m)));
+			}
+			if (lowLink.get(m).equals(index.get(m))) {
+				List<SootMethod> component = stack.subList(stack.lastIndexOf(m), stack.size());
+				onStack.removeAll(component);
+				keyComponent(new HashSet<SootMethod>(component));
+				component.clear();
+			}
+		}
+	}
+
+	/**
+	 * Gives all methods of a strongly connected component the same key, from
+	 * their bodies and the keys of the components they call, each visited in
+	 * a fixed order so that equal code gives an equal key in every run.
+	 */
+	private void keyComponent(Set<SootMethod> component) {
+		TreeMap<String, SootMethod> members = new TreeMap<String, SootMethod>();
+		TreeSet<Long> calleeKeys = new TreeSet<Long>();
+		for (SootMethod m : component) {
+			members.put(m.getSignature(), m);
+			for (Iterator<Edge> it = callGraph.edgesOutOf(m); it.hasNext(); ) {
+				SootMethod tgt = it.next().tgt();
+				if (!component.contains(tgt))
+					calleeKeys.add(keys.get(tgt));
+			}
+		}
+		long h = 0xcbf29ce484222325L;
+		for (SootMethod m : members.values()) {
+			h = hash(h, m.getSignature());
+			if (m.isConcrete())
+				h = hash(h, Long.toHexString(hashOf(m.retrieveActiveBody())));
+		}
+		for (Long key : calleeKeys)
+			h = hash(h, Long.toHexString(key));
+		for (SootMethod m : component)
+			keys.put(m, h);
+	}
+
+	/**
+	 * Returns a description of the options of the call graph phase and of
+	 * the call graph builder that is enabled. Files written under other
+	 * options are not loaded.
+	 */
+	public static String callGraphConfiguration() {
+		StringBuilder sb = new StringBuilder();
+		for (String phase : new String[] { "cg", "cg.cha", "cg.spark", "cg.paddle" }) {
+			Map<String, String> options = PhaseOptions.v().getPhaseOptions(phase);
+			if (!phase.equals("cg") && !PhaseOptions.getBoolean(options, "enabled"))
+				continue;
+			sb.append(phase).append(new TreeMap<String, String>(options)).append(';');
+		}
+		return sb.toString();
+	}
+
+	/** Returns the number of methods with stored summaries. */
+	public synchronized int size() {
+		return stored.size();
+	}
+
+	/**
+	 * Records the end summaries that <code>solver</code> computed for all
+	 * summarized methods with an active body. Summaries already stored for a
+	 * method with the same body are kept and extended. Returns the number of
+	 * methods for which summaries were recorded.
+	 */
+	public synchronized int record(JimpleIFDSSolver<D, ?> solver, D zeroValue) {
+		int count = 0;
+		for (SootClass c : new ArrayList<SootClass>(Scene.v().getClasses())) {
+			for (SootMethod m : c.getMethods()) {
+				if (!m.hasActiveBody() || !isSummarized(m))
+					continue;
+				Map<D, Map<Unit, Set<D>>> summaries = solver.endSummariesOf(m);
+				if (summaries.isEmpty())
+					continue;
+				record(m, summaries, zeroValue);
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Records the end summaries of <code>m</code>, given in the form of
+	 * {@link JimpleIFDSSolver#endSummariesOf(SootMethod)}. Does nothing if
+	 * <code>m</code> is not summarized or has no active body.
+	 */
+	public synchronized void record(SootMethod m, Map<D, Map<Unit, Set<D>>> summaries, D zeroValue) {
+		if (!m.hasActiveBody() || !isSummarized(m))
+			return;
+		Body b = m.getActiveBody();
+		long hash = keyOf(m);
+		StoredMethod sm = stored.get(m.getSignature());
+		if (sm == null || sm.hash != hash) {
+			sm = new StoredMethod(hash);
+			stored.put(m.getSignature(), sm);
+		}
+		Map<Unit, Integer> unitIndex = new HashMap<Unit, Integer>();
+		for (Unit u : b.getUnits())
+			unitIndex.put(u, unitIndex.size());
+
+		entries:
+		for (Map.Entry<D, Map<Unit, Set<D>>> e : summaries.entrySet()) {
+			String d1 = encode(e.getKey(), zeroValue, b);
+			if (d1 == null)
+				continue;
+			List<StoredExit> exits = new ArrayList<StoredExit>();
+			for (Map.Entry<Unit, Set<D>> exit : e.getValue().entrySet()) {
+				int unit = unitIndex.get(exit.getKey());
+				for (D fact : exit.getValue()) {
+					String d2 = encode(fact, zeroValue, b);
+					// an incomplete summary would be unsound
+					if (d2 == null)
+						continue entries;
+					exits.add(new StoredExit(unit, d2));
+				}
+			}
+			sm.entries.put(d1, exits);
+		}
+		decoded.remove(m);
+	}
+
+	/**
+	 * Returns whether summaries are stored for <code>m</code> that match its
+	 * current body.
+	 */
+	public boolean hasSummaries(SootMethod m, D zeroValue) {
+		return !decode(m, zeroValue).isEmpty();
+	}
+
+	/**
+	 * Returns the facts that <code>d1</code> at the start of <code>m</code>
+	 * gives rise to at each exit statement of <code>m</code>, or
+	 * <code>null</code> if no summary for <code>d1</code> is stored.
+	 */
+	public Map<Unit, Set<D>> getSummary(SootMethod m, D d1, D zeroValue) {
+		return decode(m, zeroValue).get(d1);
+	}
+
+	private Map<D, Map<Unit, Set<D>>> decode(SootMethod m, D zeroValue) {
+		Map<D, Map<Unit, Set<D>>> res = decoded.get(m);
+		if (res != null)
+			return res;
+
+		res = Collections.emptyMap();
+		StoredMethod sm;
+		synchronized (this) {
+			sm = stored.get(m.getSignature());
+		}
+		if (sm != null && m.hasActiveBody() && isSummarized(m) && sm.hash == keyOf(m)) {
+			Body b = m.getActiveBody();
+			Unit[] units = b.getUnits().toArray(new Unit[b.getUnits().size()]);
+			res = new HashMap<D, Map<Unit, Set<D>>>();
+			entries:
+			for (Map.Entry<String, List<StoredExit>> e : sm.entries.entrySet()) {
+				D d1 = decode(e.getKey(), zeroValue, b);
+				if (d1 == null)
+					continue;
+				Map<Unit, Set<D>> exits = new HashMap<Unit, Set<D>>();
+				for (StoredExit se : e.getValue()) {
+					D d2 = decode(se.fact, zeroValue, b);
+					if (d2 == null)
+						continue entries;
+					Set<D> facts = exits.get(units[se.unit]);
+					if (facts == null) {
+						facts = new HashSet<D>();
+						exits.put(units[se.unit], facts);
+					}
+					facts.add(d2);
+				}
+				res.put(d1, exits);
+			}
+		}
+		decoded.put(m, res);
+		return res;
+	}
+
+	private String encode(D fact, D zeroValue, Body b) {
+		if (fact == zeroValue)
+			return ZERO;
+		String s = codec.encode(fact, b);
+		return s == null ? null : FACT + s;
+	}
+
+	private D decode(String s, D zeroValue, Body b) {
+		if (s.equals(ZERO))
+			return zeroValue;
+		return codec.decode(s.substring(FACT.length()), b);
+	}
+
+	/**
+	 * Returns a hash of the statements and traps of <code>b</code>, used to
+	 * detect that a stored summary was computed from different code.
+	 */
+	public static long hashOf(Body b) {
+		long h = 0xcbf29ce484222325L;
+		Map<Unit, Integer> unitIndex = new HashMap<Unit, Integer>();
+		for (Unit u : b.getUnits()) {
+			unitIndex.put(u, unitIndex.size());
+			h = hash(h, u.toString());
+		}
+		for (Trap t : b.getTraps()) {
+			h = hash(h, t.getException().getName() + " " + unitIndex.get(t.getBeginUnit())
+					+ " " + unitIndex.get(t.getEndUnit()) + " " + unitIndex.get(t.getHandlerUnit()));
+		}
+		return h;
+	}
+
+	private static long hash(long h, String s) {
+		for (int i = 0; i < s.length(); i++) {
+			h ^= s.charAt(i);
+			h *= 0x100000001b3L;
+		}
+		h ^= '\n';
+		h *= 0x100000001b3L;
+		return h;
+	}
+
+	/**
+	 * Adds the summaries stored in <code>file</code>. A missing file, or one
+	 * written for another problem, under other call graph options or by
+	 * another version, adds nothing.
+	 */
+	public synchronized void load(File file) throws IOException {
+		if (!file.exists())
+			return;
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try {
+			if (in.readInt() != VERSION || !in.readUTF().equals(problemKey)
+					|| !in.readUTF().equals(callGraphConfiguration()))
+				return;
+			int methods = in.readInt();
+			for (int i = 0; i < methods; i++) {
+				String signature = in.readUTF();
+				StoredMethod sm = new StoredMethod(in.readLong());
+				int entries = in.readInt();
+				for (int j = 0; j < entries; j++) {
+					String d1 = in.readUTF();
+					int exitCount = in.readInt();
+					List<StoredExit> exits = new ArrayList<StoredExit>(exitCount);
+					for (int k = 0; k < exitCount; k++)
+						exits.add(new StoredExit(in.readInt(), in.readUTF()));
+					sm.entries.put(d1, exits);
+				}
+				stored.put(signature, sm);
+			}
+			decoded.clear();
+		} finally {
+			in.close();
+		}
+	}
+
+	/** Writes all stored summaries to <code>file</code>. */
+	public synchronized void save(File file) throws IOException {
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		try {
+			out.writeInt(VERSION);
+			out.writeUTF(problemKey);
+			out.writeUTF(callGraphConfiguration());
+			out.writeInt(stored.size());
+			for (Map.Entry<String, StoredMethod> e : stored.entrySet()) {
+				StoredMethod sm = e.getValue();
+				out.writeUTF(e.getKey());
+				out.writeLong(sm.hash);
+				out.writeInt(sm.entries.size());
+				for (Map.Entry<String, List<StoredExit>> entry : sm.entries.entrySet()) {
+					out.writeUTF(entry.getKey());
+					out.writeInt(entry.getValue().size());
+					for (StoredExit se : entry.getValue()) {
+						out.writeInt(se.unit);
+						out.writeUTF(se.fact);
+					}
+				}
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+}
@@ -88,7 +88,9 @@ public class FieldRWTagger extends BodyTransformer
 	    return s;
 	}
     }
-    protected void internalTransform(Body body, String phaseName, Map options)
+    // synchronized: the dependence counters, the option flags and cg are
+    // updated by every body
+    protected synchronized void internalTransform(Body body, String phaseName, Map options)
     {
 	initializationStuff( phaseName );
 	SideEffectAnalysis sea = new SideEffectAnalysis( 
@@ -32,7 +32,10 @@ public class SideEffectAnalysis {
     int rwsetcount = 0;
     TransitiveTargets tt;
     
-    public void findNTRWSets( SootMethod method ) {
+    /** Computes the read and write sets of the statements of method.
+     * Synchronized, since bodies may be transformed concurrently (see
+     * -num-threads). */
+    public synchronized void findNTRWSets( SootMethod method ) {
 	if( methodToNTReadSet.containsKey( method )
 	    && methodToNTWriteSet.containsKey( method ) ) return;
 	
@@ -55,12 +58,12 @@ public class SideEffectAnalysis {
 	methodToNTWriteSet.put( method, write );
     }
 
-    public RWSet nonTransitiveReadSet( SootMethod method ) {
+    public synchronized RWSet nonTransitiveReadSet( SootMethod method ) {
 	findNTRWSets( method );
 	return methodToNTReadSet.get( method );
     }
 
-    public RWSet nonTransitiveWriteSet( SootMethod method ) {
+    public synchronized RWSet nonTransitiveWriteSet( SootMethod method ) {
 	findNTRWSets( method );
 	return methodToNTWriteSet.get( method );
     }
@@ -88,7 +88,9 @@ public class SideEffectTagger extends BodyTransformer
 	    return s;
 	}
     }
-    protected void internalTransform(Body body, String phaseName, Map options)
+    // synchronized: the dependence counters, optionNaive and cg are
+    // updated by every body
+    protected synchronized void internalTransform(Body body, String phaseName, Map options)
     {
 	initializationStuff( phaseName );
 	SideEffectAnalysis sea = Scene.v().getSideEffectAnalysis();
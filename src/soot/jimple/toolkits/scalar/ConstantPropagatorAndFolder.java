@@ -51,8 +51,9 @@ public class ConstantPropagatorAndFolder extends BodyTransformer
             G.v().out.println("[" + b.getMethod().getName() +
                                "] Propagating and folding constants...");
 
-        ExceptionalUnitGraph unitGraph = new ExceptionalUnitGraph(b);
-        LocalDefs localDefs = new SmartLocalDefs(unitGraph, new SimpleLiveLocals(unitGraph));
+        BodyAnalysisCache cache = b.getAnalysisCache();
+        UnitGraph unitGraph = cache.get(BodyAnalysisCache.UNIT_GRAPH);
+        LocalDefs localDefs = cache.get(BodyAnalysisCache.LOCAL_DEFS);
 
         // Perform a constant/local propagation pass.
         Orderer<Unit> orderer = new PseudoTopologicalOrderer<Unit>();
@@ -90,11 +90,12 @@ public class CopyPropagator extends BodyTransformer
         
 //            ((JimpleBody) stmtBody).printDebugTo(new java.io.PrintWriter(G.v().out, true));
             
-        ExceptionalUnitGraph graph = new ExceptionalUnitGraph(stmtBody);
+        BodyAnalysisCache cache = stmtBody.getAnalysisCache();
+        UnitGraph graph = cache.get(BodyAnalysisCache.UNIT_GRAPH);
 
         LocalDefs localDefs;
         
-        localDefs = new SmartLocalDefs(graph, new SimpleLiveLocals(graph));
+        localDefs = cache.get(BodyAnalysisCache.LOCAL_DEFS);
 
         // Perform a local propagation pass.
         {
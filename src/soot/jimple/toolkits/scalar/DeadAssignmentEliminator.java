@@ -168,13 +168,13 @@ public class DeadAssignmentEliminator extends BodyTransformer
 		if ( checkInvoke || !allEssential ) {		
 			// Add all the statements which are used to compute values
 			// for the essential statements, recursively 
-			ExceptionalUnitGraph graph = new ExceptionalUnitGraph(b);
+			BodyAnalysisCache cache = b.getAnalysisCache();
 		
-			LocalDefs defs = new SmartLocalDefs(graph, new SimpleLiveLocals(graph));
-			LocalUses uses = new SimpleLocalUses(graph, defs);
+			LocalDefs defs = cache.get(BodyAnalysisCache.LOCAL_DEFS);
+			LocalUses uses = cache.get(BodyAnalysisCache.LOCAL_USES);
 	
 			if ( !allEssential ) {		
-				Set<Unit> essential = new HashSet<Unit>(graph.size());
+				Set<Unit> essential = new HashSet<Unit>(units.size());
 				while (!q.isEmpty()) {
 					Unit s = q.removeFirst();			
 					if ( essential.add(s) ) {			
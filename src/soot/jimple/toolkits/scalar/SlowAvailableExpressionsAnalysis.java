@@ -225,6 +225,10 @@ public class SlowAvailableExpressionsAnalysis extends ForwardFlowAnalysis
         doAnalysis();
     }
 
+    protected boolean useIndexedFlowStorage() {
+        return true;
+    }
+
     protected Object newInitialFlow()
     {
         BoundedFlowSet out = (BoundedFlowSet)emptySet.clone();
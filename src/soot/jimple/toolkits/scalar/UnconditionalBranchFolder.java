@@ -41,10 +41,7 @@ public class UnconditionalBranchFolder extends BodyTransformer
     public static UnconditionalBranchFolder v() { return G.v().soot_jimple_toolkits_scalar_UnconditionalBranchFolder(); }
 
     static final int JUMPOPT_TYPES = 6;
-    int numFound[], numFixed[];
 
-    HashMap<Stmt, Stmt> stmtMap;
-    
     protected void internalTransform(Body b, String phaseName, Map<String,String> options) 
     {
         StmtBody body = (StmtBody)b;
@@ -53,19 +50,13 @@ public class UnconditionalBranchFolder extends BodyTransformer
             G.v().out.println("[" + body.getMethod().getName() + "] Folding unconditional branches...");
 
 
-        // allocate counters once only
-        if (numFound == null) {
-            numFound = new int[JUMPOPT_TYPES+1];
-            numFixed = new int[JUMPOPT_TYPES+1];
-        }
-
-        for (int i = 0; i <= JUMPOPT_TYPES; i++) {
-            numFound[i] = 0;
-            numFixed[i] = 0;
-        }
+        // the counters and the map are local, since bodies may be
+        // transformed concurrently (see -num-threads)
+        int numFound[] = new int[JUMPOPT_TYPES+1];
+        int numFixed[] = new int[JUMPOPT_TYPES+1];
 
         Chain<Unit> units = body.getUnits();
-        stmtMap = new HashMap<Stmt, Stmt>();
+        HashMap<Stmt, Stmt> stmtMap = new HashMap<Stmt, Stmt>();
 
         // find goto and if-goto statements
         Iterator<Unit> stmtIt = units.iterator();
@@ -81,33 +72,33 @@ public class UnconditionalBranchFolder extends BodyTransformer
                     if (units.getSuccOf(stmt) == target)
                     {
                         stmtIt.remove();
-                        updateCounters(6, true);
+                        updateCounters(numFound, numFixed, 6, true);
                     }
                 }
 
                 if (target instanceof GotoStmt) {
-                    newTarget = getFinalTarget(target);
+                    newTarget = getFinalTarget(target, stmtMap);
                     if (newTarget == null)
                         newTarget = stmt;
                     ((GotoStmt)stmt).setTarget(newTarget);
-                    updateCounters(1, true);
+                    updateCounters(numFound, numFixed, 1, true);
                 }
                 else if (target instanceof IfStmt) {
-                    updateCounters(3, false);
+                    updateCounters(numFound, numFixed, 3, false);
                 }
             }
             else if (stmt instanceof IfStmt) {
                 target = ((IfStmt)stmt).getTarget();
 
                 if (target instanceof GotoStmt) {
-                    newTarget = getFinalTarget(target);
+                    newTarget = getFinalTarget(target, stmtMap);
                     if (newTarget == null)
                         newTarget = stmt;
                     ((IfStmt)stmt).setTarget(newTarget);
-                    updateCounters(2, true);
+                    updateCounters(numFound, numFixed, 2, true);
                 }
                 else if (target instanceof IfStmt) {
-                    updateCounters(4, false);
+                    updateCounters(numFound, numFixed, 4, false);
                 }
             }
         }
@@ -118,7 +109,7 @@ public class UnconditionalBranchFolder extends BodyTransformer
                                
     } // optimizeJumps
 
-    private void updateCounters(int type, boolean fixed) {
+    private static void updateCounters(int numFound[], int numFixed[], int type, boolean fixed) {
 
         if ((type < 0) || (type > JUMPOPT_TYPES))
             return;
@@ -131,7 +122,7 @@ public class UnconditionalBranchFolder extends BodyTransformer
         }
     }
         
-    private Stmt getFinalTarget(Stmt stmt) {
+    private static Stmt getFinalTarget(Stmt stmt, HashMap<Stmt, Stmt> stmtMap) {
         Stmt finalTarget=null, target;
         
         // if not a goto, this is the final target
@@ -152,7 +143,7 @@ public class UnconditionalBranchFolder extends BodyTransformer
                 finalTarget = null;
         }
         else
-            finalTarget = getFinalTarget(target);
+            finalTarget = getFinalTarget(target, stmtMap);
             
         stmtMap.put(stmt, finalTarget);
         return finalTarget;
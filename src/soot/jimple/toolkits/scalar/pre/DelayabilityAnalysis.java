@@ -101,6 +101,10 @@ public class DelayabilityAnalysis extends ForwardFlowAnalysis {
     }
   }
 
+  protected boolean useIndexedFlowStorage() {
+    return true;
+  }
+
   protected Object newInitialFlow() {
     return set.topSet();
   }
@@ -89,6 +89,11 @@ public class DownSafetyAnalysis extends BackwardFlowAnalysis<Unit,FlowSet> {
     doAnalysis();
   }
 
+  @Override
+  protected boolean useIndexedFlowStorage() {
+    return true;
+  }
+
   @Override
   protected FlowSet newInitialFlow() {
     return (FlowSet) set.topSet();
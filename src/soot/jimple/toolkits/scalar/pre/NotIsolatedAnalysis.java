@@ -94,6 +94,10 @@ public class NotIsolatedAnalysis extends BackwardFlowAnalysis {
     doAnalysis();
   }
 
+  protected boolean useIndexedFlowStorage() {
+    return true;
+  }
+
   protected Object newInitialFlow() {
     return set.emptySet();
   }
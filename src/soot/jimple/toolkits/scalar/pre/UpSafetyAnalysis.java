@@ -89,6 +89,10 @@ public class UpSafetyAnalysis extends ForwardFlowAnalysis {
     doAnalysis();
   }
 
+  protected boolean useIndexedFlowStorage() {
+    return true;
+  }
+
   protected Object newInitialFlow() {
     return set.topSet();
   }
@@ -54,8 +54,7 @@ import soot.jimple.Stmt;
 import soot.jimple.toolkits.typing.Util;
 import soot.toolkits.graph.ExceptionalUnitGraph;
 import soot.toolkits.scalar.LocalDefs;
-import soot.toolkits.scalar.SimpleLiveLocals;
-import soot.toolkits.scalar.SmartLocalDefs;
+import soot.toolkits.scalar.SparseLocalDefs;
 
 /**
  * New Type Resolver by Ben Bellamy (see 'Efficient Local Type Inference'
@@ -529,7 +528,7 @@ public class TypeResolver
 	private void split_new()
 	{
 		ExceptionalUnitGraph graph = new ExceptionalUnitGraph(this.jb);
-		LocalDefs defs = new SmartLocalDefs(graph,new SimpleLiveLocals(graph));
+		LocalDefs defs = new SparseLocalDefs(graph);
 		// SimpleLocalUses uses = new SimpleLocalUses(graph, defs);
 		PatchingChain<Unit> units = this.jb.getUnits();
 		Stmt[] stmts = new Stmt[units.size()];
@@ -88,9 +88,8 @@ import soot.toolkits.graph.ExceptionalUnitGraph;
 import soot.toolkits.graph.UnitGraph;
 import soot.toolkits.scalar.LocalDefs;
 import soot.toolkits.scalar.LocalUses;
-import soot.toolkits.scalar.SimpleLiveLocals;
 import soot.toolkits.scalar.SimpleLocalUses;
-import soot.toolkits.scalar.SmartLocalDefs;
+import soot.toolkits.scalar.SparseLocalDefs;
 import soot.toolkits.scalar.UnitValueBoxPair;
 
 /**
@@ -286,7 +285,7 @@ public class UseChecker extends AbstractStmtSwitch
 							|| rt.getSootClass().getName().equals("java.lang.Cloneable")) {
 						if (this.uses == null) {
 							UnitGraph graph = new ExceptionalUnitGraph(jb);
-							this.defs = new SmartLocalDefs(graph, new SimpleLiveLocals(graph));
+							this.defs = new SparseLocalDefs(graph);
 							this.uses = new SimpleLocalUses(jb, defs);
 						}
 						
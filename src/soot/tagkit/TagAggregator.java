@@ -42,7 +42,9 @@ public abstract class TagAggregator extends BodyTransformer {
     /** Return name of the resulting aggregated tag. */
     public abstract String aggregatedName();
 
-    protected void internalTransform(Body b, String phaseName, Map<String,String> options)
+    /** Synchronized, since tags and units are shared by all bodies and
+     * bodies may be tagged concurrently (see -num-threads). */
+    protected synchronized void internalTransform(Body b, String phaseName, Map<String,String> options)
     {
         BafBody body = (BafBody) b;
        
@@ -59,7 +59,7 @@ public class ConstantVisitor implements ConstantSwitch {
 	}
 	
 	public void caseStringConstant(StringConstant s) {
-		BuilderReference ref = dexFile.internStringReference(s.value);
+		BuilderReference ref = DexPrinter.toStringReference(s.value, dexFile);
         stmtV.addInsn(new Insn21c(Opcode.CONST_STRING, destinationReg, ref), origStmt);
 	}
 	
@@ -67,7 +67,7 @@ public class ConstantVisitor implements ConstantSwitch {
 		// "array class" types are unmodified
 		boolean classIsArray = c.value.startsWith("[");
 		String className = classIsArray ? c.value : SootToDexUtils.getDexClassName(c.value);
-		BuilderReference referencedClass = dexFile.internTypeReference(className);
+		BuilderReference referencedClass = DexPrinter.toTypeReference(className, dexFile);
         stmtV.addInsn(new Insn21c(Opcode.CONST_CLASS, destinationReg, referencedClass), origStmt);
 	}
 	
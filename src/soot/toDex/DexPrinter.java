@@ -5,6 +5,7 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -14,6 +15,10 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
@@ -60,10 +65,12 @@ import org.jf.dexlib2.writer.builder.BuilderField;
 import org.jf.dexlib2.writer.builder.BuilderFieldReference;
 import org.jf.dexlib2.writer.builder.BuilderMethod;
 import org.jf.dexlib2.writer.builder.BuilderMethodReference;
+import org.jf.dexlib2.writer.builder.BuilderStringReference;
 import org.jf.dexlib2.writer.builder.BuilderTypeReference;
 import org.jf.dexlib2.writer.builder.DexBuilder;
 import org.jf.dexlib2.writer.io.FileDataStore;
 
+import soot.ArrayType;
 import soot.Body;
 import soot.BooleanType;
 import soot.ByteType;
@@ -82,7 +89,17 @@ import soot.SourceLocator;
 import soot.Trap;
 import soot.Type;
 import soot.Unit;
+import soot.Value;
+import soot.ValueBox;
 import soot.dexpler.Util;
+import soot.jimple.CastExpr;
+import soot.jimple.ClassConstant;
+import soot.jimple.FieldRef;
+import soot.jimple.InstanceOfExpr;
+import soot.jimple.InvokeExpr;
+import soot.jimple.NewArrayExpr;
+import soot.jimple.NewExpr;
+import soot.jimple.NewMultiArrayExpr;
 import soot.jimple.Stmt;
 import soot.jimple.toolkits.scalar.EmptySwitchEliminator;
 import soot.options.Options;
@@ -124,7 +141,13 @@ import soot.tagkit.VisibilityParameterAnnotationTag;
  * If the printer has found the original APK of an added class (via {@link SourceLocator#dexClassIndex()}),
  * the files in the APK are copied to a new one, replacing it's classes.dex and excluding the signature files.
  * Note that you have to sign and align the APK yourself, with jarsigner and zipalign, respectively.<br>
- * If there is no original APK, the printer just emits a classes.dex.
+ * If there is no original APK, the printer just emits a classes.dex.<br>
+ * <br>
+ * If the classes need more types, prototypes, fields or methods than a single
+ * dex file can index, further dex files (classes2.dex, classes3.dex, ...) are started; each
+ * finished dex file is written out right away, so only one of them is kept
+ * in memory. With <code>-num-threads</code>, the classes are converted on
+ * several threads.
  * 
  * @see <a href="http://docs.oracle.com/javase/7/docs/technotes/tools/windows/jarsigner.html">jarsigner documentation</a>
  * @see <a href="http://developer.android.com/tools/help/zipalign.html">zipalign documentation</a>
@@ -133,10 +156,27 @@ public class DexPrinter {
 	
 	private static final String CLASSES_DEX = "classes.dex";
 	
-	private static DexBuilder dexFile;
+	private DexBuilder dexFile;
 	
 	private File originalApk;
 	
+	/**
+	 * The dex files that have been finished so far, in order.
+	 */
+	private final List<File> finishedDexFiles = new ArrayList<File>();
+	
+	/**
+	 * Entries of the limited pools of the current dex file.
+	 */
+	private final DexReferences references = new DexReferences();
+	
+	private ExecutorService executor;
+	
+	/**
+	 * Classes of the current dex file that are still being converted.
+	 */
+	private final List<Future<?>> pendingClasses = new ArrayList<Future<?>>();
+	
 	public DexPrinter() {
 		dexFile = DexBuilder.makeDexBuilder(19);
 		//dexAnnotation = new DexAnnotation(dexFile);
@@ -162,23 +202,34 @@ public class DexPrinter {
 		copyAllButClassesDexAndSigFiles(original, outputApk);
 		original.close();
 		
-		// put our classes.dex into the zip archive
-		File tmpFile = File.createTempFile("toDex", null);
-		FileInputStream fis = new FileInputStream(tmpFile);
-		try {
-			outputApk.putNextEntry(new ZipEntry(CLASSES_DEX));
-			writeTo(tmpFile.getAbsolutePath());
-			while (fis.available() > 0) {
-				byte[] data = new byte[fis.available()];
-				fis.read(data);
-				outputApk.write(data);
+		// put our dex files into the zip archive
+		for (int i = 0; i < finishedDexFiles.size(); i++) {
+			outputApk.putNextEntry(new ZipEntry(dexFileName(i)));
+			InputStream dexInput = new FileInputStream(finishedDexFiles.get(i));
+			try {
+				copy(dexInput, outputApk);
+			} finally {
+				dexInput.close();
 			}
 			outputApk.closeEntry();
-			outputApk.close();
 		}
-		finally {
-			fis.close();
-			tmpFile.delete();
+		outputApk.close();
+	}
+
+	/**
+	 * Returns the name of the <code>i</code>-th dex file of an APK:
+	 * classes.dex, classes2.dex, classes3.dex, ...
+	 */
+	private static String dexFileName(int i) {
+		return i == 0 ? CLASSES_DEX : "classes" + (i + 1) + ".dex";
+	}
+
+	private static void copy(InputStream source, OutputStream destination) throws IOException {
+		byte[] buffer = new byte[8192];
+		int bytesRead = source.read(buffer);
+		while (bytesRead > 0) {
+			destination.write(buffer, 0, bytesRead);
+			bytesRead = source.read(buffer);
 		}
 	}
 
@@ -187,7 +238,7 @@ public class DexPrinter {
 		while (sourceEntries.hasMoreElements()) {
 			ZipEntry sourceEntry = sourceEntries.nextElement();
 			String sourceEntryName = sourceEntry.getName();
-			if (sourceEntryName.equals(CLASSES_DEX) || isSignatureFile(sourceEntryName)) {
+			if (isDexFile(sourceEntryName) || isSignatureFile(sourceEntryName)) {
 				continue;
 			}
 			// separate ZipEntry avoids compression problems due to encodings
@@ -200,16 +251,15 @@ public class DexPrinter {
 			// finally craft new entry
 			destination.putNextEntry(destinationEntry);
 			InputStream zipEntryInput = source.getInputStream(sourceEntry);
-			byte[] buffer = new byte[2048];
-			int bytesRead = zipEntryInput.read(buffer);
-			while (bytesRead > 0) {
-				destination.write(buffer, 0, bytesRead);
-				bytesRead = zipEntryInput.read(buffer);
-			}
+			copy(zipEntryInput, destination);
 			zipEntryInput.close();
 		}
 	}
 
+	private static boolean isDexFile(String fileName) {
+		return fileName.matches("classes[0-9]*\\.dex");
+	}
+
 	private static boolean isSignatureFile(String fileName) {
 		StringBuilder sigFileRegex = new StringBuilder();
 		// file name must start with META-INF...
@@ -295,8 +345,8 @@ public class DexPrinter {
             String classT = SootToDexUtils.getDexClassName(e.getTypeName());
             String fieldT = classT;
             
-            FieldReference fref = dexFile.internFieldReference(new ImmutableFieldReference
-            		(classT, e.getConstantName(), fieldT));
+            FieldReference fref = new ImmutableFieldReference
+            		(classT, e.getConstantName(), fieldT);
             
             return new ImmutableEnumEncodedValue(fref);
         }
@@ -349,8 +399,8 @@ public class DexPrinter {
             
             String fieldName = sp[2];
             
-            FieldReference fref = dexFile.internFieldReference(new ImmutableFieldReference
-            		(classString, fieldName, typeString));
+            FieldReference fref = new ImmutableFieldReference
+            		(classString, fieldName, typeString);
             return new ImmutableFieldEncodedValue(fref);
         }
         case 'M': { // method (Dalvik specific?)
@@ -375,8 +425,8 @@ public class DexPrinter {
 	                }
             }
             
-            MethodReference mref = dexFile.internMethodReference(new ImmutableMethodReference
-            		(classString, methodNameString, paramTypeList, returnType));
+            MethodReference mref = new ImmutableMethodReference
+            		(classString, methodNameString, paramTypeList, returnType);
             return new ImmutableMethodEncodedValue(mref);
         }
         case 'N': { // null (Dalvik specific?)
@@ -475,24 +525,31 @@ public class DexPrinter {
 	            // Build field annotations
 	            Set<Annotation> fieldAnnotations = buildFieldAnnotations(f);
 	            
-	        	BuilderField field = dexFile.internField(classType,
-	        			f.getName(),
-	        			SootToDexUtils.getDexTypeDescriptor(f.getType()),
-	        			f.getModifiers(),
-	        			staticInit,
-	        			fieldAnnotations);
+	        	BuilderField field;
+	        	synchronized (dexFile) {
+		        	field = dexFile.internField(classType,
+		        			f.getName(),
+		        			SootToDexUtils.getDexTypeDescriptor(f.getType()),
+		        			f.getModifiers(),
+		        			staticInit,
+		        			fieldAnnotations);
+	        	}
 	        	fields.add(field);
 	        }
         }
         	
-        dexFile.internClassDef(classType,
-        		accessFlags,
-        		superClass,
-        		interfaces,
-        		sourceFile,
-        		buildClassAnnotations(c),
-        		fields,
-        		toMethods(c));
+        Set<Annotation> classAnnotations = buildClassAnnotations(c);
+        Collection<BuilderMethod> methods = toMethods(c);
+        synchronized (dexFile) {
+	        dexFile.internClassDef(classType,
+	        		accessFlags,
+	        		superClass,
+	        		interfaces,
+	        		sourceFile,
+	        		classAnnotations,
+	        		fields,
+	        		methods);
+        }
 	}
     
     private Set<Annotation> buildClassAnnotations(SootClass c) {
@@ -714,8 +771,7 @@ public class DexPrinter {
 	    ImmutableMethodReference mRef = new ImmutableMethodReference
 	    		(SootToDexUtils.getDexClassName(t.getEnclosingClass()),
 	    		t.getEnclosingMethod(), typeList, returnTypeS);
-    	ImmutableMethodEncodedValue methodRef = new ImmutableMethodEncodedValue
-    			(dexFile.internMethodReference(mRef));
+    	ImmutableMethodEncodedValue methodRef = new ImmutableMethodEncodedValue(mRef);
     	AnnotationElement methodElement = new ImmutableAnnotationElement("value", methodRef);
     	
     	return new ImmutableAnnotation(AnnotationVisibility.SYSTEM,
@@ -820,44 +876,86 @@ public class DexPrinter {
             String returnType = SootToDexUtils.getDexTypeDescriptor(sm.getReturnType());
             
 			int accessFlags = SootToDexUtils.getDexAccessFlags(sm);
-            BuilderMethod meth = dexFile.internMethod(classType,
-					sm.getName(),
-					parameters,
-					returnType,
-					accessFlags,
-					buildMethodAnnotations(sm),
-					impl);
+            Set<Annotation> methodAnnotations = buildMethodAnnotations(sm);
+            BuilderMethod meth;
+            synchronized (dexFile) {
+	            meth = dexFile.internMethod(classType,
+						sm.getName(),
+						parameters,
+						returnType,
+						accessFlags,
+						methodAnnotations,
+						impl);
+            }
             methods.add(meth);
         }
 		return methods;
 	}
 	
+    /*
+     * All interning goes through the following methods, which lock the
+     * DexBuilder: with -num-threads, several classes are converted at once.
+     */
+    
     protected static BuilderFieldReference toFieldReference
     		(SootField f, DexBuilder belongingDexFile) {
-    	FieldReference fieldRef = new ImmutableFieldReference
+    	return toFieldReference(makeFieldReference(f), belongingDexFile);
+	}
+    
+    private static FieldReference makeFieldReference(SootField f) {
+    	return new ImmutableFieldReference
     			(SootToDexUtils.getDexClassName(f.getDeclaringClass().getName()),
     			f.getName(),
     			SootToDexUtils.getDexTypeDescriptor(f.getType()));
-    	return belongingDexFile.internFieldReference(fieldRef);
-	}
+    }
+    
+    protected static BuilderFieldReference toFieldReference
+    		(FieldReference fieldRef, DexBuilder belongingDexFile) {
+    	synchronized (belongingDexFile) {
+    		return belongingDexFile.internFieldReference(fieldRef);
+    	}
+    }
 	
     protected static BuilderMethodReference toMethodReference
 			(SootMethodRef m, DexBuilder belongingDexFile) {
+    	return toMethodReference(makeMethodReference(m), belongingDexFile);
+    }
+    
+    private static MethodReference makeMethodReference(SootMethodRef m) {
     	List<String> parameters = new ArrayList<String>();
     	for (Type t : m.parameterTypes())
     		parameters.add(SootToDexUtils.getDexTypeDescriptor(t));
-    	MethodReference methodRef = new ImmutableMethodReference
+    	return new ImmutableMethodReference
     			(SootToDexUtils.getDexClassName(m.declaringClass().getName()),
     			m.name(),
     			parameters,
     			SootToDexUtils.getDexTypeDescriptor(m.returnType()));
-    	return belongingDexFile.internMethodReference(methodRef);
+    }
+    
+    protected static BuilderMethodReference toMethodReference
+			(MethodReference methodRef, DexBuilder belongingDexFile) {
+    	synchronized (belongingDexFile) {
+    		return belongingDexFile.internMethodReference(methodRef);
+    	}
     }
 
     protected static BuilderTypeReference toTypeReference
 			(Type t, DexBuilder belongingDexFile) {
-    	return belongingDexFile.internTypeReference
-    			(SootToDexUtils.getDexTypeDescriptor(t));
+    	return toTypeReference(SootToDexUtils.getDexTypeDescriptor(t), belongingDexFile);
+    }
+    
+    protected static BuilderTypeReference toTypeReference
+			(String typeDescriptor, DexBuilder belongingDexFile) {
+    	synchronized (belongingDexFile) {
+    		return belongingDexFile.internTypeReference(typeDescriptor);
+    	}
+    }
+    
+    protected static BuilderStringReference toStringReference
+			(String s, DexBuilder belongingDexFile) {
+    	synchronized (belongingDexFile) {
+    		return belongingDexFile.internStringReference(s);
+    	}
     }
     
 	private MethodImplementation toMethodImplementation(SootMethod m) {
@@ -872,14 +970,7 @@ public class DexPrinter {
 			if (!m.getName().equals("<init>") && !m.getName().equals("<clinit>"))
 				throw new RuntimeException("Invalid method name: " + m.getName());
 		
-		// Switch statements may not be empty in dex, so we have to fix this first
-		EmptySwitchEliminator.v().transform(activeBody);
-		
-		// Dalvik requires synchronized methods to have explicit monitor calls,
-		// so we insert them here. See http://milk.com/kodebase/dalvik-docs-mirror/docs/debugger.html
-		// We cannot place this upon the developer since it is only required
-		// for Dalvik, but not for other targets.
-		SynchronizedMethodTransformer.v().transform(activeBody);
+		// prepareBody has already run when the class was added
 		
 		// Tries may not start or end at units which have no corresponding Dalvik
 		// instructions such as IdentityStmts. We reduce the traps to start at the
@@ -981,8 +1072,8 @@ public class DexPrinter {
 	                    }
 	                    else if (t instanceof SourceFileTag) {
 	                    	SourceFileTag sft = (SourceFileTag) t;
-	                    	builder.addSetSourceFile(dexFile.internStringReference
-	                    			(sft.getSourceFile()));
+	                    	builder.addSetSourceFile(toStringReference
+	                    			(sft.getSourceFile(), dexFile));
 	                    }
 	                }
 	            }
@@ -1019,7 +1110,7 @@ public class DexPrinter {
 			LocalRegisterAssignmentTag registerAssignment, Map<Local, Integer> seenRegisters, MethodImplementationBuilder builder) {
 		Local local = registerAssignment.getLocal();
 		String dexLocalType = SootToDexUtils.getDexTypeDescriptor(local.getType());
-		StringReference localName = dexFile.internStringReference(local.getName());
+		StringReference localName = toStringReference(local.getName(), dexFile);
 		Register reg = registerAssignment.getRegister();
 		int register = reg.getNumber();
 		
@@ -1029,7 +1120,7 @@ public class DexPrinter {
 			builder.addEndLocal(beforeRegister);
 		}
 		String decl = local.getType().toString() + " " + local.getName();
-		builder.addStartLocal(register, localName, dexFile.internTypeReference(dexLocalType), dexFile.internStringReference(decl));
+		builder.addStartLocal(register, localName, toTypeReference(dexLocalType, dexFile), toStringReference(decl, dexFile));
 		seenRegisters.put(local, register);
 		
 	}
@@ -1156,17 +1247,49 @@ public class DexPrinter {
 		}
 		for (CodeRange range : codeRangesToTryItem.keySet())
 			for (ExceptionHandler handler : codeRangesToTryItem.get(range)) {
-				builder.addCatch(dexFile.internTypeReference(handler.getExceptionType()),
+				builder.addCatch(toTypeReference(handler.getExceptionType(), dexFile),
 						labelAssigner.getLabelAtAddress(range.startAddress),
 						labelAssigner.getLabelAtAddress(range.endAddress),
 						labelAssigner.getLabelAtAddress(handler.getHandlerCodeAddress()));
 			}
 	}
 	
-	public void add(SootClass c) {
+	public void add(final SootClass c) {
 		if (c.isPhantom())
 			return;
-		addAsClassDefItem(c);
+		
+		boolean added = false;
+		try {
+			// start a new dex file if the references of this class do not fit
+			// into the current one any more
+			for (SootMethod m : c.getMethods()) {
+				if (m.isConcrete())
+					prepareBody(m.retrieveActiveBody());
+			}
+			DexReferences classReferences = collectReferences(c);
+			if (!references.canTake(classReferences))
+				finishDexFile();
+			references.addAll(classReferences);
+			
+			int threads = PackManager.numThreads();
+			if (threads > 1) {
+				if (executor == null)
+					executor = Executors.newFixedThreadPool(threads);
+				pendingClasses.add(executor.submit(new Runnable() {
+					public void run() {
+						addAsClassDefItem(c);
+					}
+				}));
+			} else {
+				addAsClassDefItem(c);
+			}
+			added = true;
+		} finally {
+			// print() will not be called if a class fails
+			if (!added)
+				shutDownExecutor();
+		}
+		
 		// save original APK for this class, needed to copy all the other files inside
 		Map<String, File> dexClassIndex = SourceLocator.v().dexClassIndex();
     	if (dexClassIndex == null) {
@@ -1181,20 +1304,162 @@ public class DexPrinter {
     	}
     	originalApk = sourceForClass;
 	}
+	
+	/**
+	 * Applies the transformations that Dalvik requires to a body. This is
+	 * done before the references of the class are collected, so that they
+	 * are counted as they will be written.
+	 */
+	private static void prepareBody(Body activeBody) {
+		// Switch statements may not be empty in dex, so we have to fix this first
+		EmptySwitchEliminator.v().transform(activeBody);
+		
+		// Dalvik requires synchronized methods to have explicit monitor calls,
+		// so we insert them here. See http://milk.com/kodebase/dalvik-docs-mirror/docs/debugger.html
+		// We cannot place this upon the developer since it is only required
+		// for Dalvik, but not for other targets.
+		SynchronizedMethodTransformer.v().transform(activeBody);
+	}
+	
+	/**
+	 * Collects the types, prototypes, fields and methods that the DexBuilder
+	 * will intern for <code>c</code>: those of its definition, its members
+	 * and their annotations, the references of its instructions, the types
+	 * of its catch handlers and the types of its locals in the debug info.
+	 */
+	private DexReferences collectReferences(SootClass c) {
+		DexReferences refs = new DexReferences();
+		refs.addType(SootToDexUtils.getDexTypeDescriptor(c.getType()));
+		if (c.hasSuperclass())
+			refs.addType(SootToDexUtils.getDexTypeDescriptor(c.getSuperclass().getType()));
+		for (SootClass ifc : c.getInterfaces())
+			refs.addType(SootToDexUtils.getDexTypeDescriptor(ifc.getType()));
+		refs.addAnnotations(buildClassAnnotations(c));
+		
+		for (SootField f : c.getFields()) {
+			refs.addField(makeFieldReference(f));
+			refs.addAnnotations(buildFieldAnnotations(f));
+		}
+		for (SootMethod m : c.getMethods()) {
+			if (m.isPhantom())
+				continue;
+			refs.addMethod(makeMethodReference(m.makeRef()));
+			refs.addAnnotations(buildMethodAnnotations(m));
+			if (m.getParameterCount() > 0)
+				refs.addAnnotations(buildMethodParameterAnnotations(m));
+			if (m.isAbstract() || m.isNative())
+				continue;
+			Body b = m.retrieveActiveBody();
+			for (Local l : b.getLocals())
+				refs.addType(SootToDexUtils.getDexTypeDescriptor(l.getType()));
+			for (Trap t : b.getTraps())
+				refs.addType(SootToDexUtils.getDexTypeDescriptor(t.getException().getType()));
+			for (Unit u : b.getUnits()) {
+				for (ValueBox vb : u.getUseAndDefBoxes())
+					collectReferences(vb.getValue(), refs);
+			}
+		}
+		return refs;
+	}
+	
+	/**
+	 * Adds the reference that the instruction for <code>v</code> will carry,
+	 * as in ExprVisitor, StmtVisitor and ConstantVisitor.
+	 */
+	private static void collectReferences(Value v, DexReferences refs) {
+		if (v instanceof InvokeExpr) {
+			refs.addMethod(makeMethodReference(((InvokeExpr) v).getMethodRef()));
+		} else if (v instanceof FieldRef) {
+			refs.addField(makeFieldReference(((FieldRef) v).getField()));
+		} else if (v instanceof NewExpr) {
+			refs.addType(SootToDexUtils.getDexTypeDescriptor(((NewExpr) v).getBaseType()));
+		} else if (v instanceof NewArrayExpr) {
+			Type arrayType = ((NewArrayExpr) v).getBaseType().getArrayType();
+			refs.addType(SootToDexUtils.getDexTypeDescriptor(arrayType));
+		} else if (v instanceof NewMultiArrayExpr) {
+			NewMultiArrayExpr nmae = (NewMultiArrayExpr) v;
+			Type arrayType = ArrayType.v(nmae.getBaseType().baseType, nmae.getSizeCount());
+			refs.addType(SootToDexUtils.getDexTypeDescriptor(arrayType));
+		} else if (v instanceof CastExpr) {
+			Type castType = ((CastExpr) v).getCastType();
+			if (SootToDexUtils.isObject(castType))
+				refs.addType(SootToDexUtils.getDexTypeDescriptor(castType));
+		} else if (v instanceof InstanceOfExpr) {
+			refs.addType(SootToDexUtils.getDexTypeDescriptor(((InstanceOfExpr) v).getCheckType()));
+		} else if (v instanceof ClassConstant) {
+			String value = ((ClassConstant) v).value;
+			refs.addType(value.startsWith("[") ? value : SootToDexUtils.getDexClassName(value));
+		}
+	}
+	
+	/**
+	 * Waits for the classes of the current dex file, writes the dex file to a
+	 * temporary file and starts a new one.
+	 */
+	private void finishDexFile() {
+		try {
+			for (Future<?> f : pendingClasses)
+				f.get();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw new RuntimeException(cause);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CompilationDeathException("Interrupted while converting classes to dex");
+		} finally {
+			pendingClasses.clear();
+		}
+		
+		try {
+			File tmpFile = File.createTempFile("toDex", ".dex");
+			tmpFile.deleteOnExit();
+			writeTo(tmpFile.getAbsolutePath());
+			finishedDexFiles.add(tmpFile);
+		} catch (IOException e) {
+			throw new CompilationDeathException("I/O exception while printing dex", e);
+		}
+		dexFile = DexBuilder.makeDexBuilder(19);
+		references.clear();
+	}
+
+	private void shutDownExecutor() {
+		if (executor != null) {
+			executor.shutdownNow();
+			executor = null;
+		}
+	}
 
 	public void print() {
 		String outputDir = SourceLocator.v().getOutputDir();
 		try {
+			finishDexFile();
 			if (originalApk != null) {
 				printApk(outputDir, originalApk);
 			} else {
-				String fileName = outputDir + File.separatorChar + CLASSES_DEX;
-				G.v().out.println("Writing dex to: " + fileName);
-				writeTo(fileName);
+				for (int i = 0; i < finishedDexFiles.size(); i++) {
+					String fileName = outputDir + File.separatorChar + dexFileName(i);
+					G.v().out.println("Writing dex to: " + fileName);
+					InputStream dexInput = new FileInputStream(finishedDexFiles.get(i));
+					OutputStream dexOutput = new FileOutputStream(fileName);
+					try {
+						copy(dexInput, dexOutput);
+					} finally {
+						dexInput.close();
+						dexOutput.close();
+					}
+				}
 			}
 		} catch (IOException e) {
 			throw new CompilationDeathException("I/O exception while printing dex", e);
+		} finally {
+			shutDownExecutor();
+			for (File f : finishedDexFiles)
+				f.delete();
+			finishedDexFiles.clear();
 		}
 	}
-
-}
\ No newline at end of file
+}
@@ -0,0 +1,153 @@
+package soot.toDex;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.jf.dexlib2.ValueType;
+import org.jf.dexlib2.iface.AnnotationElement;
+import org.jf.dexlib2.iface.BasicAnnotation;
+import org.jf.dexlib2.iface.reference.FieldReference;
+import org.jf.dexlib2.iface.reference.MethodReference;
+import org.jf.dexlib2.iface.value.AnnotationEncodedValue;
+import org.jf.dexlib2.iface.value.ArrayEncodedValue;
+import org.jf.dexlib2.iface.value.EncodedValue;
+import org.jf.dexlib2.iface.value.EnumEncodedValue;
+import org.jf.dexlib2.iface.value.FieldEncodedValue;
+import org.jf.dexlib2.iface.value.MethodEncodedValue;
+import org.jf.dexlib2.iface.value.TypeEncodedValue;
+
+/**
+ * The entries of the type, proto, field and method pools of a dex file.
+ * Instructions refer to these entries with 16-bit indices, so a dex file
+ * can hold at most {@link #MAX_ENTRIES} entries in each of the pools.
+ * Adding a reference also adds the entries it refers to, as the
+ * DexBuilder does when interning it.
+ */
+class DexReferences {
+
+	public static final int MAX_ENTRIES = 65536;
+
+	private final Set<String> types = new HashSet<String>();
+	private final Set<String> protos = new HashSet<String>();
+	private final Set<String> fields = new HashSet<String>();
+	private final Set<String> methods = new HashSet<String>();
+
+	public void addType(String typeDescriptor) {
+		types.add(typeDescriptor);
+	}
+
+	public void addProto(List<? extends CharSequence> parameterTypes, String returnType) {
+		StringBuilder proto = new StringBuilder("(");
+		for (CharSequence t : parameterTypes) {
+			addType(t.toString());
+			proto.append(t);
+		}
+		addType(returnType);
+		protos.add(proto.append(')').append(returnType).toString());
+	}
+
+	public void addField(FieldReference f) {
+		addType(f.getDefiningClass());
+		addType(f.getType());
+		fields.add(f.getDefiningClass() + "->" + f.getName() + ":" + f.getType());
+	}
+
+	public void addMethod(MethodReference m) {
+		addType(m.getDefiningClass());
+		addProto(m.getParameterTypes(), m.getReturnType());
+		StringBuilder method = new StringBuilder(m.getDefiningClass());
+		method.append("->").append(m.getName()).append('(');
+		for (CharSequence t : m.getParameterTypes())
+			method.append(t);
+		methods.add(method.append(')').append(m.getReturnType()).toString());
+	}
+
+	public void addAnnotations(Set<? extends BasicAnnotation> annotations) {
+		for (BasicAnnotation a : annotations) {
+			addType(a.getType());
+			for (AnnotationElement e : a.getElements())
+				addEncodedValue(e.getValue());
+		}
+	}
+
+	private void addEncodedValue(EncodedValue v) {
+		switch (v.getValueType()) {
+		case ValueType.TYPE:
+			addType(((TypeEncodedValue) v).getValue());
+			break;
+		case ValueType.FIELD:
+			addField(((FieldEncodedValue) v).getValue());
+			break;
+		case ValueType.ENUM:
+			addField(((EnumEncodedValue) v).getValue());
+			break;
+		case ValueType.METHOD:
+			addMethod(((MethodEncodedValue) v).getValue());
+			break;
+		case ValueType.ARRAY:
+			for (EncodedValue element : ((ArrayEncodedValue) v).getValue())
+				addEncodedValue(element);
+			break;
+		case ValueType.ANNOTATION:
+			AnnotationEncodedValue a = (AnnotationEncodedValue) v;
+			addType(a.getType());
+			for (AnnotationElement e : a.getElements())
+				addEncodedValue(e.getValue());
+			break;
+		}
+	}
+
+	/**
+	 * Checks whether a dex file with these entries can also take the entries
+	 * of <code>added</code>. An empty dex file takes anything, since a class
+	 * cannot be split.
+	 */
+	public boolean canTake(DexReferences added) {
+		if (types.isEmpty())
+			return true;
+		return fits(types, added.types)
+				&& fits(protos, added.protos)
+				&& fits(fields, added.fields)
+				&& fits(methods, added.methods);
+	}
+
+	private static boolean fits(Set<String> current, Set<String> added) {
+		int count = current.size();
+		for (String entry : added) {
+			if (!current.contains(entry) && ++count > MAX_ENTRIES)
+				return false;
+		}
+		return true;
+	}
+
+	public void addAll(DexReferences other) {
+		types.addAll(other.types);
+		protos.addAll(other.protos);
+		fields.addAll(other.fields);
+		methods.addAll(other.methods);
+	}
+
+	public void clear() {
+		types.clear();
+		protos.clear();
+		fields.clear();
+		methods.clear();
+	}
+
+	public int typeCount() {
+		return types.size();
+	}
+
+	public int protoCount() {
+		return protos.size();
+	}
+
+	public int fieldCount() {
+		return fields.size();
+	}
+
+	public int methodCount() {
+		return methods.size();
+	}
+}
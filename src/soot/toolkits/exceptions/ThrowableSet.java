@@ -296,7 +296,7 @@ public final class ThrowableSet {
 	 * exceptions corresponding to <code>include</code> -
 	 * <code>exclude</code>.
 	 */
-	private ThrowableSet registerSetIfNew(Set include, Set exclude) {
+	private synchronized ThrowableSet registerSetIfNew(Set include, Set exclude) {
 	    if (INSTRUMENTING) {
 		registrationCalls++;
 	    }
@@ -430,13 +430,19 @@ public final class ThrowableSet {
      */
     private Map<Object,ThrowableSet> memoizedAdds;
 
-    private ThrowableSet getMemoizedAdds(Object key) {
+    private synchronized ThrowableSet getMemoizedAdds(Object key) {
 	if (memoizedAdds == null) {
 	    memoizedAdds = new HashMap();
 	}
 	return memoizedAdds.get(key);
     }
 
+    // ThrowableSets are shared between all bodies, which may be
+    // analyzed on several threads at once.
+    private synchronized void memoizeAdd(Object key, ThrowableSet result) {
+	memoizedAdds.put(key, result);
+    }
+
 
     /**
      * Constructs a <code>ThrowableSet</code> which contains the
@@ -548,7 +554,7 @@ public final class ThrowableSet {
 			// is not an AnySubType.
 			RefType incumbentBase = ((AnySubType) incumbent).getBase();
 			if (hierarchy.canStoreType(e, incumbentBase)) {
-			    memoizedAdds.put(e, this);
+			    memoizeAdd(e, this);
 			    return this;
 			}
 		    } else if (! (incumbent instanceof RefType)) {
@@ -562,7 +568,7 @@ public final class ThrowableSet {
 		resultSet.add(e);
 		result = Manager.v().registerSetIfNew(resultSet, 
 						      this.exceptionsExcluded);
-		memoizedAdds.put(e, result);
+		memoizeAdd(e, result);
 		return result;
 	    }
 	}
@@ -705,7 +711,7 @@ public final class ThrowableSet {
 		} else {
 		    result = this;
 		}
-		memoizedAdds.put(e, result);
+		memoizeAdd(e, result);
 		return result;
 	    }
 	}
@@ -742,7 +748,7 @@ public final class ThrowableSet {
 		Manager.v().addsExclusionWithoutSearch++;
 	    }
 	    result = this.add(s.exceptionsIncluded);
-	    memoizedAdds.put(s, result);
+	    memoizeAdd(s, result);
 	} else if (INSTRUMENTING) {
 	    Manager.v().addsInclusionFromMemo++;
 	    Manager.v().addsExclusionWithoutSearch++;
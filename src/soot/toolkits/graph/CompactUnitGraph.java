@@ -0,0 +1,391 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 1997-2014 Raja Vallee-Rai and others
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+
+package soot.toolkits.graph;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import soot.Body;
+import soot.Timers;
+import soot.Unit;
+import soot.UnitBox;
+import soot.baf.ReturnInst;
+import soot.baf.ReturnVoidInst;
+import soot.baf.ThrowInst;
+import soot.jimple.ReturnStmt;
+import soot.jimple.ReturnVoidStmt;
+import soot.jimple.ThrowStmt;
+import soot.options.Options;
+import soot.toolkits.exceptions.ThrowAnalysis;
+
+/**
+ * An immutable UnitGraph in compressed sparse row form. The units are
+ * numbered in the order of the body's unit chain, and the successors and
+ * predecessors of all units are kept in two int arrays each, one holding
+ * the numbers of the neighbours and one the offset at which the neighbours
+ * of each unit start. Besides the usual DirectedGraph methods, which
+ * return light-weight views over these arrays, the graph can be walked by
+ * unit number without allocating anything.
+ *
+ * A CompactUnitGraph either copies the edges of another UnitGraph (for
+ * instance an ExceptionalUnitGraph, whose exceptional successors are then
+ * kept as well, with units protected by the same traps sharing one table)
+ * or is built directly from a body, with the same edges as a
+ * BriefUnitGraph. {@link #exceptional(Body, ThrowAnalysis, boolean)} builds
+ * the graph of a body without traps directly as well, since its
+ * ExceptionalUnitGraph has no exceptional edges. Since it is a snapshot,
+ * it does not follow later changes to the body.
+ *
+ * @see soot.Body#getCompactUnitGraph()
+ */
+public class CompactUnitGraph extends UnitGraph {
+    private final Unit[] units;
+    private final Map<Unit, Integer> unitToIndex;
+    private final int[] succStart;
+    private final int[] succs;
+    private final int[] predStart;
+    private final int[] preds;
+
+    /** For each unit, its entry in excSuccTables, or null if the graph was
+     * not built from an ExceptionalUnitGraph. */
+    private final int[] excSuccTable;
+    private final int[][] excSuccTables;
+
+    /**
+     * Builds a compact copy of <code>g</code>, including the exceptional
+     * successors if <code>g</code> is an ExceptionalUnitGraph.
+     */
+    public CompactUnitGraph(UnitGraph g) {
+        super(g.getBody());
+
+        if (Options.v().time())
+            Timers.v().graphTimer.start();
+
+        int n = g.size();
+        units = new Unit[n];
+        unitToIndex = new HashMap<Unit, Integer>(n * 2 + 1, 0.7f);
+        number(g.iterator());
+
+        succStart = new int[n + 1];
+        predStart = new int[n + 1];
+        int succCount = 0, predCount = 0;
+        for (int i = 0; i < n; i++) {
+            succCount += g.getSuccsOf(units[i]).size();
+            predCount += g.getPredsOf(units[i]).size();
+        }
+        succs = new int[succCount];
+        preds = new int[predCount];
+        for (int i = 0, s = 0, p = 0; i < n; i++) {
+            succStart[i] = s;
+            for (Unit v : g.getSuccsOf(units[i]))
+                succs[s++] = indexOf(v);
+            predStart[i] = p;
+            for (Unit v : g.getPredsOf(units[i]))
+                preds[p++] = indexOf(v);
+        }
+        succStart[n] = succCount;
+        predStart[n] = predCount;
+
+        if (g instanceof ExceptionalUnitGraph) {
+            ExceptionalUnitGraph eg = (ExceptionalUnitGraph) g;
+            Map<List<Unit>, Integer> tables = new HashMap<List<Unit>, Integer>();
+            List<int[]> tableList = new ArrayList<int[]>();
+            excSuccTable = new int[n];
+            for (int i = 0; i < n; i++) {
+                List<Unit> exc = eg.getExceptionalSuccsOf(units[i]);
+                Integer t = tables.get(exc);
+                if (t == null) {
+                    int[] table = new int[exc.size()];
+                    for (int k = 0; k < table.length; k++)
+                        table[k] = indexOf(exc.get(k));
+                    t = tableList.size();
+                    tableList.add(table);
+                    tables.put(new ArrayList<Unit>(exc), t);
+                }
+                excSuccTable[i] = t;
+            }
+            excSuccTables = tableList.toArray(new int[tableList.size()][]);
+        } else {
+            excSuccTable = null;
+            excSuccTables = null;
+        }
+
+        heads = toList(g.getHeads());
+        tails = toList(g.getTails());
+
+        if (Options.v().time())
+            Timers.v().graphTimer.end();
+    }
+
+    /**
+     * Returns the same graph as a copy of the ExceptionalUnitGraph of
+     * <code>body</code> built with the given options. If the body has no
+     * traps, the graph is built directly from the body; otherwise the
+     * ExceptionalUnitGraph is built and copied.
+     */
+    public static CompactUnitGraph exceptional(Body body, ThrowAnalysis throwAnalysis,
+            boolean omitExceptingUnitEdges) {
+        if (body.getTraps().isEmpty() && !body.getUnits().isEmpty())
+            return new CompactUnitGraph(body, true);
+        return new CompactUnitGraph(new ExceptionalUnitGraph(body, throwAnalysis,
+                omitExceptingUnitEdges));
+    }
+
+    /**
+     * Builds the graph of the unexceptional control flow of
+     * <code>body</code>, with the same edges, heads and tails as a
+     * BriefUnitGraph.
+     */
+    public CompactUnitGraph(Body body) {
+        this(body, false);
+    }
+
+    /**
+     * Builds the graph of the unexceptional control flow of
+     * <code>body</code>. If <code>exceptional</code> is true, the body
+     * must have no traps, and the heads, tails and (empty) exceptional
+     * successors are those of its ExceptionalUnitGraph.
+     */
+    private CompactUnitGraph(Body body, boolean exceptional) {
+        super(body);
+
+        if (Options.v().time())
+            Timers.v().graphTimer.start();
+
+        int n = unitChain.size();
+        units = new Unit[n];
+        unitToIndex = new HashMap<Unit, Integer>(n * 2 + 1, 0.7f);
+        number(unitChain.iterator());
+
+        // successors, in the order BriefUnitGraph lists them
+        succStart = new int[n + 1];
+        int[] succBuf = new int[n + 1];
+        int succCount = 0;
+        int[] predCounts = new int[n];
+        for (int i = 0; i < n; i++) {
+            succStart[i] = succCount;
+            Unit u = units[i];
+            if (u.fallsThrough() && i + 1 < n) {
+                succBuf = append(succBuf, succCount++, i + 1);
+                predCounts[i + 1]++;
+            }
+            if (u.branches()) {
+                for (UnitBox box : u.getUnitBoxes()) {
+                    Integer t = unitToIndex.get(box.getUnit());
+                    if (t == null)
+                        throw new RuntimeException("Unit graph contains jump to non-existing target");
+                    boolean seen = false;
+                    for (int k = succStart[i]; k < succCount && !seen; k++)
+                        seen = succBuf[k] == t;
+                    if (!seen) {
+                        succBuf = append(succBuf, succCount++, t);
+                        predCounts[t]++;
+                    }
+                }
+            }
+        }
+        succStart[n] = succCount;
+        succs = Arrays.copyOf(succBuf, succCount);
+
+        // predecessors, in increasing order of their numbers
+        predStart = new int[n + 1];
+        for (int i = 0; i < n; i++)
+            predStart[i + 1] = predStart[i] + predCounts[i];
+        preds = new int[succCount];
+        int[] fill = Arrays.copyOf(predStart, n);
+        for (int i = 0; i < n; i++) {
+            for (int k = succStart[i]; k < succStart[i + 1]; k++)
+                preds[fill[succs[k]]++] = i;
+        }
+
+        List<Unit> headList = new ArrayList<Unit>();
+        List<Unit> tailList = new ArrayList<Unit>();
+        if (exceptional) {
+            // as in ExceptionalUnitGraph without traps, where every thrown
+            // exception escapes the method
+            excSuccTable = new int[n];
+            excSuccTables = new int[][] { new int[0] };
+            headList.add(units[0]);
+            for (Unit u : units) {
+                if (u instanceof ReturnStmt || u instanceof ReturnVoidStmt
+                        || u instanceof ThrowStmt || u instanceof ReturnInst
+                        || u instanceof ReturnVoidInst || u instanceof ThrowInst)
+                    tailList.add(u);
+            }
+        } else {
+            excSuccTable = null;
+            excSuccTables = null;
+
+            // as in UnitGraph.buildHeadsAndTails
+            for (int i = 0; i < n; i++) {
+                if (succStart[i] == succStart[i + 1])
+                    tailList.add(units[i]);
+                if (predStart[i] == predStart[i + 1])
+                    headList.add(units[i]);
+            }
+            if (n > 0 && !headList.contains(units[0]))
+                headList.add(units[0]);
+        }
+        heads = Collections.unmodifiableList(headList);
+        tails = Collections.unmodifiableList(tailList);
+
+        if (Options.v().time())
+            Timers.v().graphTimer.end();
+    }
+
+    private void number(Iterator<Unit> it) {
+        int i = 0;
+        while (it.hasNext()) {
+            Unit u = it.next();
+            units[i] = u;
+            unitToIndex.put(u, i++);
+        }
+    }
+
+    private static int[] append(int[] a, int pos, int v) {
+        if (pos == a.length)
+            a = Arrays.copyOf(a, a.length * 2);
+        a[pos] = v;
+        return a;
+    }
+
+    private List<Unit> toList(List<Unit> l) {
+        int[] is = new int[l.size()];
+        for (int k = 0; k < is.length; k++)
+            is[k] = indexOf(l.get(k));
+        return new UnitList(is, 0, is.length);
+    }
+
+    /** Returns the number of unit <code>u</code> in this graph. */
+    public int indexOf(Unit u) {
+        Integer i = unitToIndex.get(u);
+        if (i == null)
+            throw new NoSuchElementException("Invalid unit " + u);
+        return i;
+    }
+
+    /** Returns the unit numbered <code>i</code>. */
+    public Unit getUnit(int i) {
+        return units[i];
+    }
+
+    public int getSuccCount(int i) {
+        return succStart[i + 1] - succStart[i];
+    }
+
+    /** Returns the number of the <code>k</code>th successor of the unit
+     * numbered <code>i</code>. */
+    public int getSucc(int i, int k) {
+        return succs[succStart[i] + k];
+    }
+
+    public int getPredCount(int i) {
+        return predStart[i + 1] - predStart[i];
+    }
+
+    /** Returns the number of the <code>k</code>th predecessor of the unit
+     * numbered <code>i</code>. */
+    public int getPred(int i, int k) {
+        return preds[predStart[i] + k];
+    }
+
+    /** Returns true if the exceptional successors of the units are known,
+     * that is, if this graph was built from an ExceptionalUnitGraph or by
+     * {@link #exceptional(Body, ThrowAnalysis, boolean)}. */
+    public boolean hasExceptionalSuccs() {
+        return excSuccTables != null;
+    }
+
+    /**
+     * Returns the handlers that may catch an exception thrown by
+     * <code>u</code>, as ExceptionalUnitGraph.getExceptionalSuccsOf does.
+     */
+    public List<Unit> getExceptionalSuccsOf(Unit u) {
+        if (excSuccTables == null)
+            return Collections.emptyList();
+        int[] table = excSuccTables[excSuccTable[indexOf(u)]];
+        return new UnitList(table, 0, table.length);
+    }
+
+    @Override
+    public List<Unit> getSuccsOf(Unit u) {
+        int i = indexOf(u);
+        return new UnitList(succs, succStart[i], succStart[i + 1]);
+    }
+
+    @Override
+    public List<Unit> getPredsOf(Unit u) {
+        int i = indexOf(u);
+        return new UnitList(preds, predStart[i], predStart[i + 1]);
+    }
+
+    @Override
+    public int size() {
+        return units.length;
+    }
+
+    @Override
+    public Iterator<Unit> iterator() {
+        return Collections.unmodifiableList(Arrays.asList(units)).iterator();
+    }
+
+    @Override
+    public String toString() {
+        StringBuffer buf = new StringBuffer();
+        for (Unit u : units) {
+            buf.append("// preds: " + getPredsOf(u) + "\n");
+            buf.append(u.toString() + '\n');
+            buf.append("// succs " + getSuccsOf(u) + "\n");
+        }
+        return buf.toString();
+    }
+
+    /** An unmodifiable view of a range of unit numbers as units. */
+    private class UnitList extends AbstractList<Unit> {
+        private final int[] indices;
+        private final int from;
+        private final int to;
+
+        UnitList(int[] indices, int from, int to) {
+            this.indices = indices;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Unit get(int k) {
+            if (k < 0 || from + k >= to)
+                throw new IndexOutOfBoundsException("Index: " + k + ", Size: " + size());
+            return units[indices[from + k]];
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+}
@@ -153,6 +153,14 @@ class SimpleDominatorsAnalysis extends ForwardFlowAnalysis
         doAnalysis();
     }
 
+    protected boolean useIndexedFlowStorage() {
+        return true;
+    }
+
+    protected boolean keepFlowsBefore() {
+        return false;
+    }
+
     /**
      * All OUTs are initialized to the full set of definitions
      * OUT(Start) is tweaked in customizeInitialFlowGraph.
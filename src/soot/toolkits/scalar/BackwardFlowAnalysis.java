@@ -55,6 +55,11 @@ public abstract class BackwardFlowAnalysis<N, A> extends FlowAnalysis<N, A> {
 
 		List<N> orderedUnits = constructOrderer().newList(graph, true);
 
+		if (useIndexedFlowStorage()) {
+			doIndexedAnalysis(orderedUnits);
+			return;
+		}
+
 		final int n = orderedUnits.size();
 
 		BitSet tail = new BitSet();
@@ -140,6 +145,115 @@ public abstract class BackwardFlowAnalysis<N, A> extends FlowAnalysis<N, A> {
 
 		// Timers.v().totalFlowNodes += n;
 		// Timers.v().totalFlowComputations += numComputations;
+
+		discardFlows();
+	}
+
+	/**
+	 * The fixed-point iteration of <code>doAnalysis</code>, keeping the
+	 * flows in arrays and the predecessors and successors of each node as
+	 * positions in <code>orderedUnits</code>. Flows are allocated when
+	 * their node is first visited, and copied into the maps at the end.
+	 */
+	@SuppressWarnings("unchecked")
+	private void doIndexedAnalysis(List<N> orderedUnits) {
+		final boolean interactiveMode = Options.v().interactive_mode();
+
+		final int n = orderedUnits.size();
+		final Map<N, Integer> index = new IdentityHashMap<N, Integer>(n * 2 + 1);
+		{
+			int i = 0;
+			for (N s : orderedUnits) {
+				index.put(s, i++);
+			}
+		}
+
+		final int[][] preds = new int[n][];
+		final int[][] succs = new int[n][];
+		for (int i = 0; i < n; i++) {
+			N s = orderedUnits.get(i);
+			preds[i] = indicesOf(graph.getPredsOf(s), index);
+			succs[i] = indicesOf(graph.getSuccsOf(s), index);
+		}
+
+		BitSet tail = new BitSet(n);
+		for (N s : graph.getTails()) {
+			tail.set(index.get(s));
+		}
+
+		final A[] before = (A[]) new Object[n];
+		final A[] after = (A[]) new Object[n];
+
+		// stands in for the before flows of nodes not visited yet
+		final A initialFlow = newInitialFlow();
+
+		BitSet work = new BitSet(n);
+		work.set(0, n);
+
+		A previousFlow = newInitialFlow();
+
+		for (int i = work.nextSetBit(0); i >= 0; i = work.nextSetBit(i + 1)) {
+			work.clear(i);
+			N s = orderedUnits.get(i);
+
+			A afterFlow = after[i];
+			if (afterFlow == null) {
+				afterFlow = after[i] = tail.get(i) ? entryInitialFlow() : newInitialFlow();
+			}
+
+			// Compute and store afterFlow
+			final int[] q = succs[i];
+			if (q.length > 0) {
+				copy(flowOrInitial(before, q[0], initialFlow), afterFlow);
+
+				for (int k = 1; k < q.length; k++) {
+					mergeInto(s, afterFlow, flowOrInitial(before, q[k], initialFlow));
+				}
+
+				if (tail.get(i)) {
+					mergeInto(s, afterFlow, entryInitialFlow());
+				}
+			}
+
+			A beforeFlow = before[i];
+			if (beforeFlow == null) {
+				beforeFlow = before[i] = newInitialFlow();
+			}
+			copy(beforeFlow, previousFlow);
+
+			// Compute beforeFlow and store it.
+			if (interactiveMode) {
+				afterFlowThrough(s, afterFlow, true);
+				flowThrough(afterFlow, s, beforeFlow);
+				beforeFlowThrough(s, beforeFlow, false);
+			} else {
+				flowThrough(afterFlow, s, beforeFlow);
+			}
+
+			// Update queue appropriately
+			if (!previousFlow.equals(beforeFlow)) {
+				for (int j : preds[i]) {
+					work.set(j);
+					i = Math.min(i, j - 1);
+				}
+			}
+		}
+
+		final boolean keepBefore = keepFlowsBefore();
+		final boolean keepAfter = keepFlowsAfter();
+		for (int i = 0; i < n; i++) {
+			N s = orderedUnits.get(i);
+			if (keepBefore)
+				unitToBeforeFlow.put(s, before[i]);
+			if (keepAfter)
+				unitToAfterFlow.put(s, after[i]);
+		}
+		discardFlows();
+	}
+
+	private static <A> A flowOrInitial(A[] flows, int i, A initialFlow) {
+		A flow = flows[i];
+		return flow == null ? initialFlow : flow;
 	}
 }
 
@@ -26,6 +26,7 @@
 package soot.toolkits.scalar;
 
 import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 
 import soot.toolkits.graph.DirectedGraph;
@@ -75,6 +76,63 @@ public abstract class FlowAnalysis<N,A> extends AbstractFlowAnalysis<N,A>
         return unitToAfterFlow.get(s);
     }
     
+	/**
+	 * Returns true if the fixed-point iteration may keep the flows in
+	 * arrays indexed by the position of each node in the iteration order,
+	 * instead of looking them up in <code>unitToBeforeFlow</code> and
+	 * <code>unitToAfterFlow</code> for every predecessor or successor it
+	 * merges. The maps are then only filled once the fixed point has been
+	 * reached, so subclasses may only return true if their flow functions
+	 * do not read the maps. Flows of nodes that have not been visited yet
+	 * are read from a single flow returned by <code>newInitialFlow()</code>,
+	 * so <code>copy</code> and <code>merge</code> must not modify their
+	 * source arguments.
+	 */
+	protected boolean useIndexedFlowStorage() {
+		return false;
+	}
+
+	/**
+	 * Returns true if the flows before each node are to be kept once the
+	 * fixed point has been reached. Subclasses that only ever ask for
+	 * <code>getFlowAfter</code> can return false to release them.
+	 */
+	protected boolean keepFlowsBefore() {
+		return true;
+	}
+
+	/**
+	 * Returns true if the flows after each node are to be kept once the
+	 * fixed point has been reached. Subclasses that only ever ask for
+	 * <code>getFlowBefore</code> can return false to release them.
+	 */
+	protected boolean keepFlowsAfter() {
+		return true;
+	}
+
+	/**
+	 * Releases the flows that the subclass does not want to keep. Called
+	 * by <code>doAnalysis</code> once the fixed point has been reached.
+	 */
+	protected void discardFlows() {
+		if (!keepFlowsBefore())
+			unitToBeforeFlow = new IdentityHashMap<N, A>();
+		if (!keepFlowsAfter())
+			unitToAfterFlow = new IdentityHashMap<N, A>();
+	}
+
+	/**
+	 * Returns the positions in <code>index</code> of the given nodes.
+	 */
+	static <N> int[] indicesOf(List<N> nodes, Map<N, Integer> index) {
+		int[] result = new int[nodes.size()];
+		int i = 0;
+		for (N v : nodes) {
+			result[i++] = index.get(v);
+		}
+		return result;
+	}
+
 	/**
 	 * Default implementation constructing a PseudoTopologicalOrderer. 
 	 * @return an Orderer to order the nodes for the fixed-point iteration 
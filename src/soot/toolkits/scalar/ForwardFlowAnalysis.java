@@ -56,6 +56,11 @@ public abstract class ForwardFlowAnalysis<N, A> extends FlowAnalysis<N, A> {
 
 		List<N> orderedUnits = constructOrderer().newList(graph, false);
 
+		if (useIndexedFlowStorage()) {
+			doIndexedAnalysis(orderedUnits);
+			return;
+		}
+
 		final int n = orderedUnits.size();
 		BitSet head = new BitSet();
 		BitSet work = new BitSet(n);
@@ -140,6 +145,121 @@ public abstract class ForwardFlowAnalysis<N, A> extends FlowAnalysis<N, A> {
 
 		Timers.v().totalFlowNodes += n;
 		Timers.v().totalFlowComputations += numComputations;
+
+		discardFlows();
+	}
+
+	/**
+	 * The fixed-point iteration of <code>doAnalysis</code>, keeping the
+	 * flows in arrays and the predecessors and successors of each node as
+	 * positions in <code>orderedUnits</code>. Flows are allocated when
+	 * their node is first visited, and copied into the maps at the end.
+	 */
+	@SuppressWarnings("unchecked")
+	private void doIndexedAnalysis(List<N> orderedUnits) {
+		final boolean interactiveMode = Options.v().interactive_mode();
+
+		final int n = orderedUnits.size();
+		final Map<N, Integer> index = new IdentityHashMap<N, Integer>(n * 2 + 1);
+		{
+			int i = 0;
+			for (N s : orderedUnits) {
+				index.put(s, i++);
+			}
+		}
+
+		final int[][] preds = new int[n][];
+		final int[][] succs = new int[n][];
+		for (int i = 0; i < n; i++) {
+			N s = orderedUnits.get(i);
+			preds[i] = indicesOf(graph.getPredsOf(s), index);
+			succs[i] = indicesOf(graph.getSuccsOf(s), index);
+		}
+
+		BitSet head = new BitSet(n);
+		for (N s : graph.getHeads()) {
+			head.set(index.get(s));
+		}
+
+		final A[] before = (A[]) new Object[n];
+		final A[] after = (A[]) new Object[n];
+
+		// stands in for the after flows of nodes not visited yet
+		final A initialFlow = newInitialFlow();
+
+		BitSet work = new BitSet(n);
+		work.set(0, n);
+
+		int numComputations = 0;
+		A previousFlow = newInitialFlow();
+
+		for (int i = work.nextSetBit(0); i >= 0; i = work.nextSetBit(i + 1)) {
+			work.clear(i);
+			N s = orderedUnits.get(i);
+
+			A beforeFlow = before[i];
+			if (beforeFlow == null) {
+				beforeFlow = before[i] = head.get(i) ? entryInitialFlow() : newInitialFlow();
+			}
+
+			// Compute and store beforeFlow
+			final int[] p = preds[i];
+			if (p.length > 0) {
+				copy(flowOrInitial(after, p[0], initialFlow), beforeFlow);
+
+				for (int k = 1; k < p.length; k++) {
+					mergeInto(s, beforeFlow, flowOrInitial(after, p[k], initialFlow));
+				}
+
+				if (head.get(i)) {
+					mergeInto(s, beforeFlow, entryInitialFlow());
+				}
+			}
+
+			A afterFlow = after[i];
+			if (afterFlow == null) {
+				afterFlow = after[i] = newInitialFlow();
+			}
+			copy(afterFlow, previousFlow);
+
+			// Compute afterFlow and store it.
+			if (interactiveMode) {
+				beforeFlowThrough(s, beforeFlow, true);
+				flowThrough(beforeFlow, s, afterFlow);
+				afterFlowThrough(s, afterFlow, false);
+			} else {
+				flowThrough(beforeFlow, s, afterFlow);
+			}
+
+			// Update queue appropriately
+			if (!previousFlow.equals(afterFlow)) {
+				for (int j : succs[i]) {
+					work.set(j);
+					i = Math.min(i, j - 1);
+				}
+			}
+
+			numComputations++;
+		}
+
+		final boolean keepBefore = keepFlowsBefore();
+		final boolean keepAfter = keepFlowsAfter();
+		for (int i = 0; i < n; i++) {
+			N s = orderedUnits.get(i);
+			if (keepBefore)
+				unitToBeforeFlow.put(s, before[i]);
+			if (keepAfter)
+				unitToAfterFlow.put(s, after[i]);
+		}
+		discardFlows();
+
+		Timers.v().totalFlowNodes += n;
+		Timers.v().totalFlowComputations += numComputations;
+	}
+
+	private static <A> A flowOrInitial(A[] flows, int i, A initialFlow) {
+		A flow = flows[i];
+		return flow == null ? initialFlow : flow;
 	}
 }
 
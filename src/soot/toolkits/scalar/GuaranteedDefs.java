@@ -102,6 +102,14 @@ class GuaranteedDefsAnalysis extends ForwardFlowAnalysis
         doAnalysis();
     }
 
+    protected boolean useIndexedFlowStorage() {
+        return true;
+    }
+
+    protected boolean keepFlowsAfter() {
+        return false;
+    }
+
     /**
      * All INs are initialized to the empty set.
      **/
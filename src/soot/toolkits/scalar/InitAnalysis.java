@@ -45,6 +45,11 @@ public class InitAnalysis extends ForwardFlowAnalysis<Unit, FlowSet> {
         doAnalysis();
     }
 
+    @Override
+    protected boolean useIndexedFlowStorage() {
+        return true;
+    }
+
     @Override
     protected FlowSet entryInitialFlow() {
         return new ArraySparseSet();
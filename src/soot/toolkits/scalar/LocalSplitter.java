@@ -104,7 +104,7 @@ public class LocalSplitter extends BodyTransformer
         {
             ExceptionalUnitGraph graph = new ExceptionalUnitGraph(body,this.throwAnalysis,true);
 
-            LocalDefs localDefs = new SmartLocalDefs(graph, new SimpleLiveLocals(graph));
+            LocalDefs localDefs = new SparseLocalDefs(graph);
             LocalUses localUses = new SimpleLocalUses(graph, localDefs);
             
             if(Options.v().time())
@@ -164,6 +164,11 @@ class SimpleLiveLocalsAnalysis extends BackwardFlowAnalysis<Unit, FlowSet>
 
     }
 
+    @Override
+    protected boolean useIndexedFlowStorage() {
+        return true;
+    }
+
     @Override
     protected FlowSet newInitialFlow()
     {
@@ -0,0 +1,271 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 1997-2014 Raja Vallee-Rai and others
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+
+package soot.toolkits.scalar;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import soot.G;
+import soot.Local;
+import soot.Timers;
+import soot.Unit;
+import soot.Value;
+import soot.ValueBox;
+import soot.options.Options;
+import soot.toolkits.graph.UnitGraph;
+
+/**
+ * An implementation of the LocalDefs interface that only runs a
+ * reaching-definitions analysis for the locals that need one.
+ *
+ * A local with a single definition gets that definition at all its uses,
+ * as in SSA form, without any dataflow. The definitions of the remaining
+ * locals are numbered densely, grouped by local, and a bit-set analysis
+ * over those numbers alone computes which of them reach each unit. The
+ * answers are computed once, in the constructor, so that
+ * <code>getDefsOfAt</code> allocates nothing.
+ *
+ * The result agrees with SmartLocalDefs, except that a use of a
+ * singly-defined local that its definition does not reach, such as a use
+ * before the definition in straight-line code or any use in unreachable
+ * code, is still given that definition. SparseLocalDefs is thus meant for
+ * bodies in which every use has a reaching definition; use SmartLocalDefs
+ * to check that, as {@link soot.Body#validateUses()} does.
+ */
+public class SparseLocalDefs implements LocalDefs {
+    /** The locals used by a unit and the definitions of each reaching it. */
+    private static class UseDefs {
+        final Local[] locals;
+        final List<Unit>[] defs;
+
+        @SuppressWarnings("unchecked")
+        UseDefs(int size) {
+            locals = new Local[size];
+            defs = new List[size];
+        }
+    }
+
+    private final Map<Unit, UseDefs> unitToUseDefs;
+
+    public SparseLocalDefs(UnitGraph g) {
+        if (Options.v().time())
+            Timers.v().defsTimer.start();
+
+        if (Options.v().verbose())
+            G.v().out.println("[" + g.getBody().getMethod().getName()
+                    + "]     Constructing SparseLocalDefs...");
+
+        // the definitions of each local, in graph order
+        Map<Local, List<Unit>> localToDefs = new HashMap<Local, List<Unit>>(
+                g.getBody().getLocalCount() * 2 + 1, 0.7f);
+        for (Unit u : g) {
+            Local l = localDef(u);
+            if (l == null)
+                continue;
+            List<Unit> defs = localToDefs.get(l);
+            if (defs == null)
+                localToDefs.put(l, defs = new ArrayList<Unit>(1));
+            defs.add(u);
+        }
+
+        // number the definitions of locals defined more than once
+        Map<Local, Integer> rangeStart = new HashMap<Local, Integer>();
+        Map<Unit, Integer> defToIndex = new HashMap<Unit, Integer>();
+        List<Unit> indexToDef = new ArrayList<Unit>();
+        Map<Local, List<Unit>> localToSingleDef = new HashMap<Local, List<Unit>>(
+                localToDefs.size() * 2 + 1, 0.7f);
+        for (Map.Entry<Local, List<Unit>> e : localToDefs.entrySet()) {
+            List<Unit> defs = e.getValue();
+            if (defs.size() == 1) {
+                localToSingleDef.put(e.getKey(), Collections.singletonList(defs.get(0)));
+                continue;
+            }
+            rangeStart.put(e.getKey(), indexToDef.size());
+            for (Unit d : defs) {
+                defToIndex.put(d, indexToDef.size());
+                indexToDef.add(d);
+            }
+        }
+
+        ReachingDefsAnalysis analysis = null;
+        if (!indexToDef.isEmpty()) {
+            int[] start = new int[indexToDef.size()];
+            int[] end = new int[indexToDef.size()];
+            for (Map.Entry<Local, Integer> e : rangeStart.entrySet()) {
+                int s = e.getValue();
+                int t = s + localToDefs.get(e.getKey()).size();
+                for (int i = s; i < t; i++) {
+                    start[i] = s;
+                    end[i] = t;
+                }
+            }
+            analysis = new ReachingDefsAnalysis(g, defToIndex, start, end);
+        }
+
+        unitToUseDefs = new HashMap<Unit, UseDefs>(g.size() * 2 + 1, 0.7f);
+        List<Local> used = new ArrayList<Local>();
+        for (Unit u : g) {
+            used.clear();
+            for (ValueBox vb : u.getUseBoxes()) {
+                Value v = vb.getValue();
+                if (v instanceof Local && !used.contains(v))
+                    used.add((Local) v);
+            }
+            if (used.isEmpty())
+                continue;
+
+            UseDefs ud = new UseDefs(used.size());
+            for (int i = 0; i < used.size(); i++) {
+                Local l = used.get(i);
+                ud.locals[i] = l;
+
+                List<Unit> defs = localToSingleDef.get(l);
+                if (defs == null) {
+                    Integer s = rangeStart.get(l);
+                    if (s == null) {
+                        defs = Collections.emptyList();
+                    } else {
+                        BitSet reaching = analysis.getFlowBefore(u);
+                        int t = s + localToDefs.get(l).size();
+                        defs = new ArrayList<Unit>();
+                        for (int j = reaching.nextSetBit(s); j >= 0 && j < t; j = reaching.nextSetBit(j + 1)) {
+                            defs.add(indexToDef.get(j));
+                        }
+                        defs = Collections.unmodifiableList(defs);
+                    }
+                }
+                ud.defs[i] = defs;
+            }
+            unitToUseDefs.put(u, ud);
+        }
+
+        if (Options.v().time())
+            Timers.v().defsTimer.end();
+
+        if (Options.v().verbose())
+            G.v().out.println("[" + g.getBody().getMethod().getName()
+                    + "]     SparseLocalDefs finished.");
+    }
+
+    /**
+     * Returns the definitions of <code>l</code> reaching <code>s</code>, or
+     * null if <code>l</code> is not used at <code>s</code>.
+     */
+    public List<Unit> getDefsOfAt(Local l, Unit s) {
+        UseDefs ud = unitToUseDefs.get(s);
+        if (ud == null)
+            return null;
+        for (int i = 0; i < ud.locals.length; i++) {
+            if (ud.locals[i] == l)
+                return ud.defs[i];
+        }
+        return null;
+    }
+
+    static Local localDef(Unit u) {
+        List<ValueBox> defBoxes = u.getDefBoxes();
+        if (defBoxes.isEmpty())
+            return null;
+        if (defBoxes.size() != 1)
+            throw new RuntimeException("invalid number of def boxes");
+        Value v = defBoxes.get(0).getValue();
+        return v instanceof Local ? (Local) v : null;
+    }
+
+    /**
+     * Reaching definitions over the numbered definitions. A definition
+     * numbered i kills the definitions numbered start[i] to end[i]-1,
+     * those of the same local.
+     */
+    private static class ReachingDefsAnalysis extends ForwardFlowAnalysis<Unit, BitSet> {
+        private final Map<Unit, Integer> defToIndex;
+        private final int[] start;
+        private final int[] end;
+
+        ReachingDefsAnalysis(UnitGraph g, Map<Unit, Integer> defToIndex, int[] start, int[] end) {
+            super(g);
+            this.defToIndex = defToIndex;
+            this.start = start;
+            this.end = end;
+            doAnalysis();
+        }
+
+        @Override
+        protected boolean useIndexedFlowStorage() {
+            return true;
+        }
+
+        @Override
+        protected boolean keepFlowsAfter() {
+            return false;
+        }
+
+        @Override
+        protected void flowThrough(BitSet in, Unit u, BitSet out) {
+            out.clear();
+            out.or(in);
+            Integer i = defToIndex.get(u);
+            if (i != null) {
+                out.clear(start[i], end[i]);
+                out.set(i);
+            }
+        }
+
+        @Override
+        protected void mergeInto(Unit succNode, BitSet inout, BitSet in) {
+            inout.or(in);
+        }
+
+        @Override
+        protected void merge(BitSet in1, BitSet in2, BitSet out) {
+            if (out == in2) {
+                out.or(in1);
+            } else {
+                if (out != in1) {
+                    out.clear();
+                    out.or(in1);
+                }
+                out.or(in2);
+            }
+        }
+
+        @Override
+        protected void copy(BitSet source, BitSet dest) {
+            if (source == dest)
+                return;
+            dest.clear();
+            dest.or(source);
+        }
+
+        @Override
+        protected BitSet newInitialFlow() {
+            return new BitSet();
+        }
+
+        @Override
+        protected BitSet entryInitialFlow() {
+            return new BitSet();
+        }
+    }
+}
@@ -32,12 +32,12 @@ public class ArrayNumberer<E extends Numberable> implements IterableNumberer<E>
     protected int lastNumber = 0;
     
     private void resize(int n) {
-    	E[] old = numberToObj;    	
+    	// the old array is left intact, so that threads still holding it
+    	// keep seeing the objects that were numbered before the resize
     	numberToObj = Arrays.copyOf(numberToObj, n);
-    	Arrays.fill(old, null);
     }
     
-    public void add( E o ) {
+    public synchronized void add( E o ) {
         if( o.getNumber() != 0 ) return;
         
         ++lastNumber;
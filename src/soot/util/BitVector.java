@@ -108,6 +108,10 @@ public class BitVector
         if( indexOf(bit) >= bits.length ) return false;
         return ( bits[indexOf(bit)] & mask(bit) ) != 0L;
     }
+    /** Returns the 64 bits starting at bit 64*index, or 0 past the end. */
+    long word( int index ) {
+        return index < bits.length ? bits[index] : 0L;
+    }
     public int hashCode() {
         long ret = 0;
         for (long element : bits) {
@@ -66,6 +66,10 @@ public interface Chain<E> extends Collection<E>, Serializable
     /** Adds the given object at the end of the Chain. */
     public void addLast(E u);
 
+    /** Returns a count that changes whenever an object is added to or
+     * removed from this Chain, or the Chain is reordered. */
+    public long getModificationCount();
+
     /** Removes the first object contained in this Chain. */
     public void removeFirst();
     /** Removes the last object contained in this Chain. */
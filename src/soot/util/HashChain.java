@@ -73,6 +73,11 @@ public class HashChain<E> extends AbstractCollection<E>
      * @deprecated you can use <code>new ArrayList<E>(c)</code> instead
      */
     @Deprecated
+    public long getModificationCount()
+    {
+        return stateCount;
+    }
+
     public static <E> List<E> toList(Chain<E> c)
     {
         return new ArrayList<E>(c);
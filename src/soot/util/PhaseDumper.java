@@ -94,7 +94,14 @@ public class PhaseDumper {
 	    return phaseName;
 	}
     }
-    private final PhaseStack phaseStack = new PhaseStack(); 
+    // Each thread running body packs keeps its own stack of phases, so
+    // that dumpBefore()/dumpAfter() pairs from different bodies do not
+    // interleave when -num-threads is used.
+    private final ThreadLocal<PhaseStack> phaseStack = new ThreadLocal<PhaseStack>() {
+	protected PhaseStack initialValue() {
+	    return new PhaseStack();
+	}
+    };
     final static String allWildcard = "ALL";
 
 
@@ -228,15 +235,17 @@ public class PhaseDumper {
     // a hack to avoid dumping graphs that we create in the course of
     // dumping bodies or other graphs.  
     //
-    // Note that this hack would not work if a PhaseDumper might be
-    // accessed by multiple threads.  So long as there is a single
-    // active PhaseDumper accessed through soot.G, it seems
-    // safe to assume it will be accessed by only a single thread.
-    private boolean alreadyDumping = false;
+    // The flag is kept per thread, since body packs may be applied to
+    // several bodies at once when -num-threads is used.
+    private final ThreadLocal<Boolean> alreadyDumping = new ThreadLocal<Boolean>() {
+	protected Boolean initialValue() {
+	    return Boolean.FALSE;
+	}
+    };
     
     public void dumpBody(Body b, String baseName) {
 	try {
-	    alreadyDumping = true;
+	    alreadyDumping.set(Boolean.TRUE);
 	    java.io.PrintWriter out = openBodyFile(b, baseName);
 	    soot.Printer.v().setOption(Printer.USE_ABBREVIATIONS);
 	    soot.Printer.v().printTo(b, out);
@@ -247,7 +256,7 @@ public class PhaseDumper {
 	    G.v().out.println("PhaseDumper.dumpBody() caught: " + e.toString());
 	    e.printStackTrace(G.v().out);
 	} finally {
-	    alreadyDumping = false;
+	    alreadyDumping.set(Boolean.FALSE);
 	}
     }
 
@@ -280,7 +289,7 @@ public class PhaseDumper {
      * @param phaseName the name of the phase that has just started.
      */
     public void dumpBefore(Body b, String phaseName) {
-	phaseStack.push(phaseName);
+	phaseStack.get().push(phaseName);
 	if (isBodyDumpingPhase(phaseName)) {
 		deleteOldGraphFiles(b, phaseName);
 		dumpBody(b, phaseName + ".in");
@@ -301,7 +310,7 @@ public class PhaseDumper {
      * match the <code>PhaseDumper</code>'s record of the current phase.
      */
     public void dumpAfter(Body b, String phaseName) {
-	String poppedPhaseName = phaseStack.pop();
+	String poppedPhaseName = phaseStack.get().pop();
 	if (poppedPhaseName != phaseName) {
 	    throw new IllegalArgumentException("dumpAfter(" + phaseName + 
 					       ") when poppedPhaseName == " +
@@ -323,7 +332,7 @@ public class PhaseDumper {
      * @param phaseName the name of the phase that has just started.
      */
     public void dumpBefore(String phaseName) {
-	phaseStack.push(phaseName);
+	phaseStack.get().push(phaseName);
 	if (isBodyDumpingPhase(phaseName)) {
 	    dumpAllBodies(phaseName + ".in", true);
 	}
@@ -341,7 +350,7 @@ public class PhaseDumper {
      * match the <code>PhaseDumper</code>'s record of the current phase.
      */
     public void dumpAfter(String phaseName) {
-	String poppedPhaseName = phaseStack.pop();
+	String poppedPhaseName = phaseStack.get().pop();
 	if (poppedPhaseName != phaseName) {
 	    throw new IllegalArgumentException("dumpAfter(" + phaseName + 
 					       ") when poppedPhaseName == " +
@@ -362,12 +371,12 @@ public class PhaseDumper {
      * @param body the {@link Body} represented by <code>g</code>.
      */
     public void dumpGraph(DirectedGraph g, Body b) {
-	if (alreadyDumping) {
+	if (alreadyDumping.get()) {
 	    return;
 	}
 	try {
-	    alreadyDumping = true;
-	    String phaseName = phaseStack.currentPhase();
+	    alreadyDumping.set(Boolean.TRUE);
+	    String phaseName = phaseStack.get().currentPhase();
 	    if (isCFGDumpingPhase(phaseName)) { 
 		try {
 		    String outputFile = nextGraphFileName(b, phaseName + "-" + 
@@ -384,7 +393,7 @@ public class PhaseDumper {
 		}
 	    }
 	} finally {
-	    alreadyDumping = false;
+	    alreadyDumping.set(Boolean.FALSE);
 	}
     }
 
@@ -396,12 +405,12 @@ public class PhaseDumper {
      * @param g the graph to dump.
      */
     public void dumpGraph(ExceptionalGraph g) {
-	if (alreadyDumping) {
+	if (alreadyDumping.get()) {
 	    return;
 	}
 	try {
-	    alreadyDumping = true;
-	    String phaseName = phaseStack.currentPhase();
+	    alreadyDumping.set(Boolean.TRUE);
+	    String phaseName = phaseStack.get().currentPhase();
 	    if (isCFGDumpingPhase(phaseName)) {
 		try {
 		    String outputFile = nextGraphFileName(g.getBody(), 
@@ -421,7 +430,7 @@ public class PhaseDumper {
 		}
 	    }
 	} finally {
-	    alreadyDumping = false;
+	    alreadyDumping.set(Boolean.FALSE);
 	}
     }
 
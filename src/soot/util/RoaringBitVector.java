@@ -0,0 +1,607 @@
+/* Soot - a J*va Optimization Framework
+ * Copyright (C) 1997-2014 Raja Vallee-Rai and others
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA 02111-1307, USA.
+ */
+
+package soot.util;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/** A compressed bit set in the style of Roaring bitmaps. The bits are
+ * grouped into chunks of 2^16 by their upper 16 bits, and each non-empty
+ * chunk is stored in whichever of three containers is the smallest: a
+ * sorted array of the lower 16 bits, a plain bitmap of 2^16 bits, or a
+ * sorted list of runs of consecutive bits. Sparse sets thus cost little
+ * more than an array, and large sets of clustered bits compress to a few
+ * runs.
+ */
+public final class RoaringBitVector {
+    /** Largest number of elements kept in an array container. */
+    static final int ARRAY_MAX = 4096;
+    /** Number of 64-bit words in a bitmap container. */
+    static final int WORDS = 1024;
+
+    private char[] keys = new char[1];
+    private Container[] containers = new Container[1];
+    private int size = 0;
+
+    public RoaringBitVector() {
+    }
+
+    /** Sets the given bit; returns true if it was not set before. */
+    public boolean set( int bit ) {
+        int i = find( bit >>> 16 );
+        if( i < 0 ) {
+            ArrayContainer c = new ArrayContainer( 4 );
+            c.add( bit & 0xFFFF );
+            insert( -i - 1, bit >>> 16, c );
+            return true;
+        }
+        Container c = containers[i];
+        int card = c.cardinality();
+        containers[i] = c = c.add( bit & 0xFFFF );
+        return c.cardinality() != card;
+    }
+
+    /** Returns true if the given bit is set. */
+    public boolean get( int bit ) {
+        int i = find( bit >>> 16 );
+        return i >= 0 && containers[i].contains( bit & 0xFFFF );
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Returns the number of bits that are set. */
+    public int cardinality() {
+        int ret = 0;
+        for( int i = 0; i < size; i++ ) ret += containers[i].cardinality();
+        return ret;
+    }
+
+    /**
+     * Computes this = this OR ((orset AND andset) AND (NOT andnotset)),
+     * like {@link BitVector#orAndAndNot}; andset and andnotset may be null.
+     * Returns true iff this is modified.
+     */
+    public boolean orAndAndNot( RoaringBitVector orset, BitVector andset,
+            RoaringBitVector andnotset ) {
+        if( orset == null ) return false;
+        boolean ret = false;
+        for( int oi = 0; oi < orset.size; oi++ ) {
+            int key = orset.keys[oi];
+            Container other = orset.containers[oi];
+            Container exclude = null;
+            if( andnotset != null ) {
+                int ei = andnotset.find( key );
+                if( ei >= 0 ) exclude = andnotset.containers[ei];
+            }
+            boolean shared = true;
+            if( andset != null || exclude != null ) {
+                other = other.filter( andset, key * WORDS, exclude );
+                if( other == null ) continue;
+                shared = false;
+            }
+            int i = find( key );
+            if( i < 0 ) {
+                insert( -i - 1, key, shared ? other.copy() : other );
+                ret = true;
+            } else {
+                Container c = containers[i];
+                int card = c.cardinality();
+                containers[i] = c = c.or( other );
+                if( c.cardinality() != card ) ret = true;
+            }
+        }
+        return ret;
+    }
+
+    /** Returns an iterator over the set bits, in increasing order. The set
+     * must not be changed while it is used. */
+    public SetBitIterator iterator() {
+        return new SetBitIterator();
+    }
+
+    public String toString() {
+        StringBuffer ret = new StringBuffer( "{" );
+        boolean first = true;
+        for( SetBitIterator it = iterator(); it.hasNext(); ) {
+            if( !first ) ret.append( ", " );
+            ret.append( it.next() );
+            first = false;
+        }
+        return ret.append( '}' ).toString();
+    }
+
+    /** An iterator over the set bits; like {@link BitSetIterator}, next
+     * returns an int instead of an Object. */
+    public final class SetBitIterator {
+        private int ci = -1;
+        private Container c;
+        private int base;
+        /* position in the array, run index, or word index */
+        private int pos;
+        /* next value in the current run, or remaining bits of the word */
+        private int runNext;
+        private long word;
+        private boolean hasNext;
+
+        SetBitIterator() {
+            nextContainer();
+        }
+
+        public boolean hasNext() {
+            return hasNext;
+        }
+
+        public int next() {
+            if( !hasNext ) throw new NoSuchElementException();
+            int ret;
+            if( c instanceof ArrayContainer ) {
+                ArrayContainer a = (ArrayContainer) c;
+                ret = base | a.values[pos++];
+                if( pos >= a.n ) nextContainer();
+            } else if( c instanceof BitmapContainer ) {
+                ret = base | (pos << 6) | Long.numberOfTrailingZeros( word );
+                word &= word - 1;
+                if( word == 0 ) nextWord( pos + 1 );
+            } else {
+                RunContainer r = (RunContainer) c;
+                ret = base | runNext;
+                if( runNext < r.runs[2 * pos + 1] ) {
+                    runNext++;
+                } else if( ++pos < r.n ) {
+                    runNext = r.runs[2 * pos];
+                } else {
+                    nextContainer();
+                }
+            }
+            return ret;
+        }
+
+        private void nextContainer() {
+            if( ++ci >= size ) {
+                hasNext = false;
+                return;
+            }
+            hasNext = true;
+            c = containers[ci];
+            base = keys[ci] << 16;
+            pos = 0;
+            if( c instanceof BitmapContainer ) {
+                nextWord( 0 );
+            } else if( c instanceof RunContainer ) {
+                runNext = ((RunContainer) c).runs[0];
+            }
+        }
+
+        private void nextWord( int from ) {
+            long[] words = ((BitmapContainer) c).words;
+            for( pos = from; pos < WORDS; pos++ ) {
+                if( words[pos] != 0 ) {
+                    word = words[pos];
+                    return;
+                }
+            }
+            nextContainer();
+        }
+    }
+
+    /* Private methods. */
+
+    private int find( int key ) {
+        int lo = 0, hi = size - 1;
+        while( lo <= hi ) {
+            int mid = (lo + hi) >>> 1;
+            int k = keys[mid];
+            if( k < key ) lo = mid + 1;
+            else if( k > key ) hi = mid - 1;
+            else return mid;
+        }
+        return -(lo + 1);
+    }
+
+    private void insert( int i, int key, Container c ) {
+        if( size == keys.length ) {
+            keys = Arrays.copyOf( keys, 2 * size );
+            containers = Arrays.copyOf( containers, 2 * size );
+        }
+        System.arraycopy( keys, i, keys, i + 1, size - i );
+        System.arraycopy( containers, i, containers, i + 1, size - i );
+        keys[i] = (char) key;
+        containers[i] = c;
+        size++;
+    }
+
+    /** Returns the smallest container holding the bits of words, or null
+     * if no bit is set. */
+    static Container fromWords( long[] words ) {
+        int card = 0;
+        int runs = 0;
+        long prevTop = 0;
+        for( int i = 0; i < WORDS; i++ ) {
+            long w = words[i];
+            card += Long.bitCount( w );
+            runs += Long.bitCount( w & ~((w << 1) | prevTop) );
+            prevTop = w >>> 63;
+        }
+        if( card == 0 ) return null;
+        if( 2 * runs < Math.min( card, ARRAY_MAX ) ) {
+            return RunContainer.fromWords( words, runs );
+        }
+        if( card <= ARRAY_MAX ) {
+            return ArrayContainer.fromWords( words, card );
+        }
+        return new BitmapContainer( words, card );
+    }
+
+    /** The set of lower 16 bits of the elements of one chunk. Containers
+     * are never empty. Operations that change a container return the
+     * container holding the result, which may be a new one of another
+     * kind. */
+    static abstract class Container {
+        abstract int cardinality();
+        abstract boolean contains( int x );
+        abstract Container add( int x );
+        /** Returns this OR other; other is not changed. */
+        abstract Container or( Container other );
+        abstract Container copy();
+        /** Returns the bits as a new bitmap. */
+        abstract long[] toWords();
+        /** Returns the elements x of this container for which bit
+         * wordBase*64+x of mask is set (if mask is not null) and which are
+         * not in exclude (if it is not null), or null if there are none. */
+        Container filter( BitVector mask, int wordBase, Container exclude ) {
+            long[] words = toWords();
+            if( mask != null ) {
+                for( int i = 0; i < WORDS; i++ ) {
+                    if( words[i] != 0 ) words[i] &= mask.word( wordBase + i );
+                }
+            }
+            if( exclude != null ) exclude.clearIn( words );
+            return fromWords( words );
+        }
+        /** Clears the bits of this container in words. */
+        abstract void clearIn( long[] words );
+    }
+
+    static final class ArrayContainer extends Container {
+        char[] values;
+        int n;
+
+        ArrayContainer( int capacity ) {
+            values = new char[capacity];
+        }
+
+        static ArrayContainer fromWords( long[] words, int card ) {
+            ArrayContainer ret = new ArrayContainer( card );
+            for( int i = 0; i < WORDS; i++ ) {
+                for( long w = words[i]; w != 0; w &= w - 1 ) {
+                    ret.values[ret.n++] = (char) ((i << 6) | Long.numberOfTrailingZeros( w ));
+                }
+            }
+            return ret;
+        }
+
+        int cardinality() { return n; }
+
+        boolean contains( int x ) {
+            return Arrays.binarySearch( values, 0, n, (char) x ) >= 0;
+        }
+
+        Container add( int x ) {
+            int i = Arrays.binarySearch( values, 0, n, (char) x );
+            if( i >= 0 ) return this;
+            if( n == ARRAY_MAX ) {
+                long[] words = toWords();
+                words[x >>> 6] |= 1L << x;
+                return RoaringBitVector.fromWords( words );
+            }
+            i = -i - 1;
+            if( n == values.length ) {
+                values = Arrays.copyOf( values, Math.min( 2 * n, ARRAY_MAX ) );
+            }
+            System.arraycopy( values, i, values, i + 1, n - i );
+            values[i] = (char) x;
+            n++;
+            return this;
+        }
+
+        Container or( Container other ) {
+            if( other instanceof ArrayContainer ) {
+                ArrayContainer o = (ArrayContainer) other;
+                if( n + o.n > ARRAY_MAX ) {
+                    long[] words = toWords();
+                    for( int i = 0; i < o.n; i++ ) {
+                        words[o.values[i] >>> 6] |= 1L << o.values[i];
+                    }
+                    return RoaringBitVector.fromWords( words );
+                }
+                char[] merged = new char[n + o.n];
+                int i = 0, j = 0, k = 0;
+                while( i < n && j < o.n ) {
+                    char a = values[i], b = o.values[j];
+                    if( a < b ) { merged[k++] = a; i++; }
+                    else if( a > b ) { merged[k++] = b; j++; }
+                    else { merged[k++] = a; i++; j++; }
+                }
+                while( i < n ) merged[k++] = values[i++];
+                while( j < o.n ) merged[k++] = o.values[j++];
+                values = merged;
+                n = k;
+                return this;
+            }
+            long[] words = other.toWords();
+            for( int i = 0; i < n; i++ ) {
+                words[values[i] >>> 6] |= 1L << values[i];
+            }
+            return RoaringBitVector.fromWords( words );
+        }
+
+        Container copy() {
+            ArrayContainer ret = new ArrayContainer( n );
+            System.arraycopy( values, 0, ret.values, 0, n );
+            ret.n = n;
+            return ret;
+        }
+
+        long[] toWords() {
+            long[] words = new long[WORDS];
+            for( int i = 0; i < n; i++ ) {
+                words[values[i] >>> 6] |= 1L << values[i];
+            }
+            return words;
+        }
+
+        Container filter( BitVector mask, int wordBase, Container exclude ) {
+            ArrayContainer ret = new ArrayContainer( n );
+            for( int i = 0; i < n; i++ ) {
+                char x = values[i];
+                if( mask != null && !mask.get( (wordBase << 6) + x ) ) continue;
+                if( exclude != null && exclude.contains( x ) ) continue;
+                ret.values[ret.n++] = x;
+            }
+            return ret.n == 0 ? null : ret;
+        }
+
+        void clearIn( long[] words ) {
+            for( int i = 0; i < n; i++ ) {
+                words[values[i] >>> 6] &= ~(1L << values[i]);
+            }
+        }
+    }
+
+    static final class BitmapContainer extends Container {
+        final long[] words;
+        int card;
+
+        BitmapContainer( long[] words, int card ) {
+            this.words = words;
+            this.card = card;
+        }
+
+        int cardinality() { return card; }
+
+        boolean contains( int x ) {
+            return (words[x >>> 6] & (1L << x)) != 0;
+        }
+
+        Container add( int x ) {
+            long w = words[x >>> 6];
+            long bit = 1L << x;
+            if( (w & bit) == 0 ) {
+                words[x >>> 6] = w | bit;
+                card++;
+            }
+            return this;
+        }
+
+        Container or( Container other ) {
+            if( other instanceof ArrayContainer ) {
+                ArrayContainer o = (ArrayContainer) other;
+                for( int i = 0; i < o.n; i++ ) add( o.values[i] );
+                return this;
+            }
+            long[] ow = other instanceof BitmapContainer
+                ? ((BitmapContainer) other).words : other.toWords();
+            for( int i = 0; i < WORDS; i++ ) words[i] |= ow[i];
+            return RoaringBitVector.fromWords( words );
+        }
+
+        Container copy() {
+            return new BitmapContainer( words.clone(), card );
+        }
+
+        long[] toWords() {
+            return words.clone();
+        }
+
+        void clearIn( long[] w ) {
+            for( int i = 0; i < WORDS; i++ ) w[i] &= ~words[i];
+        }
+    }
+
+    static final class RunContainer extends Container {
+        /** Pairs of the first and the last element of each run. */
+        char[] runs;
+        int n;
+        int card;
+
+        RunContainer( char[] runs, int n ) {
+            this.runs = runs;
+            this.n = n;
+            this.card = count();
+        }
+
+        static RunContainer fromWords( long[] words, int count ) {
+            char[] runs = new char[2 * count];
+            int n = 0;
+            int start = -1;
+            for( int i = 0; i < WORDS; i++ ) {
+                long w = words[i];
+                for( int b = 0; b < 64; ) {
+                    if( start < 0 ) {
+                        long rest = w >>> b;
+                        if( rest == 0 ) break;
+                        b += Long.numberOfTrailingZeros( rest );
+                        start = (i << 6) | b;
+                    } else {
+                        long rest = ~w >>> b;
+                        if( b > 0 ) rest &= -1L >>> b;
+                        if( rest == 0 ) break;
+                        b += Long.numberOfTrailingZeros( rest );
+                        runs[2 * n] = (char) start;
+                        runs[2 * n + 1] = (char) (((i << 6) | b) - 1);
+                        n++;
+                        start = -1;
+                    }
+                }
+            }
+            if( start >= 0 ) {
+                runs[2 * n] = (char) start;
+                runs[2 * n + 1] = (char) 0xFFFF;
+                n++;
+            }
+            return new RunContainer( runs, n );
+        }
+
+        int cardinality() { return card; }
+
+        private int count() {
+            int ret = 0;
+            for( int i = 0; i < n; i++ ) ret += runs[2 * i + 1] - runs[2 * i] + 1;
+            return ret;
+        }
+
+        /** Returns the index of the last run starting at or before x, or
+         * -1 if there is none. */
+        private int runBefore( int x ) {
+            int lo = 0, hi = n - 1;
+            while( lo <= hi ) {
+                int mid = (lo + hi) >>> 1;
+                if( runs[2 * mid] <= x ) lo = mid + 1;
+                else hi = mid - 1;
+            }
+            return hi;
+        }
+
+        boolean contains( int x ) {
+            int i = runBefore( x );
+            return i >= 0 && x <= runs[2 * i + 1];
+        }
+
+        Container add( int x ) {
+            int i = runBefore( x );
+            if( i >= 0 && x <= runs[2 * i + 1] ) return this;
+            card++;
+            boolean joinsPrev = i >= 0 && runs[2 * i + 1] + 1 == x;
+            boolean joinsNext = i + 1 < n && runs[2 * (i + 1)] == x + 1;
+            if( joinsPrev && joinsNext ) {
+                runs[2 * i + 1] = runs[2 * (i + 1) + 1];
+                System.arraycopy( runs, 2 * (i + 2), runs, 2 * (i + 1), 2 * (n - i - 2) );
+                n--;
+            } else if( joinsPrev ) {
+                runs[2 * i + 1] = (char) x;
+            } else if( joinsNext ) {
+                runs[2 * (i + 1)] = (char) x;
+            } else {
+                if( 2 * n == runs.length ) runs = Arrays.copyOf( runs, 4 * n );
+                System.arraycopy( runs, 2 * (i + 1), runs, 2 * (i + 2), 2 * (n - i - 1) );
+                runs[2 * (i + 1)] = (char) x;
+                runs[2 * (i + 1) + 1] = (char) x;
+                n++;
+                if( 2 * n >= ARRAY_MAX ) return RoaringBitVector.fromWords( toWords() );
+            }
+            return this;
+        }
+
+        Container or( Container other ) {
+            if( other instanceof BitmapContainer ) {
+                long[] words = other.toWords();
+                setIn( words );
+                return RoaringBitVector.fromWords( words );
+            }
+            char[] oruns;
+            int on;
+            if( other instanceof RunContainer ) {
+                oruns = ((RunContainer) other).runs;
+                on = ((RunContainer) other).n;
+            } else {
+                ArrayContainer a = (ArrayContainer) other;
+                oruns = new char[2 * a.n];
+                for( int i = 0; i < a.n; i++ ) {
+                    oruns[2 * i] = oruns[2 * i + 1] = a.values[i];
+                }
+                on = a.n;
+            }
+            char[] merged = new char[2 * (n + on)];
+            int k = 0, i = 0, j = 0;
+            while( i < n || j < on ) {
+                int start, end;
+                if( j >= on || (i < n && runs[2 * i] <= oruns[2 * j]) ) {
+                    start = runs[2 * i]; end = runs[2 * i + 1]; i++;
+                } else {
+                    start = oruns[2 * j]; end = oruns[2 * j + 1]; j++;
+                }
+                if( k > 0 && start <= merged[2 * k - 1] + 1 ) {
+                    if( end > merged[2 * k - 1] ) merged[2 * k - 1] = (char) end;
+                } else {
+                    merged[2 * k] = (char) start;
+                    merged[2 * k + 1] = (char) end;
+                    k++;
+                }
+            }
+            runs = merged;
+            n = k;
+            card = count();
+            if( 2 * n >= ARRAY_MAX ) return RoaringBitVector.fromWords( toWords() );
+            return this;
+        }
+
+        Container copy() {
+            return new RunContainer( Arrays.copyOf( runs, 2 * n ), n );
+        }
+
+        long[] toWords() {
+            long[] words = new long[WORDS];
+            setIn( words );
+            return words;
+        }
+
+        private void setIn( long[] words ) {
+            for( int i = 0; i < n; i++ ) {
+                int start = runs[2 * i], end = runs[2 * i + 1];
+                int sw = start >>> 6, ew = end >>> 6;
+                long first = -1L << start, last = -1L >>> (63 - (end & 63));
+                if( sw == ew ) {
+                    words[sw] |= first & last;
+                } else {
+                    words[sw] |= first;
+                    for( int w = sw + 1; w < ew; w++ ) words[w] = -1L;
+                    words[ew] |= last;
+                }
+            }
+        }
+
+        void clearIn( long[] words ) {
+            long[] mine = toWords();
+            for( int i = 0; i < WORDS; i++ ) words[i] &= ~mine[i];
+        }
+    }
+}
@@ -36,10 +36,15 @@ public class QueueReader<E> implements java.util.Iterator<E>
         this.q = q;
         this.index = index;
     }
+    /** For readers that produce their objects in another way than from a
+     * ChunkedQueue; they must override {@link #next()}, {@link #hasNext()}
+     * and {@link #clone()}. */
+    protected QueueReader() {
+    }
     /** Returns (and removes) the next object in the queue, or null if
      * there are none. */
     @SuppressWarnings("unchecked")
-	public final E next() {
+	public E next() {
         if( q[index] == null ) throw new NoSuchElementException();
         if( index == q.length - 1 ) {
             q = (E[]) q[index];
@@ -54,7 +59,7 @@ public class QueueReader<E> implements java.util.Iterator<E>
 
     /** Returns true iff there is currently another object in the queue. */
     @SuppressWarnings("unchecked")
-	public final boolean hasNext() {
+	public boolean hasNext() {
         if (q[index] == null) return false;
         if (index == q.length - 1) {
             q = (E[]) q[index];
@@ -68,7 +73,7 @@ public class QueueReader<E> implements java.util.Iterator<E>
         throw new UnsupportedOperationException();
     }
 
-    public final QueueReader<E> clone() {
+    public QueueReader<E> clone() {
         return new QueueReader<E>( q, index );
     }
 }
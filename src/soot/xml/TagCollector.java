@@ -39,6 +39,14 @@ public class TagCollector {
 		return attributes.isEmpty() && keys.isEmpty();
 	}
 
+	/** Appends everything collected by <code>other</code> to this
+	 * collector, e.g. the tags of one method's body that were collected
+	 * on a separate thread. */
+	public void addAll(TagCollector other) {
+		attributes.addAll(other.attributes);
+		keys.addAll(other.keys);
+	}
+
     /** Convenience function for <code>collectTags(sc, true)</code>. */
     public void collectTags(SootClass sc){ 
 		collectTags(sc, true); 
@@ -0,0 +1,105 @@
+package soot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import soot.jimple.AssignStmt;
+import soot.jimple.IntConstant;
+import soot.jimple.Jimple;
+import soot.jimple.JimpleBody;
+import soot.toolkits.scalar.LocalDefs;
+
+/**
+ * Checks that the results kept by {@link Body#getAnalysisCache()} are
+ * shared while the body is unchanged and dropped once it changes.
+ */
+public class BodyAnalysisCacheTest {
+
+    private JimpleBody body;
+    private Local i;
+    private AssignStmt def;
+    private AssignStmt use;
+
+    @BeforeClass
+    public static void loadClasses() {
+        Scene.v().loadBasicClasses();
+    }
+
+    @Before
+    public void setUp() {
+        SootClass c = new SootClass("test.Foo", Modifier.PUBLIC);
+        SootMethod m = new SootMethod("bar",
+                Collections.<Type>emptyList(), VoidType.v(), Modifier.PUBLIC | Modifier.STATIC);
+        c.addMethod(m);
+
+        Jimple j = Jimple.v();
+        body = j.newBody(m);
+        i = j.newLocal("i", IntType.v());
+        Local k = j.newLocal("k", IntType.v());
+        body.getLocals().add(i);
+        body.getLocals().add(k);
+
+        def = j.newAssignStmt(i, IntConstant.v(1));
+        use = j.newAssignStmt(k, j.newAddExpr(i, IntConstant.v(2)));
+        body.getUnits().add(def);
+        body.getUnits().add(use);
+        body.getUnits().add(j.newReturnVoidStmt());
+    }
+
+    @Test
+    public void sharedWhileUnchanged() {
+        BodyAnalysisCache cache = body.getAnalysisCache();
+        assertFalse(cache.contains(BodyAnalysisCache.UNIT_GRAPH));
+        LocalDefs defs = cache.get(BodyAnalysisCache.LOCAL_DEFS);
+        assertTrue(cache.contains(BodyAnalysisCache.UNIT_GRAPH));
+        assertEquals(Collections.singletonList(def), defs.getDefsOfAt(i, use));
+
+        assertSame(cache, body.getAnalysisCache());
+        assertSame(defs, body.getAnalysisCache().get(BodyAnalysisCache.LOCAL_DEFS));
+        assertSame(cache.get(BodyAnalysisCache.UNIT_GRAPH), body.getCompactUnitGraph());
+    }
+
+    @Test
+    public void droppedWhenBodyChanges() {
+        BodyAnalysisCache cache = body.getAnalysisCache();
+        cache.get(BodyAnalysisCache.LOCAL_USES);
+
+        def.setRightOp(IntConstant.v(3));
+        BodyAnalysisCache changed = body.getAnalysisCache();
+        assertNotSame(cache, changed);
+        assertFalse(changed.contains(BodyAnalysisCache.LOCAL_USES));
+
+        i.setType(LongType.v());
+        assertNotSame(changed, body.getAnalysisCache());
+
+        cache = body.getAnalysisCache();
+        body.releaseAnalysisCache();
+        assertNotSame(cache, body.getAnalysisCache());
+    }
+
+    @Test
+    public void droppedWhenChainsChange() {
+        // swapping a unit out and back in leaves the same units, but the
+        // change is still seen through the modification count of the chain
+        BodyAnalysisCache cache = body.getAnalysisCache();
+        AssignStmt other = Jimple.v().newAssignStmt(i, IntConstant.v(1));
+        body.getUnits().swapWith(def, other);
+        body.getUnits().swapWith(other, def);
+        BodyAnalysisCache changed = body.getAnalysisCache();
+        assertNotSame(cache, changed);
+
+        Trap t = Jimple.v().newTrap(Scene.v().getSootClass("java.lang.Throwable"), def, use, use);
+        body.getTraps().add(t);
+        body.getTraps().remove(t);
+        assertNotSame(changed, body.getAnalysisCache());
+    }
+}
@@ -0,0 +1,62 @@
+package soot;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Checks the subtype queries of {@link FastHierarchy} that involve
+ * interfaces, arrays and {@link AnySubType}.
+ */
+public class FastHierarchyTest {
+
+    private static FastHierarchy fh;
+
+    @BeforeClass
+    public static void loadClasses() {
+        Scene.v().loadBasicClasses();
+        Scene.v().loadClassAndSupport("java.util.ArrayList");
+        Scene.v().loadClassAndSupport("java.util.HashSet");
+        Scene.v().loadClassAndSupport("java.util.LinkedHashSet");
+        fh = Scene.v().getOrMakeFastHierarchy();
+    }
+
+    @Test
+    public void classImplementsInterface() {
+        assertTrue(fh.canStoreType(RefType.v("java.util.ArrayList"), RefType.v("java.util.List")));
+        assertTrue(fh.canStoreType(RefType.v("java.util.ArrayList"), RefType.v("java.util.Collection")));
+        assertTrue(fh.canStoreType(RefType.v("java.util.LinkedHashSet"), RefType.v("java.util.Set")));
+        assertFalse(fh.canStoreType(RefType.v("java.util.HashSet"), RefType.v("java.util.List")));
+        assertFalse(fh.canStoreType(RefType.v("java.lang.String"), RefType.v("java.util.Collection")));
+    }
+
+    @Test
+    public void interfaceExtendsInterface() {
+        assertTrue(fh.canStoreType(RefType.v("java.util.List"), RefType.v("java.util.Collection")));
+        assertTrue(fh.canStoreType(RefType.v("java.util.List"), RefType.v("java.lang.Object")));
+        assertFalse(fh.canStoreType(RefType.v("java.util.Collection"), RefType.v("java.util.List")));
+    }
+
+    @Test
+    public void arrays() {
+        Type strings = ArrayType.v(RefType.v("java.lang.String"), 1);
+        assertTrue(fh.canStoreType(strings, RefType.v("java.lang.Cloneable")));
+        assertTrue(fh.canStoreType(strings, ArrayType.v(RefType.v("java.lang.Object"), 1)));
+        assertTrue(fh.canStoreType(ArrayType.v(IntType.v(), 2), ArrayType.v(RefType.v("java.io.Serializable"), 1)));
+        assertFalse(fh.canStoreType(strings, RefType.v("java.util.List")));
+    }
+
+    @Test
+    public void anySubType() {
+        Type anyList = AnySubType.v(RefType.v("java.util.List"));
+        assertTrue(fh.canStoreType(anyList, RefType.v("java.util.AbstractList")));
+        assertTrue(fh.canStoreType(anyList, RefType.v("java.util.RandomAccess")));
+        assertFalse(fh.canStoreType(anyList, RefType.v("java.lang.String")));
+        // the answer is memoized, so asking again must not change it
+        assertTrue(fh.canStoreType(anyList, RefType.v("java.util.AbstractList")));
+        assertFalse(fh.canStoreType(anyList, RefType.v("java.lang.String")));
+        assertTrue(fh.canStoreType(AnySubType.v(RefType.v("java.lang.Object")), ArrayType.v(IntType.v(), 1)));
+    }
+}
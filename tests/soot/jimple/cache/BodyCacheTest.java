@@ -0,0 +1,118 @@
+package soot.jimple.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import soot.ArrayType;
+import soot.IntType;
+import soot.Local;
+import soot.Modifier;
+import soot.RefType;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.SootMethodRef;
+import soot.Type;
+import soot.Unit;
+import soot.VoidType;
+import soot.jimple.IntConstant;
+import soot.jimple.Jimple;
+import soot.jimple.JimpleBody;
+import soot.jimple.StringConstant;
+import soot.tagkit.LineNumberTag;
+
+/**
+ * Checks that bodies written by {@link BodyWriter} are read back unchanged
+ * by {@link BodyReader}.
+ */
+public class BodyCacheTest {
+
+    private SootMethod method;
+
+    @Before
+    public void setUp() {
+        SootClass c = new SootClass("test.Foo", Modifier.PUBLIC);
+        method = new SootMethod("bar",
+                Collections.<Type>singletonList(IntType.v()), VoidType.v(), Modifier.PUBLIC);
+        c.addMethod(method);
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        Jimple j = Jimple.v();
+        JimpleBody body = j.newBody(method);
+        RefType fooType = RefType.v("test.Foo");
+        RefType stringType = RefType.v("java.lang.String");
+
+        Local thiz = j.newLocal("this", fooType);
+        Local i = j.newLocal("i", IntType.v());
+        Local s = j.newLocal("s", stringType);
+        Local arr = j.newLocal("arr", ArrayType.v(IntType.v(), 2));
+        Local e = j.newLocal("e", RefType.v("java.lang.Throwable"));
+        body.getLocals().addAll(Arrays.asList(thiz, i, s, arr, e));
+
+        Unit ret = j.newReturnVoidStmt();
+        Unit handler = j.newIdentityStmt(e, j.newCaughtExceptionRef());
+        SootMethodRef valueOf = Scene.v().makeMethodRef(
+                new SootClass("java.lang.String"), "valueOf",
+                Collections.<Type>singletonList(IntType.v()), stringType, true);
+
+        Unit first = j.newIdentityStmt(thiz, j.newThisRef(fooType));
+        first.addTag(new LineNumberTag(42));
+        body.getUnits().add(first);
+        body.getUnits().add(j.newIdentityStmt(i, j.newParameterRef(IntType.v(), 0)));
+        Unit begin = j.newAssignStmt(s, j.newStaticInvokeExpr(valueOf, i));
+        body.getUnits().add(begin);
+        body.getUnits().add(j.newAssignStmt(arr, j.newNewMultiArrayExpr(
+                ArrayType.v(IntType.v(), 2), Arrays.asList(i, IntConstant.v(3)))));
+        body.getUnits().add(j.newIfStmt(j.newGeExpr(i, IntConstant.v(0)), ret));
+        body.getUnits().add(j.newAssignStmt(s, StringConstant.v("negative")));
+        body.getUnits().add(j.newLookupSwitchStmt(i,
+                Arrays.asList(IntConstant.v(-1), IntConstant.v(-2)),
+                Arrays.asList(ret, handler), ret));
+        body.getUnits().add(ret);
+        body.getUnits().add(handler);
+        body.getUnits().add(j.newThrowStmt(e));
+        body.getTraps().add(j.newTrap(new SootClass("java.lang.Throwable"),
+                begin, ret, handler));
+
+        byte[] data = new BodyWriter().write(body);
+        JimpleBody read = new BodyReader(data).read(method);
+
+        assertEquals(body.toString(), read.toString());
+        assertEquals(body.getTraps().toString(), read.getTraps().toString());
+        assertEquals(42, ((LineNumberTag) read.getUnits().getFirst().getTag("LineNumberTag")).getLineNumber());
+    }
+
+    @Test
+    public void hierarchyKey() {
+        SootClass a = hierarchyClass("test.A");
+        SootClass b = hierarchyClass("test.B");
+        SootClass c = hierarchyClass("test.C");
+        a.setSuperclass(b);
+        b.setSuperclass(c);
+        String key = BodyCache.hierarchyKey(Arrays.asList("test.A"));
+        assertEquals(key, BodyCache.hierarchyKey(Arrays.asList("test.A")));
+
+        // a change two levels up changes the key
+        c.addInterface(hierarchyClass("test.I"));
+        String changed = BodyCache.hierarchyKey(Arrays.asList("test.A"));
+        assertFalse(key.equals(changed));
+        b.setSuperclass(hierarchyClass("test.D"));
+        assertFalse(changed.equals(BodyCache.hierarchyKey(Arrays.asList("test.A"))));
+    }
+
+    private static SootClass hierarchyClass(String name) {
+        SootClass c = new SootClass(name, Modifier.PUBLIC);
+        c.setResolvingLevel(SootClass.HIERARCHY);
+        Scene.v().addClass(c);
+        return c;
+    }
+}
@@ -0,0 +1,284 @@
+package soot.jimple.spark;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import soot.ArrayType;
+import soot.G;
+import soot.Local;
+import soot.MethodOrMethodContext;
+import soot.Modifier;
+import soot.PackManager;
+import soot.PhaseOptions;
+import soot.RefType;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootField;
+import soot.SootMethod;
+import soot.Type;
+import soot.VoidType;
+import soot.jimple.Jimple;
+import soot.jimple.JimpleBody;
+import soot.jimple.spark.pag.AllocNode;
+import soot.jimple.spark.pag.Node;
+import soot.jimple.spark.pag.PAG;
+import soot.jimple.spark.sets.P2SetVisitor;
+import soot.jimple.spark.sets.PointsToSetInternal;
+import soot.jimple.toolkits.callgraph.CallGraph;
+import soot.jimple.toolkits.callgraph.Edge;
+import soot.options.Options;
+
+/**
+ * Checks that updating with an {@link IncrementalUpdater} after a class has
+ * changed gives the same points-to sets and call graph as running Spark on
+ * the changed program from scratch.
+ */
+public class IncrementalUpdaterTest {
+
+    private RefType object;
+    private SootClass lib;
+    private SootMethod main;
+
+    @Before
+    public void setUp() {
+        G.reset();
+    }
+
+    @After
+    public void tearDown() {
+        G.reset();
+    }
+
+    @Test
+    public void modifiedMethod() {
+        makeProgram(false);
+        PAG pag = runSpark();
+        Map<String, String> before = answers(pag);
+        assertEquals("[Main]", before.get("x"));
+        assertEquals("[Main]", before.get("c"));
+        Local z = local("z");
+        PointsToSetInternal unaffected = pag.findLocalVarNode(z).getP2Set();
+
+        IncrementalUpdater updater = new IncrementalUpdater(pag);
+        setIdBody(lib.getMethodByName("id"), true);
+        updater.classModified(lib);
+        updater.update();
+        Map<String, String> updated = answers(pag);
+        Set<String> edges = edges();
+
+        G.reset();
+        makeProgram(true);
+        Map<String, String> fresh = answers(runSpark());
+        assertEquals(fresh, updated);
+        assertEquals("[Lib]", updated.get("x"));
+        assertEquals("[]", updated.get("c"));
+        assertEquals(edges(), edges);
+        // the set of z does not depend on id, so it is not computed again
+        assertSame(unaffected, pag.findLocalVarNode(z).getP2Set());
+    }
+
+    @Test
+    public void addedOverride() {
+        makeOverrideProgram(false);
+        runSpark();
+        assertTrue(edges().toString().contains("() <test.Base: void m()> VIRTUAL"));
+
+        IncrementalUpdater updater = new IncrementalUpdater((PAG) Scene.v().getPointsToAnalysis());
+        SootClass sub = Scene.v().getSootClass("test.Sub");
+        addMethodM(sub);
+        updater.classModified(sub);
+        updater.update();
+        Set<String> edges = edges();
+
+        G.reset();
+        makeOverrideProgram(true);
+        runSpark();
+        assertEquals(edges(), edges);
+        assertTrue(edges.toString().contains("() <test.Sub: void m()> VIRTUAL"));
+        assertFalse(edges.toString().contains("() <test.Base: void m()> VIRTUAL"));
+    }
+
+    /**
+     * Makes test.Main, whose main calls m on a new test.Sub, which inherits
+     * it from test.Base unless override is set.
+     */
+    private void makeOverrideProgram(boolean override) {
+        setOptions();
+        Jimple j = Jimple.v();
+        SootClass base = makeClass("test.Base", Scene.v().getSootClass("java.lang.Object"));
+        addMethodM(base);
+        SootClass sub = makeClass("test.Sub", base);
+        if (override) addMethodM(sub);
+
+        SootClass c = makeClass("test.Main", Scene.v().getSootClass("java.lang.Object"));
+        JimpleBody b = makeMain(c);
+        Local s = local(b, "s", sub.getType());
+        b.getUnits().add(j.newAssignStmt(s, j.newNewExpr(sub.getType())));
+        b.getUnits().add(j.newInvokeStmt(j.newVirtualInvokeExpr(s,
+                base.getMethodByName("m").makeRef())));
+        b.getUnits().add(j.newReturnVoidStmt());
+    }
+
+    private static void addMethodM(SootClass c) {
+        Jimple j = Jimple.v();
+        SootMethod m = new SootMethod("m", new ArrayList<Type>(), VoidType.v(), Modifier.PUBLIC);
+        c.addMethod(m);
+        JimpleBody b = j.newBody(m);
+        m.setActiveBody(b);
+        Local self = local(b, "this", c.getType());
+        b.getUnits().add(j.newIdentityStmt(self, j.newThisRef(c.getType())));
+        b.getUnits().add(j.newReturnVoidStmt());
+    }
+
+    /**
+     * Makes test.Main, whose main passes a new object through Lib.id and
+     * the static field Lib.g, casts what id returns to Main to call run on
+     * it, and keeps another new object in z.
+     */
+    private void makeProgram(boolean allocInId) {
+        setOptions();
+        object = RefType.v("java.lang.Object");
+        makeLib(allocInId);
+
+        Jimple j = Jimple.v();
+        SootClass c = makeClass("test.Main", Scene.v().getSootClass("java.lang.Object"));
+        addMethodM(c);
+        JimpleBody b = makeMain(c);
+        Local a = local(b, "a", c.getType());
+        Local x = local(b, "x", object);
+        Local y = local(b, "y", object);
+        Local cast = local(b, "c", c.getType());
+        Local z = local(b, "z", c.getType());
+        SootField g = lib.getFieldByName("g");
+        b.getUnits().add(j.newAssignStmt(a, j.newNewExpr(c.getType())));
+        b.getUnits().add(j.newAssignStmt(x, j.newStaticInvokeExpr(
+                lib.getMethodByName("id").makeRef(), a)));
+        b.getUnits().add(j.newAssignStmt(j.newStaticFieldRef(g.makeRef()), x));
+        b.getUnits().add(j.newAssignStmt(y, j.newStaticFieldRef(g.makeRef())));
+        b.getUnits().add(j.newAssignStmt(cast, j.newCastExpr(x, c.getType())));
+        b.getUnits().add(j.newInvokeStmt(j.newVirtualInvokeExpr(cast,
+                c.getMethodByName("m").makeRef())));
+        b.getUnits().add(j.newAssignStmt(z, j.newNewExpr(c.getType())));
+        b.getUnits().add(j.newReturnVoidStmt());
+    }
+
+    private static void setOptions() {
+        Options.v().set_whole_program(true);
+        Options.v().set_allow_phantom_refs(true);
+        PhaseOptions.v().setPhaseOption("cg", "implicit-entry:false");
+        PhaseOptions.v().setPhaseOption("cg.spark", "on");
+        Scene.v().loadBasicClasses();
+    }
+
+    private static SootClass makeClass(String name, SootClass superclass) {
+        SootClass c = new SootClass(name, Modifier.PUBLIC);
+        c.setSuperclass(superclass);
+        Scene.v().addClass(c);
+        c.setApplicationClass();
+        return c;
+    }
+
+    /** Adds the main method to c, and returns its body. */
+    private JimpleBody makeMain(SootClass c) {
+        Jimple j = Jimple.v();
+        Type strings = ArrayType.v(RefType.v("java.lang.String"), 1);
+        main = new SootMethod("main", Arrays.asList(strings), VoidType.v(),
+                Modifier.PUBLIC | Modifier.STATIC);
+        c.addMethod(main);
+        JimpleBody b = j.newBody(main);
+        main.setActiveBody(b);
+        Local args = local(b, "args", strings);
+        b.getUnits().add(j.newIdentityStmt(args, j.newParameterRef(strings, 0)));
+        Scene.v().setMainClass(c);
+        return b;
+    }
+
+    private void makeLib(boolean allocInId) {
+        lib = makeClass("test.Lib", Scene.v().getSootClass("java.lang.Object"));
+        lib.addField(new SootField("g", object, Modifier.PUBLIC | Modifier.STATIC));
+        SootMethod id = new SootMethod("id", Arrays.<Type>asList(object), object,
+                Modifier.PUBLIC | Modifier.STATIC);
+        lib.addMethod(id);
+        setIdBody(id, allocInId);
+    }
+
+    /** Sets the body of id(p) to return p, or a new test.Lib. */
+    private void setIdBody(SootMethod id, boolean alloc) {
+        Jimple j = Jimple.v();
+        JimpleBody b = j.newBody(id);
+        Local p = local(b, "p", object);
+        b.getUnits().add(j.newIdentityStmt(p, j.newParameterRef(object, 0)));
+        if (alloc) {
+            Local r = local(b, "r", id.getDeclaringClass().getType());
+            b.getUnits().add(j.newAssignStmt(r, j.newNewExpr(id.getDeclaringClass().getType())));
+            b.getUnits().add(j.newReturnStmt(r));
+        } else {
+            b.getUnits().add(j.newReturnStmt(p));
+        }
+        id.setActiveBody(b);
+    }
+
+    private static PAG runSpark() {
+        PackManager.v().getPack("cg").apply();
+        return (PAG) Scene.v().getPointsToAnalysis();
+    }
+
+    /** Returns the types of the objects each local of main points to. */
+    private Map<String, String> answers(PAG pag) {
+        Map<String, String> ret = new TreeMap<String, String>();
+        for (Local l : main.getActiveBody().getLocals()) {
+            if (!(l.getType() instanceof RefType)) continue;
+            final TreeSet<String> types = new TreeSet<String>();
+            ((PointsToSetInternal) pag.reachingObjects(l)).forall(new P2SetVisitor() {
+                public void visit(Node n) {
+                    types.add(((RefType) ((AllocNode) n).getType()).getSootClass().getShortName());
+                }
+            });
+            ret.put(l.getName(), types.toString());
+        }
+        return ret;
+    }
+
+    /**
+     * Returns the call graph edges as strings. Listeners of the call graph
+     * would also return the edges removed by the update.
+     */
+    private static Set<String> edges() {
+        CallGraph cg = Scene.v().getCallGraph();
+        Set<String> ret = new TreeSet<String>();
+        for (Iterator<MethodOrMethodContext> mIt = cg.sourceMethods(); mIt.hasNext();) {
+            for (Iterator<Edge> it = cg.edgesOutOf(mIt.next()); it.hasNext();) {
+                Edge e = it.next();
+                ret.add(e.src() + " " + e.srcUnit() + " " + e.tgt() + " " + e.kind());
+            }
+        }
+        return ret;
+    }
+
+    private Local local(String name) {
+        for (Local l : main.getActiveBody().getLocals()) {
+            if (l.getName().equals(name)) return l;
+        }
+        throw new IllegalArgumentException(name);
+    }
+
+    private static Local local(JimpleBody b, String name, Type type) {
+        Local l = Jimple.v().newLocal(name, type);
+        b.getLocals().add(l);
+        return l;
+    }
+}
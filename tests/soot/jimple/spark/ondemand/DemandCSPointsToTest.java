@@ -0,0 +1,192 @@
+package soot.jimple.spark.ondemand;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import soot.ArrayType;
+import soot.G;
+import soot.Local;
+import soot.Modifier;
+import soot.PackManager;
+import soot.PhaseOptions;
+import soot.PointsToSet;
+import soot.RefType;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootField;
+import soot.SootMethod;
+import soot.Type;
+import soot.Value;
+import soot.VoidType;
+import soot.jimple.Jimple;
+import soot.jimple.JimpleBody;
+import soot.jimple.spark.pag.Node;
+import soot.jimple.spark.sets.P2SetVisitor;
+import soot.jimple.spark.sets.PointsToSetInternal;
+import soot.options.Options;
+
+/**
+ * Checks that answering a batch of queries on several threads gives the
+ * same points-to sets as answering them one after the other.
+ */
+public class DemandCSPointsToTest {
+
+    private static final int SITES = 30;
+
+    private final List<Local> queries = new ArrayList<Local>();
+
+    @Before
+    public void setUp() {
+        G.reset();
+        Options.v().set_whole_program(true);
+        Options.v().set_allow_phantom_refs(true);
+        Options.v().set_num_threads(4);
+        PhaseOptions.v().setPhaseOption("cg", "implicit-entry:false");
+        PhaseOptions.v().setPhaseOption("cg.spark", "on");
+        Scene.v().loadBasicClasses();
+        makeProgram(queries);
+        PackManager.v().getPack("cg").apply();
+    }
+
+    /**
+     * Makes test.Demand, whose main passes {@link #SITES} objects through
+     * the same id, set and get methods, and adds the locals receiving
+     * their results to queries.
+     */
+    public static void makeProgram(List<Local> queries) {
+        Jimple j = Jimple.v();
+        SootClass c = new SootClass("test.Demand", Modifier.PUBLIC);
+        c.setSuperclass(Scene.v().getSootClass("java.lang.Object"));
+        Scene.v().addClass(c);
+        c.setApplicationClass();
+        RefType demand = c.getType();
+        RefType object = RefType.v("java.lang.Object");
+        SootField f = new SootField("f", object);
+        c.addField(f);
+
+        // static Object id(Object p) { return p; }
+        SootMethod id = addMethod(c, "id", Arrays.<Type>asList(object), object);
+        JimpleBody b = body(id);
+        Local p = local(b, "p", object);
+        b.getUnits().add(j.newIdentityStmt(p, j.newParameterRef(object, 0)));
+        b.getUnits().add(j.newReturnStmt(p));
+
+        // static void set(Demand d, Object v) { d.f = v; }
+        SootMethod set = addMethod(c, "set", Arrays.<Type>asList(demand, object), VoidType.v());
+        b = body(set);
+        Local d = local(b, "d", demand);
+        Local v = local(b, "v", object);
+        b.getUnits().add(j.newIdentityStmt(d, j.newParameterRef(demand, 0)));
+        b.getUnits().add(j.newIdentityStmt(v, j.newParameterRef(object, 1)));
+        b.getUnits().add(j.newAssignStmt(j.newInstanceFieldRef(d, f.makeRef()), v));
+        b.getUnits().add(j.newReturnVoidStmt());
+
+        // static Object get(Demand d) { return d.f; }
+        SootMethod get = addMethod(c, "get", Arrays.<Type>asList(demand), object);
+        b = body(get);
+        d = local(b, "d", demand);
+        Local r = local(b, "r", object);
+        b.getUnits().add(j.newIdentityStmt(d, j.newParameterRef(demand, 0)));
+        b.getUnits().add(j.newAssignStmt(r, j.newInstanceFieldRef(d, f.makeRef())));
+        b.getUnits().add(j.newReturnStmt(r));
+
+        // every site passes its own object through id, set and get, so only
+        // a context-sensitive answer keeps the sites apart
+        RefType strings = RefType.v("java.lang.String");
+        SootMethod main = addMethod(c, "main",
+                Arrays.<Type>asList(ArrayType.v(strings, 1)), VoidType.v());
+        b = body(main);
+        Local args = local(b, "args", ArrayType.v(strings, 1));
+        b.getUnits().add(j.newIdentityStmt(args, j.newParameterRef(args.getType(), 0)));
+        for (int i = 0; i < SITES; i++) {
+            Local a = local(b, "a" + i, demand);
+            Local x = local(b, "x" + i, object);
+            Local h = local(b, "h" + i, demand);
+            Local y = local(b, "y" + i, object);
+            b.getUnits().add(j.newAssignStmt(a, j.newNewExpr(demand)));
+            b.getUnits().add(j.newAssignStmt(x, j.newStaticInvokeExpr(id.makeRef(), a)));
+            b.getUnits().add(j.newAssignStmt(h, j.newNewExpr(demand)));
+            b.getUnits().add(j.newInvokeStmt(j.newStaticInvokeExpr(set.makeRef(),
+                    Arrays.<Value>asList(h, x))));
+            b.getUnits().add(j.newAssignStmt(y, j.newStaticInvokeExpr(get.makeRef(), h)));
+            queries.add(x);
+            queries.add(y);
+        }
+        b.getUnits().add(j.newReturnVoidStmt());
+        Scene.v().setMainClass(c);
+    }
+
+    @After
+    public void tearDown() {
+        G.reset();
+    }
+
+    @Test
+    public void batchMatchesSingleQueries() {
+        DemandCSPointsTo single = DemandCSPointsTo.makeWithBudget(20000, 10, false);
+        List<String> expected = new ArrayList<String>();
+        for (Local l : queries)
+            expected.add(toString(single.doReachingObjects(l)));
+
+        DemandCSPointsTo batch = DemandCSPointsTo.makeWithBudget(20000, 10, false);
+        Map<Local, PointsToSet> answers = batch.doReachingObjects(queries);
+        assertEquals(queries, new ArrayList<Local>(answers.keySet()));
+        List<String> actual = new ArrayList<String>();
+        for (Local l : queries)
+            actual.add(toString(answers.get(l)));
+        assertEquals(expected, actual);
+
+        // the sites were told apart, so the queries did not just fall back
+        // to the context-insensitive sets
+        for (Local l : queries) {
+            PointsToSet p = answers.get(l);
+            assertTrue(l.getName(), p instanceof AllocAndContextSet);
+            assertEquals(l.getName(), 1, ((AllocAndContextSet) p).size());
+        }
+    }
+
+    private static SootMethod addMethod(SootClass c, String name, List<Type> params, Type ret) {
+        SootMethod m = new SootMethod(name, params, ret, Modifier.PUBLIC | Modifier.STATIC);
+        c.addMethod(m);
+        return m;
+    }
+
+    private static JimpleBody body(SootMethod m) {
+        JimpleBody b = Jimple.v().newBody(m);
+        m.setActiveBody(b);
+        return b;
+    }
+
+    private static Local local(JimpleBody b, String name, Type type) {
+        Local l = Jimple.v().newLocal(name, type);
+        b.getLocals().add(l);
+        return l;
+    }
+
+    private static String toString(PointsToSet p) {
+        final TreeSet<String> s = new TreeSet<String>();
+        if (p instanceof AllocAndContextSet) {
+            for (AllocAndContext ac : (AllocAndContextSet) p)
+                s.add(ac.toString());
+        } else {
+            PointsToSetInternal set = p instanceof WrappedPointsToSet
+                    ? ((WrappedPointsToSet) p).getWrapped() : (PointsToSetInternal) p;
+            set.forall(new P2SetVisitor() {
+                public void visit(Node n) {
+                    s.add(n.toString());
+                }
+            });
+        }
+        return p.getClass().getSimpleName() + s;
+    }
+}
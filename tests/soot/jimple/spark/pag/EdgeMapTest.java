@@ -0,0 +1,124 @@
+package soot.jimple.spark.pag;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import soot.PhaseOptions;
+import soot.RefType;
+import soot.Scene;
+import soot.options.SparkOptions;
+
+/**
+ * Checks that {@link EdgeMap} keeps exactly one copy of every edge, also
+ * once a row is long enough to get a hash index, and when nodes are
+ * merged.
+ */
+public class EdgeMapTest {
+
+    private PAG pag;
+    private EdgeMap map;
+    private VarNode[] nodes;
+
+    @BeforeClass
+    public static void loadClasses() {
+        Scene.v().loadBasicClasses();
+    }
+
+    @Before
+    public void makeNodes() {
+        Map<String, String> opts = new HashMap<String, String>(
+                PhaseOptions.v().getPhaseOptions("cg.spark"));
+        opts.put("ignore-types", "true");
+        pag = new PAG(new SparkOptions(opts));
+        map = new EdgeMap(pag.getVarNodeNumberer(), pag.getVarNodeNumberer());
+        nodes = new VarNode[200];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = pag.makeGlobalVarNode("v" + i, RefType.v("java.lang.Object"));
+        }
+    }
+
+    @Test
+    public void longRowsKeepNoDuplicates() {
+        VarNode key = nodes[0];
+        // three rounds, so that the index is created and then grown while
+        // the row already holds edges
+        for (int round = 0; round < 3; round++) {
+            for (int i = 1; i < nodes.length; i++) {
+                assertEquals(round == 0, map.add(key, nodes[i]));
+            }
+        }
+        assertEquals(nodes.length - 1, map.targets(key, false).length);
+        // the trimmed row has no index any more, adding must rebuild it
+        for (int i = 1; i < nodes.length; i++) {
+            assertFalse(map.add(key, nodes[i]));
+        }
+        assertArrayEquals(expected(1, nodes.length), sorted(map.targets(key, false)));
+    }
+
+    @Test
+    public void mergeMovesEdges() {
+        for (int i = 2; i < 40; i++) map.add(nodes[0], nodes[i]);
+        for (int i = 20; i < 60; i++) map.add(nodes[1], nodes[i]);
+        nodes[1].mergeWith(nodes[0]);
+        map.merge(nodes[1], nodes[0]);
+        assertFalse(map.containsKey(nodes[0]));
+        assertEquals(1, map.keySet().size());
+        assertArrayEquals(expected(2, 60), sorted(map.targets(nodes[1], false)));
+    }
+
+    @Test
+    public void mergedTargetsAreReplaced() {
+        VarNode key = nodes[0];
+        for (int i = 1; i < 50; i++) map.add(key, nodes[i]);
+        // targets 1..24 merged into 25, and target 49 merged into the key
+        for (int i = 1; i < 25; i++) nodes[25].mergeWith(nodes[i]);
+        key.mergeWith(nodes[49]);
+        assertEquals(49, map.targets(key, false).length);
+        int[] merged = map.targets(key, true);
+        assertArrayEquals(expected(25, 49), sorted(merged));
+        // the row has been replaced, so reading it again returns the same
+        // array without changing anything
+        assertSame(merged, map.targets(key, true));
+        assertSame(merged, map.targets(key, false));
+        assertTrue(map.add(key, nodes[60]));
+        assertFalse(map.add(key, nodes[30]));
+    }
+
+    @Test
+    public void trimResolvesEveryRow() {
+        for (int k = 0; k < 10; k++) {
+            for (int i = 10; i < 40; i++) map.add(nodes[k], nodes[i]);
+        }
+        for (int i = 11; i < 40; i++) nodes[10].mergeWith(nodes[i]);
+        map.trim();
+        for (int k = 0; k < 10; k++) {
+            int[] row = map.targets(nodes[k], true);
+            assertArrayEquals(new int[] { nodes[10].getNumber() }, row);
+            assertSame(row, map.targets(nodes[k], true));
+        }
+    }
+
+    private int[] expected(int from, int to) {
+        int[] ret = new int[to - from];
+        for (int i = from; i < to; i++) ret[i - from] = nodes[i].getNumber();
+        Arrays.sort(ret);
+        return ret;
+    }
+
+    private static int[] sorted(int[] a) {
+        int[] ret = a.clone();
+        Arrays.sort(ret);
+        return ret;
+    }
+}
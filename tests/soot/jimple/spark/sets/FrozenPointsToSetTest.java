@@ -0,0 +1,113 @@
+package soot.jimple.spark.sets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import soot.G;
+import soot.PhaseOptions;
+import soot.RefType;
+import soot.Scene;
+import soot.jimple.spark.pag.AllocNode;
+import soot.jimple.spark.pag.PAG;
+import soot.options.SparkOptions;
+
+/**
+ * Checks that a {@link FrozenPointsToSet.Interner} shares one set among
+ * equal contents, and that intersection tests between frozen sets agree
+ * with {@link HybridPointsToSet}, whether or not they are cached.
+ */
+public class FrozenPointsToSetTest {
+
+    private static final int NODES = 500;
+
+    private PAG pag;
+    private FrozenPointsToSet.Interner interner;
+    private final List<AllocNode> nodes = new ArrayList<AllocNode>();
+    private final Random random = new Random(42);
+
+    @Before
+    public void setUp() {
+        G.reset();
+        Scene.v().loadBasicClasses();
+        pag = new PAG(new SparkOptions(PhaseOptions.v().getPhaseOptions("cg.spark")));
+        for (int i = 0; i < NODES; i++)
+            nodes.add(pag.makeAllocNode("new " + i, RefType.v("java.lang.Object"), null));
+        pag.getTypeManager().makeTypeMask();
+        interner = new FrozenPointsToSet.Interner(pag.getAllocNodeNumberer());
+    }
+
+    @After
+    public void tearDown() {
+        G.reset();
+    }
+
+    @Test
+    public void equalContentsShareOneSet() {
+        List<AllocNode> some = nodes.subList(10, 40);
+        List<AllocNode> reversed = new ArrayList<AllocNode>(some);
+        Collections.reverse(reversed);
+
+        FrozenPointsToSet frozen = interner.intern(hybrid(some));
+        assertSame(frozen, interner.intern(hybrid(reversed)));
+        assertSame(frozen, interner.intern(frozen));
+        assertEquals(some.size(), frozen.size());
+        assertEquals(1, interner.size());
+
+        assertNotSame(frozen, interner.intern(hybrid(nodes.subList(10, 41))));
+        assertSame(interner.intern(hybrid(new ArrayList<AllocNode>())),
+                interner.intern(hybrid(new ArrayList<AllocNode>())));
+        assertEquals(3, interner.size());
+    }
+
+    @Test
+    public void intersectionMatchesHybrid() {
+        // sizes below and above the threshold from which results are
+        // cached, from disjoint to overlapping
+        int[] sizes = { 0, 1, 5, 15, 16, 17, 60, 200 };
+        List<HybridPointsToSet> hybrids = new ArrayList<HybridPointsToSet>();
+        for (int size : sizes) {
+            for (int k = 0; k < 4; k++)
+                hybrids.add(hybrid(sample(size)));
+        }
+        List<FrozenPointsToSet> frozen = new ArrayList<FrozenPointsToSet>();
+        for (HybridPointsToSet h : hybrids)
+            frozen.add(interner.intern(h));
+
+        // twice, so that the second round is answered from the cache
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < hybrids.size(); i++) {
+                for (int j = 0; j < hybrids.size(); j++) {
+                    boolean expected = hybrids.get(i).hasNonEmptyIntersection(hybrids.get(j));
+                    String pair = hybrids.get(i).size() + " and " + hybrids.get(j).size();
+                    assertEquals(pair, expected, frozen.get(i).hasNonEmptyIntersection(frozen.get(j)));
+                    assertEquals(pair, expected, frozen.get(i).hasNonEmptyIntersection(hybrids.get(j)));
+                }
+            }
+        }
+    }
+
+    /** Returns size distinct nodes, drawn from a range that makes larger
+     * samples overlap more often. */
+    private List<AllocNode> sample(int size) {
+        List<AllocNode> pool = new ArrayList<AllocNode>(nodes.subList(0, Math.min(size * 3 + 1, NODES)));
+        Collections.shuffle(pool, random);
+        return pool.subList(0, size);
+    }
+
+    private HybridPointsToSet hybrid(List<AllocNode> contents) {
+        HybridPointsToSet ret = new HybridPointsToSet(RefType.v("java.lang.Object"), pag);
+        for (AllocNode n : contents)
+            ret.add(n);
+        return ret;
+    }
+}
@@ -0,0 +1,125 @@
+package soot.jimple.spark.sets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import soot.G;
+import soot.Modifier;
+import soot.PhaseOptions;
+import soot.RefType;
+import soot.Scene;
+import soot.SootClass;
+import soot.Type;
+import soot.jimple.spark.pag.AllocNode;
+import soot.jimple.spark.pag.Node;
+import soot.jimple.spark.pag.PAG;
+import soot.options.SparkOptions;
+
+/**
+ * Checks that {@link RoaringPointsToSet#addAll} filters by type and skips
+ * the excluded objects exactly like {@link HybridPointsToSet}.
+ */
+public class RoaringPointsToSetTest {
+
+    /** More than one chunk of 65536 numbers. */
+    private static final int NODES = 70000;
+
+    private PAG pag;
+    private RefType a, b, c, object;
+    private final List<AllocNode> nodes = new ArrayList<AllocNode>();
+    private final Random random = new Random(42);
+
+    @Before
+    public void setUp() {
+        G.reset();
+        Scene.v().loadBasicClasses();
+        // B extends A; C is unrelated
+        a = makeClass("test.A", Scene.v().getSootClass("java.lang.Object")).getType();
+        b = makeClass("test.B", a.getSootClass()).getType();
+        c = makeClass("test.C", Scene.v().getSootClass("java.lang.Object")).getType();
+        object = RefType.v("java.lang.Object");
+
+        pag = new PAG(new SparkOptions(PhaseOptions.v().getPhaseOptions("cg.spark")));
+        RefType[] types = { a, b, c };
+        for (int i = 0; i < NODES; i++)
+            nodes.add(pag.makeAllocNode("new " + i, types[random.nextInt(types.length)], null));
+        pag.getTypeManager().makeTypeMask();
+    }
+
+    @After
+    public void tearDown() {
+        G.reset();
+    }
+
+    @Test
+    public void addAllMatchesHybrid() {
+        for (int round = 0; round < 50; round++) {
+            // dense and sparse sets, so that the bit vectors use both bitmap
+            // and array containers
+            double density = round % 2 == 0 ? 0.5 : 0.01;
+            List<AllocNode> target = subset(density);
+            List<AllocNode> other = subset(density);
+            List<AllocNode> exclude = round % 3 == 0 ? null : subset(density);
+            // an Object set into an A set needs the type mask, a B set into
+            // an A set does not
+            Type otherType = round % 4 == 1 ? b : object;
+
+            PointsToSetInternal roaring = fill(new RoaringPointsToSet(a, pag), target);
+            PointsToSetInternal hybrid = fill(new HybridPointsToSet(a, pag), target);
+            boolean roaringChanged = roaring.addAll(
+                    fill(new RoaringPointsToSet(otherType, pag), other),
+                    exclude == null ? null : fill(new RoaringPointsToSet(object, pag), exclude));
+            boolean hybridChanged = hybrid.addAll(
+                    fill(new HybridPointsToSet(otherType, pag), other),
+                    exclude == null ? null : fill(new HybridPointsToSet(object, pag), exclude));
+            assertEquals("round " + round, contents(hybrid), contents(roaring));
+            assertEquals("round " + round, hybridChanged, roaringChanged);
+            for (AllocNode n : nodes) {
+                if (n.getType() == c)
+                    assertFalse(roaring.contains(n));
+            }
+        }
+    }
+
+    private SootClass makeClass(String name, SootClass superclass) {
+        SootClass sc = new SootClass(name, Modifier.PUBLIC);
+        sc.setSuperclass(superclass);
+        Scene.v().addClass(sc);
+        sc.setApplicationClass();
+        return sc;
+    }
+
+    private List<AllocNode> subset(double density) {
+        List<AllocNode> ret = new ArrayList<AllocNode>();
+        for (AllocNode n : nodes) {
+            if (random.nextDouble() < density)
+                ret.add(n);
+        }
+        return ret;
+    }
+
+    private static PointsToSetInternal fill(PointsToSetInternal set, List<AllocNode> nodes) {
+        for (AllocNode n : nodes)
+            set.add(n);
+        return set;
+    }
+
+    private static TreeSet<Integer> contents(PointsToSetInternal set) {
+        final TreeSet<Integer> ret = new TreeSet<Integer>();
+        set.forall(new P2SetVisitor() {
+            public void visit(Node n) {
+                ret.add(n.getNumber());
+            }
+        });
+        return ret;
+    }
+}
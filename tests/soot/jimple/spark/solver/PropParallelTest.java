@@ -0,0 +1,100 @@
+package soot.jimple.spark.solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.junit.After;
+import org.junit.Test;
+
+import soot.G;
+import soot.Local;
+import soot.PackManager;
+import soot.PhaseOptions;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.Unit;
+import soot.ValueBox;
+import soot.jimple.spark.ondemand.DemandCSPointsToTest;
+import soot.jimple.spark.pag.AllocNode;
+import soot.jimple.spark.pag.LocalVarNode;
+import soot.jimple.spark.pag.Node;
+import soot.jimple.spark.pag.PAG;
+import soot.jimple.spark.pag.VarNode;
+import soot.jimple.spark.sets.P2SetVisitor;
+import soot.options.Options;
+
+/**
+ * Checks that the parallel propagator computes the same points-to set for
+ * every variable as the worklist propagator.
+ */
+public class PropParallelTest {
+
+    @After
+    public void tearDown() {
+        G.reset();
+    }
+
+    @Test
+    public void sameSetsAsWorklist() {
+        Map<String, String> expected = solve("worklist", 1);
+        assertFalse(expected.isEmpty());
+        for (int threads : new int[] { 2, 4, 8 })
+            assertEquals("threads " + threads, expected, solve("parallel", threads));
+    }
+
+    /**
+     * Builds the program from scratch and solves it with the given
+     * propagator, returning the points-to set of every VarNode.
+     */
+    private static Map<String, String> solve(String propagator, int threads) {
+        G.reset();
+        Options.v().set_whole_program(true);
+        Options.v().set_allow_phantom_refs(true);
+        Options.v().set_num_threads(threads);
+        PhaseOptions.v().setPhaseOption("cg", "implicit-entry:false");
+        PhaseOptions.v().setPhaseOption("cg.spark", "on");
+        PhaseOptions.v().setPhaseOption("cg.spark", "propagator:" + propagator);
+        Scene.v().loadBasicClasses();
+        DemandCSPointsToTest.makeProgram(new ArrayList<Local>());
+        PackManager.v().getPack("cg").apply();
+
+        // allocation sites are named by their position, which is the same in
+        // every run, rather than by their node numbers, which need not be
+        final Map<Object, String> sites = new IdentityHashMap<Object, String>();
+        for (SootClass c : Scene.v().getApplicationClasses()) {
+            for (SootMethod m : c.getMethods()) {
+                if (!m.hasActiveBody()) continue;
+                int i = 0;
+                for (Unit u : m.getActiveBody().getUnits()) {
+                    for (ValueBox vb : u.getUseBoxes())
+                        sites.put(vb.getValue(), m.getSignature() + " " + i);
+                    i++;
+                }
+            }
+        }
+
+        PAG pag = (PAG) Scene.v().getPointsToAnalysis();
+        Map<String, String> ret = new TreeMap<String, String>();
+        for (VarNode vn : pag.getVarNodeNumberer()) {
+            String name = vn.getVariable().toString();
+            if (vn instanceof LocalVarNode)
+                name = ((LocalVarNode) vn).getMethod().getSignature() + " " + name;
+            final TreeSet<String> set = new TreeSet<String>();
+            vn.getP2Set().forall(new P2SetVisitor() {
+                public void visit(Node n) {
+                    Object site = ((AllocNode) n).getNewExpr();
+                    set.add(sites.containsKey(site) ? sites.get(site) : site.toString());
+                }
+            });
+            ret.put(name, set.toString());
+        }
+        return ret;
+    }
+}
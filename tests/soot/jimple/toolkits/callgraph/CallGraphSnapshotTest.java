@@ -0,0 +1,199 @@
+package soot.jimple.toolkits.callgraph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import soot.ArrayType;
+import soot.G;
+import soot.Kind;
+import soot.Local;
+import soot.MethodOrMethodContext;
+import soot.Modifier;
+import soot.PackManager;
+import soot.PhaseOptions;
+import soot.RefType;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.Type;
+import soot.Unit;
+import soot.VoidType;
+import soot.jimple.Jimple;
+import soot.jimple.JimpleBody;
+import soot.options.Options;
+
+/**
+ * Checks that a call graph read back from a {@link CallGraphSnapshot} has
+ * the same edges, entry points and reachable methods as the one written.
+ */
+public class CallGraphSnapshotTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        G.reset();
+        file = File.createTempFile("callgraph", ".snapshot");
+    }
+
+    @After
+    public void tearDown() {
+        G.reset();
+        file.delete();
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        makeProgram(false);
+        PackManager.v().getPack("cg").apply();
+        // add an edge of every kind, so that each kind is written and read
+        CallGraph cg = Scene.v().getCallGraph();
+        SootMethod main = Scene.v().getMainMethod();
+        SootMethod run = Scene.v().getSootClass("test.Main").getMethodByName("run");
+        for (Kind k : kinds())
+            cg.addEdge(new Edge(main, null, run, k));
+        List<String> edges = edges(cg);
+        List<String> entryPoints = methods(Scene.v().getEntryPoints().iterator());
+        List<String> reachable = methods(Scene.v().getReachableMethods().listener());
+        CallGraphSnapshot.write(file);
+
+        G.reset();
+        makeProgram(false);
+        CallGraph read = CallGraphSnapshot.read(file, true);
+        assertTrue(read.size() > kinds().size());
+        assertEquals(edges, edges(read));
+        assertEquals(entryPoints, methods(Scene.v().getEntryPoints().iterator()));
+        assertEquals(reachable, methods(Scene.v().getReachableMethods().listener()));
+    }
+
+    @Test
+    public void changedBodyIsRejected() throws IOException {
+        makeProgram(false);
+        PackManager.v().getPack("cg").apply();
+        CallGraphSnapshot.write(file);
+
+        // the same number of statements, but the calls in another order
+        G.reset();
+        makeProgram(true);
+        try {
+            CallGraphSnapshot.read(file, true);
+            fail("read a snapshot of another body");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("has changed"));
+        }
+    }
+
+    /**
+     * Makes test.Main, whose main creates a Main, calls its virtual method
+     * run and the static method helper, or the other way round if
+     * <code>swapped</code>.
+     */
+    private static void makeProgram(boolean swapped) {
+        Options.v().set_whole_program(true);
+        Options.v().set_allow_phantom_refs(true);
+        PhaseOptions.v().setPhaseOption("cg", "implicit-entry:false");
+        Scene.v().loadBasicClasses();
+
+        Jimple j = Jimple.v();
+        SootClass c = new SootClass("test.Main", Modifier.PUBLIC);
+        c.setSuperclass(Scene.v().getSootClass("java.lang.Object"));
+        Scene.v().addClass(c);
+        c.setApplicationClass();
+
+        SootMethod helper = new SootMethod("helper", new ArrayList<Type>(),
+                VoidType.v(), Modifier.PUBLIC | Modifier.STATIC);
+        c.addMethod(helper);
+        JimpleBody b = j.newBody(helper);
+        helper.setActiveBody(b);
+        b.getUnits().add(j.newReturnVoidStmt());
+
+        SootMethod run = new SootMethod("run", new ArrayList<Type>(),
+                VoidType.v(), Modifier.PUBLIC);
+        c.addMethod(run);
+        b = j.newBody(run);
+        run.setActiveBody(b);
+        Local self = local(b, "this", c.getType());
+        b.getUnits().add(j.newIdentityStmt(self, j.newThisRef(c.getType())));
+        b.getUnits().add(j.newInvokeStmt(j.newStaticInvokeExpr(helper.makeRef())));
+        b.getUnits().add(j.newReturnVoidStmt());
+
+        Type strings = ArrayType.v(RefType.v("java.lang.String"), 1);
+        SootMethod main = new SootMethod("main", Arrays.asList(strings),
+                VoidType.v(), Modifier.PUBLIC | Modifier.STATIC);
+        c.addMethod(main);
+        b = j.newBody(main);
+        main.setActiveBody(b);
+        Local args = local(b, "args", strings);
+        Local m = local(b, "m", c.getType());
+        b.getUnits().add(j.newIdentityStmt(args, j.newParameterRef(strings, 0)));
+        b.getUnits().add(j.newAssignStmt(m, j.newNewExpr(c.getType())));
+        Unit callRun = j.newInvokeStmt(j.newVirtualInvokeExpr(m, run.makeRef()));
+        Unit callHelper = j.newInvokeStmt(j.newStaticInvokeExpr(helper.makeRef()));
+        b.getUnits().add(swapped ? callHelper : callRun);
+        b.getUnits().add(swapped ? callRun : callHelper);
+        b.getUnits().add(j.newReturnVoidStmt());
+        Scene.v().setMainClass(c);
+    }
+
+    /** Returns every constant of {@link Kind}. */
+    private static List<Kind> kinds() {
+        List<Kind> ret = new ArrayList<Kind>();
+        for (Field f : Kind.class.getFields()) {
+            if (f.getType() != Kind.class) continue;
+            try {
+                ret.add((Kind) f.get(null));
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Returns the edges as strings, with the call site given by its
+     * position in the body of the source method.
+     */
+    private static List<String> edges(CallGraph cg) {
+        TreeSet<String> ret = new TreeSet<String>();
+        for (Iterator<Edge> it = cg.listener(); it.hasNext();) {
+            Edge e = it.next();
+            int unit = -1;
+            if (e.srcUnit() != null) {
+                unit = 0;
+                for (Unit u : e.src().getActiveBody().getUnits()) {
+                    if (u == e.srcUnit()) break;
+                    unit++;
+                }
+            }
+            ret.add(e.src() + " " + unit + " " + e.tgt() + " " + e.kind());
+        }
+        return new ArrayList<String>(ret);
+    }
+
+    private static List<String> methods(Iterator<? extends MethodOrMethodContext> it) {
+        TreeSet<String> ret = new TreeSet<String>();
+        while (it.hasNext())
+            ret.add(it.next().method().getSignature());
+        return new ArrayList<String>(ret);
+    }
+
+    private static Local local(JimpleBody b, String name, Type type) {
+        Local l = Jimple.v().newLocal(name, type);
+        b.getLocals().add(l);
+        return l;
+    }
+}
@@ -0,0 +1,167 @@
+package soot.jimple.toolkits.callgraph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import soot.Kind;
+import soot.Modifier;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.Type;
+import soot.Unit;
+import soot.VoidType;
+import soot.jimple.Jimple;
+import soot.util.queue.QueueReader;
+
+/**
+ * Checks that {@link CompactCallGraph} answers the same queries as
+ * {@link CallGraph} for the same edges.
+ */
+public class CompactCallGraphTest {
+
+    private final List<SootMethod> methods = new ArrayList<SootMethod>();
+    private final List<Unit> units = new ArrayList<Unit>();
+    private final List<Edge> edges = new ArrayList<Edge>();
+
+    @Before
+    public void setUp() {
+        SootClass c = new SootClass("test.Calls", Modifier.PUBLIC);
+        for (int i = 0; i < 20; i++) {
+            SootMethod m = new SootMethod("m" + i,
+                    Collections.<Type>emptyList(), VoidType.v(), Modifier.STATIC);
+            c.addMethod(m);
+            methods.add(m);
+        }
+        for (int i = 0; i < 40; i++)
+            units.add(Jimple.v().newNopStmt());
+        Random r = new Random(1);
+        Kind[] kinds = { Kind.STATIC, Kind.VIRTUAL, Kind.CLINIT };
+        for (int i = 0; i < 200; i++) {
+            int u = r.nextInt(units.size() + 1);
+            edges.add(new Edge(methods.get(u % methods.size()),
+                    u == units.size() ? null : units.get(u),
+                    methods.get(r.nextInt(methods.size())),
+                    kinds[r.nextInt(kinds.length)]));
+        }
+    }
+
+    @Test
+    public void sameEdges() {
+        CallGraph cg = new CallGraph();
+        for (Edge e : edges.subList(0, 150))
+            cg.addEdge(e);
+        CompactCallGraph compact = new CompactCallGraph(cg);
+        QueueReader<Edge> listener = compact.listener();
+        assertSameEdges(cg, compact);
+        assertEquals(toSet(cg.listener()), toSet(compact.listener()));
+
+        Edge removed = edges.get(3);
+        assertTrue(cg.removeEdge(removed));
+        assertTrue(compact.removeEdge(copy(removed)));
+        assertFalse(compact.removeEdge(copy(removed)));
+        for (Edge e : edges.subList(150, edges.size())) {
+            cg.addEdge(e);
+            compact.addEdge(copy(e));
+        }
+        assertSameEdges(cg, compact);
+
+        compact.freeze();
+        assertSameEdges(cg, compact);
+        assertFalse(compact.addEdge(copy(edges.get(160))));
+
+        Set<Edge> seen = new HashSet<Edge>();
+        while (listener.hasNext())
+            seen.add(listener.next());
+        assertTrue(seen.containsAll(toSet(cg.listener())));
+    }
+
+    @Test
+    public void listenersReadTheSameEdges() {
+        CallGraph cg = new CallGraph();
+        for (Edge e : edges.subList(0, 100))
+            cg.addEdge(e);
+        CompactCallGraph compact = new CompactCallGraph(cg);
+        QueueReader<Edge> first = compact.listener();
+        QueueReader<Edge> second = compact.listener();
+        QueueReader<Edge> future = compact.newListener();
+        int n = 0;
+        while (first.hasNext()) {
+            QueueReader<Edge> copy = second.clone();
+            Edge e = first.next();
+            assertEquals(e, second.next());
+            assertEquals(e, copy.next());
+            n++;
+        }
+        assertFalse(second.hasNext());
+        assertEquals(cg.size(), n);
+
+        // listeners keep receiving edges across a freeze
+        compact.addEdge(copy(edges.get(100)));
+        compact.freeze();
+        compact.addEdge(copy(edges.get(101)));
+        Set<Edge> added = new HashSet<Edge>(edges.subList(100, 102));
+        assertEquals(added, toSet(first));
+        assertEquals(added, toSet(future));
+    }
+
+    @Test
+    public void listenerDoesNotRetainEdges() {
+        CallGraph cg = new CallGraph();
+        for (Edge e : edges)
+            cg.addEdge(e);
+        CompactCallGraph compact = new CompactCallGraph(cg);
+        cg = null;
+        // as ReachableMethods does right after the graph is compacted
+        List<WeakReference<Edge>> read = new ArrayList<WeakReference<Edge>>();
+        for (QueueReader<Edge> it = compact.listener(); it.hasNext();)
+            read.add(new WeakReference<Edge>(it.next()));
+        QueueReader<Edge> second = compact.listener();
+        for (int i = 0; i < 10 && !cleared(read); i++)
+            System.gc();
+        assertTrue(cleared(read));
+        assertEquals(read.size(), toSet(second).size());
+    }
+
+    private static boolean cleared(List<WeakReference<Edge>> refs) {
+        for (WeakReference<Edge> r : refs) {
+            if (r.get() != null) return false;
+        }
+        return true;
+    }
+
+    private static Edge copy(Edge e) {
+        return new Edge(e.getSrc(), e.srcUnit(), e.getTgt(), e.kind());
+    }
+
+    private void assertSameEdges(CallGraph expected, CallGraph actual) {
+        assertEquals(expected.size(), actual.size());
+        assertEquals(toSet(expected.sourceMethods()), toSet(actual.sourceMethods()));
+        for (SootMethod m : methods) {
+            assertEquals(toSet(expected.edgesOutOf(m)), toSet(actual.edgesOutOf(m)));
+            assertEquals(toSet(expected.edgesInto(m)), toSet(actual.edgesInto(m)));
+            assertEquals(expected.isEntryMethod(m), actual.isEntryMethod(m));
+        }
+        for (Unit u : units)
+            assertEquals(toSet(expected.edgesOutOf(u)), toSet(actual.edgesOutOf(u)));
+    }
+
+    private static <T> Set<T> toSet(Iterator<? extends T> it) {
+        Set<T> ret = new HashSet<T>();
+        while (it.hasNext())
+            ret.add(it.next());
+        return ret;
+    }
+}
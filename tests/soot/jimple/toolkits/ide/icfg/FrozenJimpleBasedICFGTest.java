@@ -0,0 +1,174 @@
+package soot.jimple.toolkits.ide.icfg;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import soot.ArrayType;
+import soot.G;
+import soot.Local;
+import soot.MethodOrMethodContext;
+import soot.Modifier;
+import soot.PackManager;
+import soot.PhaseOptions;
+import soot.RefType;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.Type;
+import soot.Unit;
+import soot.VoidType;
+import soot.jimple.Jimple;
+import soot.jimple.JimpleBody;
+import soot.jimple.NullConstant;
+import soot.options.Options;
+
+/**
+ * Checks that a {@link FrozenJimpleBasedICFG} answers every query the same
+ * way as the {@link JimpleBasedInterproceduralCFG} it was copied from.
+ */
+public class FrozenJimpleBasedICFGTest {
+
+    @Before
+    public void setUp() {
+        G.reset();
+        Options.v().set_whole_program(true);
+        Options.v().set_allow_phantom_refs(true);
+        PhaseOptions.v().setPhaseOption("cg", "implicit-entry:false");
+        Scene.v().loadBasicClasses();
+        makeProgram();
+        PackManager.v().getPack("cg").apply();
+    }
+
+    @After
+    public void tearDown() {
+        G.reset();
+    }
+
+    @Test
+    public void sameAnswersAsJimpleBasedICFG() {
+        JimpleBasedInterproceduralCFG icfg = new JimpleBasedInterproceduralCFG();
+        FrozenJimpleBasedICFG frozen = new FrozenJimpleBasedICFG(icfg);
+
+        List<SootMethod> methods = new ArrayList<SootMethod>();
+        for (Iterator<MethodOrMethodContext> it = Scene.v().getReachableMethods().listener(); it.hasNext();) {
+            SootMethod m = it.next().method();
+            if (m.hasActiveBody())
+                methods.add(m);
+        }
+        SootClass main = Scene.v().getMainClass();
+        assertTrue(methods.containsAll(Arrays.asList(main.getMethodByName("main"),
+                main.getMethodByName("run"), main.getMethodByName("helper"))));
+
+        int calls = 0;
+        for (SootMethod m : methods) {
+            assertEquals(set(icfg.getCallersOf(m)), set(frozen.getCallersOf(m)));
+            assertEquals(icfg.getCallsFromWithin(m), frozen.getCallsFromWithin(m));
+            assertEquals(set(icfg.getStartPointsOf(m)), set(frozen.getStartPointsOf(m)));
+            assertEquals(set(icfg.getEndPointsOf(m)), set(frozen.getEndPointsOf(m)));
+            assertEquals(icfg.getParameterRefs(m), frozen.getParameterRefs(m));
+
+            for (Unit u : m.getActiveBody().getUnits()) {
+                String at = m.getName() + ": " + u;
+                assertEquals(at, icfg.getMethodOf(u), frozen.getMethodOf(u));
+                assertEquals(at, icfg.getSuccsOf(u), frozen.getSuccsOf(u));
+                assertEquals(at, icfg.getPredsOf(u), frozen.getPredsOf(u));
+                assertEquals(at, icfg.isCallStmt(u), frozen.isCallStmt(u));
+                assertEquals(at, icfg.isExitStmt(u), frozen.isExitStmt(u));
+                assertEquals(at, icfg.isStartPoint(u), frozen.isStartPoint(u));
+                assertEquals(at, icfg.isReturnSite(u), frozen.isReturnSite(u));
+                if (icfg.isCallStmt(u)) {
+                    calls++;
+                    assertEquals(at, set(icfg.getCalleesOfCallAt(u)), set(frozen.getCalleesOfCallAt(u)));
+                    assertEquals(at, set(icfg.getReturnSitesOfCallAt(u)),
+                            set(frozen.getReturnSitesOfCallAt(u)));
+                    assertEquals(at, icfg.getPredsOfCallAt(u), frozen.getPredsOfCallAt(u));
+                }
+                for (Unit succ : icfg.getSuccsOf(u)) {
+                    assertEquals(at, icfg.isFallThroughSuccessor(u, succ), frozen.isFallThroughSuccessor(u, succ));
+                    assertEquals(at, icfg.isBranchTarget(u, succ), frozen.isBranchTarget(u, succ));
+                }
+            }
+        }
+        assertTrue(calls >= 3);
+        assertEquals(icfg.allNonCallStartNodes(), frozen.allNonCallStartNodes());
+        assertEquals(icfg.allNonCallEndNodes(), frozen.allNonCallEndNodes());
+
+        // a unit outside the program is not covered
+        Unit other = Jimple.v().newNopStmt();
+        assertTrue(frozen.indexOf(other) < 0);
+        try {
+            frozen.isCallStmt(other);
+            fail("answered for a unit it does not cover");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    /**
+     * Makes test.Main, whose main creates a Main, calls its virtual method
+     * run unless args is null, and then calls the static method helper,
+     * which run calls as well.
+     */
+    private static void makeProgram() {
+        Jimple j = Jimple.v();
+        SootClass c = new SootClass("test.Main", Modifier.PUBLIC);
+        c.setSuperclass(Scene.v().getSootClass("java.lang.Object"));
+        Scene.v().addClass(c);
+        c.setApplicationClass();
+
+        SootMethod helper = new SootMethod("helper", new ArrayList<Type>(),
+                VoidType.v(), Modifier.PUBLIC | Modifier.STATIC);
+        c.addMethod(helper);
+        JimpleBody b = j.newBody(helper);
+        helper.setActiveBody(b);
+        b.getUnits().add(j.newReturnVoidStmt());
+
+        SootMethod run = new SootMethod("run", new ArrayList<Type>(),
+                VoidType.v(), Modifier.PUBLIC);
+        c.addMethod(run);
+        b = j.newBody(run);
+        run.setActiveBody(b);
+        Local self = local(b, "this", c.getType());
+        b.getUnits().add(j.newIdentityStmt(self, j.newThisRef(c.getType())));
+        b.getUnits().add(j.newInvokeStmt(j.newStaticInvokeExpr(helper.makeRef())));
+        b.getUnits().add(j.newReturnVoidStmt());
+
+        Type strings = ArrayType.v(RefType.v("java.lang.String"), 1);
+        SootMethod main = new SootMethod("main", Arrays.asList(strings),
+                VoidType.v(), Modifier.PUBLIC | Modifier.STATIC);
+        c.addMethod(main);
+        b = j.newBody(main);
+        main.setActiveBody(b);
+        Local args = local(b, "args", strings);
+        Local m = local(b, "m", c.getType());
+        Unit callHelper = j.newInvokeStmt(j.newStaticInvokeExpr(helper.makeRef()));
+        b.getUnits().add(j.newIdentityStmt(args, j.newParameterRef(strings, 0)));
+        b.getUnits().add(j.newAssignStmt(m, j.newNewExpr(c.getType())));
+        b.getUnits().add(j.newIfStmt(j.newEqExpr(args, NullConstant.v()), callHelper));
+        b.getUnits().add(j.newInvokeStmt(j.newVirtualInvokeExpr(m, run.makeRef())));
+        b.getUnits().add(callHelper);
+        b.getUnits().add(j.newReturnVoidStmt());
+        Scene.v().setMainClass(c);
+    }
+
+    private static Local local(JimpleBody b, String name, Type type) {
+        Local l = Jimple.v().newLocal(name, type);
+        b.getLocals().add(l);
+        return l;
+    }
+
+    private static <T> HashSet<T> set(Collection<T> c) {
+        return new HashSet<T>(c);
+    }
+}
@@ -0,0 +1,200 @@
+package soot.jimple.toolkits.ide.libsumm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import soot.G;
+import soot.Kind;
+import soot.Local;
+import soot.Modifier;
+import soot.PhaseOptions;
+import soot.RefType;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.Type;
+import soot.Unit;
+import soot.jimple.InvokeStmt;
+import soot.jimple.Jimple;
+import soot.jimple.JimpleBody;
+import soot.jimple.toolkits.callgraph.CallGraph;
+import soot.jimple.toolkits.callgraph.Edge;
+
+/**
+ * Checks that summaries written by a {@link SummaryStore} are read back
+ * unchanged, and that they are not applied once the code they were computed
+ * from has changed.
+ */
+public class SummaryStoreTest {
+
+    private static final RefType OBJECT = RefType.v("java.lang.Object");
+
+    private SootMethod id;
+    private SootMethod copy;
+    private InvokeStmt call;
+    private Local zero;
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        G.reset();
+        Jimple j = Jimple.v();
+
+        // lib.Helper.copy(o) returns o
+        copy = newMethod("lib.Helper", "copy", false);
+        JimpleBody b = j.newBody(copy);
+        Local p = j.newLocal("r0", OBJECT);
+        b.getLocals().add(p);
+        b.getUnits().add(j.newIdentityStmt(p, j.newParameterRef(OBJECT, 0)));
+        b.getUnits().add(j.newReturnStmt(p));
+        copy.setActiveBody(b);
+
+        // lib.Lib.id(o) calls lib.Helper.copy(o) and returns o
+        id = newMethod("lib.Lib", "id", false);
+        b = j.newBody(id);
+        Local r0 = j.newLocal("r0", OBJECT);
+        Local r1 = j.newLocal("r1", OBJECT);
+        b.getLocals().add(r0);
+        b.getLocals().add(r1);
+        b.getUnits().add(j.newIdentityStmt(r0, j.newParameterRef(OBJECT, 0)));
+        call = j.newInvokeStmt(j.newStaticInvokeExpr(copy.makeRef(), r0));
+        b.getUnits().add(call);
+        b.getUnits().add(j.newAssignStmt(r1, r0));
+        b.getUnits().add(j.newReturnStmt(r1));
+        id.setActiveBody(b);
+
+        CallGraph cg = new CallGraph();
+        cg.addEdge(new Edge(id, call, copy, Kind.STATIC));
+        Scene.v().setCallGraph(cg);
+
+        zero = j.newLocal("<<zero>>", OBJECT);
+        file = File.createTempFile("summaries", ".bin");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    private SootMethod newMethod(String className, String name, boolean application) {
+        SootClass c = new SootClass(className, Modifier.PUBLIC);
+        Scene.v().addClass(c);
+        if (application)
+            c.setApplicationClass();
+        else
+            c.setLibraryClass();
+        SootMethod m = new SootMethod(name, Collections.<Type>singletonList(OBJECT),
+                OBJECT, Modifier.PUBLIC | Modifier.STATIC);
+        c.addMethod(m);
+        return m;
+    }
+
+    private Local local(SootMethod m, String name) {
+        return new LocalFactCodec().decode(name, m.getActiveBody());
+    }
+
+    /** r0 at the start of id() gives r1 at its return, zero gives zero. */
+    private Map<Local, Map<Unit, Set<Local>>> summaries() {
+        Unit ret = id.getActiveBody().getUnits().getLast();
+        Map<Local, Map<Unit, Set<Local>>> res = new HashMap<Local, Map<Unit, Set<Local>>>();
+        res.put(local(id, "r0"), Collections.singletonMap(ret, Collections.singleton(local(id, "r1"))));
+        res.put(zero, Collections.singletonMap(ret, Collections.singleton(zero)));
+        return res;
+    }
+
+    private SummaryStore<Local> newStore() {
+        return new SummaryStore<Local>("test", new LocalFactCodec());
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        SummaryStore<Local> store = newStore();
+        store.record(id, summaries(), zero);
+        assertEquals(1, store.size());
+        store.save(file);
+
+        SummaryStore<Local> loaded = newStore();
+        loaded.load(file);
+        assertEquals(1, loaded.size());
+        assertTrue(loaded.hasSummaries(id, zero));
+        for (Map.Entry<Local, Map<Unit, Set<Local>>> e : summaries().entrySet())
+            assertEquals(e.getValue(), loaded.getSummary(id, e.getKey(), zero));
+        assertNull(loaded.getSummary(id, local(id, "r1"), zero));
+        assertFalse(loaded.hasSummaries(copy, zero));
+    }
+
+    @Test
+    public void changedCallee() throws IOException {
+        SummaryStore<Local> store = newStore();
+        store.record(id, summaries(), zero);
+        store.save(file);
+
+        Unit first = copy.getActiveBody().getUnits().getFirst();
+        copy.getActiveBody().getUnits().insertAfter(Jimple.v().newNopStmt(), first);
+        SummaryStore<Local> loaded = newStore();
+        loaded.load(file);
+        assertEquals(1, loaded.size());
+        assertFalse(loaded.hasSummaries(id, zero));
+    }
+
+    @Test
+    public void changedCalleeInCycle() throws IOException {
+        // copy calls id back, so both are keyed as one component
+        Scene.v().getCallGraph().addEdge(new Edge(copy, null, id, Kind.STATIC));
+        SummaryStore<Local> store = newStore();
+        store.record(id, summaries(), zero);
+        store.save(file);
+
+        SummaryStore<Local> loaded = newStore();
+        loaded.load(file);
+        assertTrue(loaded.hasSummaries(id, zero));
+
+        Unit first = copy.getActiveBody().getUnits().getFirst();
+        copy.getActiveBody().getUnits().insertAfter(Jimple.v().newNopStmt(), first);
+        loaded = newStore();
+        loaded.load(file);
+        assertFalse(loaded.hasSummaries(id, zero));
+    }
+
+    @Test
+    public void otherCallGraphOptions() throws IOException {
+        SummaryStore<Local> store = newStore();
+        store.record(id, summaries(), zero);
+        store.save(file);
+
+        PhaseOptions.v().setPhaseOption("cg", "all-reachable:true");
+        SummaryStore<Local> loaded = newStore();
+        loaded.load(file);
+        assertEquals(0, loaded.size());
+    }
+
+    @Test
+    public void callbackIntoApplication() {
+        SootMethod callback = newMethod("app.Callback", "run", true);
+        callback.setActiveBody(Jimple.v().newBody(callback));
+        CallGraph cg = new CallGraph();
+        cg.addEdge(new Edge(id, call, copy, Kind.STATIC));
+        cg.addEdge(new Edge(copy, copy.getActiveBody().getUnits().getFirst(), callback, Kind.STATIC));
+        Scene.v().setCallGraph(cg);
+
+        SummaryStore<Local> store = newStore();
+        assertFalse(store.isSummarized(id));
+        assertFalse(store.isSummarized(copy));
+        store.record(id, summaries(), zero);
+        assertEquals(0, store.size());
+    }
+
+}
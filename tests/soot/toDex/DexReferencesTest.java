@@ -0,0 +1,92 @@
+package soot.toDex;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.jf.dexlib2.AnnotationVisibility;
+import org.jf.dexlib2.iface.AnnotationElement;
+import org.jf.dexlib2.immutable.ImmutableAnnotation;
+import org.jf.dexlib2.immutable.ImmutableAnnotationElement;
+import org.jf.dexlib2.immutable.reference.ImmutableFieldReference;
+import org.jf.dexlib2.immutable.reference.ImmutableMethodReference;
+import org.jf.dexlib2.immutable.value.ImmutableArrayEncodedValue;
+import org.jf.dexlib2.immutable.value.ImmutableEnumEncodedValue;
+import org.jf.dexlib2.immutable.value.ImmutableMethodEncodedValue;
+import org.jf.dexlib2.immutable.value.ImmutableTypeEncodedValue;
+import org.junit.Test;
+
+/**
+ * Checks that {@link DexReferences} counts the pool entries that the
+ * DexBuilder interns for a reference, and where it starts a new dex file.
+ */
+public class DexReferencesTest {
+
+    @Test
+    public void methodAddsProtoAndTypes() {
+        DexReferences refs = new DexReferences();
+        refs.addMethod(new ImmutableMethodReference("La/A;", "m",
+                Arrays.asList("I", "Ljava/lang/String;"), "V"));
+        refs.addMethod(new ImmutableMethodReference("La/B;", "n",
+                Arrays.asList("I", "Ljava/lang/String;"), "V"));
+        assertEquals(2, refs.methodCount());
+        assertEquals(1, refs.protoCount());
+        assertEquals(5, refs.typeCount());
+
+        refs.addField(new ImmutableFieldReference("La/A;", "f", "[I"));
+        assertEquals(1, refs.fieldCount());
+        assertEquals(6, refs.typeCount());
+    }
+
+    @Test
+    public void annotationValues() {
+        DexReferences refs = new DexReferences();
+        AnnotationElement values = new ImmutableAnnotationElement("value",
+                new ImmutableArrayEncodedValue(Arrays.asList(
+                        new ImmutableTypeEncodedValue("La/T;"),
+                        new ImmutableEnumEncodedValue(new ImmutableFieldReference("La/E;", "X", "La/E;")))));
+        AnnotationElement method = new ImmutableAnnotationElement("value",
+                new ImmutableMethodEncodedValue(new ImmutableMethodReference("La/O;", "run",
+                        Collections.<String>emptyList(), "V")));
+        refs.addAnnotations(new HashSet<ImmutableAnnotation>(Arrays.asList(
+                new ImmutableAnnotation(AnnotationVisibility.RUNTIME, "La/Ann;",
+                        Collections.singleton(values)),
+                new ImmutableAnnotation(AnnotationVisibility.SYSTEM, "Ldalvik/annotation/EnclosingMethod;",
+                        Collections.singleton(method)))));
+        assertEquals(1, refs.fieldCount());
+        assertEquals(1, refs.methodCount());
+        assertEquals(1, refs.protoCount());
+        // La/Ann;, Ldalvik/annotation/EnclosingMethod;, La/T;, La/E;, La/O; and V
+        assertEquals(6, refs.typeCount());
+    }
+
+    @Test
+    public void limitPerPool() {
+        DexReferences current = new DexReferences();
+        DexReferences added = new DexReferences();
+        // an empty dex file takes a class of any size
+        for (int i = 0; i <= DexReferences.MAX_ENTRIES; i++)
+            added.addType("LT" + i + ";");
+        assertTrue(current.canTake(added));
+
+        current.addAll(added);
+        assertEquals(DexReferences.MAX_ENTRIES + 1, current.typeCount());
+        DexReferences one = new DexReferences();
+        one.addType("LNew;");
+        assertFalse(current.canTake(one));
+
+        current.clear();
+        for (int i = 0; i < DexReferences.MAX_ENTRIES - 1; i++)
+            current.addType("LT" + i + ";");
+        DexReferences two = new DexReferences();
+        two.addType("LT0;");
+        two.addType("LNew;");
+        assertTrue(current.canTake(two));
+        two.addType("LOther;");
+        assertFalse(current.canTake(two));
+    }
+}
@@ -0,0 +1,128 @@
+package soot.toolkits.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import soot.IntType;
+import soot.Local;
+import soot.Modifier;
+import soot.RefType;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.Type;
+import soot.Unit;
+import soot.VoidType;
+import soot.jimple.IfStmt;
+import soot.jimple.IntConstant;
+import soot.jimple.Jimple;
+import soot.jimple.JimpleBody;
+import soot.toolkits.exceptions.ThrowAnalysis;
+
+/**
+ * Checks that a {@link CompactUnitGraph} has the same edges as the graph
+ * it replaces, and that {@link soot.Body#getCompactUnitGraph()} rebuilds
+ * it only when the body changes.
+ */
+public class CompactUnitGraphTest {
+
+    private JimpleBody body;
+    private IfStmt branch;
+    private Unit ret;
+
+    @BeforeClass
+    public static void loadClasses() {
+        Scene.v().loadBasicClasses();
+    }
+
+    @Before
+    public void setUp() {
+        SootClass c = new SootClass("test.Foo", Modifier.PUBLIC);
+        SootMethod m = new SootMethod("bar",
+                Collections.<Type>singletonList(IntType.v()), VoidType.v(), Modifier.PUBLIC);
+        c.addMethod(m);
+
+        Jimple j = Jimple.v();
+        body = j.newBody(m);
+        Local thiz = j.newLocal("this", RefType.v("test.Foo"));
+        Local i = j.newLocal("i", IntType.v());
+        body.getLocals().addAll(Arrays.asList(thiz, i));
+
+        ret = j.newReturnVoidStmt();
+        Unit loop = j.newAssignStmt(i, j.newAddExpr(i, IntConstant.v(1)));
+        branch = j.newIfStmt(j.newGeExpr(i, IntConstant.v(0)), ret);
+
+        body.getUnits().add(j.newIdentityStmt(thiz, j.newThisRef(RefType.v("test.Foo"))));
+        body.getUnits().add(j.newIdentityStmt(i, j.newParameterRef(IntType.v(), 0)));
+        body.getUnits().add(loop);
+        body.getUnits().add(branch);
+        body.getUnits().add(j.newLookupSwitchStmt(i,
+                Arrays.asList(IntConstant.v(1), IntConstant.v(2)),
+                Arrays.asList(loop, ret), loop));
+        body.getUnits().add(ret);
+    }
+
+    private static void assertSameEdges(UnitGraph expected, CompactUnitGraph actual) {
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected.getHeads(), actual.getHeads());
+        assertEquals(expected.getTails(), actual.getTails());
+        int n = 0;
+        for (Unit u : expected) {
+            assertSame(u, actual.getUnit(n));
+            assertEquals(n++, actual.indexOf(u));
+            assertEquals(expected.getSuccsOf(u), actual.getSuccsOf(u));
+            assertEquals(expected.getPredsOf(u), actual.getPredsOf(u));
+        }
+    }
+
+    @Test
+    public void sameEdgesAsBriefUnitGraph() {
+        assertSameEdges(new BriefUnitGraph(body), new CompactUnitGraph(body));
+        assertSameEdges(new BriefUnitGraph(body), new CompactUnitGraph(new BriefUnitGraph(body)));
+    }
+
+    @Test
+    public void cachedUntilBodyChanges() {
+        CompactUnitGraph g = body.getCompactUnitGraph();
+        assertSame(g, body.getCompactUnitGraph());
+        assertEquals(2, g.getSuccCount(g.indexOf(branch)));
+
+        branch.setTarget(branch);
+        CompactUnitGraph h = body.getCompactUnitGraph();
+        assertNotSame(g, h);
+        assertEquals(Arrays.asList(body.getUnits().getSuccOf(branch), branch), h.getSuccsOf(branch));
+
+        body.getUnits().insertBefore(Jimple.v().newNopStmt(), ret);
+        assertNotSame(h, body.getCompactUnitGraph());
+    }
+
+    @Test
+    public void sameEdgesAsExceptionalUnitGraph() {
+        ThrowAnalysis ta = Scene.v().getDefaultThrowAnalysis();
+        // without traps, the graph is built directly from the body
+        assertSameExceptionalEdges(new ExceptionalUnitGraph(body, ta, false),
+                CompactUnitGraph.exceptional(body, ta, false));
+
+        body.getTraps().add(Jimple.v().newTrap(Scene.v().getSootClass("java.lang.Throwable"),
+                branch, ret, ret));
+        assertSameExceptionalEdges(new ExceptionalUnitGraph(body, ta, false),
+                CompactUnitGraph.exceptional(body, ta, false));
+    }
+
+    private static void assertSameExceptionalEdges(ExceptionalUnitGraph expected,
+            CompactUnitGraph actual) {
+        assertSameEdges(expected, actual);
+        assertTrue(actual.hasExceptionalSuccs());
+        for (Unit u : expected)
+            assertEquals(expected.getExceptionalSuccsOf(u), actual.getExceptionalSuccsOf(u));
+    }
+}
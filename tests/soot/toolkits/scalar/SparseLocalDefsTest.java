@@ -0,0 +1,149 @@
+package soot.toolkits.scalar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import soot.IntType;
+import soot.Local;
+import soot.Modifier;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.Type;
+import soot.Unit;
+import soot.Value;
+import soot.ValueBox;
+import soot.jimple.IfStmt;
+import soot.jimple.IntConstant;
+import soot.jimple.Jimple;
+import soot.jimple.JimpleBody;
+import soot.toolkits.graph.BriefUnitGraph;
+import soot.toolkits.graph.UnitGraph;
+
+/**
+ * Compares the answers of {@link SparseLocalDefs} with those of
+ * {@link SmartLocalDefs} on random bodies with branches and loops.
+ */
+public class SparseLocalDefsTest {
+
+    private final Jimple j = Jimple.v();
+
+    @Test
+    public void sameAsSmartLocalDefs() {
+        Random r = new Random(42);
+        int compared = 0;
+        for (int i = 0; i < 300; i++) {
+            JimpleBody b = randomBody(r, 5 + r.nextInt(30));
+            UnitGraph g = new BriefUnitGraph(b);
+            LocalDefs smart = new SmartLocalDefs(g, new SimpleLiveLocals(g));
+            LocalDefs sparse = new SparseLocalDefs(g);
+            for (Unit u : b.getUnits()) {
+                for (ValueBox vb : u.getUseBoxes()) {
+                    Value v = vb.getValue();
+                    if (!(v instanceof Local))
+                        continue;
+                    Local l = (Local) v;
+                    List<Unit> expected = smart.getDefsOfAt(l, u);
+                    List<Unit> actual = sparse.getDefsOfAt(l, u);
+                    if (expected.isEmpty()) {
+                        // the documented difference: an unreached single
+                        // definition is still returned
+                        List<Unit> defs = defsOf(b, l);
+                        assertEquals(defs.size() == 1 ? defs : expected, actual);
+                    } else {
+                        assertEquals(new HashSet<Unit>(expected), new HashSet<Unit>(actual));
+                        compared++;
+                    }
+                }
+            }
+        }
+        assertTrue(compared > 1000);
+    }
+
+    @Test
+    public void singleDefinitionAfterUse() {
+        JimpleBody b = newBody();
+        Local x = j.newLocal("x", IntType.v());
+        Local y = j.newLocal("y", IntType.v());
+        b.getLocals().add(x);
+        b.getLocals().add(y);
+        Unit use = j.newAssignStmt(y, x);
+        Unit def = j.newAssignStmt(x, IntConstant.v(1));
+        b.getUnits().add(use);
+        b.getUnits().add(def);
+        b.getUnits().add(j.newReturnStmt(y));
+
+        UnitGraph g = new BriefUnitGraph(b);
+        assertEquals(Collections.<Unit>emptyList(),
+                new SmartLocalDefs(g, new SimpleLiveLocals(g)).getDefsOfAt(x, use));
+        assertEquals(Collections.singletonList(def), new SparseLocalDefs(g).getDefsOfAt(x, use));
+    }
+
+    private JimpleBody newBody() {
+        SootClass c = new SootClass("test.Defs", Modifier.PUBLIC);
+        SootMethod m = new SootMethod("m", Collections.<Type>emptyList(), IntType.v(), Modifier.STATIC);
+        c.addMethod(m);
+        return j.newBody(m);
+    }
+
+    /**
+     * Returns a body over a few int locals made of constant assignments,
+     * additions and branches to random targets, ending in a return.
+     */
+    private JimpleBody randomBody(Random r, int size) {
+        JimpleBody b = newBody();
+        List<Local> locals = new ArrayList<Local>();
+        for (int i = 0; i < 4; i++) {
+            Local l = j.newLocal("l" + i, IntType.v());
+            locals.add(l);
+            b.getLocals().add(l);
+        }
+
+        List<Unit> units = new ArrayList<Unit>();
+        List<IfStmt> branches = new ArrayList<IfStmt>();
+        for (int i = 0; i < size; i++) {
+            Local l = locals.get(r.nextInt(locals.size()));
+            Unit u;
+            switch (r.nextInt(4)) {
+            case 0:
+                u = j.newAssignStmt(l, IntConstant.v(i));
+                break;
+            case 1:
+                u = j.newAssignStmt(l, j.newAddExpr(locals.get(r.nextInt(locals.size())),
+                        locals.get(r.nextInt(locals.size()))));
+                break;
+            case 2:
+                IfStmt branch = j.newIfStmt(j.newEqExpr(l, IntConstant.v(0)), (Unit) null);
+                branches.add(branch);
+                u = branch;
+                break;
+            default:
+                u = j.newAssignStmt(l, locals.get(r.nextInt(locals.size())));
+            }
+            units.add(u);
+        }
+        units.add(j.newReturnStmt(locals.get(0)));
+        for (IfStmt branch : branches)
+            branch.setTarget(units.get(r.nextInt(units.size())));
+        b.getUnits().addAll(units);
+        return b;
+    }
+
+    private static List<Unit> defsOf(JimpleBody b, Local l) {
+        List<Unit> ret = new ArrayList<Unit>();
+        for (Unit u : b.getUnits()) {
+            for (ValueBox vb : u.getDefBoxes()) {
+                if (vb.getValue() == l)
+                    ret.add(u);
+            }
+        }
+        return ret;
+    }
+}
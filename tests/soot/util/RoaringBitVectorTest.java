@@ -0,0 +1,111 @@
+package soot.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Compares {@link RoaringBitVector} with {@link BitSet} on sparse, dense
+ * and clustered sets, so that all three kinds of containers and the
+ * conversions between them are exercised.
+ */
+public class RoaringBitVectorTest {
+
+    private static void assertSame(BitSet expected, RoaringBitVector actual) {
+        assertEquals(expected.cardinality(), actual.cardinality());
+        assertEquals(expected.isEmpty(), actual.isEmpty());
+        RoaringBitVector.SetBitIterator it = actual.iterator();
+        for (int i = expected.nextSetBit(0); i >= 0; i = expected.nextSetBit(i + 1)) {
+            assertTrue(it.hasNext());
+            assertEquals(i, it.next());
+            assertTrue(actual.get(i));
+        }
+        assertFalse(it.hasNext());
+    }
+
+    /** Fills both sets with count bits below limit, in runs of up to
+     * maxRun consecutive bits. */
+    private static void fill(Random r, BitSet expected, RoaringBitVector actual,
+            int count, int limit, int maxRun) {
+        while (count > 0) {
+            int start = r.nextInt(limit);
+            int len = 1 + r.nextInt(maxRun);
+            for (int i = start; i < start + len && i < limit; i++) {
+                assertEquals(!expected.get(i), actual.set(i));
+                expected.set(i);
+            }
+            count -= len;
+        }
+    }
+
+    @Test
+    public void setAndGet() {
+        Random r = new Random(1);
+        int[][] shapes = { { 100, 1 << 20, 1 }, { 10000, 1 << 16, 1 },
+                { 50000, 1 << 17, 1 }, { 60000, 1 << 18, 500 }, { 3000, 70000, 40 } };
+        for (int[] shape : shapes) {
+            BitSet expected = new BitSet();
+            RoaringBitVector actual = new RoaringBitVector();
+            fill(r, expected, actual, shape[0], shape[1], shape[2]);
+            assertSame(expected, actual);
+            assertFalse(actual.get(shape[1] + 1));
+        }
+    }
+
+    @Test
+    public void orAndAndNot() {
+        Random r = new Random(2);
+        int[][] shapes = { { 50, 200000, 1 }, { 8000, 1 << 16, 1 },
+                { 40000, 1 << 17, 300 }, { 5000, 1 << 16, 20 } };
+        for (int[] a : shapes) {
+            for (int[] b : shapes) {
+                for (int variant = 0; variant < 4; variant++) {
+                    BitSet thisExp = new BitSet();
+                    RoaringBitVector thisAct = new RoaringBitVector();
+                    fill(r, thisExp, thisAct, a[0], a[1], a[2]);
+                    BitSet orExp = new BitSet();
+                    RoaringBitVector orAct = new RoaringBitVector();
+                    fill(r, orExp, orAct, b[0], b[1], b[2]);
+
+                    BitVector mask = null;
+                    BitSet maskExp = null;
+                    if ((variant & 1) != 0) {
+                        mask = new BitVector();
+                        maskExp = new BitSet();
+                        for (int i = 0; i < 150000; i++) {
+                            if (r.nextInt(3) != 0) {
+                                mask.set(i);
+                                maskExp.set(i);
+                            }
+                        }
+                    }
+                    RoaringBitVector exclude = null;
+                    BitSet excludeExp = null;
+                    if ((variant & 2) != 0) {
+                        exclude = new RoaringBitVector();
+                        excludeExp = new BitSet();
+                        fill(r, excludeExp, exclude, a[0], a[1], a[2]);
+                    }
+
+                    BitSet added = (BitSet) orExp.clone();
+                    if (maskExp != null) added.and(maskExp);
+                    if (excludeExp != null) added.andNot(excludeExp);
+                    BitSet expected = (BitSet) thisExp.clone();
+                    expected.or(added);
+
+                    BitSet orBefore = (BitSet) orExp.clone();
+                    assertEquals(!expected.equals(thisExp),
+                            thisAct.orAndAndNot(orAct, mask, exclude));
+                    assertSame(expected, thisAct);
+                    assertSame(orBefore, orAct);
+                    assertFalse(thisAct.orAndAndNot(orAct, mask, exclude));
+                }
+            }
+        }
+    }
+}